@@ -93,6 +93,8 @@ public class Config {
 	public static boolean runOptimiser;
 	public static boolean runRaytracingOptimiser;
 	public static boolean runFaceOptimiser;
+	public static boolean runGreedyMeshing;
+	public static boolean quantizeMeshes;
 	public static boolean raytracingOptimiserUseMeshSubsets;
 	public static float fgFullnessThreshold;
 	public static float bgFullnessThreshold;
@@ -348,6 +350,12 @@ public class Config {
 				if(data.has("runFaceOptimiser"))
 					runFaceOptimiser = data.get("runFaceOptimiser").getAsBoolean();
 				
+				if(data.has("runGreedyMeshing"))
+					runGreedyMeshing = data.get("runGreedyMeshing").getAsBoolean();
+				
+				if(data.has("quantizeMeshes"))
+					quantizeMeshes = data.get("quantizeMeshes").getAsBoolean();
+				
 				if(data.has("raytracingOptimiserUseMeshSubsets"))
 					raytracingOptimiserUseMeshSubsets = data.get("raytracingOptimiserUseMeshSubsets").getAsBoolean();
 				
@@ -508,6 +516,7 @@ public class Config {
 		}
 		
 		transparentOcclusion.addAll(ResourcePackBedrockEdition.transparentBlocks);
+		ConfigFlags.compile();
 		BuiltInBlockStateRegistry.load();
 		EntityBuiltinsRegistry.load();
 		Materials.reload();
@@ -81,6 +81,8 @@ public class ConfigDefaults {
 	public static boolean runOptimiser;
 	public static boolean runRaytracingOptimiser;
 	public static boolean runFaceOptimiser;
+	public static boolean runGreedyMeshing;
+	public static boolean quantizeMeshes;
 	public static boolean raytracingOptimiserUseMeshSubsets;
 	public static float fgFullnessThreshold;
 	public static float bgFullnessThreshold;
@@ -263,6 +265,8 @@ public class ConfigDefaults {
 		runOptimiser = true;
 		runRaytracingOptimiser = true;
 		runFaceOptimiser = true;
+		runGreedyMeshing = true;
+		quantizeMeshes = true;
 		raytracingOptimiserUseMeshSubsets = true;
 		fgFullnessThreshold = 0.15f;
 		bgFullnessThreshold = 0.01f;
@@ -0,0 +1,104 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The texture and block lists in Config compiled into a flag word
+ * per name, so that code that needs to check them for every face
+ * doesn't have to go through the lists each time.
+ * 
+ * Names get an id the first time they show up in one of the lists
+ * and the flags for that id say in which lists it is.
+ * Call compile() whenever the lists have changed.
+ */
+public class ConfigFlags {
+	
+	public static final int BANNED_MATERIAL = 1;
+	public static final int FORCE_BIOME_COLOR = 1 << 1;
+	public static final int FORCE_NO_BIOME_COLOR = 1 << 2;
+	public static final int NO_FACE_OPTIMISATION = 1 << 3;
+	public static final int IGNORE_ATLAS = 1 << 4;
+	
+	private static class FlagTable{
+		
+		public Map<String, Integer> ids = new HashMap<String, Integer>();
+		public int[] flags = new int[16];
+		
+		public void add(List<String> names, int flag) {
+			for(String name : names) {
+				Integer id = ids.getOrDefault(name, null);
+				if(id == null) {
+					id = Integer.valueOf(ids.size());
+					ids.put(name, id);
+					if(id.intValue() >= flags.length) {
+						int[] newFlags = new int[flags.length * 2];
+						System.arraycopy(flags, 0, newFlags, 0, flags.length);
+						flags = newFlags;
+					}
+				}
+				flags[id.intValue()] |= flag;
+			}
+		}
+		
+	}
+	
+	private static volatile FlagTable table = new FlagTable();
+	
+	public static void compile() {
+		FlagTable newTable = new FlagTable();
+		newTable.add(Config.bannedMaterials, BANNED_MATERIAL);
+		newTable.add(Config.forceBiomeColor, FORCE_BIOME_COLOR);
+		newTable.add(Config.forceNoBiomeColor, FORCE_NO_BIOME_COLOR);
+		newTable.add(Config.noFaceOptimisation, NO_FACE_OPTIMISATION);
+		newTable.add(Config.ignoreAtlas, IGNORE_ATLAS);
+		table = newTable;
+	}
+	
+	public static int getFlags(String name) {
+		if(name == null)
+			return 0;
+		FlagTable table = ConfigFlags.table;
+		Integer id = table.ids.getOrDefault(name, null);
+		if(id == null)
+			return 0;
+		return table.flags[id.intValue()];
+	}
+	
+	public static boolean hasFlag(String name, int flag) {
+		return (getFlags(name) & flag) != 0;
+	}
+	
+}
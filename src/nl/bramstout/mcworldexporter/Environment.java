@@ -132,7 +132,10 @@ public class Environment {
 			new EnvironmentVariable("MIEX_BUILT_IN_FILES_SHOW_PROMPT", VariableType.BOOLEAN, "0",
 					"When built-in files are updated, show a prompt with which files were updated."),
 			new EnvironmentVariable("MIEX_SKIP_WORLD_RESOURCEPACK_CHECK", VariableType.BOOLEAN, "0",
-					"When a world is opened up, skip checking for any resource packs that the world might need.")
+					"When a world is opened up, skip checking for any resource packs that the world might need."),
+			new EnvironmentVariable("MIEX_IMAGE_CACHE_SIZE", VariableType.INTEGER, null,
+					"The maximum amount of memory in megabytes that MiEx uses to keep decoded textures around, so that they don't " + 
+					"need to be read in again. By default it's an eighth of the maximum memory that MiEx can use. Set to 0 to disable it.")
 	};
 	
 	public static EnvironmentVariable getEnvironmentVariableObject(String name) {
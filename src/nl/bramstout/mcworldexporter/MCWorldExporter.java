@@ -44,6 +44,7 @@ import javax.swing.UnsupportedLookAndFeelException;
 import nl.bramstout.mcworldexporter.commands.CommandSystem;
 import nl.bramstout.mcworldexporter.export.GeneratedTextures;
 import nl.bramstout.mcworldexporter.export.Noise;
+import nl.bramstout.mcworldexporter.image.ImageCache;
 import nl.bramstout.mcworldexporter.launcher.Launcher;
 import nl.bramstout.mcworldexporter.launcher.LauncherRegistry;
 import nl.bramstout.mcworldexporter.launcher.MinecraftSave;
@@ -590,6 +591,13 @@ public class MCWorldExporter {
 			}
 		}catch(Exception ex) {}
 		
+		try {
+			String imageCacheSizeEnvVar = Environment.getEnv("MIEX_IMAGE_CACHE_SIZE");
+			if(imageCacheSizeEnvVar != null) {
+				ImageCache.maxSize = Long.parseLong(imageCacheSizeEnvVar) * 1024L * 1024L;
+			}
+		}catch(Exception ex) {}
+		
 		try {
 			for(int i = 0; i < args.length; ++i) {
 				if(args[i].equalsIgnoreCase("-homeDir"))
@@ -40,7 +40,7 @@ import java.util.Map.Entry;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
-import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.Json;
 import nl.bramstout.mcworldexporter.resourcepack.ResourcePack;
 import nl.bramstout.mcworldexporter.resourcepack.ResourcePacks;
@@ -124,12 +124,13 @@ public class Atlas {
 					// those.
 					// We don't need to do it for the base resource pack, since the items map
 					// is already empty.
-					for(File rootFolder : resourcePacks.get(i).getFolders()) {
+					ResourcePack resourcePack = resourcePacks.get(i);
+					for(File rootFolder : resourcePack.getFolders()) {
 						File assetsFolder = new File(rootFolder, "assets");
-						if(assetsFolder.exists() && assetsFolder.isDirectory()) {
-							for(File namespace : assetsFolder.listFiles())
-								if(namespace.isDirectory())
-									processNamespace(namespace);
+						if(resourcePack.isDirectory(assetsFolder)) {
+							for(File namespace : resourcePack.listFiles(assetsFolder))
+								if(resourcePack.isDirectory(namespace))
+									processNamespace(resourcePack, namespace);
 						}
 					}
 				}
@@ -140,9 +141,7 @@ public class Atlas {
 					JsonObject data = Json.read(atlasFile).getAsJsonObject();
 					for (Entry<String, JsonElement> entry : data.entrySet()) {
 						try {
-							if(Config.bannedMaterials.contains(entry.getKey()))
-								continue;
-							if(Config.ignoreAtlas.contains(entry.getKey()))
+							if(ConfigFlags.hasFlag(entry.getKey(), ConfigFlags.BANNED_MATERIAL | ConfigFlags.IGNORE_ATLAS))
 								continue;
 							// If it's null or an empty object, then that means that texture
 							// shouldn't be part of an atlas.
@@ -173,22 +172,22 @@ public class Atlas {
 		}
 	}
 	
-	private static void processNamespace(File namespaceFolder) {
+	private static void processNamespace(ResourcePack resourcePack, File namespaceFolder) {
 		File texturesFolder = new File(namespaceFolder, "textures");
-		if(texturesFolder.exists() && texturesFolder.isDirectory()) {
-			processFolder(texturesFolder, namespaceFolder.getName(), "");
+		if(resourcePack.isDirectory(texturesFolder)) {
+			processFolder(resourcePack, texturesFolder, namespaceFolder.getName(), "");
 		}
 		File optifineFolder = new File(namespaceFolder, "optifine");
-		if(optifineFolder.exists() && optifineFolder.isDirectory()) {
-			processFolder(optifineFolder, "optifine;" + namespaceFolder.getName(), "");
+		if(resourcePack.isDirectory(optifineFolder)) {
+			processFolder(resourcePack, optifineFolder, "optifine;" + namespaceFolder.getName(), "");
 		}
 	}
 	
-	private static void processFolder(File folder, String namespace, String parent) {
-		for(File f : folder.listFiles()) {
-			if(f.isDirectory())
-				processFolder(f, namespace, parent + f.getName() + "/");
-			else if(f.isFile()) {
+	private static void processFolder(ResourcePack resourcePack, File folder, String namespace, String parent) {
+		for(File f : resourcePack.listFiles(folder)) {
+			if(resourcePack.isDirectory(f))
+				processFolder(resourcePack, f, namespace, parent + f.getName() + "/");
+			else if(resourcePack.isFile(f)) {
 				if(f.getName().endsWith(".png")) {
 					// We've found a texture, so now we need to remove it from the atlas.
 					// If the current resource pack does put it into an atlas, it'll add
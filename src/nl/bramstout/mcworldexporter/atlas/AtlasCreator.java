@@ -35,6 +35,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -53,6 +54,7 @@ import nl.bramstout.mcworldexporter.Config;
 import nl.bramstout.mcworldexporter.FileUtil;
 import nl.bramstout.mcworldexporter.Json;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
+import nl.bramstout.mcworldexporter.image.ImageCache;
 import nl.bramstout.mcworldexporter.image.ImageReader;
 import nl.bramstout.mcworldexporter.image.ImageWriter;
 import nl.bramstout.mcworldexporter.pbr.PbrImage;
@@ -92,6 +94,11 @@ public class AtlasCreator {
 		Set<String> textures;
 		int scale;
 		boolean lockedSize;
+		/**
+		 * The free space in the atlas. It's null when
+		 * it needs to be rebuilt from the items.
+		 */
+		AtlasPacker packer;
 		
 		public AtlasData() {
 			name = "";
@@ -102,6 +109,7 @@ public class AtlasCreator {
 			textures = new HashSet<String>();
 			scale = 1;
 			lockedSize = false;
+			packer = null;
 			img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
 			pbrImg = null;
 			// Fill it with black
@@ -113,6 +121,7 @@ public class AtlasCreator {
 		public void addItem(Atlas.AtlasItem item, BufferedImage img, PbrImage pbrImg) {
 			items.add(item);
 			textures.add(item.name);
+			packer = null;
 			
 			int itemX = (int) ((item.x / item.width) * ((float) size));
 			int itemY = (int) ((item.y / item.height) * ((float) size));
@@ -186,49 +195,25 @@ public class AtlasCreator {
 			}
 			
 			// Try to find a place that doesn't intersect with any existing textures.
-			Atlas.AtlasItem intersected = null;
-			//int minIntersectionHeight = Integer.MAX_VALUE;
-			int minIntersectionY = Integer.MAX_VALUE;
-			for(int j = height * this.padding; j <= size - (height*(this.repeats + this.padding));) {
-				//minIntersectionHeight = Integer.MAX_VALUE;
-				minIntersectionY = Integer.MAX_VALUE;
-				for(int i = width * this.padding; i <= size - (width*(this.repeats + this.padding));) {
-					intersected = intersect(i, j, width, height);
-					if(intersected != null) {
-						// We intersected with another texture,
-						// so move to the end of that texture.
-						// Also record the minimum height.
-						//minIntersectionHeight = Math.min(minIntersectionHeight, 
-						//					((int) ((1.0f / intersected.height) * ((float) size))) * 
-						//					(intersected.padding + this.padding));
-						int intersectedX = (int) ((intersected.x / intersected.width) * ((float) size));
-						int intersectedY = (int) ((intersected.y / intersected.height) * ((float) size));
-						int intersectedWidth = (int) ((((float) size) / intersected.width) * 
-												(intersected.padding + this.padding));
-						int intersectedHeight = (int) ((((float) size) / intersected.height) * 
-												(intersected.padding + this.padding));
-						intersectedWidth += width * this.padding;
-						intersectedHeight += height * this.padding;
-						i = Math.max(i + 1, intersectedX + intersectedWidth);
-						minIntersectionY = Math.min(minIntersectionY, intersectedY + intersectedHeight);
-						//i += Math.max(((int) (((float) size) / intersected.width)) * (intersected.padding + this.padding), 1);
-						continue;
-					}
-					// We found a space for this texture!
-					Atlas.AtlasItem item = new Atlas.AtlasItem(texture, null);
-					item.width = ((float) size) / ((float) width);
-					item.height = ((float) size) / ((float) height);
-					item.x = (((float) i) / ((float) size)) * item.width;
-					item.y = (((float) j) / ((float) size)) * item.height;
-					item.padding = this.repeats;
-					items.add(item);
-					drawTexture(i, j, item.padding, this.padding, scaling, tex, pbrTex);
-					return true;
-				}
-				//j += Math.max(minIntersectionHeight, 1);
-				if(minIntersectionY == Integer.MAX_VALUE)
-					minIntersectionY = j + 1;
-				j = Math.max(j + 1, minIntersectionY);
+			// Each texture takes up the area of its repeats plus padding on all sides.
+			int areaWidth = width * (this.repeats + this.padding + this.padding);
+			int areaHeight = height * (this.repeats + this.padding + this.padding);
+			if(packer == null)
+				buildPacker();
+			int[] area = packer.find(areaWidth, areaHeight);
+			if(area != null) {
+				packer.occupy(area[0], area[1], areaWidth, areaHeight);
+				int i = area[0] + width * this.padding;
+				int j = area[1] + height * this.padding;
+				Atlas.AtlasItem item = new Atlas.AtlasItem(texture, null);
+				item.width = ((float) size) / ((float) width);
+				item.height = ((float) size) / ((float) height);
+				item.x = (((float) i) / ((float) size)) * item.width;
+				item.y = (((float) j) / ((float) size)) * item.height;
+				item.padding = this.repeats;
+				items.add(item);
+				drawTexture(i, j, item.padding, this.padding, scaling, tex, pbrTex);
+				return true;
 			}
 			
 			// We couldn't find a place, so let's increase the atlas size;
@@ -290,6 +275,7 @@ public class AtlasCreator {
 			}
 			
 			size = newSize;
+			packer = null;
 			
 			// Try placing it again
 			if(pbrTex != null)
@@ -297,11 +283,8 @@ public class AtlasCreator {
 			return place(texture, tex.getWidth(), tex.getHeight(), tex, pbrTex);
 		}
 		
-		private Atlas.AtlasItem intersect(int x, int y, int width, int height) {
-			x -= width * padding;
-			y -= height * padding;
-			width *= (repeats + padding + padding);
-			height *= (repeats + padding + padding);
+		private void buildPacker() {
+			packer = new AtlasPacker(size);
 			int numAtlases = items.size();
 			Atlas.AtlasItem item = null;
 			int itemX;
@@ -318,13 +301,8 @@ public class AtlasCreator {
 				itemY -= itemHeight * padding;
 				itemWidth *= (item.padding + padding + padding);
 				itemHeight *= (item.padding + padding + padding);
-				
-				if(x >= (itemX + itemWidth) || (x + width) <= itemX ||
-					y >= (itemY + itemHeight) || (y + height) <= itemY)
-					continue;
-				return item;
+				packer.occupy(itemX, itemY, itemWidth, itemHeight);
 			}
-			return null;
 		}
 		
 		private void drawTexture(int x, int y, int repeats, int padding, float scaling, BufferedImage image, PbrImage pbrImg) {
@@ -541,45 +519,46 @@ public class AtlasCreator {
 		
 		List<ResourcePack> resourcePacks = sourceResourcePacks;
 		for(int i = resourcePacks.size() - 1; i >= 0; --i) {
-			for(File rootFolder : resourcePacks.get(i).getFoldersReversed()) {
+			ResourcePack sourcePack = resourcePacks.get(i);
+			for(File rootFolder : sourcePack.getFoldersReversed()) {
 				File assetsFolder = new File(rootFolder, "assets");
-				if(assetsFolder.exists() && assetsFolder.isDirectory()) {
+				if(sourcePack.isDirectory(assetsFolder)) {
 					// Java Edition resource packs.
-					for(File f : assetsFolder.listFiles()) {
-						if(!f.isDirectory())
+					for(File f : sourcePack.listFiles(assetsFolder)) {
+						if(!sourcePack.isDirectory(f))
 							continue;
 						if(f.getName().equalsIgnoreCase("miex"))
 							continue;
-						processNamespace(f.getName(), assetsFolder);
+						processNamespace(sourcePack, f.getName(), assetsFolder);
 					}
 				}
 				File texturesFolder = new File(rootFolder, "textures");
-				if(texturesFolder.exists() && texturesFolder.isDirectory()) {
+				if(sourcePack.isDirectory(texturesFolder)) {
 					// Bedrock Edition resource packs
 					File blocksFolder = new File(texturesFolder, "blocks");
-					if(blocksFolder.exists())
-						processFolder("blocks", "minecraft", texturesFolder, "blocks");
+					if(sourcePack.isDirectory(blocksFolder))
+						processFolder(sourcePack, "blocks", "minecraft", texturesFolder, "blocks");
 					
 					File customFolder = new File(texturesFolder, "custom");
-					if(customFolder.exists())
-						processFolder("custom", "minecraft", texturesFolder, "blocks");
+					if(sourcePack.isDirectory(customFolder))
+						processFolder(sourcePack, "custom", "minecraft", texturesFolder, "blocks");
 					
 	
 					File itemsFolder = new File(texturesFolder, "items");
-					if(itemsFolder.exists())
-						processFolder("items", "minecraft", texturesFolder, "items");
+					if(sourcePack.isDirectory(itemsFolder))
+						processFolder(sourcePack, "items", "minecraft", texturesFolder, "items");
 				}
 				File commonFolder = new File(rootFolder, "Common");
-				if(commonFolder.exists() && commonFolder.isDirectory()) {
+				if(sourcePack.isDirectory(commonFolder)) {
 					File blocksFolder = new File(commonFolder, "Blocks");
-					if(blocksFolder.exists())
-						processFolder("Blocks", "hytale", commonFolder, "blocks");
+					if(sourcePack.isDirectory(blocksFolder))
+						processFolder(sourcePack, "Blocks", "hytale", commonFolder, "blocks");
 					File blockTexturesFolder = new File(commonFolder, "BlockTextures");
-					if(blockTexturesFolder.exists())
-						processFolder("BlockTextures", "hytale", commonFolder, "blocks");
+					if(sourcePack.isDirectory(blockTexturesFolder))
+						processFolder(sourcePack, "BlockTextures", "hytale", commonFolder, "blocks");
 					File resourcesFolder = new File(commonFolder, "Resources");
-					if(resourcesFolder.exists())
-						processFolder("Resources", "hytale", commonFolder, "blocks");
+					if(sourcePack.isDirectory(resourcesFolder))
+						processFolder(sourcePack, "Resources", "hytale", commonFolder, "blocks");
 				}
 			}
 		}
@@ -611,7 +590,7 @@ public class AtlasCreator {
 			
 			float numTextures = (float) entry.getValue().size();
 			float texCounter = 0f;
-			for(String texture : entry.getValue()) {
+			for(String texture : sortBySize(entry.getValue())) {
 				float progress = ((texCounter / numTextures) + counter) / numAtlases;
 				MCWorldExporter.getApp().getUI().getProgressBar().setProgress(0.3f + progress * 0.3f);
 				texCounter += 1f;
@@ -802,6 +781,46 @@ public class AtlasCreator {
 		System.out.println("Atlases generated successfully.");
 	}
 	
+	/**
+	 * Sorts the textures from biggest to smallest,
+	 * since that makes them pack a lot tighter.
+	 */
+	private List<String> sortBySize(Set<String> textures){
+		final Map<String, Long> sizes = new HashMap<String, Long>();
+		for(String texture : textures) {
+			long size = 0;
+			if(!excludeFromAtlas.contains(texture)) {
+				File texFile = ResourcePacks.getTexture(texture);
+				if(texFile != null && texFile.exists())
+					size = FileUtil.getImageSize(texFile);
+			}
+			sizes.put(texture, Long.valueOf(size));
+		}
+		List<String> res = new ArrayList<String>(textures);
+		res.sort(new Comparator<String>() {
+			
+			@Override
+			public int compare(String o1, String o2) {
+				long size1 = sizes.get(o1).longValue();
+				long size2 = sizes.get(o2).longValue();
+				int width1 = (int) (size1 >>> 32);
+				int height1 = (int) (size1 & 0xFFFFFFFFL);
+				int width2 = (int) (size2 >>> 32);
+				int height2 = (int) (size2 & 0xFFFFFFFFL);
+				int res = Integer.compare(Math.max(width2, height2), Math.max(width1, height1));
+				if(res == 0)
+					res = Integer.compare(height2, height1);
+				if(res == 0)
+					res = Integer.compare(width2, width1);
+				if(res == 0)
+					res = o1.compareTo(o2);
+				return res;
+			}
+			
+		});
+		return res;
+	}
+	
 	private void finishUpAtlas(AtlasData atlas, File resourcePackFolder) {
 		String[] tokens = atlas.name.split(":");
 		File atlasFile = new File(resourcePackFolder, "assets/" + tokens[0] + "/textures/" + tokens[1] + ".png");
@@ -813,46 +832,47 @@ public class AtlasCreator {
 				ImageWriter.writeImage(atlasFile, atlas.pbrImg);
 			}else {
 				ImageIO.write(atlas.img, "png", atlasFile);
+				ImageCache.invalidate(atlasFile);
 			}
 		}catch(Exception ex) {
 			ex.printStackTrace();
 		}
 	}
 	
-	public void processNamespace(String namespace, File assetsFolder) {
+	public void processNamespace(ResourcePack sourcePack, String namespace, File assetsFolder) {
 		File namespaceFolder = new File(assetsFolder, namespace);
 		File blocksFolder = new File(namespaceFolder, "textures/block");
-		if(blocksFolder.exists())
-			processFolder("block", namespace, new File(namespaceFolder, "textures"), "blocks");
+		if(sourcePack.isDirectory(blocksFolder))
+			processFolder(sourcePack, "block", namespace, new File(namespaceFolder, "textures"), "blocks");
 		
 		File customFolder = new File(namespaceFolder, "textures/custom");
-		if(customFolder.exists())
-			processFolder("custom", namespace, new File(namespaceFolder, "textures"), "blocks");
+		if(sourcePack.isDirectory(customFolder))
+			processFolder(sourcePack, "custom", namespace, new File(namespaceFolder, "textures"), "blocks");
 		
 		File optifineFolder = new File(namespaceFolder, "optifine/ctm");
-		if(optifineFolder.exists())
-			processFolder("ctm", "optifine;" + namespace, new File(namespaceFolder, "optifine"), "blocks");
+		if(sourcePack.isDirectory(optifineFolder))
+			processFolder(sourcePack, "ctm", "optifine;" + namespace, new File(namespaceFolder, "optifine"), "blocks");
 		
 
 		File itemsFolder = new File(namespaceFolder, "textures/item");
-		if(itemsFolder.exists())
-			processFolder("item", namespace, new File(namespaceFolder, "textures"), "items");
+		if(sourcePack.isDirectory(itemsFolder))
+			processFolder(sourcePack, "item", namespace, new File(namespaceFolder, "textures"), "items");
 	}
 	
-	public void processFolder(String folder, String namespace, File texturesFolder, String group) {
+	public void processFolder(ResourcePack sourcePack, String folder, String namespace, File texturesFolder, String group) {
 		File folderFile = new File(texturesFolder, folder);
-		for(String fileStr : folderFile.list()) {
-			File file = new File(folderFile, fileStr);
-			if(file.isDirectory())
-				processFolder(folder + "/" + fileStr, namespace, texturesFolder, group);
-			else if(!file.isFile())
+		for(File file : sourcePack.listFiles(folderFile)) {
+			String fileStr = file.getName();
+			if(sourcePack.isDirectory(file))
+				processFolder(sourcePack, folder + "/" + fileStr, namespace, texturesFolder, group);
+			else if(!sourcePack.isFile(file))
 				continue;
 			if(!file.getName().toLowerCase().endsWith(".png"))
 				continue;
 			
 			String resourceName = namespace + ":" + folder + "/" + fileStr.split("\\.")[0];
 			// Ignore animated textures.
-			if(new File(folderFile, fileStr + ".mcmeta").exists()) {
+			if(sourcePack.exists(new File(folderFile, fileStr + ".mcmeta"))) {
 				MCMeta mcmeta = ResourcePacks.getMCMeta(resourceName);
 				if(mcmeta != null && (mcmeta.isAnimate() || mcmeta.isInterpolate())) {
 					excludeFromAtlas.add(resourceName);
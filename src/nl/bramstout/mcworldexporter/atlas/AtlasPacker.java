@@ -0,0 +1,163 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.atlas;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the free space in an atlas using the MaxRects algorithm.
+ * The free space is stored as a list of maximal free rectangles, which
+ * may overlap. Placing a rectangle splits every free rectangle that
+ * it overlaps into the parts around it.
+ */
+class AtlasPacker {
+	
+	private static class Rect{
+		
+		int x;
+		int y;
+		int width;
+		int height;
+		
+		Rect(int x, int y, int width, int height){
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+		
+		boolean contains(Rect other) {
+			return other.x >= x && other.y >= y && 
+					(other.x + other.width) <= (x + width) && 
+					(other.y + other.height) <= (y + height);
+		}
+		
+	}
+	
+	private List<Rect> freeRects;
+	
+	public AtlasPacker(int size) {
+		freeRects = new ArrayList<Rect>();
+		freeRects.add(new Rect(0, 0, size, size));
+	}
+	
+	/**
+	 * Finds a free place for a rectangle of the given size. It picks
+	 * the free rectangle in which it leaves the smallest leftover
+	 * along its shortest side (best short side fit).
+	 * 
+	 * @return The x and y of the place, or null if it doesn't fit.
+	 */
+	public int[] find(int width, int height) {
+		Rect best = null;
+		int bestShortSide = Integer.MAX_VALUE;
+		int bestLongSide = Integer.MAX_VALUE;
+		for(Rect rect : freeRects) {
+			if(rect.width < width || rect.height < height)
+				continue;
+			int leftoverX = rect.width - width;
+			int leftoverY = rect.height - height;
+			int shortSide = Math.min(leftoverX, leftoverY);
+			int longSide = Math.max(leftoverX, leftoverY);
+			if(shortSide < bestShortSide || (shortSide == bestShortSide && (longSide < bestLongSide || 
+					(longSide == bestLongSide && (rect.y < best.y || (rect.y == best.y && rect.x < best.x)))))) {
+				best = rect;
+				bestShortSide = shortSide;
+				bestLongSide = longSide;
+			}
+		}
+		if(best == null)
+			return null;
+		return new int[] { best.x, best.y };
+	}
+	
+	/**
+	 * Marks the area as used.
+	 */
+	public void occupy(int x, int y, int width, int height) {
+		if(width <= 0 || height <= 0)
+			return;
+		Rect used = new Rect(x, y, width, height);
+		List<Rect> newRects = new ArrayList<Rect>();
+		for(int i = 0; i < freeRects.size();) {
+			Rect rect = freeRects.get(i);
+			if(used.x >= (rect.x + rect.width) || (used.x + used.width) <= rect.x ||
+					used.y >= (rect.y + rect.height) || (used.y + used.height) <= rect.y) {
+				++i;
+				continue;
+			}
+			// Split it into the parts that are left, right, above and below the used area.
+			if(used.x > rect.x)
+				newRects.add(new Rect(rect.x, rect.y, used.x - rect.x, rect.height));
+			if((used.x + used.width) < (rect.x + rect.width))
+				newRects.add(new Rect(used.x + used.width, rect.y, 
+										(rect.x + rect.width) - (used.x + used.width), rect.height));
+			if(used.y > rect.y)
+				newRects.add(new Rect(rect.x, rect.y, rect.width, used.y - rect.y));
+			if((used.y + used.height) < (rect.y + rect.height))
+				newRects.add(new Rect(rect.x, used.y + used.height, 
+										rect.width, (rect.y + rect.height) - (used.y + used.height)));
+			// Swap remove, the order doesn't matter.
+			freeRects.set(i, freeRects.get(freeRects.size() - 1));
+			freeRects.remove(freeRects.size() - 1);
+		}
+		
+		// Only the new rectangles can be contained by other rectangles,
+		// since the untouched ones were already maximal.
+		for(int i = 0; i < newRects.size(); ++i) {
+			Rect rect = newRects.get(i);
+			boolean contained = false;
+			for(Rect other : freeRects) {
+				if(other.contains(rect)) {
+					contained = true;
+					break;
+				}
+			}
+			if(!contained) {
+				for(int j = 0; j < newRects.size(); ++j) {
+					if(j == i)
+						continue;
+					Rect other = newRects.get(j);
+					// For identical rectangles, keep only the first one.
+					if(other.contains(rect) && (!rect.contains(other) || j < i)) {
+						contained = true;
+						break;
+					}
+				}
+			}
+			if(!contained)
+				freeRects.add(rect);
+		}
+	}
+	
+}
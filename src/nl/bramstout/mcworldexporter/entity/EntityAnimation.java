@@ -98,9 +98,16 @@ public class EntityAnimation {
 	public static class AnimationChannel{
 		
 		private List<Keyframe> keyframes;
+		/**
+		 * The index returned by the last lookup. Animations are almost always
+		 * sampled with increasing time, so the next lookup will most likely
+		 * land on the same or the next keyframe.
+		 */
+		private int cursor;
 		
 		public AnimationChannel() {
 			keyframes = new ArrayList<Keyframe>();
+			cursor = 0;
 		}
 		
 		public void write(DataOutput dos, float offset, float scale) throws IOException{
@@ -150,22 +157,76 @@ public class EntityAnimation {
 			return keyframes.get(keyframes.size() - 1);
 		}
 		
+		/**
+		 * Returns the index of the first keyframe with a time
+		 * greater than or equal to the given time, or the number
+		 * of keyframes if there is no such keyframe.
+		 */
+		private int findKeyframe(float time) {
+			int size = keyframes.size();
+			// Multiple threads can sample the same channel,
+			// so work on a local copy and validate it.
+			int index = cursor;
+			if(index >= 0 && index <= size) {
+				if((index == 0 || keyframes.get(index - 1).time < time) && 
+						(index == size || keyframes.get(index).time >= time))
+					return index;
+				if(index < size && keyframes.get(index).time < time && 
+						(index + 1 == size || keyframes.get(index + 1).time >= time)) {
+					cursor = index + 1;
+					return index + 1;
+				}
+			}
+			
+			// Binary search
+			int low = 0;
+			int high = size;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(keyframes.get(mid).time < time)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			cursor = low;
+			return low;
+		}
+		
 		public Keyframe getKeyframeAtExactTime(float time) {
-			for(Keyframe keyframe : keyframes)
+			int index = findKeyframe(time);
+			if(index < keyframes.size()) {
+				Keyframe keyframe = keyframes.get(index);
 				if(keyframe.time == time)
 					return keyframe;
+			}
 			return null;
 		}
 		
+		/**
+		 * Same as getKeyframeAtTime(time).value, but without
+		 * allocating a new keyframe.
+		 */
+		public float getValueAtTime(float time) {
+			if(keyframes.isEmpty())
+				return 0f;
+			
+			int endKey = findKeyframe(time);
+			int startKey = endKey - 1;
+			startKey = Math.min(Math.max(startKey, 0), keyframes.size()-1);
+			endKey = Math.min(Math.max(endKey, 0), keyframes.size()-1);
+			Keyframe startKeyframe = keyframes.get(startKey);
+			Keyframe endKeyframe = keyframes.get(endKey);
+			if(startKeyframe.time == endKeyframe.time)
+				return startKeyframe.value;
+			float t = (time - startKeyframe.time) / (endKeyframe.time - startKeyframe.time);
+			return startKeyframe.value * (1f - t) + endKeyframe.value * t;
+		}
+		
 		public Keyframe getKeyframeAtTime(float time) {
 			if(keyframes.isEmpty())
 				return new Keyframe(time, 0f);
 			
-			int endKey = 0;
-			for(; endKey < keyframes.size(); ++endKey) {
-				if(keyframes.get(endKey).time >= time)
-					break;
-			}
+			int endKey = findKeyframe(time);
 			// endKey now points to the closest keyframe after time
 			int startKey = endKey - 1;
 			startKey = Math.min(Math.max(startKey, 0), keyframes.size()-1);
@@ -183,11 +244,7 @@ public class EntityAnimation {
 			if(keyframes.isEmpty())
 				return new Keyframe(time, 0f);
 			
-			int endKey = 0;
-			for(; endKey < keyframes.size(); ++endKey) {
-				if(keyframes.get(endKey).time >= time)
-					break;
-			}
+			int endKey = findKeyframe(time);
 			// endKey now points to the closest keyframe after time
 			int startKey = endKey - 1;
 			startKey = Math.min(Math.max(startKey, 0), keyframes.size()-1);
@@ -249,11 +306,11 @@ public class EntityAnimation {
 				float valueY = 0f;
 				float valueZ = 0f;
 				if(channelX != null)
-					valueX = channelX.getKeyframeAtTime(time).value;
+					valueX = channelX.getValueAtTime(time);
 				if(channelY != null)
-					valueY = channelY.getKeyframeAtTime(time).value;
+					valueY = channelY.getValueAtTime(time);
 				if(channelZ != null)
-					valueZ = channelZ.getKeyframeAtTime(time).value;
+					valueZ = channelZ.getValueAtTime(time);
 				keyframes.add(new Keyframe3D(time, valueX, valueY, valueZ));
 			}
 		}
@@ -561,15 +618,15 @@ public class EntityAnimation {
 		float pivotZ = bindPose.pivotZ;
 		BoneAnimation bone = getBones().getOrDefault(bindPose.getName(), null);
 		if(bone != null) {
-			translateX = bone.getAnimTranslateX().getKeyframeAtTime(time).value;
-			translateY = bone.getAnimTranslateY().getKeyframeAtTime(time).value;
-			translateZ = bone.getAnimTranslateZ().getKeyframeAtTime(time).value;
-			rotateX = bone.getAnimRotateX().getKeyframeAtTime(time).value;
-			rotateY = bone.getAnimRotateY().getKeyframeAtTime(time).value;
-			rotateZ = bone.getAnimRotateZ().getKeyframeAtTime(time).value;
-			scaleX = bone.getAnimScaleX().getKeyframeAtTime(time).value;
-			scaleY = bone.getAnimScaleY().getKeyframeAtTime(time).value;
-			scaleZ = bone.getAnimScaleZ().getKeyframeAtTime(time).value;
+			translateX = bone.getAnimTranslateX().getValueAtTime(time);
+			translateY = bone.getAnimTranslateY().getValueAtTime(time);
+			translateZ = bone.getAnimTranslateZ().getValueAtTime(time);
+			rotateX = bone.getAnimRotateX().getValueAtTime(time);
+			rotateY = bone.getAnimRotateY().getValueAtTime(time);
+			rotateZ = bone.getAnimRotateZ().getValueAtTime(time);
+			scaleX = bone.getAnimScaleX().getValueAtTime(time);
+			scaleY = bone.getAnimScaleY().getValueAtTime(time);
+			scaleZ = bone.getAnimScaleZ().getValueAtTime(time);
 		}
 		return Matrix.translate(translateX, translateY, translateZ).mult(
 				Matrix.translate(pivotX, pivotY, pivotZ).mult(
@@ -0,0 +1,191 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.entity;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nl.bramstout.mcworldexporter.export.IndexCache;
+
+/**
+ * Bins entities into columns on the XZ plane, so that AI components
+ * can find the entities around them without going through chunks.
+ * 
+ * It gets rebuilt every frame of the simulation from the positions
+ * at the start of that frame. During a frame, entities can move a bit,
+ * so queries are expanded by MARGIN and callers should still check
+ * the actual distance themselves.
+ * 
+ * Building isn't thread-safe, but querying is, as long as
+ * no build happens at the same time.
+ */
+public class EntitySpatialGrid {
+	
+	private static final int CELL_SIZE_BITS = 3;
+	private static final float MARGIN = 2f;
+	
+	private IndexCache cellIds;
+	// The entities of a cell are stored in entities[cellStarts[cellId]] 
+	// up to entities[cellStarts[cellId+1]].
+	private int[] cellStarts;
+	private int numCells;
+	private Entity[] entities;
+	private float[] positions;
+	private int numEntities;
+	private int[] entityCells;
+	private float[] tmpPositions;
+	
+	public EntitySpatialGrid() {
+		cellIds = new IndexCache();
+		cellStarts = new int[64];
+		numCells = 0;
+		entities = new Entity[64];
+		positions = new float[64*3];
+		numEntities = 0;
+		entityCells = new int[64];
+		tmpPositions = new float[64*3];
+	}
+	
+	private static long getCellKey(int cellX, int cellZ) {
+		return (((long) cellX) << 32) | (((long) cellZ) & 0xFFFFFFFFL);
+	}
+	
+	public void build(List<Entity> entityList, float time) {
+		numEntities = entityList.size();
+		if(entities.length < numEntities) {
+			entities = new Entity[numEntities];
+			positions = new float[numEntities*3];
+			entityCells = new int[numEntities];
+			tmpPositions = new float[numEntities*3];
+		}
+		cellIds.clear();
+		numCells = 0;
+		
+		// Assign all entities to a cell and count the entities per cell.
+		for(int i = 0; i < numEntities; ++i) {
+			Entity entity = entityList.get(i);
+			float x = entity.getX();
+			float y = entity.getY();
+			float z = entity.getZ();
+			if(entity.getAnimation() != null) {
+				x = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+				y = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+				z = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
+			}
+			tmpPositions[i*3] = x;
+			tmpPositions[i*3+1] = y;
+			tmpPositions[i*3+2] = z;
+			
+			long key = getCellKey(((int) Math.floor(x)) >> CELL_SIZE_BITS, ((int) Math.floor(z)) >> CELL_SIZE_BITS);
+			int cellId = cellIds.getOrDefault(key, -1);
+			if(cellId < 0) {
+				cellId = numCells;
+				numCells++;
+				cellIds.put(key, cellId);
+				if(cellStarts.length < numCells + 1)
+					cellStarts = Arrays.copyOf(cellStarts, Math.max(cellStarts.length * 2, numCells + 1));
+				cellStarts[cellId] = 0;
+			}
+			entityCells[i] = cellId;
+			cellStarts[cellId]++;
+		}
+		
+		// Turn the counts into start indices.
+		int offset = 0;
+		for(int i = 0; i < numCells; ++i) {
+			int count = cellStarts[i];
+			cellStarts[i] = offset;
+			offset += count;
+		}
+		cellStarts[numCells] = offset;
+		
+		// Put the entities in their place. This moves every start index
+		// up by its count, so afterwards we shift them back.
+		for(int i = 0; i < numEntities; ++i) {
+			int index = cellStarts[entityCells[i]]++;
+			entities[index] = entityList.get(i);
+			positions[index*3] = tmpPositions[i*3];
+			positions[index*3+1] = tmpPositions[i*3+1];
+			positions[index*3+2] = tmpPositions[i*3+2];
+		}
+		for(int i = numCells; i > 0; --i)
+			cellStarts[i] = cellStarts[i-1];
+		cellStarts[0] = 0;
+		
+		// Clear out references to entities from previous builds.
+		for(int i = numEntities; i < entities.length && entities[i] != null; ++i)
+			entities[i] = null;
+	}
+	
+	/**
+	 * Adds all entities whose position lies in the given box,
+	 * expanded by MARGIN, to out.
+	 */
+	public void getEntitiesInBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, List<Entity> out) {
+		minX -= MARGIN;
+		minY -= MARGIN;
+		minZ -= MARGIN;
+		maxX += MARGIN;
+		maxY += MARGIN;
+		maxZ += MARGIN;
+		int minCellX = ((int) Math.floor(minX)) >> CELL_SIZE_BITS;
+		int minCellZ = ((int) Math.floor(minZ)) >> CELL_SIZE_BITS;
+		int maxCellX = ((int) Math.floor(maxX)) >> CELL_SIZE_BITS;
+		int maxCellZ = ((int) Math.floor(maxZ)) >> CELL_SIZE_BITS;
+		for(int cellZ = minCellZ; cellZ <= maxCellZ; ++cellZ) {
+			for(int cellX = minCellX; cellX <= maxCellX; ++cellX) {
+				int cellId = cellIds.getOrDefault(getCellKey(cellX, cellZ), -1);
+				if(cellId < 0)
+					continue;
+				int end = cellStarts[cellId + 1];
+				for(int i = cellStarts[cellId]; i < end; ++i) {
+					float x = positions[i*3];
+					float y = positions[i*3+1];
+					float z = positions[i*3+2];
+					if(x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+						continue;
+					out.add(entities[i]);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds all entities within horizontalRange on the X and Z axes
+	 * and within verticalRange on the Y axis, expanded by MARGIN, to out.
+	 */
+	public void getEntitiesInRange(float x, float y, float z, float horizontalRange, float verticalRange, List<Entity> out) {
+		getEntitiesInBox(x - horizontalRange, y - verticalRange, z - horizontalRange, 
+							x + horizontalRange, y + verticalRange, z + horizontalRange, out);
+	}
+
+}
@@ -65,41 +65,42 @@ public class AIComponentEntitySensor extends AIComponent{
 	}
 	public List<SubSensor> subSensors;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentEntitySensor(String name) {
 		super(name, PriorityGroup.NONE, 0, 0);
+		nearbyEntities = new ArrayList<Entity>();
 		subSensors = new ArrayList<SubSensor>();
 	}
 
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		for(SubSensor sensor : subSensors) {
 			if(time >= sensor.nextTick) {
 				if(sensor.nextTick >= 0f) {
 					int entitiesPassed = 0;
 					int entitiesChecked = 0;
-					for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange(
-												(int) posX, (int) posZ, (int) sensor.horizontalRange)) {
-						for(Entity entity2 : entities) {
-							float posX2 = entity2.getX();
-							float posY2 = entity2.getY();
-							float posZ2 = entity2.getZ();
-							if(entity2.getAnimation() != null) {
-								posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-								posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-								posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-							}
-							if(Math.abs(posY - posY2) > sensor.verticalRange)
-								continue;
-							if(((posX2 - posX) * (posX2 - posX) + (posZ2 - posZ) * (posZ2 * posZ)) > 
-													(sensor.horizontalRange * sensor.horizontalRange))
-								continue;
-							entitiesChecked++;
-							if(sensor.filter.testFilter(entity2))
-								entitiesPassed++;
+					MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, sensor.horizontalRange, sensor.verticalRange, nearbyEntities);
+					for(Entity entity2 : nearbyEntities) {
+						float posX2 = entity2.getX();
+						float posY2 = entity2.getY();
+						float posZ2 = entity2.getZ();
+						if(entity2.getAnimation() != null) {
+							posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+							posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+							posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
 						}
+						if(Math.abs(posY - posY2) > sensor.verticalRange)
+							continue;
+						if(((posX2 - posX) * (posX2 - posX) + (posZ2 - posZ) * (posZ2 - posZ)) > 
+												(sensor.horizontalRange * sensor.horizontalRange))
+							continue;
+						entitiesChecked++;
+						if(sensor.filter.testFilter(entity2))
+							entitiesPassed++;
 					}
 					boolean passed = entitiesPassed == entitiesChecked;
 					if(!sensor.requireAllEntitiesToPassFilter) {
@@ -153,9 +153,9 @@ public class AIComponentNavigation extends AIComponent implements PathFinderHook
 			}
 		}
 		
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		
 		float targetX = 0f;
 		float targetY = 0f;
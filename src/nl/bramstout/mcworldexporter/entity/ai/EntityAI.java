@@ -245,14 +245,14 @@ public class EntityAI {
 		if(!movementComponents.isEmpty())
 			movementComponents.get(0).tick(entity, time, deltaTime, false);
 		
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		
 		{
 			// Calculate target rotation
-			float currentYaw = entity.getAnimation().getAnimHeadYaw().getKeyframeAtTime(time).value;
-			float currentPitch = entity.getAnimation().getAnimHeadPitch().getKeyframeAtTime(time).value;
+			float currentYaw = entity.getAnimation().getAnimHeadYaw().getValueAtTime(time);
+			float currentPitch = entity.getAnimation().getAnimHeadPitch().getValueAtTime(time);
 			float targetYaw = 0f;
 			float targetPitch = 0f;
 			float maxDelta = 150f * deltaTime;
@@ -272,8 +272,8 @@ public class EntityAI {
 				
 				targetYaw = (float) Math.toDegrees(Math.atan2(-dx, dz));
 				targetPitch = (float) Math.toDegrees(Math.asin(dy));
-				targetYaw -= entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
-				targetPitch -= entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+				targetYaw -= entity.getAnimation().getAnimYaw().getValueAtTime(time);
+				targetPitch -= entity.getAnimation().getAnimPitch().getValueAtTime(time);
 				
 				maxDelta = entity.getAI().target.maxRotationDelta * 20f * deltaTime;
 			}
@@ -306,7 +306,7 @@ public class EntityAI {
 				// then deltaYaw is small.
 				if(Math.abs(deltaYaw) < 5f) {
 					// Rotate the entity
-					float entityYaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+					float entityYaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
 					float targetEntityYaw = targetYaw + entityYaw;
 					deltaYaw = targetEntityYaw - entityYaw;
 					// Make deltaYaw be in the range of [-180, 180]
@@ -337,17 +337,17 @@ public class EntityAI {
 		float scaleY = scale;
 		float scaleZ = scale;
 		if(entity.getScaleXExpression() != null)
-			scaleX *= entity.getScaleXExpression().eval(context).asNumber(context);
+			scaleX *= entity.getScaleXExpression().evalNumber(context);
 		if(entity.getScaleYExpression() != null)
-			scaleY *= entity.getScaleYExpression().eval(context).asNumber(context);
+			scaleY *= entity.getScaleYExpression().evalNumber(context);
 		if(entity.getScaleZExpression() != null)
-			scaleZ *= entity.getScaleZExpression().eval(context).asNumber(context);
+			scaleZ *= entity.getScaleZExpression().evalNumber(context);
 		if(entity.getAI().getScaleXExpression() != null)
-			scaleX *= entity.getAI().getScaleXExpression().eval(context).asNumber(context);
+			scaleX *= entity.getAI().getScaleXExpression().evalNumber(context);
 		if(entity.getAI().getScaleYExpression() != null)
-			scaleY *= entity.getAI().getScaleYExpression().eval(context).asNumber(context);
+			scaleY *= entity.getAI().getScaleYExpression().evalNumber(context);
 		if(entity.getAI().getScaleZExpression() != null)
-			scaleZ *= entity.getAI().getScaleZExpression().eval(context).asNumber(context);
+			scaleZ *= entity.getAI().getScaleZExpression().evalNumber(context);
 		
 		entity.getAnimation().getAnimScaleX().addKeyframe(new Keyframe(time, scaleX));
 		entity.getAnimation().getAnimScaleY().addKeyframe(new Keyframe(time, scaleY));
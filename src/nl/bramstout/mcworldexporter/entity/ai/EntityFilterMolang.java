@@ -49,7 +49,7 @@ public class EntityFilterMolang extends EntityFilter{
 		MolangContext context = new MolangContext(new MolangQuery(entity.getId(), entity.getProperties(), 
 																	entity.getX(), entity.getY(), entity.getZ()), entity.getRandom());
 		context.setVariableDict(entity.getVariables());
-		return test.eval(context).asBoolean(context);
+		return test.evalBoolean(context);
 	}
 
 }
@@ -106,9 +106,9 @@ public class EntityMovementUtil {
 		}
 		
 		// Set a keyframe for the yaw and pitch
-		float yaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+		float yaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
 		entity.getAnimation().getAnimYaw().addKeyframe(new Keyframe(time, yaw));
-		float pitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+		float pitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 		entity.getAnimation().getAnimPitch().addKeyframe(new Keyframe(time, pitch));
 	}
 	
@@ -206,7 +206,7 @@ public class EntityMovementUtil {
 		float dirZ = dz / length;
 		float angle = (float) Math.toDegrees(Math.atan2(-dirX, dirZ));
 		
-		float yaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+		float yaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
 		float deltaYaw = angle - yaw;
 		// Make deltaYaw be in the range of [-180, 180]
 		deltaYaw += 180f;
@@ -227,7 +227,7 @@ public class EntityMovementUtil {
 		float dirY = dy / length;
 		float angle = (float) Math.toDegrees(Math.asin(dirY));
 		
-		float pitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+		float pitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 		float deltaPitch = angle - pitch;
 		maxTurn = maxTurn * 20f * deltaTime; // Update max turn value to new delta time
 		deltaPitch = Math.min(Math.max(deltaPitch, -maxTurn), maxTurn);
@@ -371,8 +371,8 @@ public class EntityMovementUtil {
 	}
 	
 	public static void glide(Entity entity, float time, float deltaTime, Vector3f target, float posX, float posY, float posZ, float maxTurn) {
-		float newYaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
-		float newPitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+		float newYaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
+		float newPitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 		if(target != null) {
 			float dx = target.x - posX;
 			float dy = target.y - posY;
@@ -120,21 +120,21 @@ public abstract class EntityTarget {
 		@Override
 		public float getPosX(float time) {
 			if(entity.getAnimation() != null)
-				return entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
+				return entity.getAnimation().getAnimPosX().getValueAtTime(time);
 			return entity.getX();
 		}
 		
 		@Override
 		public float getPosY(float time) {
 			if(entity.getAnimation() != null)
-				return entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
+				return entity.getAnimation().getAnimPosY().getValueAtTime(time);
 			return entity.getY();
 		}
 		
 		@Override
 		public float getPosZ(float time) {
 			if(entity.getAnimation() != null)
-				return entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+				return entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 			return entity.getZ();
 		}
 		
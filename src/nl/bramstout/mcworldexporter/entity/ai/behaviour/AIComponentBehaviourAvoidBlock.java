@@ -89,9 +89,9 @@ public class AIComponentBehaviourAvoidBlock extends AIComponent{
 		// Time to do our check and reset tickCounter
 		tickCounter = tickInterval;
 		
-		int centerX = (int) Math.floor(entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value);
-		int centerY = (int) Math.floor(entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value);
-		int centerZ = (int) Math.floor(entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value);
+		int centerX = (int) Math.floor(entity.getAnimation().getAnimPosX().getValueAtTime(time));
+		int centerY = (int) Math.floor(entity.getAnimation().getAnimPosY().getValueAtTime(time));
+		int centerZ = (int) Math.floor(entity.getAnimation().getAnimPosZ().getValueAtTime(time));
 		
 		int blockX = Integer.MIN_VALUE;
 		@SuppressWarnings("unused")
@@ -107,8 +107,11 @@ public class AIComponentBehaviourAvoidMobType extends AIComponent{
 	private Entity avoidTarget;
 	private int fleeTicks;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentBehaviourAvoidMobType(String name, int priority) {
 		super(name, PriorityGroup.BEHAVIOUR, priority, -1);
+		nearbyEntities = new ArrayList<Entity>();
 		avoidees = new ArrayList<Avoidee>();
 		isEscaping = false;
 		maxFlee = 0f;
@@ -118,17 +121,17 @@ public class AIComponentBehaviourAvoidMobType extends AIComponent{
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(isEscaping) {
 			float targetX = avoidTarget.getX();
 			float targetY = avoidTarget.getY();
 			float targetZ = avoidTarget.getZ();
 			if(avoidTarget.getAnimation() != null) {
-				targetX = avoidTarget.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-				targetY = avoidTarget.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-				targetZ = avoidTarget.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+				targetX = avoidTarget.getAnimation().getAnimPosX().getValueAtTime(time);
+				targetY = avoidTarget.getAnimation().getAnimPosY().getValueAtTime(time);
+				targetZ = avoidTarget.getAnimation().getAnimPosZ().getValueAtTime(time);
 			}
 			float distanceSquared = (targetX - posX) * (targetX - posX) + 
 									(targetY - posY) * (targetY - posY) +
@@ -160,64 +163,63 @@ public class AIComponentBehaviourAvoidMobType extends AIComponent{
 		
 		// We're currently not escaping anything, so search around to check if
 		// there is anything that we should escape.
-		for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange((int) posX, (int) posZ, searchRadius)) {
-			for(Entity entity2 : entities) {
-				float posX2 = entity2.getX();
-				float posY2 = entity2.getY();
-				float posZ2 = entity2.getZ();
-				if(entity2.getAnimation() != null) {
-					posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-					posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-					posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-				}
-				float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
-										(posY2 - posY) * (posY2 - posY) + 
-										(posZ2 - posZ) * (posZ2 - posZ);
-				for(Avoidee avoidee : avoidees) {
-					if(distanceSquared > (avoidee.maxDist * avoidee.maxDist))
-						continue;
-					if(!avoidee.filter.testFilter(entity2))
-						continue;
-					if(!avoidee.ignoreVisibility) {
-						// Check for a line of sight;
-						float dx = posX2 - posX;
-						float dy = posY2 - posY;
-						float dz = posZ2 - posZ;
-						float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
-						dx /= length;
-						dy /= length;
-						dz /= length;
-						float maxComponent = Math.max(Math.max(Math.abs(dx), Math.abs(dy)), Math.abs(dz));
-						float tStep = 1.0f / maxComponent;
-						boolean directLineOfSight = true;
-						for(float t = 0.0f; t < length; t += tStep) {
-							float sampleX = posX + dx * t;
-							float sampleY = posY + dy * t + 1.5f; // Add 1.5 to the Y to get the rough eyeline.
-							float sampleZ = posZ + dz * t;
-							int blockX = (int) Math.floor(sampleX);
-							int blockY = (int) Math.floor(sampleY);
-							int blockZ = (int) Math.floor(sampleZ);
-							int blockId = MCWorldExporter.getApp().getWorld().getBlockId(blockX, blockY, blockZ, 0);
-							if(blockId != 0) {
-								directLineOfSight = false;
-								break;
-							}
+		MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, searchRadius, searchRadius, nearbyEntities);
+		for(Entity entity2 : nearbyEntities) {
+			float posX2 = entity2.getX();
+			float posY2 = entity2.getY();
+			float posZ2 = entity2.getZ();
+			if(entity2.getAnimation() != null) {
+				posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
+			}
+			float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
+									(posY2 - posY) * (posY2 - posY) + 
+									(posZ2 - posZ) * (posZ2 - posZ);
+			for(Avoidee avoidee : avoidees) {
+				if(distanceSquared > (avoidee.maxDist * avoidee.maxDist))
+					continue;
+				if(!avoidee.filter.testFilter(entity2))
+					continue;
+				if(!avoidee.ignoreVisibility) {
+					// Check for a line of sight;
+					float dx = posX2 - posX;
+					float dy = posY2 - posY;
+					float dz = posZ2 - posZ;
+					float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+					dx /= length;
+					dy /= length;
+					dz /= length;
+					float maxComponent = Math.max(Math.max(Math.abs(dx), Math.abs(dy)), Math.abs(dz));
+					float tStep = 1.0f / maxComponent;
+					boolean directLineOfSight = true;
+					for(float t = 0.0f; t < length; t += tStep) {
+						float sampleX = posX + dx * t;
+						float sampleY = posY + dy * t + 1.5f; // Add 1.5 to the Y to get the rough eyeline.
+						float sampleZ = posZ + dz * t;
+						int blockX = (int) Math.floor(sampleX);
+						int blockY = (int) Math.floor(sampleY);
+						int blockZ = (int) Math.floor(sampleZ);
+						int blockId = MCWorldExporter.getApp().getWorld().getBlockId(blockX, blockY, blockZ, 0);
+						if(blockId != 0) {
+							directLineOfSight = false;
+							break;
 						}
-						if(!directLineOfSight)
-							continue;
 					}
-					// We've found an entity that we should avoid.
-					avoidee.onEscape.fireEvent(entity);
-					isEscaping = true;
-					maxFlee = avoidee.maxFlee;
-					avoidTarget = entity2;
-					fleeTicks = 40;
-					EntityTargetBlock target = EntityUtil.FindTarget(avoidTargetXZ, avoidTargetY, entity, posX, posY, posZ, posX2, posY2, posZ2);
-					if(target != null)
-						entity.getAI().target = target;
-					
-					return true;
+					if(!directLineOfSight)
+						continue;
 				}
+				// We've found an entity that we should avoid.
+				avoidee.onEscape.fireEvent(entity);
+				isEscaping = true;
+				maxFlee = avoidee.maxFlee;
+				avoidTarget = entity2;
+				fleeTicks = 40;
+				EntityTargetBlock target = EntityUtil.FindTarget(avoidTargetXZ, avoidTargetY, entity, posX, posY, posZ, posX2, posY2, posZ2);
+				if(target != null)
+					entity.getAI().target = target;
+				
+				return true;
 			}
 		}
 		return false;
@@ -58,9 +58,9 @@ public class AIComponentBehaviourFindCover extends AIComponent{
 			cooldownTicks--;
 			return false;
 		}
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(EntityUtil.isUnderCover(entity, posX, posY, posZ)) {
 			isFindingCover = false;
 			return false;
@@ -43,9 +43,9 @@ public class AIComponentBehaviourFloat extends AIComponent{
 
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(EntityUtil.isInLiquid(entity, posX, posY, posZ)) {
 			entity.getAI().target = null;
 			return true;
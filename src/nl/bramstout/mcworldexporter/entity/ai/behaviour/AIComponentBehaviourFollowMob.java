@@ -52,16 +52,19 @@ public class AIComponentBehaviourFollowMob extends AIComponent{
 	
 	private boolean isFollowing;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentBehaviourFollowMob(String name, int priority) {
 		super(name, PriorityGroup.BEHAVIOUR, priority, -1);
+		nearbyEntities = new ArrayList<Entity>();
 		isFollowing = false;
 	}
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(isFollowing) {
 			if(entity.getAI().target == null) {
 				isFollowing = false;
@@ -86,29 +89,28 @@ public class AIComponentBehaviourFollowMob extends AIComponent{
 		float avgX = 0f;
 		float avgY = 0f;
 		float avgZ = 0f;
-		for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange((int) posX, (int) posZ, (int) searchRange)) {
-			for(Entity entity2 : entities) {
-				if(entity2 == entity)
-					continue;
-				if(entity2.getId().equals(entity.getId())) {
-					float posX2 = entity2.getX();
-					float posY2 = entity2.getY();
-					float posZ2 = entity2.getZ();
-					if(entity2.getAnimation() != null) {
-						posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-						posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-						posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-					}
-					
-					float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
-											(posY2 - posY) * (posY2 - posY) + 
-											(posZ2 - posZ) * (posZ2 - posZ);
-					if(distanceSquared <= (searchRange * searchRange)) {
-						fellowEntities.add(entity2);
-						avgX += posX2;
-						avgY += posY2;
-						avgZ += posZ2;
-					}
+		MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, searchRange, searchRange, nearbyEntities);
+		for(Entity entity2 : nearbyEntities) {
+			if(entity2 == entity)
+				continue;
+			if(entity2.getId().equals(entity.getId())) {
+				float posX2 = entity2.getX();
+				float posY2 = entity2.getY();
+				float posZ2 = entity2.getZ();
+				if(entity2.getAnimation() != null) {
+					posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+					posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+					posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
+				}
+				
+				float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
+										(posY2 - posY) * (posY2 - posY) + 
+										(posZ2 - posZ) * (posZ2 - posZ);
+				if(distanceSquared <= (searchRange * searchRange)) {
+					fellowEntities.add(entity2);
+					avgX += posX2;
+					avgY += posY2;
+					avgZ += posZ2;
 				}
 			}
 		}
@@ -128,9 +130,9 @@ public class AIComponentBehaviourFollowMob extends AIComponent{
 			float posY2 = entity2.getY();
 			float posZ2 = entity2.getZ();
 			if(entity2.getAnimation() != null) {
-				posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-				posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-				posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+				posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
 			}
 			
 			float distanceSquared = (posX2 - avgX) * (posX2 - avgX) + 
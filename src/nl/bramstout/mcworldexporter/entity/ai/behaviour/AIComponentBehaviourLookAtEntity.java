@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.entity.ai.behaviour;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import nl.bramstout.mcworldexporter.MCWorldExporter;
@@ -75,17 +76,20 @@ public class AIComponentBehaviourLookAtEntity extends AIComponent{
 	private float stopLooking;
 	private Entity lookTarget;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentBehaviourLookAtEntity(String name, int priority) {
 		super(name, PriorityGroup.BEHAVIOUR, priority, -1);
+		nearbyEntities = new ArrayList<Entity>();
 		stopLooking = 0f;
 		lookTarget = null;
 	}
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(lookTarget != null) {
 			if(time >= stopLooking) {
 				lookTarget = null;
@@ -99,32 +103,31 @@ public class AIComponentBehaviourLookAtEntity extends AIComponent{
 			return false; // Not going to look at another entity this tick
 		}
 		
-		for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange((int) posX, (int) posZ, (int) lookDistance)) {
-			for(Entity entity2 : entities) {
-				float posX2 = entity2.getX();
-				float posY2 = entity2.getY();
-				float posZ2 = entity2.getZ();
-				if(entity2.getAnimation() != null) {
-					posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-					posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-					posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-				}
-				
-				float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
-										(posY2 - posY) * (posY2 - posY) + 
-										(posZ2 - posZ) * (posZ2 - posZ);
-				if(distanceSquared <= (lookDistance * lookDistance)) {
-					if(filter.testFilter(entity2)) {
-						lookTarget = entity2;
-						entity.getAI().target = new EntityTargetEntity(lookTarget);
-						entity.getAI().target.move = false;
-						entity.getAI().target.minLookYaw = -angleOfViewHorizontal / 2f;
-						entity.getAI().target.minLookPitch = -angleOfViewVertical / 2f;
-						entity.getAI().target.maxLookYaw = angleOfViewHorizontal / 2f;
-						entity.getAI().target.maxLookPitch = angleOfViewVertical / 2f;
-						stopLooking = entity.getRandom().nextFloat() * (maxLookTime - minLookTime) + minLookTime + time;
-						return true;
-					}
+		MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, lookDistance, lookDistance, nearbyEntities);
+		for(Entity entity2 : nearbyEntities) {
+			float posX2 = entity2.getX();
+			float posY2 = entity2.getY();
+			float posZ2 = entity2.getZ();
+			if(entity2.getAnimation() != null) {
+				posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
+			}
+			
+			float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
+									(posY2 - posY) * (posY2 - posY) + 
+									(posZ2 - posZ) * (posZ2 - posZ);
+			if(distanceSquared <= (lookDistance * lookDistance)) {
+				if(filter.testFilter(entity2)) {
+					lookTarget = entity2;
+					entity.getAI().target = new EntityTargetEntity(lookTarget);
+					entity.getAI().target.move = false;
+					entity.getAI().target.minLookYaw = -angleOfViewHorizontal / 2f;
+					entity.getAI().target.minLookPitch = -angleOfViewVertical / 2f;
+					entity.getAI().target.maxLookYaw = angleOfViewHorizontal / 2f;
+					entity.getAI().target.maxLookPitch = angleOfViewVertical / 2f;
+					stopLooking = entity.getRandom().nextFloat() * (maxLookTime - minLookTime) + minLookTime + time;
+					return true;
 				}
 			}
 		}
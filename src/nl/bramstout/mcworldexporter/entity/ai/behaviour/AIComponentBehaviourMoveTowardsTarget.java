@@ -54,9 +54,9 @@ public class AIComponentBehaviourMoveTowardsTarget extends AIComponent{
 		if(!(entity.getAI().target instanceof EntityTargetEntity))
 			return false;
 		
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		float targetX = entity.getAI().target.getPosX(time);
 		float targetY = entity.getAI().target.getPosY(time);
 		float targetZ = entity.getAI().target.getPosZ(time);
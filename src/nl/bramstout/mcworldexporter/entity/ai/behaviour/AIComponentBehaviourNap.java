@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.entity.ai.behaviour;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import nl.bramstout.mcworldexporter.MCWorldExporter;
@@ -73,8 +74,11 @@ public class AIComponentBehaviourNap extends AIComponent{
 	private boolean isNapping;
 	private float nextSleep;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentBehaviourNap(String name, int priority) {
 		super(name, PriorityGroup.BEHAVIOUR, priority, -1);
+		nearbyEntities = new ArrayList<Entity>();
 		isNapping = false;
 		nextSleep = -1f;
 	}
@@ -108,27 +112,25 @@ public class AIComponentBehaviourNap extends AIComponent{
 	}
 	
 	private boolean shouldWakeUp(Entity entity, float time) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-		for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange(
-									(int) posX, (int) posZ, (int) mobDetectionDistance)) {
-			for(Entity entity2 : entities) {
-				float posX2 = entity2.getX();
-				float posY2 = entity2.getY();
-				float posZ2 = entity2.getZ();
-				if(entity2.getAnimation() != null) {
-					posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-					posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-					posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-				}
-				if(Math.abs(posX2 - posX) > mobDetectionDistance || Math.abs(posZ2 - posZ) > mobDetectionDistance ||
-						Math.abs(posY2 - posY) > mobDetectionHeight)
-					continue;
-				if(wakeMobExceptionFilter.testFilter(entity2))
-					continue;
-				return false;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
+		MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, mobDetectionDistance, mobDetectionHeight, nearbyEntities);
+		for(Entity entity2 : nearbyEntities) {
+			float posX2 = entity2.getX();
+			float posY2 = entity2.getY();
+			float posZ2 = entity2.getZ();
+			if(entity2.getAnimation() != null) {
+				posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
 			}
+			if(Math.abs(posX2 - posX) > mobDetectionDistance || Math.abs(posZ2 - posZ) > mobDetectionDistance ||
+					Math.abs(posY2 - posY) > mobDetectionHeight)
+				continue;
+			if(wakeMobExceptionFilter.testFilter(entity2))
+				continue;
+			return false;
 		}
 		return true;
 	}
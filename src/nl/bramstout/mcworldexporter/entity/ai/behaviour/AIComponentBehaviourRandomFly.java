@@ -70,9 +70,9 @@ public class AIComponentBehaviourRandomFly extends AIComponent{
 			entity.getProperties().addElement(NbtTagByte.newNonPooledInstance("IsFlying", ((byte) 1)));
 			return true;
 		}
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		EntityTargetBlock target = EntityUtil.FindTarget(searchDistanceXZ, searchDistanceY, entity, posX, posY, posZ);
 		if(target == null)
 			return false;
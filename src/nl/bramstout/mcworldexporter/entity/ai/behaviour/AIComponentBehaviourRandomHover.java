@@ -88,9 +88,9 @@ public class AIComponentBehaviourRandomHover extends AIComponent{
 		if(!EntityUtil.randomChance(entity, interval, deltaTime) && !forceEnable)
 			return false;
 		
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		
 		CollisionResult res = new CollisionResult();
 		for(int attempt = 0; attempt < 100; ++attempt) {
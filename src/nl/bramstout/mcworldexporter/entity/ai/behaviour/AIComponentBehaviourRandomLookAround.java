@@ -86,13 +86,13 @@ public class AIComponentBehaviourRandomLookAround extends AIComponent{
 		// We're going to sit and look around
 		isLooking = true;
 		stopLooking = entity.getRandom().nextFloat() * (maxLookTime - minLookTime) + minLookTime + time;
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		float lookAngleX = entity.getRandom().nextFloat() * angleOfViewVertical - angleOfViewVertical / 2f;
 		float lookAngleY = entity.getRandom().nextFloat() * angleOfViewHorizontal - angleOfViewHorizontal / 2f;
-		lookAngleX += entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
-		lookAngleY += entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+		lookAngleX += entity.getAnimation().getAnimPitch().getValueAtTime(time);
+		lookAngleY += entity.getAnimation().getAnimYaw().getValueAtTime(time);
 		float vx = (float) -Math.sin(Math.toRadians(lookAngleY));
 		float vy = (float) Math.sin(Math.toRadians(lookAngleX));
 		float vz = (float) Math.cos(Math.toRadians(lookAngleY));
@@ -99,11 +99,11 @@ public class AIComponentBehaviourRandomLookAroundAndSit extends AIComponent{
 			if(lookTimer <= 0) {
 				looksLeft--;
 				
-				float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-				float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-				float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+				float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+				float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+				float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 				float lookAngle = entity.getRandom().nextFloat() * (maxAngleOfViewHorizontal - minAngleOfViewHorizontal) + minAngleOfViewHorizontal;
-				lookAngle += entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+				lookAngle += entity.getAnimation().getAnimYaw().getValueAtTime(time);
 				float vx = (float) -Math.sin(Math.toRadians(lookAngle));
 				float vz = (float) Math.cos(Math.toRadians(lookAngle));
 				entity.getAI().target = new EntityTargetPosition(posX + vx * 16f, posY, posZ + vz * 16f);
@@ -136,11 +136,11 @@ public class AIComponentBehaviourRandomLookAroundAndSit extends AIComponent{
 		entity.getAI().target = null;
 		looksLeft = entity.getRandom().nextInt(minLookCount, maxLookCount);
 		lookTimer = entity.getRandom().nextInt(minLookTime, maxLookTime);
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		float lookAngle = entity.getRandom().nextFloat() * (maxAngleOfViewHorizontal - minAngleOfViewHorizontal) + minAngleOfViewHorizontal;
-		lookAngle += entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+		lookAngle += entity.getAnimation().getAnimYaw().getValueAtTime(time);
 		float vx = (float) -Math.sin(Math.toRadians(lookAngle));
 		float vz = (float) Math.cos(Math.toRadians(lookAngle));
 		entity.getAI().target = new EntityTargetPosition(posX + vx * 16f, posY, posZ + vz * 16f);
@@ -72,9 +72,9 @@ public class AIComponentBehaviourRandomStroll extends AIComponent{
 		if(!EntityUtil.randomChance(entity, interval, deltaTime) && !forceEnable)
 			return false;
 		
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		EntityTargetBlock target = EntityUtil.FindTarget(searchDistanceXZ, searchDistanceY, entity, posX, posY, posZ);
 		if(target == null)
 			return false;
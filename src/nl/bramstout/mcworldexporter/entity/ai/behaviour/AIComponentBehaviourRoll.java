@@ -54,9 +54,9 @@ public class AIComponentBehaviourRoll extends AIComponent{
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(isRolling) {
 			if(entity.getAI().target == null) {
 				isRolling = false;
@@ -90,7 +90,7 @@ public class AIComponentBehaviourRoll extends AIComponent{
 		}
 		
 		// Find the forward direction
-		float yaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
+		float yaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
 		Matrix rotMatrix = Matrix.rotateY(yaw);
 		Vector3f forward = rotMatrix.transformDirection(new Vector3f(0f, 0f, 1f));
 		float rollDistance = 2f;
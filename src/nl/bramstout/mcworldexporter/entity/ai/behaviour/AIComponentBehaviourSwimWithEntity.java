@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.entity.ai.behaviour;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import nl.bramstout.mcworldexporter.MCWorldExporter;
@@ -98,8 +99,11 @@ public class AIComponentBehaviourSwimWithEntity extends AIComponent{
 	private boolean isCatchingUp;
 	private float nextStateCheck;
 	
+	private List<Entity> nearbyEntities;
+	
 	public AIComponentBehaviourSwimWithEntity(String name, int priority) {
 		super(name, PriorityGroup.BEHAVIOUR, priority, -1);
+		nearbyEntities = new ArrayList<Entity>();
 		swimmingWith = null;
 		isCatchingUp = false;
 		nextStateCheck = 0f;
@@ -107,9 +111,9 @@ public class AIComponentBehaviourSwimWithEntity extends AIComponent{
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		if(swimmingWith != null) {
 			if(time < nextStateCheck)
 				return true;
@@ -128,9 +132,9 @@ public class AIComponentBehaviourSwimWithEntity extends AIComponent{
 			float posY2 = swimmingWith.getY();
 			float posZ2 = swimmingWith.getZ();
 			if(swimmingWith.getAnimation() != null) {
-				posX2 = swimmingWith.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-				posY2 = swimmingWith.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-				posZ2 = swimmingWith.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+				posX2 = swimmingWith.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = swimmingWith.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = swimmingWith.getAnimation().getAnimPosZ().getValueAtTime(time);
 			}
 			
 			float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
@@ -170,51 +174,50 @@ public class AIComponentBehaviourSwimWithEntity extends AIComponent{
 		if(!EntityUtil.randomChance(entity, successRate, deltaTime) && !forceEnable)
 			return false;
 		
-		for(List<Entity> entities : MCWorldExporter.getApp().getWorld().getEntitiesInRange((int) posX, (int) posZ, (int) searchRange)) {
-			for(Entity entity2 : entities) {
-				float posX2 = entity2.getX();
-				float posY2 = entity2.getY();
-				float posZ2 = entity2.getZ();
-				if(entity2.getAnimation() != null) {
-					posX2 = entity2.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-					posY2 = entity2.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-					posZ2 = entity2.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-				}
-				float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
-						(posY2 - posY) * (posY2 - posY) + 
-						(posZ2 - posZ) * (posZ2 - posZ);
-				if(distanceSquared > (searchRange * searchRange))
-					continue;
-				
-				if(!entityTypes.testFilter(entity2))
-					continue;
-				
-				NbtTag isSwimmingTag = entity2.getProperties().get("IsSwimming");
-				if(isSwimmingTag == null || isSwimmingTag.asByte() <= 0) {
-					continue;
-				}
-				
-				swimmingWith = entity2;
-				nextStateCheck = time + stateCheckInterval;
-				isCatchingUp = distanceSquared > (catchUpThreshold * catchUpThreshold);
-				
-				if(distanceSquared <= (matchDirectionThreshold * matchDirectionThreshold)) {
-					isCatchingUp = false;
-					if(swimmingWith.getAI() != null) {
-						float dx = swimmingWith.getAI().vx;
-						float dy = swimmingWith.getAI().vy;
-						float dz = swimmingWith.getAI().vz;
-						float length = 1.0f + stateCheckInterval;
-						dx *= length;
-						dy *= length;
-						dz *= length;
-						entity.getAI().target = new EntityTargetPosition(posX + dx, posY + dy, posZ + dz);
-					}
-				}else {
-					entity.getAI().target = new EntityTargetPosition(posX2, posY2, posZ2);
+		MCWorldExporter.getApp().getWorld().getEntitiesInRange(posX, posY, posZ, searchRange, searchRange, nearbyEntities);
+		for(Entity entity2 : nearbyEntities) {
+			float posX2 = entity2.getX();
+			float posY2 = entity2.getY();
+			float posZ2 = entity2.getZ();
+			if(entity2.getAnimation() != null) {
+				posX2 = entity2.getAnimation().getAnimPosX().getValueAtTime(time);
+				posY2 = entity2.getAnimation().getAnimPosY().getValueAtTime(time);
+				posZ2 = entity2.getAnimation().getAnimPosZ().getValueAtTime(time);
+			}
+			float distanceSquared = (posX2 - posX) * (posX2 - posX) + 
+					(posY2 - posY) * (posY2 - posY) + 
+					(posZ2 - posZ) * (posZ2 - posZ);
+			if(distanceSquared > (searchRange * searchRange))
+				continue;
+			
+			if(!entityTypes.testFilter(entity2))
+				continue;
+			
+			NbtTag isSwimmingTag = entity2.getProperties().get("IsSwimming");
+			if(isSwimmingTag == null || isSwimmingTag.asByte() <= 0) {
+				continue;
+			}
+			
+			swimmingWith = entity2;
+			nextStateCheck = time + stateCheckInterval;
+			isCatchingUp = distanceSquared > (catchUpThreshold * catchUpThreshold);
+			
+			if(distanceSquared <= (matchDirectionThreshold * matchDirectionThreshold)) {
+				isCatchingUp = false;
+				if(swimmingWith.getAI() != null) {
+					float dx = swimmingWith.getAI().vx;
+					float dy = swimmingWith.getAI().vy;
+					float dz = swimmingWith.getAI().vz;
+					float length = 1.0f + stateCheckInterval;
+					dx *= length;
+					dy *= length;
+					dz *= length;
+					entity.getAI().target = new EntityTargetPosition(posX + dx, posY + dy, posZ + dz);
 				}
-				return true;
+			}else {
+				entity.getAI().target = new EntityTargetPosition(posX2, posY2, posZ2);
 			}
+			return true;
 		}
 		return false;
 	}
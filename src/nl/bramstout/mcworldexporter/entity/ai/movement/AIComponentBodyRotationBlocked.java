@@ -49,8 +49,8 @@ public class AIComponentBodyRotationBlocked extends AIComponent{
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
 		if(Float.isNaN(lockedYaw) || Float.isNaN(lockedPitch)) {
-			lockedYaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
-			lockedPitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+			lockedYaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
+			lockedPitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 		}
 		entity.getAnimation().getAnimYaw().addKeyframe(new Keyframe(time, lockedYaw));
 		entity.getAnimation().getAnimPitch().addKeyframe(new Keyframe(time, lockedPitch));
@@ -59,8 +59,8 @@ public class AIComponentBodyRotationBlocked extends AIComponent{
 	
 	@Override
 	public void disabledTick(Entity entity, float time, float deltaTime) {
-		lockedYaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
-		lockedPitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+		lockedYaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
+		lockedPitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 	}
 
 }
@@ -65,9 +65,9 @@ public class AIComponentBuoyant extends AIComponent{
 		entity.getProperties().addElement(NbtTagFloat.newNonPooledInstance("BuoyancyBigWaveSpeed", bigWaveSpeed));
 		entity.getProperties().addElement(NbtTagByte.newNonPooledInstance("BuoyancySimulateWaves", simulateWaves ? ((byte) 1) : ((byte) 0)));
 		// Figure out whether to apply buoyancy
-		int blockX = (int) Math.floor(entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value);
-		int blockY = (int) Math.floor(entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value - 0.5f);
-		int blockZ = (int) Math.floor(entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value);
+		int blockX = (int) Math.floor(entity.getAnimation().getAnimPosX().getValueAtTime(time));
+		int blockY = (int) Math.floor(entity.getAnimation().getAnimPosY().getValueAtTime(time) - 0.5f);
+		int blockZ = (int) Math.floor(entity.getAnimation().getAnimPosZ().getValueAtTime(time));
 		LayeredBlock blocks = new LayeredBlock();
 		MCWorldExporter.getApp().getWorld().getBlockId(blockX, blockY, blockZ, blocks);
 		boolean applyBuoyancy = false;
@@ -52,9 +52,9 @@ public class AIComponentMovementRail extends AIComponent{
 			lastTargetNodeIndex = -1;
 			return true; // No need to move if there is no target.
 		}
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		
 		int closestNodeIndex = entity.getAI().path.getClosestNode(posX, posY, posZ);
 		int targetNodeIndex = Math.min(closestNodeIndex + 1, entity.getAI().path.getSize() - 1);
@@ -60,9 +60,9 @@ public class AIComponentMovementSway extends AIComponent{
 	
 	@Override
 	public boolean tick(Entity entity, float time, float deltaTime, boolean forceEnable) {
-		float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-		float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-		float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+		float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+		float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+		float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 		
 		// Remove sway from last frame
 		Vector3f sway = getSway(entity, time, deltaTime);
@@ -117,8 +117,8 @@ public class AIComponentMovementSway extends AIComponent{
 	}
 	
 	private Vector3f getSway(Entity entity, float time, float deltaTime) {
-		float yaw = entity.getAnimation().getAnimYaw().getKeyframeAtTime(time).value;
-		float pitch = entity.getAnimation().getAnimPitch().getKeyframeAtTime(time).value;
+		float yaw = entity.getAnimation().getAnimYaw().getValueAtTime(time);
+		float pitch = entity.getAnimation().getAnimPitch().getValueAtTime(time);
 		Matrix rotMatrix = Matrix.rotate(pitch, yaw, 0f);
 		Vector3f sway = rotMatrix.transformDirection(new Vector3f((float) Math.sin((time - deltaTime) * Math.PI * swayFrequency) * 
 																	swayAmplitude, 0f, 0f));
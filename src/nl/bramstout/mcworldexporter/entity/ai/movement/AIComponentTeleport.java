@@ -95,9 +95,9 @@ public class AIComponentTeleport extends AIComponent{
 		if(randomTeleports) {
 			if(time >= nextRandomTeleport) {
 				if(nextRandomTeleport != -1f) {
-					float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-					float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-					float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
+					float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+					float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+					float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
 					EntityTargetBlock target = EntityUtil.FindTarget((int) (randomTeleportCubeWidth/2f), (int) (randomTeleportCubeHeight/2f), 
 												entity, posX, posY, posZ);
 					if(target != null) {
@@ -282,15 +282,15 @@ public class BuiltInEntity extends EntityHandler{
 				handler.model.localGenerators, handler.model.localFunctions);
 		
 		if(handler.posXExpr != null)
-			entity.setX(handler.posXExpr.eval(context).asFloat());
+			entity.setX(handler.posXExpr.evalFloat(context));
 		if(handler.posYExpr != null)
-			entity.setY(handler.posYExpr.eval(context).asFloat());
+			entity.setY(handler.posYExpr.evalFloat(context));
 		if(handler.posZExpr != null)
-			entity.setZ(handler.posZExpr.eval(context).asFloat());
+			entity.setZ(handler.posZExpr.evalFloat(context));
 		if(handler.rotXExpr != null)
-			entity.setPitch(handler.rotXExpr.eval(context).asFloat());
+			entity.setPitch(handler.rotXExpr.evalFloat(context));
 		if(handler.rotYExpr != null)
-			entity.setYaw(handler.rotYExpr.eval(context).asFloat());
+			entity.setYaw(handler.rotYExpr.evalFloat(context));
 	}
 
 	@Override
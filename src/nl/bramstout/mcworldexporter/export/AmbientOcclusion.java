@@ -34,10 +34,7 @@ package nl.bramstout.mcworldexporter.export;
 import java.util.ArrayList;
 import java.util.List;
 
-import nl.bramstout.mcworldexporter.model.BakedBlockState;
-import nl.bramstout.mcworldexporter.model.BlockStateRegistry;
 import nl.bramstout.mcworldexporter.model.Direction;
-import nl.bramstout.mcworldexporter.world.Chunk;
 
 public class AmbientOcclusion {
 	
@@ -89,70 +86,14 @@ public class AmbientOcclusion {
 			}
 		}
 		
-		private int sampleCorner(BakedBlockState[][] blocks, int x, int y, int z) {
-			int contribution = 0;
-			long occlusion = 0;
-			BakedBlockState[] states = blocks[(z>>1)*9+(y>>1)*3+(x>>1)];
-			for(BakedBlockState state : states) {
-				if(state != null)
-					occlusion |= state.getOccludes();
-			}
-			
+		private int sampleCorner(char[] blocks, int x, int y, int z) {
+			// The field already stores how many faces occlude each corner
+			// of a block, two bits per corner.
 			int corner = (y&1)*4+(z&1)*2+(x&1);
-			if(corner == 0) {
-				// -X -Y -Z
-				// NORTH, WEST, DOWN
-				contribution += ((occlusion >>> (Direction.NORTH.id * 4)) & 0b0001) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.WEST.id  * 4)) & 0b0001) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.DOWN.id  * 4)) & 0b0001) != 0 ? 1 : 0;
-			}else if(corner == 1) {
-				// +X -Y -Z
-				// NORTH, EAST, DOWN
-				contribution += ((occlusion >>> (Direction.NORTH.id * 4)) & 0b0010) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.EAST.id  * 4)) & 0b0001) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.DOWN.id  * 4)) & 0b0010) != 0 ? 1 : 0;
-			}else if(corner == 2) {
-				// -X -Y +Z
-				// SOUTH, WEST, DOWN
-				contribution += ((occlusion >>> (Direction.SOUTH.id * 4)) & 0b0001) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.WEST.id  * 4)) & 0b0010) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.DOWN.id  * 4)) & 0b0100) != 0 ? 1 : 0;
-			}else if(corner == 3) {
-				// +X -Y +Z
-				// SOUTH, EAST, DOWN
-				contribution += ((occlusion >>> (Direction.SOUTH.id * 4)) & 0b0010) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.EAST.id  * 4)) & 0b0010) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.DOWN.id  * 4)) & 0b1000) != 0 ? 1 : 0;
-			}else if(corner == 4) {
-				// -X +Y -Z
-				// NORTH, WEST, UP
-				contribution += ((occlusion >>> (Direction.NORTH.id * 4)) & 0b0100) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.WEST.id  * 4)) & 0b0100) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.UP.id    * 4)) & 0b0001) != 0 ? 1 : 0;
-			}else if(corner == 5) {
-				// +X +Y -Z
-				// NORTH, EAST, UP
-				contribution += ((occlusion >>> (Direction.NORTH.id * 4)) & 0b1000) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.EAST.id  * 4)) & 0b0100) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.UP.id    * 4)) & 0b0010) != 0 ? 1 : 0;
-			}else if(corner == 6) {
-				// -X +Y +Z
-				// SOUTH, WEST, UP
-				contribution += ((occlusion >>> (Direction.SOUTH.id * 4)) & 0b0100) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.WEST.id  * 4)) & 0b1000) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.UP.id    * 4)) & 0b0100) != 0 ? 1 : 0;
-			}else if(corner == 7) {
-				// +X +Y +Z
-				// SOUTH, EAST, UP
-				contribution += ((occlusion >>> (Direction.SOUTH.id * 4)) & 0b1000) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.EAST.id  * 4)) & 0b1000) != 0 ? 1 : 0;
-				contribution += ((occlusion >>> (Direction.UP.id    * 4)) & 0b1000) != 0 ? 1 : 0;
-			}
-			
-			return contribution;
+			return (blocks[(z>>1)*9+(y>>1)*3+(x>>1)] >>> (corner * 2)) & 0b11;
 		}
 		
-		public void calculateAmbientOcclusion(BakedBlockState[][] blocks) {
+		public void calculateAmbientOcclusion(char[] blocks) {
 			occlusion = 0;
 			for(int i = 0; i < corners.size(); ++i) {
 				Corner corner = corners.get(i);
@@ -221,7 +162,7 @@ public class AmbientOcclusion {
 			}
 		}
 		
-		public void calculateAmbientOcclusion(BakedBlockState[][] blocks) {
+		public void calculateAmbientOcclusion(char[] blocks) {
 			corner00.calculateAmbientOcclusion(blocks);
 			corner01.calculateAmbientOcclusion(blocks);
 			corner02.calculateAmbientOcclusion(blocks);
@@ -285,7 +226,7 @@ public class AmbientOcclusion {
 			}
 		}
 		
-		public void calculateAmbientOcclusion(BakedBlockState[][] blocks) {
+		public void calculateAmbientOcclusion(char[] blocks) {
 			face0.calculateAmbientOcclusion(blocks);
 			face1.calculateAmbientOcclusion(blocks);
 			face2.calculateAmbientOcclusion(blocks);
@@ -311,16 +252,13 @@ public class AmbientOcclusion {
 	AmbientOcclusionDirection dirWest;
 	AmbientOcclusionDirection dirUp;
 	AmbientOcclusionDirection dirDown;
-	BakedBlockState[][] blocks;
-	int[] blockId;
-	boolean hasCalculated;
-	ChunkExporter exporter;
-	Chunk chunk;
+	char[] blocks;
+	boolean hasBlocks;
+	int calculatedDirections;
+	AmbientOcclusionField field;
 	int cx;
 	int cy;
 	int cz;
-	int lodSize;
-	int lodYSize;
 	
 	public AmbientOcclusion() {
 		dirNorth = new AmbientOcclusionDirection(Direction.NORTH);
@@ -329,85 +267,75 @@ public class AmbientOcclusion {
 		dirWest = new AmbientOcclusionDirection(Direction.WEST);
 		dirUp = new AmbientOcclusionDirection(Direction.UP);
 		dirDown = new AmbientOcclusionDirection(Direction.DOWN);
-		blocks = new BakedBlockState[3*3*3][];
-		for(int i = 0; i < 3*3*3; ++i)
-			blocks[i] = new BakedBlockState[2];
-		blockId = new int[4];
-		hasCalculated = false;
+		blocks = new char[3*3*3];
+		hasBlocks = false;
+		calculatedDirections = 0;
 	}
 	
-	public void calculateAmbientOcclusion(ChunkExporter exporter, Chunk chunk, int cx, int cy, int cz, int lodSize, int lodYSize) {
+	public void calculateAmbientOcclusion(AmbientOcclusionField field, int cx, int cy, int cz) {
 		// This function is called, even for blocks that end up being fully occluded.
 		// So, to help speed things up, we do lazy evaluation.
-		// We store the values and set hasCalculated to indicate that
-		// we still need to do the calculation.
+		// We store the values and reset hasBlocks and calculatedDirections
+		// to indicate that we still need to do the calculation.
 		// Then, when we actually need the values and we haven't calculated
 		// them yet, we will calculate them first.
-		// This way, we only calculate ambient occlusion for blocks that actually show up.
+		// This way, we only calculate ambient occlusion for blocks that actually show up,
+		// and only for the directions that they have faces in.
 		
-		hasCalculated = false;
-		this.exporter = exporter;
-		this.chunk = chunk;
+		hasBlocks = false;
+		calculatedDirections = 0;
+		this.field = field;
 		this.cx = cx;
 		this.cy = cy;
 		this.cz = cz;
-		this.lodSize = lodSize;
-		this.lodYSize = lodYSize;
 	}
 	
-	private void _calculateAmbientOcclusion() {
-		// First get all neighbouring blocks.
-		for(int z = 0; z < 3; ++z) {
-			for(int y = 0; y < 3; ++y) {
-				for(int x = 0; x < 3; ++x) {
-					if(chunk.getLayerCount() > blocks[z*9+y*3+x].length)
-						blocks[z*9+y*3+x] = new BakedBlockState[chunk.getLayerCount()];
-					for(int layer = 0; layer < chunk.getLayerCount(); ++layer) {
-						int ox = (x-1) * lodSize;
-						int oy = (y-1) * lodYSize;
-						int oz = (z-1) * lodSize;
-						exporter.getLODBlockId(chunk, cx + ox, cy + oy, cz + oz, layer, lodSize, lodYSize, blockId);
-						
-						if(blockId[0] <= 0)
-							blocks[z*9+y*3+x][layer] = null;
-						else {
-							blocks[z*9+y*3+x][layer] = BlockStateRegistry.getBakedStateForBlock(blockId[0], blockId[1], blockId[2], blockId[3], layer);
-							if(blocks[z*9+y*3+x][layer].isTransparentOcclusion())
-								blocks[z*9+y*3+x][layer] = null;
-						}
-					}
-				}
+	private AmbientOcclusionDirection getDirection(Direction dir) {
+		AmbientOcclusionDirection aoDir = null;
+		switch(dir) {
+		case NORTH:
+			aoDir = dirNorth;
+			break;
+		case SOUTH:
+			aoDir = dirSouth;
+			break;
+		case EAST:
+			aoDir = dirEast;
+			break;
+		case WEST:
+			aoDir = dirWest;
+			break;
+		case UP:
+			aoDir = dirUp;
+			break;
+		case DOWN:
+			aoDir = dirDown;
+			break;
+		}
+		if((calculatedDirections & (1 << dir.id)) == 0) {
+			if(!hasBlocks) {
+				// Get the occluders of all neighbouring blocks.
+				field.getNeighbourhood(cx, cy, cz, blocks);
+				hasBlocks = true;
 			}
+			aoDir.calculateAmbientOcclusion(blocks);
+			calculatedDirections |= 1 << dir.id;
 		}
-		
-		// Now update occlusion
-		dirNorth.calculateAmbientOcclusion(blocks);
-		dirSouth.calculateAmbientOcclusion(blocks);
-		dirEast.calculateAmbientOcclusion(blocks);
-		dirWest.calculateAmbientOcclusion(blocks);
-		dirUp.calculateAmbientOcclusion(blocks);
-		dirDown.calculateAmbientOcclusion(blocks);
-		
-		hasCalculated = true;
+		return aoDir;
 	}
 	
 	public float getAmbientOcclusionForPoint(float x, float y, float z, Direction dir) {
-		if(!hasCalculated)
-			this._calculateAmbientOcclusion();
-		
+		AmbientOcclusionDirection aoDir = getDirection(dir);
 		switch(dir) {
 		case NORTH:
-			return dirNorth.getAmbientOcclusionForPoint(x, y, z);
 		case SOUTH:
-			return dirSouth.getAmbientOcclusionForPoint(x, y, z);
+			return aoDir.getAmbientOcclusionForPoint(x, y, z);
 		case EAST:
-			return dirEast.getAmbientOcclusionForPoint(z, y, x);
 		case WEST:
-			return dirWest.getAmbientOcclusionForPoint(z, y, x);
+			return aoDir.getAmbientOcclusionForPoint(z, y, x);
 		case UP:
-			return dirUp.getAmbientOcclusionForPoint(x, z, y);
 		case DOWN:
-			return dirDown.getAmbientOcclusionForPoint(x, z, y);
+			return aoDir.getAmbientOcclusionForPoint(x, z, y);
 		}
 		return 1f;
 	}
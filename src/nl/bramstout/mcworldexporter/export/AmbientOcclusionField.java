@@ -0,0 +1,182 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.export;
+
+import nl.bramstout.mcworldexporter.model.BakedBlockState;
+import nl.bramstout.mcworldexporter.model.BlockStateRegistry;
+import nl.bramstout.mcworldexporter.model.Direction;
+import nl.bramstout.mcworldexporter.world.Chunk;
+
+/**
+ * Holds the ambient occlusion occluders for a slab of cells in a chunk,
+ * so that neighbouring blocks don't each have to look up the blocks around them.
+ * 
+ * For every cell (a block, or a group of blocks when using LOD) it stores
+ * for each of its eight octants how many of the three faces touching that
+ * octant's corner occlude, packed as 2 bits per octant.
+ * The slab has one cell of padding on every side.
+ */
+public class AmbientOcclusionField {
+	
+	/**
+	 * The height of a slab in cells.
+	 */
+	private static final int SLAB_HEIGHT = 16;
+	
+	private ChunkExporter exporter;
+	private Chunk chunk;
+	private int minX;
+	private int minY;
+	private int minZ;
+	private int sizeX;
+	private int sizeZ;
+	private int lodSize;
+	private int lodYSize;
+	private int slabMinY;
+	private boolean hasSlab;
+	private char[] occluders;
+	private int[] blockId;
+	
+	public AmbientOcclusionField() {
+		occluders = new char[0];
+		blockId = new int[4];
+		hasSlab = false;
+	}
+	
+	/**
+	 * Sets up the field for a new chunk. The slabs themselves are only
+	 * built once a block in them actually needs its ambient occlusion.
+	 */
+	public void begin(ChunkExporter exporter, Chunk chunk, int minX, int minY, int minZ, int maxX, int maxZ, 
+						int lodSize, int lodYSize) {
+		this.exporter = exporter;
+		this.chunk = chunk;
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.lodSize = lodSize;
+		this.lodYSize = lodYSize;
+		this.sizeX = Math.max((maxX - minX) / lodSize, 0) + 2;
+		this.sizeZ = Math.max((maxZ - minZ) / lodSize, 0) + 2;
+		int size = sizeX * sizeZ * (SLAB_HEIGHT + 2);
+		if(occluders.length < size)
+			occluders = new char[size];
+		this.hasSlab = false;
+	}
+	
+	/**
+	 * Writes the packed occluders of the 3x3x3 cells around the given cell
+	 * into out, indexed as z*9+y*3+x.
+	 */
+	public void getNeighbourhood(int cx, int cy, int cz, char[] out) {
+		int slabY = minY + Math.floorDiv(cy - minY, lodYSize * SLAB_HEIGHT) * lodYSize * SLAB_HEIGHT;
+		if(!hasSlab || slabY != slabMinY)
+			buildSlab(slabY);
+		
+		int ix = (cx - minX) / lodSize;
+		int iy = (cy - slabMinY) / lodYSize;
+		int iz = (cz - minZ) / lodSize;
+		for(int z = 0; z < 3; ++z) {
+			for(int y = 0; y < 3; ++y) {
+				int index = ((iy + y) * sizeZ + (iz + z)) * sizeX + ix;
+				out[z*9+y*3+0] = occluders[index];
+				out[z*9+y*3+1] = occluders[index + 1];
+				out[z*9+y*3+2] = occluders[index + 2];
+			}
+		}
+	}
+	
+	private void buildSlab(int slabY) {
+		slabMinY = slabY;
+		hasSlab = true;
+		int i = 0;
+		for(int y = 0; y < SLAB_HEIGHT + 2; ++y) {
+			int by = slabMinY + (y - 1) * lodYSize;
+			for(int z = 0; z < sizeZ; ++z) {
+				int bz = minZ + (z - 1) * lodSize;
+				for(int x = 0; x < sizeX; ++x) {
+					int bx = minX + (x - 1) * lodSize;
+					long occlusion = 0;
+					for(int layer = 0; layer < chunk.getLayerCount(); ++layer) {
+						exporter.getLODBlockId(chunk, bx, by, bz, layer, lodSize, lodYSize, blockId);
+						if(blockId[0] <= 0)
+							continue;
+						BakedBlockState state = BlockStateRegistry.getBakedStateForBlock(
+														blockId[0], blockId[1], blockId[2], blockId[3], layer);
+						if(state.isTransparentOcclusion())
+							continue;
+						occlusion |= state.getOccludes();
+					}
+					occluders[i++] = occlusion == 0 ? 0 : packOccluders(occlusion);
+				}
+			}
+		}
+	}
+	
+	private static int faceBit(long occlusion, Direction dir, int mask) {
+		return ((occlusion >>> (dir.id * 4)) & mask) != 0 ? 1 : 0;
+	}
+	
+	/**
+	 * Converts the occlusion of a block into the number of occluding faces
+	 * touching each of its eight corners. The corner index is (y*4+z*2+x).
+	 */
+	static char packOccluders(long occlusion) {
+		int packed = 0;
+		// -X -Y -Z
+		packed |= (faceBit(occlusion, Direction.NORTH, 0b0001) + faceBit(occlusion, Direction.WEST, 0b0001) + 
+					faceBit(occlusion, Direction.DOWN, 0b0001)) << 0;
+		// +X -Y -Z
+		packed |= (faceBit(occlusion, Direction.NORTH, 0b0010) + faceBit(occlusion, Direction.EAST, 0b0001) + 
+					faceBit(occlusion, Direction.DOWN, 0b0010)) << 2;
+		// -X -Y +Z
+		packed |= (faceBit(occlusion, Direction.SOUTH, 0b0001) + faceBit(occlusion, Direction.WEST, 0b0010) + 
+					faceBit(occlusion, Direction.DOWN, 0b0100)) << 4;
+		// +X -Y +Z
+		packed |= (faceBit(occlusion, Direction.SOUTH, 0b0010) + faceBit(occlusion, Direction.EAST, 0b0010) + 
+					faceBit(occlusion, Direction.DOWN, 0b1000)) << 6;
+		// -X +Y -Z
+		packed |= (faceBit(occlusion, Direction.NORTH, 0b0100) + faceBit(occlusion, Direction.WEST, 0b0100) + 
+					faceBit(occlusion, Direction.UP, 0b0001)) << 8;
+		// +X +Y -Z
+		packed |= (faceBit(occlusion, Direction.NORTH, 0b1000) + faceBit(occlusion, Direction.EAST, 0b0100) + 
+					faceBit(occlusion, Direction.UP, 0b0010)) << 10;
+		// -X +Y +Z
+		packed |= (faceBit(occlusion, Direction.SOUTH, 0b0100) + faceBit(occlusion, Direction.WEST, 0b1000) + 
+					faceBit(occlusion, Direction.UP, 0b0100)) << 12;
+		// +X +Y +Z
+		packed |= (faceBit(occlusion, Direction.SOUTH, 0b1000) + faceBit(occlusion, Direction.EAST, 0b1000) + 
+					faceBit(occlusion, Direction.UP, 0b1000)) << 14;
+		return (char) packed;
+	}
+	
+}
@@ -39,6 +39,7 @@ import java.util.Map;
 
 import nl.bramstout.mcworldexporter.Color;
 import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.atlas.Atlas;
 import nl.bramstout.mcworldexporter.export.BlendedBiome.WeightedColor;
 import nl.bramstout.mcworldexporter.export.ChunkExporter.AtlasKey;
@@ -200,7 +201,7 @@ public class AnimatedBlock {
 		
 		for(Model model : models) {
 			for(ModelFace face : model.getFaces()) {
-				addFace(meshes, state.getName(), id.blockId, face, model.getTexture(face.getTexture()), 
+				addFace(meshes, state.getName(), bakedState.getConfigFlags(), id.blockId, face, model.getTexture(face.getTexture()), 
 						model.getExtraData(), bakedState.getTint(), model.isDoubleSided(), blendedBiome,
 						model.isAnimatesTopology(), model.isAnimatesPoints(), model.isAnimatesUVs(), model.isAnimatesVertexColors());
 			}
@@ -239,7 +240,7 @@ public class AnimatedBlock {
 	}
 	
 	private Color[] faceTint = new Color[1];
-	private void addFace(Map<String, Mesh> meshes, String blockName, int blockId, ModelFace face, String texture, 
+	private void addFace(Map<String, Mesh> meshes, String blockName, int blockFlags, int blockId, ModelFace face, String texture, 
 			String extraData, TintLayers tintLayers, boolean doubleSided, BlendedBiome blendedBiome,
 			boolean animatesTopology, boolean animatesPoints, boolean animatesUVs, boolean animatesVertexColors) {
 		if(texture == null || texture.equals(""))
@@ -247,10 +248,11 @@ public class AnimatedBlock {
 		
 		String matTexture = texture;
 		String meshName = texture;
+		int textureFlags = ConfigFlags.getFlags(texture);
 		Color[] tint = null;
 		if(tintLayers != null) {
 			int tintIndex = face.getTintIndex();
-			if(tintIndex < 0 && Config.forceBiomeColor.contains(texture))
+			if(tintIndex < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) != 0)
 				tintIndex = 0;
 			TintValue tintValue = tintLayers.getLayer(tintIndex);
 			if(tintValue != null) {
@@ -273,8 +275,8 @@ public class AnimatedBlock {
 			// If the face doesn't have a tintIndex, get rid of the tint.
 			// This is also how Minecraft does it.
 			// But don't do it, if we want to force the biome colour anyways.
-			if((face.getTintIndex() < 0 && !Config.forceBiomeColor.contains(texture)) || 
-					Config.forceNoBiomeColor.contains(blockName))
+			if((face.getTintIndex() < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) == 0) || 
+					(blockFlags & ConfigFlags.FORCE_NO_BIOME_COLOR) != 0)
 				tint = null;
 			else
 				meshName = meshName + "_BIOME";
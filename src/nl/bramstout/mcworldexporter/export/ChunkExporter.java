@@ -32,7 +32,9 @@
 package nl.bramstout.mcworldexporter.export;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -41,6 +43,7 @@ import java.util.Set;
 
 import nl.bramstout.mcworldexporter.Color;
 import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.ExportBounds;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
 import nl.bramstout.mcworldexporter.Reference;
@@ -94,15 +97,20 @@ public class ChunkExporter {
 	private int worldOffsetY;
 	private int worldOffsetZ;
 	private Map<String, Mesh> meshes;
+	private MaterialKeys.Cache materialKeys;
+	private Mesh[] meshTable;
+	private Atlas.AtlasItem[] meshTableAtlas;
 	private Map<IndividualBlockId, FloatArray> individualBlocks;
 	private Map<AnimatedBlockId, AnimatedBlock> animatedBlocks;
 	private Map<String, List<Vector3f>> pointLocators;
 	private String name;
 	private String fgChunkName;
-	//private LODCache lodCache;
+	private LODCache lodCache;
+	private MeshArena meshArena;
 	private CaveCache caveCache;
 	private BlockLightingCache lightingCache;
 	private Reference<char[]> charBuffer;
+	private GreedyMesher greedyMesher;
 
 	
 	public ChunkExporter(ExportBounds bounds, World world, int chunkX, int chunkZ, int chunkSize, String name, String fgChunkName) {
@@ -117,16 +125,25 @@ public class ChunkExporter {
 		this.worldOffsetY = MCWorldExporter.getApp().getExportBoundsList().get(0).getOffsetY();
 		this.worldOffsetZ = MCWorldExporter.getApp().getExportBoundsList().get(0).getOffsetZ();
 		this.meshes = new HashMap<String, Mesh>();
+		this.materialKeys = new MaterialKeys.Cache();
+		this.meshTable = new Mesh[64];
+		this.meshTableAtlas = new Atlas.AtlasItem[64];
 		this.individualBlocks = new HashMap<IndividualBlockId, FloatArray>();
 		this.animatedBlocks = new HashMap<AnimatedBlockId, AnimatedBlock>();
 		this.pointLocators = new HashMap<String, List<Vector3f>>();
 		this.name = name;
-		//this.lodCache = new LODCache(chunkX, chunkZ, chunkSize, bounds.getMinY(), bounds.getMaxY() - bounds.getMinY());
+		this.lodCache = null;
+		if(bounds.hasLod())
+			this.lodCache = new LODCache(chunkX, chunkZ, chunkSize, bounds.getMinY(), bounds.getMaxY() - bounds.getMinY());
+		this.meshArena = null;
 		this.caveCache = null;
 		if(Config.fillInCaves)
 			this.caveCache = new CaveCache(chunkX, chunkZ, chunkSize, bounds.getMinY(), bounds.getMaxY() - bounds.getMinY());
 		this.lightingCache = null;
 		this.charBuffer = new Reference<char[]>();
+		this.greedyMesher = null;
+		if(Config.runOptimiser && Config.runGreedyMeshing && !Config.calculateCornerUVs)
+			this.greedyMesher = new GreedyMesher(worldOffsetX, worldOffsetY, worldOffsetZ);
 	}
 	
 	public void generateMeshes() {
@@ -149,16 +166,19 @@ public class ChunkExporter {
 				}catch(Exception ex) {
 					ex.printStackTrace();
 				}
+				if(greedyMesher != null)
+					greedyMesher.flush();
 				MCWorldExporter.getApp().getUI().getProgressBar().finishedMesh(chunkSize * chunkSize);
 			}
 		}
 		
-		for(String bannedMaterial : Config.bannedMaterials) {
-			if(meshes.containsKey(bannedMaterial))
-				meshes.remove(bannedMaterial);
-			bannedMaterial = bannedMaterial + "_BIOME";
-			if(meshes.containsKey(bannedMaterial))
-				meshes.remove(bannedMaterial);
+		Iterator<String> meshNameIt = meshes.keySet().iterator();
+		while(meshNameIt.hasNext()) {
+			String meshName = meshNameIt.next();
+			if(meshName.endsWith("_BIOME"))
+				meshName = meshName.substring(0, meshName.length() - 6);
+			if(ConfigFlags.hasFlag(meshName, ConfigFlags.BANNED_MATERIAL))
+				meshNameIt.remove();
 		}
 	}
 	
@@ -195,6 +215,13 @@ public class ChunkExporter {
 		maxY = (maxY >> lodYLevel) << lodYLevel;
 		maxZ = (((maxZ + z * 16) >> lodLevel) << lodLevel) - z * 16;
 		
+		if(greedyMesher != null) {
+			if(lodSize == 1 && lodYSize == 1)
+				greedyMesher.begin(x, z, minY, maxY);
+			else
+				greedyMesher.flush();
+		}
+		
 		int bx = 0;
 		int by = 0;
 		int bz = 0;
@@ -214,6 +241,8 @@ public class ChunkExporter {
 		boolean placeStone = false;
 		long occlusion = 0;
 		AmbientOcclusion ambientOcclusion = new AmbientOcclusion();
+		AmbientOcclusionField ambientOcclusionField = new AmbientOcclusionField();
+		ambientOcclusionField.begin(this, chunk, minX, minY, minZ, maxX, maxZ, lodSize, lodYSize);
 		Occlusion occlusionHandler = new Occlusion();
 		ModifierContext modifierContext = new ModifierContext();
 		
@@ -226,7 +255,7 @@ public class ChunkExporter {
 					if(bounds.isInExcludeRegion(wx, by, wz))
 						continue;
 					
-					ambientOcclusion.calculateAmbientOcclusion(this, chunk, bx, by, bz, lodSize, lodYSize);
+					ambientOcclusion.calculateAmbientOcclusion(ambientOcclusionField, bx, by, bz);
 					boolean calculatedBiome = false;
 					
 					for(int layer = 0; layer < chunk.getLayerCount(); ++layer) {	
@@ -492,7 +521,7 @@ public class ChunkExporter {
 				
 				int cornerData = occlusionHandler.getCornerIndexForFace(face, faceIndex);
 				
-				addFace(meshes, state.getName(), blockId[0], dataVersion, face, model.getTexture(face.getTexture()), 
+				addFace(meshes, state.getName(), state.getConfigFlags(), blockId[0], dataVersion, face, model.getTexture(face.getTexture()), 
 						biomeInstance, biome, wx, by, wz, layer, 
 						offsetX, offsetY, offsetZ, uvOffsetY, model.getExtraData(), state.getTint(), model.isDoubleSided(), 
 						lodSize, lodYSize, state.isLodNoUVScale(), state.isLodNoScale(), false, state.getSeparateMeshForBlock(), 
@@ -507,6 +536,7 @@ public class ChunkExporter {
 		Model model = entity.getModel();
 		ModelFace face;
 		int cornerData = 0;
+		int entityFlags = ConfigFlags.getFlags(entity.getId());
 
 		for(int j = 0; j < model.getFaces().size(); ++j) {
 			face = model.getFaces().get(j);
@@ -518,7 +548,7 @@ public class ChunkExporter {
 			float oy = (entity.getY() - iy) * 16f;
 			float oz = (entity.getZ() - iz) * 16f;
 				
-			addFace(meshes, entity.getId(), 0, 0, face, model.getTexture(face.getTexture()), 
+			addFace(meshes, entity.getId(), entityFlags, 0, 0, face, model.getTexture(face.getTexture()), 
 					null, null, ix, iy, iz, 0, 
 					ox, oy, oz, 0f, model.getExtraData(), null, model.isDoubleSided(), 
 					1, 1, false, false, true, false, 
@@ -623,17 +653,32 @@ public class ChunkExporter {
 			return;
 		}
 		
+		if(cx < 0 || cx >= 16 || cz < 0 || cz >= 16) {
+			// Go through the chunk that the cell is actually in,
+			// so that it ends up in the right part of the cache.
+			Chunk chunk2 = getPrefetchedChunkForBlockPos(chunk.getChunkX() * 16 + cx, chunk.getChunkZ() * 16 + cz);
+			if(chunk2 != null && chunk2 != chunk) {
+				getLODBlockId(chunk2, cx + (chunk.getChunkX() - chunk2.getChunkX()) * 16, cy, 
+								cz + (chunk.getChunkZ() - chunk2.getChunkZ()) * 16, layer, lodSize, lodYSize, out);
+				return;
+			}
+		}
+		
 		// First check the cache, otherwise calculate it.
-		//if(lodCache.get(chunk, cx, cy, cz, lodSize, lodYSize, out))
-		//	return;
+		boolean cacheable = lodCache != null && LODCache.isCacheable(cx, cy, cz, lodSize, lodYSize);
+		if(cacheable && lodCache.get(chunk, cx, cy, cz, layer, lodSize, lodYSize, out))
+			return;
 		
+		calculateLODBlockId(chunk, cx, cy, cz, layer, lodSize, lodYSize, out);
 		
-		int numBlocks = lodSize*lodSize*lodYSize;
-		int count = numBlocks * 5;
-		for(int i = 0; i < count; i += 5) {
-			lod_blockIds[i] = -2;
-			lod_blockIds[i+1] = -1;
-		}
+		// Update the LOD cache. A block id of -1 means that the
+		// chunk isn't loaded yet, so don't store that, otherwise
+		// we'd keep returning it once the chunk has been loaded.
+		if(cacheable && out[0] >= 0)
+			lodCache.set(chunk, cx, cy, cz, layer, lodSize, lodYSize, out);
+	}
+	
+	private void calculateLODBlockId(Chunk chunk, int cx, int cy, int cz, int layer, int lodSize, int lodYSize, int[] out) {
 		int blockId = 0;
 		BakedBlockState state = null;
 		boolean allowed = true;
@@ -641,6 +686,14 @@ public class ChunkExporter {
 		// This reduces the accuracy, but significantly speeds things up.
 		int stepXZ = Math.max(lodSize / 4, 1);
 		int stepY = Math.max(lodYSize / 4, 1);
+		// There can't be more different block ids than samples.
+		int numSamples = ((lodSize + stepXZ - 1) / stepXZ) * ((lodSize + stepXZ - 1) / stepXZ) * 
+							((lodYSize + stepY - 1) / stepY);
+		int count = numSamples * 5;
+		for(int i = 0; i < count; i += 5) {
+			lod_blockIds[i] = -2;
+			lod_blockIds[i+1] = -1;
+		}
 		int chunkX = chunk.getChunkX() * 16;
 		int chunkZ = chunk.getChunkZ() * 16;
 		int blockPriority = 0;
@@ -666,7 +719,7 @@ public class ChunkExporter {
 						allowed = false;
 					
 					if(allowed) {
-						for(int i = 0; i < numBlocks*5; i += 5) {
+						for(int i = 0; i < count; i += 5) {
 							if(lod_blockIds[i] == blockId) {
 								lod_blockIds[i+1] += blockPriority;
 								if(y > lod_blockIds[i+3]) {
@@ -703,7 +756,7 @@ public class ChunkExporter {
 		int mostCommonX = 0;
 		int mostCommonY = 0;
 		int mostCommonZ = 0;
-		for(int i = 0; i < numBlocks * 5; i += 5) {
+		for(int i = 0; i < count; i += 5) {
 			if(lod_blockIds[i+1] > mostCommonAmount) {
 				mostCommonBlockId = lod_blockIds[i];
 				mostCommonAmount = lod_blockIds[i+1];
@@ -716,9 +769,6 @@ public class ChunkExporter {
 		out[1] = mostCommonX;
 		out[2] = mostCommonY;
 		out[3] = mostCommonZ;
-		
-		// Update the LOD cache
-		//lodCache.set(chunk, cx, cy, cz, lodSize, lodYSize, mostCommonBlockId, mostCommonX, mostCommonY, mostCommonZ);
 	}
 	
 	private void getLODBlockIdOcclusion(Chunk chunk, int cx, int cy, int cz, int layer, int lodSize, int lodYSize, Direction direction, int[] out) {
@@ -972,7 +1022,55 @@ public class ChunkExporter {
 	
 	private Color[] faceTint = null;
 	
-	private void addFace(Map<String, Mesh> meshes, String blockName, int blockId, int dataVersion, ModelFace face, String texture, 
+	/**
+	 * Looks up the mesh for the material, creating it if needed,
+	 * and stores it in the mesh table.
+	 * Different materials can still end up in the same mesh,
+	 * which is why the meshes are also stored by their name.
+	 */
+	private Mesh createMeshForMaterial(int materialId, String texture, boolean hasTint, boolean doubleSided, 
+										String shadingMode, String blockName, boolean separateMeshForBlock,
+										String extraData) {
+		String matTexture = texture;
+		String meshName = texture;
+		if(hasTint)
+			meshName = meshName + "_BIOME";
+		Atlas.AtlasItem atlas = Atlas.getAtlasItem(texture);
+		if(atlas != null) {
+			meshName = getMeshName(atlas, texture, hasTint, doubleSided, shadingMode);
+			texture = atlas.atlas;
+		}
+		if(separateMeshForBlock) {
+			meshName = blockName.replace(':', '_') + "_" + meshName;
+		}
+		
+		Mesh mesh = meshes.getOrDefault(meshName, null);
+		if(mesh == null) {
+			boolean animatedTexture = false;
+			MCMeta mcmeta = ResourcePacks.getMCMeta(texture);
+			if(mcmeta != null)
+				animatedTexture = mcmeta.isAnimate() || mcmeta.isInterpolate();
+			
+			if(meshArena == null)
+				meshArena = MeshArena.get();
+			mesh = meshArena.allocate(meshName, MeshPurpose.UNDEFINED, texture, matTexture, animatedTexture, doubleSided,
+							shadingMode);
+			mesh.setExtraData(extraData);
+			meshes.put(meshName, mesh);
+		}
+		
+		if(materialId >= meshTable.length) {
+			int newSize = Math.max(meshTable.length * 2, materialId + 1);
+			meshTable = Arrays.copyOf(meshTable, newSize);
+			meshTableAtlas = Arrays.copyOf(meshTableAtlas, newSize);
+		}
+		meshTable[materialId] = mesh;
+		meshTableAtlas[materialId] = atlas;
+		return mesh;
+	}
+	
+	private void addFace(Map<String, Mesh> meshes, String blockName, int blockFlags, int blockId, int dataVersion, 
+			ModelFace face, String texture, 
 			Biome biome, BlendedBiome blendedBiome, int ix, int iy, int iz, int layer, float ox, float oy, float oz, 
 			float uvOffsetY, String extraData, TintLayers tintLayers, boolean doubleSided, int lodSize, int lodYSize,
 			boolean lodNoUVScale, boolean lodNoScale, boolean noConnectedTextures, boolean separateMeshForBlock, 
@@ -1038,7 +1136,7 @@ public class ChunkExporter {
 									overlayFace.setFaceColour(overlayTexture.getTint(), true);
 								}
 								
-								addFace(meshes, blockName, blockId, dataVersion, overlayFace, newTexture, biome, blendedBiome,
+								addFace(meshes, blockName, blockFlags, blockId, dataVersion, overlayFace, newTexture, biome, blendedBiome,
 										ix, iy, iz, layer, ox, oy, oz, 
 										uvOffsetY, extraData, overlayTint, doubleSided, lodSize, lodYSize, 
 										lodNoUVScale, lodNoScale, true, false, ambientOcclusion, cornerData,
@@ -1092,18 +1190,17 @@ public class ChunkExporter {
 		
 		
 		
-		String matTexture = texture;
-		String meshName = texture;
 		if(faceTint == null || faceTint.length != (Config.smoothBiomeColors ? 8 : 1)) {
 			faceTint = new Color[Config.smoothBiomeColors ? 8 : 1];
 		}
+		int textureFlags = materialKeys.getTextureFlags(texture);
 		Color[] tint = null;
 		if(tintLayers != null) {
 			int tintIndex = face.getTintIndex();
 			if(modifiers != null && modifiers.hasModifiers())
 				// In case a modifier changed it.
 				tintIndex = modifierContext.faceTintIndex;
-			if(tintIndex < 0 && Config.forceBiomeColor.contains(texture))
+			if(tintIndex < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) != 0)
 				tintIndex = 0;
 			TintValue tintValue = tintLayers.getLayer(tintIndex);
 			if(tintValue != null) {
@@ -1126,22 +1223,28 @@ public class ChunkExporter {
 			// If the face doesn't have a tintIndex, get rid of the tint.
 			// This is also how Minecraft does it.
 			// But don't do it, if we want to force the biome colour anyways.
-			if((face.getTintIndex() < 0 && !Config.forceBiomeColor.contains(texture)) || 
-					Config.forceNoBiomeColor.contains(blockName))
+			if((face.getTintIndex() < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) == 0) || 
+					(blockFlags & ConfigFlags.FORCE_NO_BIOME_COLOR) != 0)
 				tint = null;
-			else
-				meshName = meshName + "_BIOME";
 		}
+		
+		int materialId = materialKeys.getId(texture, MaterialKeys.getFlags(tint != null, doubleSided), 
+											face.getShadingMode(), separateMeshForBlock ? blockName : null);
+		Mesh mesh = null;
+		if(materialId < meshTable.length)
+			mesh = meshTable[materialId];
+		if(mesh == null)
+			mesh = createMeshForMaterial(materialId, texture, tint != null, doubleSided, face.getShadingMode(), 
+											blockName, separateMeshForBlock, extraData);
+		Atlas.AtlasItem atlas = meshTableAtlas[materialId];
+		
 		float lodSizeF = ((float) ((lodNoScale ? 1 : lodSize)-1)) / 2.0f;
 		float lodYSizeF = ((float) (lodYSize-1)) / 2.0f;
 		float lodScale = (float) (lodNoScale ? 1 : lodSize);
 		float lodYScale = (float) (lodNoScale ? 1 : lodYSize);
 		float lodUVScale = lodNoUVScale ? 1.0f : lodScale;
 		float lodYUVScale = lodNoUVScale ? 1.0f : lodYScale;
-		Atlas.AtlasItem atlas = Atlas.getAtlasItem(texture);
 		if(atlas != null) {
-			meshName = getMeshName(atlas, texture, tint != null, doubleSided, face.getShadingMode());
-			texture = atlas.atlas;
 			// When using an atlas, we can't just scale up the UVs.
 			lodUVScale = Math.min(lodUVScale, (float) atlas.padding);
 			lodYUVScale = Math.min(lodYUVScale, (float) atlas.padding);
@@ -1149,22 +1252,13 @@ public class ChunkExporter {
 		// Scale the Y uv's on the top and bottom faces like normal.
 		if(face.getDirection() == Direction.UP || face.getDirection() == Direction.DOWN)
 			lodYUVScale = lodUVScale;
-				
-		if(separateMeshForBlock) {
-			meshName = blockName.replace(':', '_') + "_" + meshName;
-		}
 		
-		Mesh mesh = meshes.getOrDefault(meshName, null);
-		if(mesh == null) {
-			boolean animatedTexture = false;
-			MCMeta mcmeta = ResourcePacks.getMCMeta(texture);
-			if(mcmeta != null)
-				animatedTexture = mcmeta.isAnimate() || mcmeta.isInterpolate();
-			
-			mesh = new Mesh(meshName, MeshPurpose.UNDEFINED, texture, matTexture, animatedTexture, doubleSided,
-							face.getShadingMode(), 1024, 8);
-			mesh.setExtraData(extraData);
-			meshes.put(meshName, mesh);
+		if(greedyMesher != null && atlas == null && normal == null && vertexColors == null && uvOffsetY == 0f && 
+				ox == 0f && oy == 0f && oz == 0f && lodSize == 1 && lodYSize == 1) {
+			// Full block faces get merged together by the greedy mesher
+			// and added into the mesh once the chunk is done.
+			if(greedyMesher.addFace(mesh, face, ix, iy, iz, tint, ambientOcclusion, cornerData))
+				return;
 		}
 		
 		mesh.addFace(face, 
@@ -1653,32 +1747,47 @@ public class ChunkExporter {
 	
 	public void cleanUp() {
 		world = null;
+		// The meshes have been written out, so they can be reused for the next tile.
+		if(meshArena != null)
+			meshArena.releaseAll();
+		meshArena = null;
 		meshes = null;
+		meshTable = null;
+		meshTableAtlas = null;
 		individualBlocks = null;
-		//lodCache = null;
+		lodCache = null;
 		caveCache = null;
 		
 		System.gc();
 	}
 	
 	public void optimiseAndWriteMeshes(LargeDataOutputStream dos) throws Exception {
-		float threshold = (bounds.getFgChunks().contains(fgChunkName) || bounds.getFgChunks().isEmpty()) ? 
+		final float threshold = (bounds.getFgChunks().contains(fgChunkName) || bounds.getFgChunks().isEmpty()) ? 
 				Config.fgFullnessThreshold : Config.bgFullnessThreshold;
 		
-		MeshProcessors processors = new MeshProcessors("mesh_chunk_" + chunkX + "_" + chunkZ);
-		if(Config.runOptimiser) {
-			if(Config.runRaytracingOptimiser) {
-				RaytracingOptimiser raytracingOptimiser = new RaytracingOptimiser(threshold, dos);
-				processors.addProcessor(raytracingOptimiser);
-			}
-			if(Config.runFaceOptimiser) {
-				FaceOptimiser faceOptimiser = new FaceOptimiser();
-				processors.addProcessor(faceOptimiser);
+		MeshProcessors.IChainBuilder chainBuilder = new MeshProcessors.IChainBuilder() {
+			
+			@Override
+			public void build(MeshProcessors processors, LargeDataOutputStream dos) {
+				if(Config.runOptimiser) {
+					if(Config.runRaytracingOptimiser) {
+						RaytracingOptimiser raytracingOptimiser = new RaytracingOptimiser(threshold, dos);
+						processors.addProcessor(raytracingOptimiser);
+					}
+					if(Config.runFaceOptimiser) {
+						FaceOptimiser faceOptimiser = new FaceOptimiser();
+						processors.addProcessor(faceOptimiser);
+					}
+				}
+				
+				WriteProcessor writeProcessor = new WriteProcessor(dos);
+				processors.addProcessor(writeProcessor);
 			}
-		}
+			
+		};
 		
-		WriteProcessor writeProcessor = new WriteProcessor(dos);
-		processors.addProcessor(writeProcessor);
+		MeshProcessors processors = new MeshProcessors("mesh_chunk_" + chunkX + "_" + chunkZ);
+		chainBuilder.build(processors, dos);
 		
 		// Pretty much all of the code assumes that a block is 16 units.
 		// In order to not break any of that, we do the scaling here.
@@ -1702,11 +1811,16 @@ public class ChunkExporter {
 		//dos.writeInt(meshes.size());
 		//dos.writeInt(meshes.size());
 		//System.out.println(name + ": " + meshes.size());
-		for(Entry<String, Mesh> mesh : meshes.entrySet()) {
-			processors.process(mesh.getValue());
-
-			MCWorldExporter.getApp().getUI().getProgressBar().finishedOptimising(meshes.size() + 2);
-		}
+		final int numMeshes = meshes.size();
+		processors.processParallel(new ArrayList<Mesh>(meshes.values()), dos, chainBuilder, 
+				new MeshProcessors.IProgressCallback() {
+			
+			@Override
+			public void meshFinished(Mesh mesh) {
+				MCWorldExporter.getApp().getUI().getProgressBar().finishedOptimising(numMeshes + 2);
+			}
+			
+		});
 		if(meshMergerId >= 0)
 			processors.endMeshMerger(meshMergerId);
 		
@@ -56,6 +56,7 @@ import nl.bramstout.mcworldexporter.entity.EntityAnimation.BoneAnimation;
 import nl.bramstout.mcworldexporter.entity.EntityAnimation.Keyframe;
 import nl.bramstout.mcworldexporter.entity.EntityAnimation.Locator;
 import nl.bramstout.mcworldexporter.entity.EntityRegistry;
+import nl.bramstout.mcworldexporter.entity.EntitySpatialGrid;
 import nl.bramstout.mcworldexporter.entity.spawning.EntitySpawner;
 import nl.bramstout.mcworldexporter.entity.spawning.EntitySpawner.SpawnEntity;
 import nl.bramstout.mcworldexporter.model.Model;
@@ -557,59 +558,71 @@ public class EntityExporter {
 		}
 		
 		// Simulate the entities and animate them
-		for(int frame = startFrame; frame < endFrame; ++frame) {
-			float time = ((float) frame) / ((float) fps);
-			float deltaTime = 1f / ((float) fps);
+		EntitySpatialGrid entityGrid = new EntitySpatialGrid();
+		world.setEntityGrid(entityGrid);
+		// Always reset the grid, so that the world doesn't keep referencing
+		// the entities of a failed export.
+		try {
+			for(int frame = startFrame; frame < endFrame; ++frame) {
+				float time = ((float) frame) / ((float) fps);
+				float deltaTime = 1f / ((float) fps);
 			
-			int numEntities2 = entities.size();
-			int numTasks = ThreadPool.getNumThreads(1024) * 4;
-			int numEntitiesPerTask = (numEntities2 + numTasks - 1) / numTasks;
-			List<Future<?>> futures = new ArrayList<Future<?>>();
-			for(int i = 0; i < numTasks; ++i) {
-				final int entityStartIndex = i * numEntitiesPerTask;
-				final int entityEndIndex = Math.min((i + 1) * numEntitiesPerTask, numEntities2);
-				futures.add(threadPool.submit(new Runnable() {
+				// Entities look for other entities around them,
+				// so put them into a grid for quick lookups.
+				entityGrid.build(entities, time);
+			
+				int numEntities2 = entities.size();
+				int numTasks = ThreadPool.getNumThreads(1024) * 4;
+				int numEntitiesPerTask = (numEntities2 + numTasks - 1) / numTasks;
+				List<Future<?>> futures = new ArrayList<Future<?>>();
+				for(int i = 0; i < numTasks; ++i) {
+					final int entityStartIndex = i * numEntitiesPerTask;
+					final int entityEndIndex = Math.min((i + 1) * numEntitiesPerTask, numEntities2);
+					futures.add(threadPool.submit(new Runnable() {
 
-					@Override
-					public void run() {
-						for(int i = entityStartIndex; i < entityEndIndex; ++i) {
-							Entity entity = entities.get(i);
-							if(!enabledEntitySimulations.contains(entity.getId()))
-								continue;
+						@Override
+						public void run() {
+							for(int i = entityStartIndex; i < entityEndIndex; ++i) {
+								Entity entity = entities.get(i);
+								if(!enabledEntitySimulations.contains(entity.getId()))
+									continue;
 							
-							if(entity.getAI() != null)
-								entity.getAI().tick(time, deltaTime);
+								if(entity.getAI() != null)
+									entity.getAI().tick(time, deltaTime);
 							
-							if(entity.getAnimationController() != null) {
-								float posX = entity.getAnimation().getAnimPosX().getKeyframeAtTime(time).value;
-								float posY = entity.getAnimation().getAnimPosY().getKeyframeAtTime(time).value;
-								float posZ = entity.getAnimation().getAnimPosZ().getKeyframeAtTime(time).value;
-								MolangQuery query = new MolangQuery(entity.getId(), entity.getProperties(), posX, posY, posZ);
-								MolangContext context = new MolangContext(query, entity.getRandom());
-								context.setVariableDict(entity.getVariables());
-								AnimationInfo animInfo = context.pushAnimationInfo();
-								animInfo.animation = entity.getAnimation();
-								animInfo.globalTime = time;
-								animInfo.deltaTime = deltaTime;
-								entity.applyBindPoseToAnimation(time);
-								entity.getAnimationController().eval(entity.getAnimationControllerState(), entity.getAnimations(), 
-										time, deltaTime, time, 1f, context, entity);
+								if(entity.getAnimationController() != null) {
+									float posX = entity.getAnimation().getAnimPosX().getValueAtTime(time);
+									float posY = entity.getAnimation().getAnimPosY().getValueAtTime(time);
+									float posZ = entity.getAnimation().getAnimPosZ().getValueAtTime(time);
+									MolangQuery query = new MolangQuery(entity.getId(), entity.getProperties(), posX, posY, posZ);
+									MolangContext context = new MolangContext(query, entity.getRandom());
+									context.setVariableDict(entity.getVariables());
+									AnimationInfo animInfo = context.pushAnimationInfo();
+									animInfo.animation = entity.getAnimation();
+									animInfo.globalTime = time;
+									animInfo.deltaTime = deltaTime;
+									entity.applyBindPoseToAnimation(time);
+									entity.getAnimationController().eval(entity.getAnimationControllerState(), entity.getAnimations(), 
+											time, deltaTime, time, 1f, context, entity);
+								}
 							}
 						}
-					}
 				
-				}));
-			}
-			for(Future<?> future : futures) {
-				try {
-					future.get();
-				}catch(Exception ex) {
-					ex.printStackTrace();
+					}));
+				}
+				for(Future<?> future : futures) {
+					try {
+						future.get();
+					}catch(Exception ex) {
+						ex.printStackTrace();
+					}
 				}
-			}
 			
-			counter++;
-			MCWorldExporter.getApp().getUI().getProgressBar().setProgress((((float) counter) / ((float) numEntities)) * 0.8f);
+				counter++;
+				MCWorldExporter.getApp().getUI().getProgressBar().setProgress((((float) counter) / ((float) numEntities)) * 0.8f);
+			}
+		} finally {
+			world.setEntityGrid(null);
 		}
 	}
 	
@@ -46,6 +46,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import nl.bramstout.mcworldexporter.Color;
 import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.ExportBounds;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
 import nl.bramstout.mcworldexporter.atlas.Atlas;
@@ -82,6 +83,13 @@ public class Exporter {
 		return isExporting.get();
 	}
 	
+	/**
+	 * The thread pool that the chunks are exported on.
+	 */
+	public static ThreadPool getThreadPool() {
+		return threadPool;
+	}
+	
 	public static void export(File usdFile) throws Exception{
 		isExporting.set(true);
 		try {
@@ -109,6 +117,7 @@ public class Exporter {
 		BackgroundThread.waitUntilDoneWithBackgroundTasks();
 		
 		MaterialWriter.clearCounters();
+		MaterialKeys.clear();
 		
 		BannerTextureCreator.load();
 		
@@ -247,14 +256,15 @@ public class Exporter {
 			for(Model model : models) {
 				for(ModelFace face : model.getFaces()) {
 					String texture = model.getTexture(face.getTexture());
-					if(texture == null || texture.equals("") || Config.bannedMaterials.contains(texture)) {
+					int textureFlags = ConfigFlags.getFlags(texture);
+					if(texture == null || texture.equals("") || (textureFlags & ConfigFlags.BANNED_MATERIAL) != 0) {
 						faceIndex++;
 						continue;
 					}
 					Color faceTint = null;
 					if(tintLayers != null) {
 						int tintIndex = face.getTintIndex();
-						if(tintIndex < 0 && Config.forceBiomeColor.contains(texture))
+						if(tintIndex < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) != 0)
 							tintIndex = 0;
 						TintValue tintValue = tintLayers.getLayer(tintIndex);
 						if(tintValue != null) {
@@ -263,8 +273,8 @@ public class Exporter {
 								faceTint = color.get(0);
 						}
 					}
-					if((face.getTintIndex() < 0 && !Config.forceBiomeColor.contains(texture)) || 
-							Config.forceNoBiomeColor.contains(state.getName()))
+					if((face.getTintIndex() < 0 && (textureFlags & ConfigFlags.FORCE_BIOME_COLOR) == 0) || 
+							(state.getConfigFlags() & ConfigFlags.FORCE_NO_BIOME_COLOR) != 0)
 						faceTint = null;
 					
 					String matTexture = texture;
@@ -408,9 +418,12 @@ public class Exporter {
 				synchronized(mutex) {
 					individualBlockIds.addAll(chunk.getIndividualBlockIds());
 				}
-				chunk.cleanUp();
 			} catch (Exception e) {
 				e.printStackTrace();
+			} finally {
+				// Always give the meshes back to the arena,
+				// otherwise a failed tile would keep them around.
+				chunk.cleanUp();
 			}
 		}
 
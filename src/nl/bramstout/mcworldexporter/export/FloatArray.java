@@ -92,5 +92,19 @@ public class FloatArray {
 	public void clear() {
 		this.size = 0;
 	}
+	
+	public int capacity() {
+		return this.data.length;
+	}
+	
+	/**
+	 * Shrinks the underlying array down to maxCapacity,
+	 * but never below the current size.
+	 */
+	public void trim(int maxCapacity) {
+		int capacity = Math.max(maxCapacity, this.size);
+		if(this.data.length > capacity)
+			this.data = Arrays.copyOf(this.data, capacity);
+	}
 
 }
@@ -41,6 +41,8 @@ import java.nio.file.StandardCopyOption;
 import nl.bramstout.mcworldexporter.FileUtil;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
 import nl.bramstout.mcworldexporter.image.ImageWriter;
+import nl.bramstout.mcworldexporter.resourcepack.ResourcePack;
+import nl.bramstout.mcworldexporter.resourcepack.ResourcePacks;
 import nl.bramstout.mcworldexporter.world.World;
 
 public class GeneratedTextures {
@@ -94,6 +96,7 @@ public class GeneratedTextures {
 			texFile.getParentFile().mkdirs();
 		System.out.println("Writing generated texture: " + texId);
 		ImageWriter.writeImage(texFile, image);
+		addToFileIndex(texFile);
 		return texId;
 	}
 	
@@ -119,6 +122,7 @@ public class GeneratedTextures {
 					
 					URL url2 = new URI(url).toURL();
 					Files.copy(url2.openStream(), texFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+					addToFileIndex(texFile);
 				}catch(Exception ex) {
 					ex.printStackTrace();
 				}
@@ -128,4 +132,16 @@ public class GeneratedTextures {
 		return texId;
 	}
 	
+	/**
+	 * The resource pack's file index was built before this texture
+	 * was written, so add it to the index to make it findable.
+	 */
+	private static void addToFileIndex(File texFile) {
+		if(storeGeneratedTexturesInExport)
+			return;
+		ResourcePack resourcePack = ResourcePacks.getResourcePack(generatedTexturesResourcePackName);
+		if(resourcePack != null)
+			resourcePack.addToFileIndex(texFile);
+	}
+	
 }
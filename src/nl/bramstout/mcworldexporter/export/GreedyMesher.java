@@ -0,0 +1,487 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.export;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.bramstout.mcworldexporter.Color;
+import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
+import nl.bramstout.mcworldexporter.model.Direction;
+import nl.bramstout.mcworldexporter.model.ModelFace;
+
+/**
+ * Merges coplanar full block faces that share the same mesh, texture mapping,
+ * tint and ambient occlusion into larger rectangles, before they are added
+ * into the mesh. This is done per chunk column and per 16x16 slice, so that
+ * the FaceOptimiser has a lot less work to do afterwards.
+ * 
+ * Faces that don't cover the full side of a block, use LODs, atlases,
+ * random offsets, vertex colours or face modifiers are not touched
+ * and ChunkExporter adds them in directly.
+ */
+public class GreedyMesher {
+	
+	private static class GroupKey{
+		
+		public Mesh mesh;
+		public Direction direction;
+		public int cornerLayout;
+		public float u00;
+		public float v00;
+		public float dUA;
+		public float dVA;
+		public float dUB;
+		public float dVB;
+		public boolean doubleSided;
+		public boolean hasTint;
+		public float tintR;
+		public float tintG;
+		public float tintB;
+		public float ao;
+		public int cornerData;
+		
+		public GroupKey() {}
+		
+		public GroupKey(GroupKey other) {
+			mesh = other.mesh;
+			direction = other.direction;
+			cornerLayout = other.cornerLayout;
+			u00 = other.u00;
+			v00 = other.v00;
+			dUA = other.dUA;
+			dVA = other.dVA;
+			dUB = other.dUB;
+			dVB = other.dVB;
+			doubleSided = other.doubleSided;
+			hasTint = other.hasTint;
+			tintR = other.tintR;
+			tintG = other.tintG;
+			tintB = other.tintB;
+			ao = other.ao;
+			cornerData = other.cornerData;
+		}
+		
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(mesh);
+			hash = hash * 31 + direction.id;
+			hash = hash * 31 + cornerLayout;
+			hash = hash * 31 + Float.floatToIntBits(u00);
+			hash = hash * 31 + Float.floatToIntBits(v00);
+			hash = hash * 31 + Float.floatToIntBits(dUA);
+			hash = hash * 31 + Float.floatToIntBits(dVA);
+			hash = hash * 31 + Float.floatToIntBits(tintR);
+			hash = hash * 31 + Float.floatToIntBits(tintG);
+			hash = hash * 31 + Float.floatToIntBits(tintB);
+			hash = hash * 31 + Float.floatToIntBits(ao);
+			hash = hash * 31 + cornerData;
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof GroupKey))
+				return false;
+			GroupKey other = (GroupKey) obj;
+			return mesh == other.mesh && direction == other.direction && cornerLayout == other.cornerLayout &&
+					u00 == other.u00 && v00 == other.v00 && dUA == other.dUA && dVA == other.dVA &&
+					dUB == other.dUB && dVB == other.dVB && doubleSided == other.doubleSided &&
+					hasTint == other.hasTint && tintR == other.tintR && tintG == other.tintG && 
+					tintB == other.tintB && ao == other.ao && cornerData == other.cornerData;
+		}
+		
+	}
+	
+	private static class Group{
+		
+		public GroupKey key;
+		public ModelFace template;
+		/**
+		 * One 16x16 bit mask per slice, allocated when needed.
+		 */
+		public long[][] slices;
+		
+		public Group(GroupKey key, ModelFace template, int numSlices) {
+			this.key = key;
+			this.template = template;
+			this.slices = new long[numSlices][];
+		}
+		
+	}
+	
+	private Map<GroupKey, Group> groups;
+	private List<Group> groupOrder;
+	private GroupKey probe;
+	private int worldOffsetX;
+	private int worldOffsetY;
+	private int worldOffsetZ;
+	private int chunkWorldX;
+	private int chunkWorldZ;
+	private int minY;
+	private int maxY;
+	private int numSections;
+	private boolean active;
+	private Color[] tint1;
+	private float[] aoData;
+	
+	public GreedyMesher(int worldOffsetX, int worldOffsetY, int worldOffsetZ) {
+		this.worldOffsetX = worldOffsetX;
+		this.worldOffsetY = worldOffsetY;
+		this.worldOffsetZ = worldOffsetZ;
+		groups = new HashMap<GroupKey, Group>();
+		groupOrder = new ArrayList<Group>();
+		probe = new GroupKey();
+		active = false;
+		tint1 = new Color[1];
+		aoData = new float[4];
+	}
+	
+	/**
+	 * Starts collecting faces for a new chunk column.
+	 * Any faces still left from the previous chunk column are written out first.
+	 */
+	public void begin(int chunkX, int chunkZ, int minY, int maxY) {
+		flush();
+		this.chunkWorldX = chunkX * 16;
+		this.chunkWorldZ = chunkZ * 16;
+		this.minY = minY;
+		this.maxY = maxY;
+		this.numSections = (Math.max(maxY - minY, 0) + 15) / 16;
+		this.active = maxY > minY;
+	}
+	
+	/**
+	 * Tries to add in the face to be merged later on.
+	 * Returns false if the face can't be merged, in which
+	 * case the caller needs to add it into the mesh itself.
+	 */
+	public boolean addFace(Mesh mesh, ModelFace face, int ix, int iy, int iz, Color[] tint, 
+							AmbientOcclusion ambientOcclusion, int cornerData) {
+		if(!active)
+			return false;
+		if(face.getVertexColors() != null || mesh.hasAnimatedTexture())
+			return false;
+		if(ConfigFlags.hasFlag(mesh.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION))
+			return false;
+		int lx = ix - chunkWorldX;
+		int lz = iz - chunkWorldZ;
+		if(lx < 0 || lx >= 16 || lz < 0 || lz >= 16 || iy < minY || iy >= maxY)
+			return false;
+		
+		Direction dir = face.getDirection();
+		if(dir == null)
+			return false;
+		int axisN = 0;
+		int axisA = 0;
+		int axisB = 0;
+		switch(dir) {
+		case UP:
+		case DOWN:
+			axisN = 1;
+			axisA = 0;
+			axisB = 2;
+			break;
+		case NORTH:
+		case SOUTH:
+			axisN = 2;
+			axisA = 0;
+			axisB = 1;
+			break;
+		case WEST:
+		case EAST:
+			axisN = 0;
+			axisA = 2;
+			axisB = 1;
+			break;
+		default:
+			return false;
+		}
+		float planeN = (dir.x + dir.y + dir.z) > 0 ? 16f : 0f;
+		
+		// The face needs to cover the full side of the block,
+		// with each vertex on a different corner.
+		float[] points = face.getPoints();
+		float[] uvs = face.getUVs();
+		int cornerLayout = 0;
+		int cornersUsed = 0;
+		int i00 = -1;
+		int i10 = -1;
+		int i01 = -1;
+		int i11 = -1;
+		for(int i = 0; i < 4; ++i) {
+			if(points[i*3 + axisN] != planeN)
+				return false;
+			float a = points[i*3 + axisA];
+			float b = points[i*3 + axisB];
+			if((a != 0f && a != 16f) || (b != 0f && b != 16f))
+				return false;
+			int corner = (a > 0f ? 1 : 0) | (b > 0f ? 2 : 0);
+			cornersUsed |= 1 << corner;
+			cornerLayout |= corner << (i*2);
+			switch(corner) {
+			case 0:
+				i00 = i;
+				break;
+			case 1:
+				i10 = i;
+				break;
+			case 2:
+				i01 = i;
+				break;
+			default:
+				i11 = i;
+				break;
+			}
+		}
+		if(cornersUsed != 0b1111)
+			return false;
+		
+		// The UVs need to be an exact texture repeat along both axes,
+		// otherwise merging changes how the texture gets mapped.
+		float u00 = uvs[i00*2];
+		float v00 = uvs[i00*2+1];
+		float dUA = uvs[i10*2] - u00;
+		float dVA = uvs[i10*2+1] - v00;
+		float dUB = uvs[i01*2] - u00;
+		float dVB = uvs[i01*2+1] - v00;
+		if(uvs[i11*2] != u00 + dUA + dUB || uvs[i11*2+1] != v00 + dVA + dVB)
+			return false;
+		if(!((Math.abs(dUA) == 16f && dVA == 0f && dUB == 0f && Math.abs(dVB) == 16f) ||
+				(dUA == 0f && Math.abs(dVA) == 16f && Math.abs(dUB) == 16f && dVB == 0f)))
+			return false;
+		
+		// Tint and ambient occlusion need to be uniform over the face.
+		Color tintColor = null;
+		if(tint != null) {
+			tintColor = tint[0];
+			for(int i = 1; i < tint.length; ++i) {
+				if(tint[i].getR() != tintColor.getR() || tint[i].getG() != tintColor.getG() || 
+						tint[i].getB() != tintColor.getB())
+					return false;
+			}
+		}
+		float ao = -1f;
+		if(Config.calculateAmbientOcclusion && ambientOcclusion != null) {
+			for(int i = 0; i < 4; ++i)
+				aoData[i] = Mesh.getAOForPoint(points[i*3], points[i*3+1], points[i*3+2], ambientOcclusion, dir);
+			if(aoData[0] != aoData[1] || aoData[0] != aoData[2] || aoData[0] != aoData[3])
+				return false;
+			ao = aoData[0];
+		}
+		
+		probe.mesh = mesh;
+		probe.direction = dir;
+		probe.cornerLayout = cornerLayout;
+		probe.u00 = u00;
+		probe.v00 = v00;
+		probe.dUA = dUA;
+		probe.dVA = dVA;
+		probe.dUB = dUB;
+		probe.dVB = dVB;
+		probe.doubleSided = face.isDoubleSided();
+		probe.hasTint = tintColor != null;
+		probe.tintR = tintColor == null ? 1f : tintColor.getR();
+		probe.tintG = tintColor == null ? 1f : tintColor.getG();
+		probe.tintB = tintColor == null ? 1f : tintColor.getB();
+		probe.ao = ao;
+		probe.cornerData = cornerData;
+		
+		int slice = 0;
+		int u = 0;
+		int v = 0;
+		int ly = iy - minY;
+		switch(axisN) {
+		case 1:
+			slice = ly;
+			u = lx;
+			v = lz;
+			break;
+		case 2:
+			slice = lz * numSections + (ly >> 4);
+			u = lx;
+			v = ly & 15;
+			break;
+		default:
+			slice = lx * numSections + (ly >> 4);
+			u = lz;
+			v = ly & 15;
+			break;
+		}
+		
+		Group group = groups.getOrDefault(probe, null);
+		if(group == null) {
+			GroupKey key = new GroupKey(probe);
+			group = new Group(key, new ModelFace(face), axisN == 1 ? (maxY - minY) : (16 * numSections));
+			groups.put(key, group);
+			groupOrder.add(group);
+		}
+		long[] mask = group.slices[slice];
+		if(mask == null) {
+			mask = new long[4];
+			group.slices[slice] = mask;
+		}
+		int bit = v * 16 + u;
+		long bitMask = 1L << (bit & 63);
+		if((mask[bit >> 6] & bitMask) != 0)
+			// There already is a face here, so just let the caller add it in.
+			return false;
+		mask[bit >> 6] |= bitMask;
+		return true;
+	}
+	
+	/**
+	 * Merges all collected faces and adds them into their meshes.
+	 * No new faces are accepted until begin() is called again.
+	 */
+	public void flush() {
+		for(Group group : groupOrder) {
+			for(int slice = 0; slice < group.slices.length; ++slice) {
+				long[] mask = group.slices[slice];
+				if(mask != null)
+					flushSlice(group, slice, mask);
+			}
+		}
+		groups.clear();
+		groupOrder.clear();
+		active = false;
+	}
+	
+	private boolean isSet(long[] mask, int u, int v) {
+		int bit = v * 16 + u;
+		return (mask[bit >> 6] & (1L << (bit & 63))) != 0;
+	}
+	
+	private void clear(long[] mask, int u, int v) {
+		int bit = v * 16 + u;
+		mask[bit >> 6] &= ~(1L << (bit & 63));
+	}
+	
+	private void flushSlice(Group group, int slice, long[] mask) {
+		for(int v = 0; v < 16; ++v) {
+			for(int u = 0; u < 16; ++u) {
+				if(!isSet(mask, u, v))
+					continue;
+				
+				int width = 1;
+				while(u + width < 16 && isSet(mask, u + width, v))
+					width++;
+				
+				int height = 1;
+				boolean canGrow = true;
+				while(v + height < 16 && canGrow) {
+					for(int i = 0; i < width; ++i) {
+						if(!isSet(mask, u + i, v + height)) {
+							canGrow = false;
+							break;
+						}
+					}
+					if(canGrow)
+						height++;
+				}
+				
+				for(int j = 0; j < height; ++j)
+					for(int i = 0; i < width; ++i)
+						clear(mask, u + i, v + j);
+				
+				emitFace(group, slice, u, v, width, height);
+			}
+		}
+	}
+	
+	private void emitFace(Group group, int slice, int u, int v, int width, int height) {
+		GroupKey key = group.key;
+		int x = 0;
+		int y = 0;
+		int z = 0;
+		int axisA = 0;
+		int axisB = 0;
+		switch(key.direction) {
+		case UP:
+		case DOWN:
+			x = u;
+			y = slice;
+			z = v;
+			axisA = 0;
+			axisB = 2;
+			break;
+		case NORTH:
+		case SOUTH:
+			x = u;
+			y = (slice % numSections) * 16 + v;
+			z = slice / numSections;
+			axisA = 0;
+			axisB = 1;
+			break;
+		default:
+			x = slice / numSections;
+			y = (slice % numSections) * 16 + v;
+			z = u;
+			axisA = 2;
+			axisB = 1;
+			break;
+		}
+		x += chunkWorldX;
+		y += minY;
+		z += chunkWorldZ;
+		
+		ModelFace face = group.template;
+		if(width > 1 || height > 1) {
+			face = new ModelFace(group.template);
+			float[] points = face.getPoints();
+			float[] uvs = face.getUVs();
+			for(int i = 0; i < 4; ++i) {
+				float a = points[i*3 + axisA] > 0f ? (16f * width) : 0f;
+				float b = points[i*3 + axisB] > 0f ? (16f * height) : 0f;
+				points[i*3 + axisA] = a;
+				points[i*3 + axisB] = b;
+				uvs[i*2] = key.u00 + key.dUA * (a / 16f) + key.dUB * (b / 16f);
+				uvs[i*2+1] = key.v00 + key.dVA * (a / 16f) + key.dVB * (b / 16f);
+			}
+		}
+		
+		Color[] tint = null;
+		if(key.hasTint) {
+			tint1[0] = new Color(key.tintR, key.tintG, key.tintB);
+			tint = tint1;
+		}
+		
+		// The (-8) * scale + 8 in Mesh.addFace cancels out with a scale of 1,
+		// so the points can go past 16 without any issues.
+		key.mesh.addFaceWithUniformAO(face, x - worldOffsetX - 0.5f, y - worldOffsetY, z - worldOffsetZ - 0.5f, 
+										tint, key.ao, key.cornerData, null, (float) Math.max(width, height));
+	}
+	
+}
@@ -33,174 +33,125 @@ package nl.bramstout.mcworldexporter.export;
 
 import java.util.Arrays;
 
+/**
+ * Maps long keys to int values.
+ * It's an open addressing hash table with linear probing,
+ * so that there is no boxing and lookups mostly stay within a cache line.
+ */
 public class IndexCache {
 	
-	private static class LeafNode{
-		
-		long[] keys;
-		int[] values;
-		int size;
-		int maxSize;
-		
-		public LeafNode(int initialCapacity, int maxSize) {
-			keys = new long[initialCapacity];
-			values = new int[initialCapacity];
-			size = 0;
-			this.maxSize = maxSize;
-		}
-		
-		private int getIndex(long key, boolean getInsertIndex) {
-			int left = 0;
-			int right = size - 1;
-			int middle = 0;
-			int index = -1;
-			while(left <= right) {
-				middle = (left + right) >>> 1;
-				if(keys[middle] < key)
-					left = middle + 1;
-				else if(keys[middle] > key)
-					right = middle - 1;
-				else {
-					index = middle;
-					break;
-				}
-			}
-			if(getInsertIndex) {
-				index = middle;
-				if(size > 0 && key > keys[middle])
-					index++;
-			}
-			return index;
-		}
-		
-		public int getOrDefault(long key, int defaultValue) {
-			int index = getIndex(key, false);
-			if(index < 0)
-				return defaultValue;
-			return values[index];
-		}
-		
-		public boolean put(long key, int value) {
-			int index = getIndex(key, true);
-			
-			if(index < size && keys[index] == key) {
-				// Matches an already existing item, so update it.
-				values[index] = value;
-				return true;
-			}
-			if(size == maxSize)
-				return false;
-			
-			// We need to insert it.
-			if(size == keys.length) {
-				// We are at capacity, so increase the size.
-				keys = Arrays.copyOf(keys, keys.length * 2);
-				values = Arrays.copyOf(values, values.length * 2);
-			}
-			
-			// First move over all keys.
-			for(int i = size; i > index; i--) {
-				keys[i] = keys[i-1];
-				values[i] = values[i-1];
-			}
-			keys[index] = key;
-			values[index] = value;
-			size++;
-			return true;
-		}
-		
-		public void split(LeafNode otherNode) {
-			int origSize = size;
-			size = size / 2;
-			otherNode.size = origSize - size;
-			if(otherNode.size > otherNode.keys.length) {
-				otherNode.keys = new long[otherNode.size];
-				otherNode.values = new int[otherNode.size];
-			}
-			for(int i = 0; i < otherNode.size; ++i) {
-				otherNode.keys[i] = keys[i + size];
-				otherNode.values[i] = values[i + size];
-			}
-		}
-		
-	}
+	private static final int INITIAL_CAPACITY = 64;
 	
-	private LeafNode[] leafNodes;
 	private long[] keys;
-	private int numNodes;
-	private int maxSize;
-	private int initialCapacity;
+	private int[] values;
+	private int size;
+	private int mask;
+	private int threshold;
+	// A key of 0 marks an empty slot, so the key 0 itself is stored separately.
+	private boolean hasZeroKey;
+	private int zeroValue;
 	
 	public IndexCache() {
-		maxSize = 128;
-		initialCapacity = 32;
-		leafNodes = new LeafNode[16];
-		leafNodes[0] = new LeafNode(initialCapacity, maxSize);
-		keys = new long[16];
-		keys[0] = 0;
-		numNodes = 1;
+		init(INITIAL_CAPACITY);
 	}
 	
-	private int getIndex(long key) {
-		int left = 0;
-		int right = numNodes - 1;
-		int middle = 0;
-		while(left <= right) {
-			middle = (left + right) >>> 1;
-			if(keys[middle] < key)
-				left = middle + 1;
-			else if(keys[middle] > key)
-				right = middle - 1;
-			else
-				break;
-		}
-		if(keys[middle] > key && middle > 0)
-			middle -= 1;
-		return middle;
+	public IndexCache(IndexCache other) {
+		keys = Arrays.copyOf(other.keys, other.keys.length);
+		values = Arrays.copyOf(other.values, other.values.length);
+		size = other.size;
+		mask = other.mask;
+		threshold = other.threshold;
+		hasZeroKey = other.hasZeroKey;
+		zeroValue = other.zeroValue;
+	}
+	
+	private void init(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		size = 0;
+		mask = capacity - 1;
+		threshold = capacity - (capacity >>> 2);
+		hasZeroKey = false;
+		zeroValue = 0;
+	}
+	
+	static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
 	}
 	
 	public int getOrDefault(long key, int defaultValue) {
-		int index = getIndex(key);
-		return leafNodes[index].getOrDefault(key, defaultValue);
+		if(key == 0)
+			return hasZeroKey ? zeroValue : defaultValue;
+		int index = hash(key) & mask;
+		long slotKey;
+		while((slotKey = keys[index]) != 0) {
+			if(slotKey == key)
+				return values[index];
+			index = (index + 1) & mask;
+		}
+		return defaultValue;
 	}
 	
 	public void put(long key, int value) {
-		int index = getIndex(key);
-		boolean success = leafNodes[index].put(key, value);
-		if(!success) {
-			// Leaf node has hit max size, so split it.
-			if(numNodes == leafNodes.length) {
-				// Hit max capacity, so increase that.
-				leafNodes = Arrays.copyOf(leafNodes, leafNodes.length * 2);
-				keys = Arrays.copyOf(keys, keys.length * 2);
-				maxSize = (maxSize * 3) / 2;
-				for(int i = 0; i < numNodes; ++i)
-					leafNodes[i].maxSize = maxSize;
-			}
-			
-			// Move over the elements to make space.
-			for(int i = numNodes-1; i > index; --i) {
-				leafNodes[i+1] = leafNodes[i];
-				keys[i+1] = keys[i];
+		if(key == 0) {
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+		int index = hash(key) & mask;
+		long slotKey;
+		while((slotKey = keys[index]) != 0) {
+			if(slotKey == key) {
+				// Matches an already existing item, so update it.
+				values[index] = value;
+				return;
 			}
-			leafNodes[index+1] = new LeafNode(maxSize, maxSize);
-			leafNodes[index].split(leafNodes[index+1]);
-			keys[index] = leafNodes[index].keys[0];
-			keys[index+1] = leafNodes[index+1].keys[0];
-			numNodes++;
-		}else {
-			keys[index] = leafNodes[index].keys[0];
+			index = (index + 1) & mask;
 		}
+		keys[index] = key;
+		values[index] = value;
+		size++;
+		if(size >= threshold)
+			resize(keys.length * 2);
+	}
+	
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		threshold = capacity - (capacity >>> 2);
+		for(int i = 0; i < oldKeys.length; ++i) {
+			long key = oldKeys[i];
+			if(key == 0)
+				continue;
+			int index = hash(key) & mask;
+			while(keys[index] != 0)
+				index = (index + 1) & mask;
+			keys[index] = key;
+			values[index] = oldValues[i];
+		}
+	}
+	
+	public int size() {
+		return size + (hasZeroKey ? 1 : 0);
 	}
 	
 	public void clear() {
-		maxSize = 128;
-		initialCapacity = 32;
-		leafNodes = new LeafNode[16];
-		leafNodes[0] = new LeafNode(initialCapacity, maxSize);
-		keys = new long[16];
-		keys[0] = 0;
-		numNodes = 1;
+		if(keys.length == INITIAL_CAPACITY) {
+			Arrays.fill(keys, 0);
+			size = 0;
+			hasZeroKey = false;
+			zeroValue = 0;
+		}else {
+			init(INITIAL_CAPACITY);
+		}
 	}
 	
 }
@@ -33,191 +33,145 @@ package nl.bramstout.mcworldexporter.export;
 
 import java.util.Arrays;
 
+/**
+ * Maps 128-bit keys, given as two longs, to int values.
+ * It's an open addressing hash table with linear probing,
+ * so that there is no boxing and lookups mostly stay within a cache line.
+ */
 public class IndexCacheDoubleLong {
 	
-	private static class LeafNode{
-		
-		long[] keys1;
-		long[] keys2;
-		int[] values;
-		int size;
-		int maxSize;
-		
-		public LeafNode(int initialCapacity, int maxSize) {
-			keys1 = new long[initialCapacity];
-			keys2 = new long[initialCapacity];
-			values = new int[initialCapacity];
-			size = 0;
-			this.maxSize = maxSize;
-		}
-		
-		private int getIndex(long key1, long key2, boolean getInsertIndex) {
-			int left = 0;
-			int right = size - 1;
-			int middle = 0;
-			int index = -1;
-			while(left <= right) {
-				middle = (left + right) >>> 1;
-				if(keys1[middle] < key1 || (keys1[middle] == key1 && keys2[middle] < key2))
-					left = middle + 1;
-				else if(keys1[middle] > key1 || (keys1[middle] == key1 && keys2[middle] > key2))
-					right = middle - 1;
-				else {
-					index = middle;
-					break;
-				}
-			}
-			if(getInsertIndex) {
-				index = middle;
-				if(size > 0 && (key1 > keys1[middle] || (key1 == keys1[middle] && key2 > keys2[middle])))
-					index++;
-			}
-			return index;
-		}
-		
-		public int getOrDefault(long key1, long key2, int defaultValue) {
-			int index = getIndex(key1, key2, false);
-			if(index < 0)
+	private static final int INITIAL_CAPACITY = 64;
+	
+	// Both halves of a key are stored next to each other.
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int mask;
+	private int threshold;
+	// A key of (0, 0) marks an empty slot, so that key itself is stored separately.
+	private boolean hasZeroKey;
+	private int zeroValue;
+	
+	public IndexCacheDoubleLong() {
+		init(INITIAL_CAPACITY);
+	}
+	
+	private void init(int capacity) {
+		keys = new long[capacity * 2];
+		values = new int[capacity];
+		size = 0;
+		mask = capacity - 1;
+		threshold = capacity - (capacity >>> 2);
+		hasZeroKey = false;
+		zeroValue = 0;
+	}
+	
+	private static int hash(long key1, long key2) {
+		return IndexCache.hash(key1 * 0x9e3779b97f4a7c15L + key2);
+	}
+	
+	public int getOrDefault(long key1, long key2, int defaultValue) {
+		if(key1 == 0 && key2 == 0)
+			return hasZeroKey ? zeroValue : defaultValue;
+		int index = hash(key1, key2) & mask;
+		while(true) {
+			long slotKey1 = keys[index * 2];
+			long slotKey2 = keys[index * 2 + 1];
+			if(slotKey1 == key1 && slotKey2 == key2)
+				return values[index];
+			if(slotKey1 == 0 && slotKey2 == 0)
 				return defaultValue;
-			return values[index];
+			index = (index + 1) & mask;
 		}
-		
-		public boolean put(long key1, long key2, int value) {
-			int index = getIndex(key1, key2, true);
-			
-			if(index < size && keys1[index] == key1 && keys2[index] == key2) {
+	}
+	
+	public void put(long key1, long key2, int value) {
+		if(key1 == 0 && key2 == 0) {
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+		int index = hash(key1, key2) & mask;
+		while(true) {
+			long slotKey1 = keys[index * 2];
+			long slotKey2 = keys[index * 2 + 1];
+			if(slotKey1 == key1 && slotKey2 == key2) {
 				// Matches an already existing item, so update it.
 				values[index] = value;
-				return true;
-			}
-			if(size == maxSize)
-				return false;
-			
-			// We need to insert it.
-			if(size == keys1.length) {
-				// We are at capacity, so increase the size.
-				keys1 = Arrays.copyOf(keys1, keys1.length * 2);
-				keys2 = Arrays.copyOf(keys2, keys2.length * 2);
-				values = Arrays.copyOf(values, values.length * 2);
-			}
-			
-			// First move over all keys.
-			for(int i = size; i > index; i--) {
-				keys1[i] = keys1[i-1];
-				keys2[i] = keys2[i-1];
-				values[i] = values[i-1];
-			}
-			keys1[index] = key1;
-			keys2[index] = key2;
-			values[index] = value;
-			size++;
-			return true;
-		}
-		
-		public void split(LeafNode otherNode) {
-			int origSize = size;
-			size = size / 2;
-			otherNode.size = origSize - size;
-			if(otherNode.size > otherNode.keys1.length) {
-				otherNode.keys1 = new long[otherNode.size];
-				otherNode.keys2 = new long[otherNode.size];
-				otherNode.values = new int[otherNode.size];
-			}
-			for(int i = 0; i < otherNode.size; ++i) {
-				otherNode.keys1[i] = keys1[i + size];
-				otherNode.keys2[i] = keys2[i + size];
-				otherNode.values[i] = values[i + size];
+				return;
 			}
+			if(slotKey1 == 0 && slotKey2 == 0)
+				break;
+			index = (index + 1) & mask;
 		}
-		
+		keys[index * 2] = key1;
+		keys[index * 2 + 1] = key2;
+		values[index] = value;
+		size++;
+		if(size >= threshold)
+			resize(values.length * 2);
 	}
 	
-	private LeafNode[] leafNodes;
-	private long[] keys1;
-	private long[] keys2;
-	private int numNodes;
-	private int maxSize;
-	private int initialCapacity;
-	
-	public IndexCacheDoubleLong() {
-		maxSize = 128;
-		initialCapacity = 32;
-		leafNodes = new LeafNode[16];
-		leafNodes[0] = new LeafNode(initialCapacity, maxSize);
-		keys1 = new long[16];
-		keys1[0] = 0;
-		keys2 = new long[16];
-		keys2[0] = 0;
-		numNodes = 1;
-	}
-	
-	private int getIndex(long key1, long key2) {
-		int left = 0;
-		int right = numNodes - 1;
-		int middle = 0;
-		while(left <= right) {
-			middle = (left + right) >>> 1;
-			if(keys1[middle] < key1 || (keys1[middle] == key1 && keys2[middle] < key2))
-				left = middle + 1;
-			else if(keys1[middle] > key1 || (keys1[middle] == key1 && keys2[middle] > key2))
-				right = middle - 1;
-			else
-				break;
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity * 2];
+		values = new int[capacity];
+		mask = capacity - 1;
+		threshold = capacity - (capacity >>> 2);
+		for(int i = 0; i < oldValues.length; ++i) {
+			long key1 = oldKeys[i * 2];
+			long key2 = oldKeys[i * 2 + 1];
+			if(key1 == 0 && key2 == 0)
+				continue;
+			int index = hash(key1, key2) & mask;
+			while(keys[index * 2] != 0 || keys[index * 2 + 1] != 0)
+				index = (index + 1) & mask;
+			keys[index * 2] = key1;
+			keys[index * 2 + 1] = key2;
+			values[index] = oldValues[i];
 		}
-		if((keys1[middle] > key1 || (keys1[middle] == key1 && keys2[middle] > key2)) && middle > 0)
-			middle -= 1;
-		return middle;
 	}
 	
-	public int getOrDefault(long key1, long key2, int defaultValue) {
-		int index = getIndex(key1, key2);
-		return leafNodes[index].getOrDefault(key1, key2, defaultValue);
+	public int size() {
+		return size + (hasZeroKey ? 1 : 0);
 	}
 	
-	public void put(long key1, long key2, int value) {
-		int index = getIndex(key1, key2);
-		boolean success = leafNodes[index].put(key1, key2, value);
-		if(!success) {
-			// Leaf node has hit max size, so split it.
-			if(numNodes == leafNodes.length) {
-				// Hit max capacity, so increase that.
-				leafNodes = Arrays.copyOf(leafNodes, leafNodes.length * 2);
-				keys1 = Arrays.copyOf(keys1, keys1.length * 2);
-				keys2 = Arrays.copyOf(keys2, keys2.length * 2);
-				maxSize = (maxSize * 3) / 2;
-				for(int i = 0; i < numNodes; ++i)
-					leafNodes[i].maxSize = maxSize;
-			}
-			
-			// Move over the elements to make space.
-			for(int i = numNodes-1; i > index; --i) {
-				leafNodes[i+1] = leafNodes[i];
-				keys1[i+1] = keys1[i];
-				keys2[i+1] = keys2[i];
+	/**
+	 * Removes all entries. If the table was mostly empty,
+	 * it's also shrunk to fit about twice the old number of entries,
+	 * so that one large mesh doesn't keep a large table around
+	 * that would need to be cleared every time.
+	 */
+	public void clear() {
+		if(values.length > INITIAL_CAPACITY && size * 8 < values.length) {
+			int capacity = INITIAL_CAPACITY;
+			while(capacity - (capacity >>> 2) <= size * 2)
+				capacity *= 2;
+			if(capacity < values.length) {
+				init(capacity);
+				return;
 			}
-			leafNodes[index+1] = new LeafNode(maxSize, maxSize);
-			leafNodes[index].split(leafNodes[index+1]);
-			keys1[index] = leafNodes[index].keys1[0];
-			keys2[index] = leafNodes[index].keys2[0];
-			keys1[index+1] = leafNodes[index+1].keys1[0];
-			keys2[index+1] = leafNodes[index+1].keys2[0];
-			numNodes++;
-		}else {
-			keys1[index] = leafNodes[index].keys1[0];
-			keys2[index] = leafNodes[index].keys2[0];
 		}
+		if(size > 0)
+			Arrays.fill(keys, 0);
+		size = 0;
+		hasZeroKey = false;
+		zeroValue = 0;
 	}
 	
-	public void clear() {
-		maxSize = 128;
-		initialCapacity = 32;
-		leafNodes = new LeafNode[16];
-		leafNodes[0] = new LeafNode(initialCapacity, maxSize);
-		keys1 = new long[16];
-		keys1[0] = 0;
-		keys2 = new long[16];
-		keys2[0] = 0;
-		numNodes = 1;
+	/**
+	 * Shrinks the table so that it can hold at most maxEntries
+	 * before having to grow again. Only shrinks when the table is empty.
+	 */
+	public void trim(int maxEntries) {
+		if(size > 0)
+			return;
+		int capacity = INITIAL_CAPACITY;
+		while(capacity - (capacity >>> 2) <= maxEntries)
+			capacity *= 2;
+		if(values.length > capacity)
+			init(capacity);
 	}
 	
 }
@@ -100,4 +100,18 @@ private static final int INIT_SIZE = 64;
 		//Arrays.fill(data, 0);
 	}
 	
+	public int capacity() {
+		return this.data.length;
+	}
+	
+	/**
+	 * Shrinks the underlying array down to maxCapacity,
+	 * but never below the current size.
+	 */
+	public void trim(int maxCapacity) {
+		int capacity = Math.max(maxCapacity, this.size);
+		if(this.data.length > capacity)
+			this.data = Arrays.copyOf(this.data, capacity);
+	}
+	
 }
@@ -35,66 +35,82 @@ import java.util.Arrays;
 
 import nl.bramstout.mcworldexporter.world.Chunk;
 
+/**
+ * Stores the result of ChunkExporter.getLODBlockId for every
+ * LOD cell, so that it only has to be calculated once per cell.
+ * 
+ * Per chunk there is a pyramid of levels, one for every combination
+ * of LOD size in XZ (2, 4, 8, 16) and in Y (1, 2, 4, 8, 16), for
+ * every layer. Each cell stores the winning block id and the
+ * coordinates of the block that represents it. The levels are only
+ * allocated once they are needed.
+ */
 public class LODCache {
 
-	// lod sizes: 2, 4, 8, 16 = 4 levels
-	private static int NUM_CACHE_LEVELS = 4;
+	// lod sizes in XZ: 2, 4, 8, 16 = 4 levels
+	private static final int NUM_XZ_LEVELS = 4;
+	// lod sizes in Y: 1, 2, 4, 8, 16 = 5 levels
+	private static final int NUM_Y_LEVELS = 5;
+	private static final int NOT_SET = -2;
 	
 	private static class LODCacheChunk{
 		
-		public int[][] cache;
+		public int[][][] cache;
 		private int minY;
 		private int height;
 		
 		public LODCacheChunk(int minY, int height) {
-			cache = new int[NUM_CACHE_LEVELS][];
+			cache = new int[1][][];
 			// We add some padding because the exporter also
 			// checks neighbour blocks for occlusion
 			this.minY = ((minY >> 4) << 4) - 16;
 			this.height = (((height + 15) >> 4) << 4) + 32;
 		}
 		
-		public boolean get(int cx, int cy, int cz, int lodSize, int lodSizeY, int[] out) {
-			int lodLevel = Integer.numberOfTrailingZeros(lodSize);
-			int lodLevelY = Integer.numberOfTrailingZeros(lodSizeY);
-			if(cache[lodLevel-1] == null)
-				return false;
-			
+		private int getOffset(int cx, int cy, int cz, int lodLevel, int lodLevelY) {
 			cy -= minY;
-			cx >>= lodLevel;
-			cy >>= lodLevelY;
-			cz >>= lodLevel;
+			if(cy < 0 || cy >= height)
+				return -1;
 			int width = 16 >> lodLevel;
-			int offset = (cy * width * width + cz * width + cx) * 4;
-			int[] cacheChunk = cache[lodLevel-1];
-			if(cacheChunk[offset] == -2)
+			return (((cy >> lodLevelY) * width + (cz >> lodLevel)) * width + (cx >> lodLevel)) * 4;
+		}
+		
+		public boolean get(int cx, int cy, int cz, int layer, int lodLevel, int lodLevelY, int[] out) {
+			if(layer >= cache.length)
+				return false;
+			int[] level = cache[layer] == null ? null : cache[layer][(lodLevel-1) * NUM_Y_LEVELS + lodLevelY];
+			if(level == null)
 				return false;
-			out[0] = cacheChunk[offset];
-			out[1] = cacheChunk[offset + 1];
-			out[2] = cacheChunk[offset + 2];
-			out[3] = cacheChunk[offset + 3];
+			int offset = getOffset(cx, cy, cz, lodLevel, lodLevelY);
+			if(offset < 0 || level[offset] == NOT_SET)
+				return false;
+			out[0] = level[offset];
+			out[1] = level[offset + 1];
+			out[2] = level[offset + 2];
+			out[3] = level[offset + 3];
 			return true;
 		}
 		
-		public void set(int cx, int cy, int cz, int lodSize, int lodSizeY, int blockId, int blockX, int blockY, int blockZ) {
-			int lodLevel = Integer.numberOfTrailingZeros(lodSize);
-			int lodLevelY = Integer.numberOfTrailingZeros(lodSizeY);
-			int width = 16 >> lodLevel;
-			if(cache[lodLevel-1] == null) {
-				cache[lodLevel-1] = new int[width*width*((this.height >> lodLevelY) + 1)*4];
-				Arrays.fill(cache[lodLevel-1], -2);
+		public void set(int cx, int cy, int cz, int layer, int lodLevel, int lodLevelY, int[] values) {
+			int offset = getOffset(cx, cy, cz, lodLevel, lodLevelY);
+			if(offset < 0)
+				return;
+			if(layer >= cache.length)
+				cache = Arrays.copyOf(cache, layer + 1);
+			if(cache[layer] == null)
+				cache[layer] = new int[NUM_XZ_LEVELS * NUM_Y_LEVELS][];
+			int levelIndex = (lodLevel-1) * NUM_Y_LEVELS + lodLevelY;
+			int[] level = cache[layer][levelIndex];
+			if(level == null) {
+				int width = 16 >> lodLevel;
+				level = new int[width * width * (height >> lodLevelY) * 4];
+				Arrays.fill(level, NOT_SET);
+				cache[layer][levelIndex] = level;
 			}
-			
-			cy -= minY;
-			cx >>= lodLevel;
-			cy >>= lodLevelY;
-			cz >>= lodLevel;
-			int offset = (cy * width * width + cz * width + cx) * 4;
-			int[] cacheChunk = cache[lodLevel-1];
-			cacheChunk[offset] = blockId;
-			cacheChunk[offset + 1] = blockX;
-			cacheChunk[offset + 2] = blockY;
-			cacheChunk[offset + 3] = blockZ;
+			level[offset] = values[0];
+			level[offset + 1] = values[1];
+			level[offset + 2] = values[2];
+			level[offset + 3] = values[3];
 		}
 		
 	}
@@ -102,6 +118,8 @@ public class LODCache {
 	private int chunkX;
 	private int chunkZ;
 	private int chunkSize;
+	private int minY;
+	private int height;
 	private LODCacheChunk chunks[];
 	
 	public LODCache(int chunkX, int chunkZ, int chunkSize, int minY, int height) {
@@ -109,21 +127,51 @@ public class LODCache {
 		this.chunkX = chunkX - 1;
 		this.chunkZ = chunkZ - 1;
 		this.chunkSize = chunkSize + 2;
+		this.minY = minY;
+		this.height = height;
 		this.chunks = new LODCacheChunk[this.chunkSize*this.chunkSize];
-		for(int i = 0; i < this.chunks.length; ++i)
-			this.chunks[i] = new LODCacheChunk(minY, height);
 	}
 	
-	public boolean get(Chunk chunk, int cx, int cy, int cz, int lodSize, int lodSizeY, int[] out) {
+	private LODCacheChunk getChunk(Chunk chunk, boolean create) {
 		int x = chunk.getChunkX() - chunkX;
 		int z = chunk.getChunkZ() - chunkZ;
-		return chunks[z * this.chunkSize + x].get(cx, cy, cz, lodSize, lodSizeY, out);
+		if(x < 0 || z < 0 || x >= chunkSize || z >= chunkSize)
+			return null;
+		LODCacheChunk cacheChunk = chunks[z * this.chunkSize + x];
+		if(cacheChunk == null && create) {
+			cacheChunk = new LODCacheChunk(minY, height);
+			chunks[z * this.chunkSize + x] = cacheChunk;
+		}
+		return cacheChunk;
 	}
 	
-	public void set(Chunk chunk, int cx, int cy, int cz, int lodSize, int lodSizeY, int blockId, int blockX, int blockY, int blockZ) {
-		int x = chunk.getChunkX() - chunkX;
-		int z = chunk.getChunkZ() - chunkZ;
-		chunks[z * this.chunkSize + x].set(cx, cy, cz, lodSize, lodSizeY, blockId, blockX, blockY, blockZ);
+	/**
+	 * Returns true if the cell can be stored in the cache.
+	 * The coordinates need to be inside of the chunk and
+	 * aligned to the LOD size.
+	 */
+	public static boolean isCacheable(int cx, int cy, int cz, int lodSize, int lodSizeY) {
+		if(lodSize < 2 || lodSize > 16 || lodSizeY < 1 || lodSizeY > 16)
+			return false;
+		if(cx < 0 || cx >= 16 || cz < 0 || cz >= 16)
+			return false;
+		return (cx & (lodSize - 1)) == 0 && (cz & (lodSize - 1)) == 0 && (cy & (lodSizeY - 1)) == 0;
+	}
+	
+	public boolean get(Chunk chunk, int cx, int cy, int cz, int layer, int lodSize, int lodSizeY, int[] out) {
+		LODCacheChunk cacheChunk = getChunk(chunk, false);
+		if(cacheChunk == null)
+			return false;
+		return cacheChunk.get(cx, cy, cz, layer, Integer.numberOfTrailingZeros(lodSize), 
+								Integer.numberOfTrailingZeros(lodSizeY), out);
+	}
+	
+	public void set(Chunk chunk, int cx, int cy, int cz, int layer, int lodSize, int lodSizeY, int[] values) {
+		LODCacheChunk cacheChunk = getChunk(chunk, true);
+		if(cacheChunk == null)
+			return;
+		cacheChunk.set(cx, cy, cz, layer, Integer.numberOfTrailingZeros(lodSize), 
+						Integer.numberOfTrailingZeros(lodSizeY), values);
 	}
 	
 }
@@ -0,0 +1,242 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.export;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import nl.bramstout.mcworldexporter.ConfigFlags;
+
+/**
+ * Hands out a unique integer id for every combination of properties
+ * that decides which mesh a face ends up in. This lets ChunkExporter
+ * keep its meshes in an array, rather than building up a mesh name
+ * and looking it up for every face.
+ */
+public class MaterialKeys {
+	
+	private static class MaterialKey{
+		
+		public String texture;
+		public int flags;
+		public String shadingMode;
+		public String separateBlockName;
+		
+		public MaterialKey(String texture, int flags, String shadingMode, String separateBlockName) {
+			this.texture = texture;
+			this.flags = flags;
+			this.shadingMode = shadingMode;
+			this.separateBlockName = separateBlockName;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(texture, flags, shadingMode, separateBlockName);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof MaterialKey))
+				return false;
+			MaterialKey other = (MaterialKey) obj;
+			return flags == other.flags && Objects.equals(texture, other.texture) && 
+					Objects.equals(shadingMode, other.shadingMode) && 
+					Objects.equals(separateBlockName, other.separateBlockName);
+		}
+		
+	}
+	
+	public static final int FLAG_BIOME_COLOR = 1;
+	public static final int FLAG_DOUBLE_SIDED = 2;
+	
+	private static Map<MaterialKey, Integer> ids = new HashMap<MaterialKey, Integer>();
+	
+	public static int getFlags(boolean hasBiomeColor, boolean doubleSided) {
+		return (hasBiomeColor ? FLAG_BIOME_COLOR : 0) | (doubleSided ? FLAG_DOUBLE_SIDED : 0);
+	}
+	
+	public static int getId(String texture, int flags, String shadingMode, String separateBlockName) {
+		MaterialKey key = new MaterialKey(texture, flags, shadingMode, separateBlockName);
+		synchronized(ids) {
+			Integer id = ids.getOrDefault(key, null);
+			if(id == null) {
+				id = Integer.valueOf(ids.size());
+				ids.put(key, id);
+			}
+			return id.intValue();
+		}
+	}
+	
+	/**
+	 * Forgets all handed out ids. The ids are only used
+	 * during an export, so this is called at the start of every export
+	 * to not keep the keys of previous exports or resource packs around.
+	 */
+	public static void clear() {
+		synchronized(ids) {
+			ids.clear();
+		}
+	}
+	
+	/**
+	 * A small cache in front of getId(), which compares the strings
+	 * by reference. Textures and shading modes generally come from
+	 * the same String instances, so most lookups don't need to hash
+	 * or compare any string contents. It also caches the ConfigFlags
+	 * of each texture in the same way. Not thread safe, so each 
+	 * thread or ChunkExporter should have its own.
+	 */
+	public static class Cache{
+		
+		private String[] textures;
+		private String[] shadingModes;
+		private String[] separateBlockNames;
+		private int[] flags;
+		private int[] values;
+		private int size;
+		private int mask;
+		
+		private String[] flagTextures;
+		private int[] textureFlags;
+		private int flagTexturesSize;
+		
+		public Cache() {
+			init(256);
+			initTextureFlags(256);
+		}
+		
+		private void initTextureFlags(int capacity) {
+			flagTextures = new String[capacity];
+			textureFlags = new int[capacity];
+			flagTexturesSize = 0;
+		}
+		
+		/**
+		 * Returns the same as ConfigFlags.getFlags(texture),
+		 * but only looks it up once for each texture.
+		 */
+		public int getTextureFlags(String texture) {
+			if(texture == null)
+				return 0;
+			int slot = getTextureFlagsSlot(texture);
+			while(flagTextures[slot] != null) {
+				if(flagTextures[slot] == texture)
+					return textureFlags[slot];
+				slot = (slot + 1) & (flagTextures.length - 1);
+			}
+			int flags = ConfigFlags.getFlags(texture);
+			if((flagTexturesSize + 1) * 2 > flagTextures.length) {
+				String[] oldFlagTextures = flagTextures;
+				int[] oldTextureFlags = textureFlags;
+				initTextureFlags(oldFlagTextures.length * 2);
+				for(int i = 0; i < oldFlagTextures.length; ++i)
+					if(oldFlagTextures[i] != null)
+						putTextureFlags(oldFlagTextures[i], oldTextureFlags[i]);
+			}
+			putTextureFlags(texture, flags);
+			return flags;
+		}
+		
+		private int getTextureFlagsSlot(String texture) {
+			int hash = System.identityHashCode(texture);
+			hash ^= hash >>> 16;
+			return hash & (flagTextures.length - 1);
+		}
+		
+		private void putTextureFlags(String texture, int flags) {
+			int slot = getTextureFlagsSlot(texture);
+			while(flagTextures[slot] != null)
+				slot = (slot + 1) & (flagTextures.length - 1);
+			flagTextures[slot] = texture;
+			textureFlags[slot] = flags;
+			flagTexturesSize++;
+		}
+		
+		private void init(int capacity) {
+			textures = new String[capacity];
+			shadingModes = new String[capacity];
+			separateBlockNames = new String[capacity];
+			flags = new int[capacity];
+			values = new int[capacity];
+			size = 0;
+			mask = capacity - 1;
+		}
+		
+		private int getSlot(String texture, int flags, String shadingMode, String separateBlockName) {
+			int hash = System.identityHashCode(texture);
+			hash = hash * 31 + System.identityHashCode(shadingMode);
+			hash = hash * 31 + System.identityHashCode(separateBlockName);
+			hash = hash * 31 + flags;
+			hash ^= hash >>> 16;
+			return hash & mask;
+		}
+		
+		public int getId(String texture, int flags, String shadingMode, String separateBlockName) {
+			int slot = getSlot(texture, flags, shadingMode, separateBlockName);
+			while(textures[slot] != null) {
+				if(textures[slot] == texture && this.flags[slot] == flags && shadingModes[slot] == shadingMode && 
+						separateBlockNames[slot] == separateBlockName)
+					return values[slot];
+				slot = (slot + 1) & mask;
+			}
+			int id = MaterialKeys.getId(texture, flags, shadingMode, separateBlockName);
+			if((size + 1) * 2 > textures.length) {
+				String[] oldTextures = textures;
+				String[] oldShadingModes = shadingModes;
+				String[] oldSeparateBlockNames = separateBlockNames;
+				int[] oldFlags = this.flags;
+				int[] oldValues = values;
+				init(oldTextures.length * 2);
+				for(int i = 0; i < oldTextures.length; ++i)
+					if(oldTextures[i] != null)
+						put(oldTextures[i], oldFlags[i], oldShadingModes[i], oldSeparateBlockNames[i], oldValues[i]);
+			}
+			put(texture, flags, shadingMode, separateBlockName, id);
+			return id;
+		}
+		
+		private void put(String texture, int flags, String shadingMode, String separateBlockName, int id) {
+			int slot = getSlot(texture, flags, shadingMode, separateBlockName);
+			while(textures[slot] != null)
+				slot = (slot + 1) & mask;
+			textures[slot] = texture;
+			this.flags[slot] = flags;
+			shadingModes[slot] = shadingMode;
+			separateBlockNames[slot] = separateBlockName;
+			values[slot] = id;
+			size++;
+		}
+		
+	}
+	
+}
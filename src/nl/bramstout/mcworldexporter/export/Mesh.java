@@ -85,6 +85,23 @@ public class Mesh {
 	private boolean animatesPoints;
 	private boolean animatesUVs;
 	private boolean animatesVertexColors;
+	private boolean quantized;
+	private IndexCacheDoubleLong normalCache;
+	// Quantized meshes store their vertex data in these instead
+	// of the float arrays above, and only turn it back into floats
+	// when it's read or written out.
+	// Positions are fixed-point offsets from the origin,
+	// UVs are fixed-point and corner UVs and normals are both
+	// stored as two 16-bit values packed into a single int.
+	private IntArray qVertices;
+	private IntArray qUs;
+	private IntArray qVs;
+	private IntArray qCornerUVs;
+	private IntArray qNormals;
+	private int originX;
+	private int originY;
+	private int originZ;
+	private boolean hasOrigin;
 	
 	public Mesh() {
 		this("", MeshPurpose.UNDEFINED, "", "", false, false, ModelFace.SHADING_MODE_STANDARD, 6, 4);
@@ -99,12 +116,9 @@ public class Mesh {
 		this.animatedTexture = animatedTexture;
 		this.shadingMode = shadingMode;
 		this.extraData = "";
-		this.vertices = new FloatArray(largeCapacity*3);
-		this.us = new FloatArray(smallCapacity);
-		this.vs = new FloatArray(smallCapacity);
-		this.cornerUVs = new FloatArray(smallCapacity*2);
+		this.quantized = Config.quantizeMeshes;
+		initVertexData(largeCapacity, smallCapacity);
 		//this.colors = null;
-		this.normals = new FloatArray(smallCapacity*3);
 		//this.ao = new FloatArray(smallCapacity);
 		this.faceIndices = new IntArray(largeCapacity*4);
 		this.faceCounts = new IntArray(largeCapacity);
@@ -120,6 +134,7 @@ public class Mesh {
 		this.hasAO = false;
 		this.faceCache = new FaceCache();
 		//this.normalCache = new IndexCache();
+		this.normalCache = new IndexCacheDoubleLong();
 		this.colors = null;
 		this.ao = null;
 		this.additionalColorSets = null;
@@ -137,13 +152,10 @@ public class Mesh {
 		this.animatedTexture = animatedTexture;
 		this.shadingMode = shadingMode;
 		this.extraData = "";
-		this.vertices.clear();
-		this.us.clear();
-		this.vs.clear();
-		this.cornerUVs.clear();
+		this.quantized = Config.quantizeMeshes;
+		initVertexData(64, 16);
 		//if(this.colors != null)
 		//	this.colors.clear();
-		this.normals.clear();
 		//this.ao.clear();
 		this.faceIndices.clear();
 		this.faceCounts.clear();
@@ -156,13 +168,17 @@ public class Mesh {
 		this.faceCenters.clear();
 		this.doubleSided = doubleSided;
 		this.vertexCache.clear();
+		if(this.normalCache == null)
+			this.normalCache = new IndexCacheDoubleLong();
+		else
+			this.normalCache.clear();
 		this.hasColors = false;
 		this.hasAO = false;
 		this.faceCache.clear();
-		if(this.colors != null)
-			this.colors.clear();
-		if(this.ao != null)
-			this.ao.clear();
+		// The colour sets are only registered when they get created,
+		// so they need to be recreated.
+		this.colors = null;
+		this.ao = null;
 		if(this.additionalColorSets != null)
 			this.additionalColorSets.clear();
 		if(this.colorSetNames != null)
@@ -171,6 +187,98 @@ public class Mesh {
 			this.subsets.clear();
 		if(this.subsetNames != null)
 			this.subsetNames.clear();
+		this.animatesTopology = false;
+		this.animatesPoints = false;
+		this.animatesUVs = false;
+		this.animatesVertexColors = false;
+	}
+	
+	/**
+	 * Creates empty arrays for the vertex data in the representation
+	 * that this mesh uses, or clears them if they already exist.
+	 * The arrays of the other representation are let go of.
+	 */
+	private void initVertexData(int largeCapacity, int smallCapacity) {
+		if(quantized) {
+			if(this.qVertices == null) {
+				this.qVertices = new IntArray(largeCapacity*3);
+				this.qUs = new IntArray(smallCapacity);
+				this.qVs = new IntArray(smallCapacity);
+				this.qCornerUVs = new IntArray(smallCapacity);
+				this.qNormals = new IntArray(smallCapacity);
+			}else {
+				this.qVertices.clear();
+				this.qUs.clear();
+				this.qVs.clear();
+				this.qCornerUVs.clear();
+				this.qNormals.clear();
+			}
+			this.vertices = null;
+			this.us = null;
+			this.vs = null;
+			this.cornerUVs = null;
+			this.normals = null;
+		}else {
+			if(this.vertices == null) {
+				this.vertices = new FloatArray(largeCapacity*3);
+				this.us = new FloatArray(smallCapacity);
+				this.vs = new FloatArray(smallCapacity);
+				this.cornerUVs = new FloatArray(smallCapacity*2);
+				this.normals = new FloatArray(smallCapacity*3);
+			}else {
+				this.vertices.clear();
+				this.us.clear();
+				this.vs.clear();
+				this.cornerUVs.clear();
+				this.normals.clear();
+			}
+			this.qVertices = null;
+			this.qUs = null;
+			this.qVs = null;
+			this.qCornerUVs = null;
+			this.qNormals = null;
+		}
+		this.hasOrigin = false;
+		this.originX = 0;
+		this.originY = 0;
+		this.originZ = 0;
+	}
+	
+	/**
+	 * Shrinks the buffers of an empty mesh, so that they can hold
+	 * roughly maxFaces faces before having to grow again.
+	 * Used when meshes get reused, so that one large mesh
+	 * doesn't keep its memory around forever.
+	 */
+	public void trim(int maxFaces) {
+		if(quantized) {
+			this.qVertices.trim(maxFaces*3);
+			this.qUs.trim(maxFaces);
+			this.qVs.trim(maxFaces);
+			this.qCornerUVs.trim(maxFaces);
+			this.qNormals.trim(maxFaces);
+		}else {
+			this.vertices.trim(maxFaces*3);
+			this.us.trim(maxFaces);
+			this.vs.trim(maxFaces);
+			this.cornerUVs.trim(maxFaces*2);
+			this.normals.trim(maxFaces*3);
+		}
+		this.faceIndices.trim(maxFaces*4);
+		this.faceCounts.trim(maxFaces);
+		this.uvIndices.trim(maxFaces*4);
+		this.cornerUVIndices.trim(maxFaces*4);
+		this.normalIndices.trim(maxFaces*4);
+		this.faceCenters.trim(maxFaces*4);
+		this.vertexCache.trim(maxFaces);
+	}
+	
+	/**
+	 * Returns the number of faces that this mesh can hold
+	 * without having to grow its buffers.
+	 */
+	public int getFaceCapacity() {
+		return this.faceCounts.capacity();
 	}
 	
 	/*public Mesh(String name, String texture, String matTexture, boolean animatedTexture, boolean doubleSided, String extraData, 
@@ -261,8 +369,50 @@ public class Mesh {
 							(Float.floatToRawIntBits(z) >> 6) & 0xFF);
 	}
 	
+	/**
+	 * Quantized positions are stored in 1/POSITION_GRID units
+	 * relative to the origin of the mesh.
+	 */
+	private static final float POSITION_GRID = 256f;
+	/**
+	 * Quantized UVs are stored in 1/UV_GRID units.
+	 */
+	private static final float UV_GRID = 65536f;
+	/**
+	 * Quantized corner UVs are stored as two unsigned 16-bit values
+	 * in 1/CORNER_UV_GRID units, so they need to be between 0 and 2.
+	 */
+	private static final float CORNER_UV_GRID = 32768f;
+	/**
+	 * Quantized normals are stored as octahedral coordinates
+	 * with 16 bits per component.
+	 */
+	private static final float NORMAL_GRID = 32767f;
+	/**
+	 * Octahedral coordinates that can never come out of the encoder,
+	 * used for normals with a length of zero.
+	 */
+	private static final int ZERO_NORMAL = (-32768 << 16) | (-32768 & 0xFFFF);
+	
 	public void addPoint(float x, float y, float z, float u, float v, float cornerU, float cornerV, 
 						float r, float g, float b, float ao, int[] out) {
+		if(quantized)
+			addQuantizedPoint(x, y, z, u, v, cornerU, cornerV, out);
+		else
+			addFloatPoint(x, y, z, u, v, cornerU, cornerV, out);
+		
+		int colorIndex = -2;
+		if(hasColors)
+			colorIndex = colors.addValue(r, g, b);
+		int aoIndex = -2;
+		if(hasAO)
+			aoIndex = this.ao.addValue(ao);
+		
+		out[2] = colorIndex;
+		out[3] = aoIndex;
+	}
+	
+	private void addFloatPoint(float x, float y, float z, float u, float v, float cornerU, float cornerV, int[] out) {
 		int vertexIndex = -1;
 		//long hash = calcVertexId(x, y, z);
 		long hash1 = calcVertexId1(x, y, z);
@@ -290,31 +440,6 @@ public class Mesh {
 			}
 		}
 		
-		/*int colorIndex = -2;
-		if(hasColors) {
-			colorIndex = -1;
-			float[] colorData = colors.getData();
-			int colorsSize = colors.size();
-			for(int i = colorsSize - 3; i >= 0; i -= 3) {
-				if(Math.abs(colorData[i] - r) < 0.00001f && 
-						Math.abs(colorData[i + 1] - g) < 0.00001f && 
-						Math.abs(colorData[i + 2] - b) < 0.00001f) {
-					colorIndex = i / 3;
-					break;
-				}
-			}
-		}*/
-		
-		/*int aoIndex = -1;
-		float[] aoData = this.ao.getData();
-		int aoSize = this.ao.size();
-		for(int i = 0; i < aoSize; ++i) {
-			if(Math.abs(aoData[i] - ao) < 0.005f) {
-				aoIndex = i;
-				break;
-			}
-		}*/
-		
 		if(vertexIndex == -1) {
 			vertexIndex = vertices.size() / 3;
 			vertices.add(x);
@@ -335,33 +460,104 @@ public class Mesh {
 			cornerUVs.add(cornerV);
 		}
 		
-		/*if(colorIndex == -1) {
-			colorIndex = colors.size() / 3;
-			colors.add(r);
-			colors.add(g);
-			colors.add(b);
-		}*/
+		out[0] = vertexIndex;
+		out[1] = uvIndex;
+		out[4] = cornerUVIndex;
+	}
+	
+	private void addQuantizedPoint(float x, float y, float z, float u, float v, float cornerU, float cornerV, int[] out) {
+		// The integer coordinates are exact, so we can weld and
+		// dedupe on them directly.
+		initOrigin(x, y, z);
+		int qx = quantizeX(x);
+		int qy = quantizeY(y);
+		int qz = quantizeZ(z);
+		long hash1 = (((long) qx) << 32) | (((long) qy) & 0xFFFFFFFFL);
+		long hash2 = qz;
+		int vertexIndex = this.vertexCache.getOrDefault(hash1, hash2, -1);
+		if(vertexIndex == -1) {
+			vertexIndex = qVertices.size() / 3;
+			qVertices.add(qx);
+			qVertices.add(qy);
+			qVertices.add(qz);
+			this.vertexCache.put(hash1, hash2, vertexIndex);
+		}
 		
-		/*if(aoIndex == -1) {
-			aoIndex = this.ao.size();
-			this.ao.add(ao);
-		}*/
+		int qu = Math.round(u * UV_GRID);
+		int qv = Math.round(v * UV_GRID);
+		int uvIndex = -1;
+		int[] uData = qUs.getData();
+		int[] vData = qVs.getData();
+		int uvsSize = qUs.size();
+		for(int i = 0; i < uvsSize; ++i) {
+			if(uData[i] == qu && vData[i] == qv) {
+				uvIndex = i;
+				break;
+			}
+		}
+		if(uvIndex == -1) {
+			uvIndex = qUs.size();
+			qUs.add(qu);
+			qVs.add(qv);
+		}
 		
-		int colorIndex = -2;
-		if(hasColors)
-			colorIndex = colors.addValue(r, g, b);
-		int aoIndex = -2;
-		if(hasAO)
-			aoIndex = this.ao.addValue(ao);
+		int qCornerUV = packCornerUV(cornerU, cornerV);
+		int cornerUVIndex = -1;
+		int[] cornerUVData = qCornerUVs.getData();
+		int cornerUVsSize = qCornerUVs.size();
+		for(int i = 0; i < cornerUVsSize; ++i) {
+			if(cornerUVData[i] == qCornerUV) {
+				cornerUVIndex = i;
+				break;
+			}
+		}
+		if(cornerUVIndex == -1) {
+			cornerUVIndex = qCornerUVs.size();
+			qCornerUVs.add(qCornerUV);
+		}
 		
 		out[0] = vertexIndex;
 		out[1] = uvIndex;
-		out[2] = colorIndex;
-		out[3] = aoIndex;
 		out[4] = cornerUVIndex;
 	}
 	
+	private void initOrigin(float x, float y, float z) {
+		if(hasOrigin)
+			return;
+		originX = (int) Math.floor(x);
+		originY = (int) Math.floor(y);
+		originZ = (int) Math.floor(z);
+		hasOrigin = true;
+	}
+	
+	private int quantizeX(float x) {
+		return Math.round((x - originX) * POSITION_GRID);
+	}
+	
+	private int quantizeY(float y) {
+		return Math.round((y - originY) * POSITION_GRID);
+	}
+	
+	private int quantizeZ(float z) {
+		return Math.round((z - originZ) * POSITION_GRID);
+	}
+	
+	private int packCornerUV(float cornerU, float cornerV) {
+		int qu = Math.min(Math.max(Math.round(cornerU * CORNER_UV_GRID), 0), 0xFFFF);
+		int qv = Math.min(Math.max(Math.round(cornerV * CORNER_UV_GRID), 0), 0xFFFF);
+		return (qu << 16) | qv;
+	}
+	
 	private void forceAddPoint(float x, float y, float z, int[] out) {
+		if(quantized) {
+			initOrigin(x, y, z);
+			int vertexIndex = qVertices.size() / 3;
+			qVertices.add(quantizeX(x));
+			qVertices.add(quantizeY(y));
+			qVertices.add(quantizeZ(z));
+			out[0] = vertexIndex;
+			return;
+		}
 		int vertexIndex = vertices.size() / 3;
 		vertices.add(x);
 		vertices.add(y);
@@ -386,21 +582,148 @@ public class Mesh {
 	}
 	
 	public int addNormal(float x, float y, float z) {
-		int normalIndex = -1;
-		//long hash = calcVertexId(x*16f, y*16f, z*16f);
-		//normalIndex = this.normalCache.getOrDefault(hash, -1);
-		
+		// Meshes read from a file don't have a normal cache yet.
+		if(normalCache == null)
+			normalCache = new IndexCacheDoubleLong();
+		if(quantized)
+			return addQuantizedNormal(x, y, z);
+		
+		// Only exactly the same normals are shared, so the output doesn't change.
+		long hash1 = (((long) Float.floatToRawIntBits(x)) << 32) | 
+						(((long) Float.floatToRawIntBits(y)) & 0xFFFFFFFFL);
+		long hash2 = Float.floatToRawIntBits(z);
+		int normalIndex = this.normalCache.getOrDefault(hash1, hash2, -1);
 		if(normalIndex == -1) {
 			normalIndex = normals.size() / 3;
 			normals.add(x);
 			normals.add(y);
 			normals.add(z);
-			//this.normalCache.put(hash, normalIndex);
+			this.normalCache.put(hash1, hash2, normalIndex);
 		}
 		
 		return normalIndex;
 	}
 	
+	private int addQuantizedNormal(float x, float y, float z) {
+		int packed = ZERO_NORMAL;
+		float length = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		if(length > 0f) {
+			// Project onto the octahedron and fold the bottom half over.
+			float ox = x / length;
+			float oy = y / length;
+			if(z < 0f) {
+				float tx = (1f - Math.abs(oy)) * (ox >= 0f ? 1f : -1f);
+				float ty = (1f - Math.abs(ox)) * (oy >= 0f ? 1f : -1f);
+				ox = tx;
+				oy = ty;
+			}
+			int qx = Math.round(ox * NORMAL_GRID);
+			int qy = Math.round(oy * NORMAL_GRID);
+			packed = (qx << 16) | (qy & 0xFFFF);
+		}
+		int normalIndex = normalCache.getOrDefault(packed, 0, -1);
+		if(normalIndex == -1) {
+			normalIndex = qNormals.size();
+			qNormals.add(packed);
+			normalCache.put(packed, 0, normalIndex);
+		}
+		return normalIndex;
+	}
+	
+	/**
+	 * Returns whether the vertex data is stored quantized.
+	 */
+	public boolean isQuantized() {
+		return quantized;
+	}
+	
+	public int getNumPoints() {
+		return quantized ? qVertices.size() / 3 : vertices.size() / 3;
+	}
+	
+	public float getPointX(int pointId) {
+		if(quantized)
+			return originX + qVertices.get(pointId * 3) / POSITION_GRID;
+		return vertices.get(pointId * 3);
+	}
+	
+	public float getPointY(int pointId) {
+		if(quantized)
+			return originY + qVertices.get(pointId * 3 + 1) / POSITION_GRID;
+		return vertices.get(pointId * 3 + 1);
+	}
+	
+	public float getPointZ(int pointId) {
+		if(quantized)
+			return originZ + qVertices.get(pointId * 3 + 2) / POSITION_GRID;
+		return vertices.get(pointId * 3 + 2);
+	}
+	
+	public int getNumUVs() {
+		return quantized ? qUs.size() : us.size();
+	}
+	
+	public float getU(int uvId) {
+		if(quantized)
+			return qUs.get(uvId) / UV_GRID;
+		return us.get(uvId);
+	}
+	
+	public float getV(int uvId) {
+		if(quantized)
+			return qVs.get(uvId) / UV_GRID;
+		return vs.get(uvId);
+	}
+	
+	public int getNumCornerUVs() {
+		return quantized ? qCornerUVs.size() : cornerUVs.size() / 2;
+	}
+	
+	public float getCornerU(int cornerUVId) {
+		if(quantized)
+			return (qCornerUVs.get(cornerUVId) >>> 16) / CORNER_UV_GRID;
+		return cornerUVs.get(cornerUVId * 2);
+	}
+	
+	public float getCornerV(int cornerUVId) {
+		if(quantized)
+			return (qCornerUVs.get(cornerUVId) & 0xFFFF) / CORNER_UV_GRID;
+		return cornerUVs.get(cornerUVId * 2 + 1);
+	}
+	
+	public int getNumNormals() {
+		return quantized ? qNormals.size() : normals.size() / 3;
+	}
+	
+	public void getNormalValue(int normalId, float[] out) {
+		if(!quantized) {
+			out[0] = normals.get(normalId * 3);
+			out[1] = normals.get(normalId * 3 + 1);
+			out[2] = normals.get(normalId * 3 + 2);
+			return;
+		}
+		int packed = qNormals.get(normalId);
+		if(packed == ZERO_NORMAL) {
+			out[0] = 0f;
+			out[1] = 0f;
+			out[2] = 0f;
+			return;
+		}
+		float nx = (packed >> 16) / NORMAL_GRID;
+		float ny = ((short) packed) / NORMAL_GRID;
+		float nz = 1f - Math.abs(nx) - Math.abs(ny);
+		if(nz < 0f) {
+			float tx = (1f - Math.abs(ny)) * (nx >= 0f ? 1f : -1f);
+			float ty = (1f - Math.abs(nx)) * (ny >= 0f ? 1f : -1f);
+			nx = tx;
+			ny = ty;
+		}
+		float invLength = 1f / (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+		out[0] = nx * invLength;
+		out[1] = ny * invLength;
+		out[2] = nz * invLength;
+	}
+	
 	private static final float[] blankColors = new float[] {
 			1.0f, 1.0f, 1.0f,
 			1.0f, 1.0f, 1.0f,
@@ -463,6 +786,27 @@ public class Mesh {
 			float uvOffsetY, float scale, float yScale, float uvScale, float yuvScale, Atlas.AtlasItem atlas, Color[] tint,
 			AmbientOcclusion ambientOcclusion, int cornerData, VertexColorSet.VertexColorFace[] vertexColors,
 			float[] normalData) {
+		addFace(face, bx, by, bz, additionalX, additionalY, additionalZ, uvOffsetY, scale, yScale, uvScale, yuvScale, 
+				atlas, tint, ambientOcclusion, -1f, cornerData, vertexColors, normalData, scale);
+	}
+	
+	/**
+	 * Adds in a face that has the same ambient occlusion value on all of its corners.
+	 * Used for faces that span multiple blocks, where the AmbientOcclusion
+	 * of a single block doesn't apply anymore.
+	 * A negative value for ao means that no ambient occlusion is added.
+	 * The size is the number of blocks that the face spans along its
+	 * longest side, so that the face centres cover the entire face.
+	 */
+	public void addFaceWithUniformAO(ModelFace face, float bx, float by, float bz, Color[] tint, float ao, 
+									int cornerData, VertexColorSet.VertexColorFace[] vertexColors, float size) {
+		addFace(face, bx, by, bz, 0f, 0f, 0f, 0f, 1.0f, 1.0f, 1.0f, 1.0f, null, tint, null, ao, cornerData, vertexColors, null, size);
+	}
+	
+	private void addFace(ModelFace face, float bx, float by, float bz, float additionalX, float additionalY, float additionalZ,
+			float uvOffsetY, float scale, float yScale, float uvScale, float yuvScale, Atlas.AtlasItem atlas, Color[] tint,
+			AmbientOcclusion ambientOcclusion, float uniformAO, int cornerData, VertexColorSet.VertexColorFace[] vertexColors,
+			float[] normalData, float size) {
 		float ox = bx * 16.0f + additionalX;
 		float oy = by * 16.0f + additionalY;
 		float oz = bz * 16.0f + additionalZ;
@@ -521,11 +865,18 @@ public class Mesh {
 		float ao1 = 1.0f;
 		float ao2 = 1.0f;
 		float ao3 = 1.0f;
-		if(Config.calculateAmbientOcclusion && ambientOcclusion != null) {
-			ao0 = getAOForPoint(points[0], points[1], points[2], ambientOcclusion, face.getDirection());
-			ao1 = getAOForPoint(points[3], points[4], points[5], ambientOcclusion, face.getDirection());
-			ao2 = getAOForPoint(points[6], points[7], points[8], ambientOcclusion, face.getDirection());
-			ao3 = getAOForPoint(points[9], points[10], points[11], ambientOcclusion, face.getDirection());
+		if(Config.calculateAmbientOcclusion && (ambientOcclusion != null || uniformAO >= 0f)) {
+			if(ambientOcclusion != null) {
+				ao0 = getAOForPoint(points[0], points[1], points[2], ambientOcclusion, face.getDirection());
+				ao1 = getAOForPoint(points[3], points[4], points[5], ambientOcclusion, face.getDirection());
+				ao2 = getAOForPoint(points[6], points[7], points[8], ambientOcclusion, face.getDirection());
+				ao3 = getAOForPoint(points[9], points[10], points[11], ambientOcclusion, face.getDirection());
+			}else {
+				ao0 = uniformAO;
+				ao1 = uniformAO;
+				ao2 = uniformAO;
+				ao3 = uniformAO;
+			}
 			if(!hasAO) {
 				if(this.ao == null) {
 					this.ao = new VertexColorSet("CdAO", 1, this.faceIndices.size() + 3);
@@ -600,7 +951,7 @@ public class Mesh {
 		faceCenters.add(bx * 16.0f);
 		faceCenters.add(by * 16.0f);
 		faceCenters.add(bz * 16.0f);
-		faceCenters.add(scale);
+		faceCenters.add(size);
 		
 		if(face.isDoubleSided())
 			doubleSided = true;
@@ -656,7 +1007,7 @@ public class Mesh {
 		}
 	}
 	
-	private float getAOForPoint(float x, float y, float z, AmbientOcclusion ao, Direction dir) {
+	static float getAOForPoint(float x, float y, float z, AmbientOcclusion ao, Direction dir) {
 		x = Math.min(Math.max(x/16f, 0f), 1f);
 		y = Math.min(Math.max(y/16f, 0f), 1f);
 		z = Math.min(Math.max(z/16f, 0f), 1f);
@@ -729,21 +1080,21 @@ public class Mesh {
 	
 	public void getVertex(int faceIndex, int vertexIndex, float[] out) {
 		int vertexId = faceIndices.get(faceIndex * 4 + vertexIndex);
-		out[0] = vertices.get(vertexId * 3 + 0);
-		out[1] = vertices.get(vertexId * 3 + 1);
-		out[2] = vertices.get(vertexId * 3 + 2);
+		out[0] = getPointX(vertexId);
+		out[1] = getPointY(vertexId);
+		out[2] = getPointZ(vertexId);
 	}
 	
 	public void getUV(int faceIndex, int vertexIndex, float[] out) {
 		int uvId = uvIndices.get(faceIndex * 4 + vertexIndex);
-		out[0] = us.get(uvId);
-		out[1] = vs.get(uvId);
+		out[0] = getU(uvId);
+		out[1] = getV(uvId);
 	}
 	
 	public void getCornerUV(int faceIndex, int vertexIndex, float[] out) {
 		int cornerUVId = cornerUVIndices.get(faceIndex * 4 + vertexIndex);
-		out[0] = cornerUVs.get(cornerUVId * 2);
-		out[1] = cornerUVs.get(cornerUVId * 2 + 1);
+		out[0] = getCornerU(cornerUVId);
+		out[1] = getCornerV(cornerUVId);
 	}
 	
 	public void getColor(int faceIndex, int vertexIndex, float[] out) {
@@ -765,9 +1116,7 @@ public class Mesh {
 	
 	public void getNormal(int faceIndex, int vertexIndex, float[] out) {
 		int normalId = normalIndices.get(faceIndex * 4 + vertexIndex);
-		out[0] = normals.get(normalId * 3 + 0);
-		out[1] = normals.get(normalId * 3 + 1);
-		out[2] = normals.get(normalId * 3 + 2);
+		getNormalValue(normalId, out);
 	}
 	
 	public float getAO(int faceIndex, int vertexIndex) {
@@ -1226,20 +1575,53 @@ public class Mesh {
 		return extraData;
 	}
 	
+	/**
+	 * Returns the vertex positions. For quantized meshes this is
+	 * a decoded copy, so changes to it won't end up in the mesh.
+	 */
 	public FloatArray getVertices() {
-		return vertices;
+		if(!quantized)
+			return vertices;
+		int numPoints = getNumPoints();
+		FloatArray res = new FloatArray(numPoints * 3);
+		for(int i = 0; i < numPoints; ++i) {
+			res.add(getPointX(i));
+			res.add(getPointY(i));
+			res.add(getPointZ(i));
+		}
+		return res;
 	}
 
 	public FloatArray getUs() {
-		return us;
+		if(!quantized)
+			return us;
+		int numUVs = getNumUVs();
+		FloatArray res = new FloatArray(numUVs);
+		for(int i = 0; i < numUVs; ++i)
+			res.add(getU(i));
+		return res;
 	}
 
 	public FloatArray getVs() {
-		return vs;
+		if(!quantized)
+			return vs;
+		int numUVs = getNumUVs();
+		FloatArray res = new FloatArray(numUVs);
+		for(int i = 0; i < numUVs; ++i)
+			res.add(getV(i));
+		return res;
 	}
 	
 	public FloatArray getCornerUVs() {
-		return cornerUVs;
+		if(!quantized)
+			return cornerUVs;
+		int numCornerUVs = getNumCornerUVs();
+		FloatArray res = new FloatArray(numCornerUVs * 2);
+		for(int i = 0; i < numCornerUVs; ++i) {
+			res.add(getCornerU(i));
+			res.add(getCornerV(i));
+		}
+		return res;
 	}
 	
 	public boolean hasColors() {
@@ -1259,7 +1641,18 @@ public class Mesh {
 	}
 	
 	public FloatArray getNormals() {
-		return normals;
+		if(!quantized)
+			return normals;
+		int numNormals = getNumNormals();
+		FloatArray res = new FloatArray(numNormals * 3);
+		float[] normal = new float[3];
+		for(int i = 0; i < numNormals; ++i) {
+			getNormalValue(i, normal);
+			res.add(normal[0]);
+			res.add(normal[1]);
+			res.add(normal[2]);
+		}
+		return res;
 	}
 	
 	/*public FloatArray getAO() {
@@ -1363,8 +1756,8 @@ public class Mesh {
 		flatVs.resize(uvIndices.size());
 		
 		for(int i = 0; i < uvIndices.size(); ++i) {
-			flatUs.set(i, us.get(uvIndices.get(i)));
-			flatVs.set(i, vs.get(uvIndices.get(i)));
+			flatUs.set(i, getU(uvIndices.get(i)));
+			flatVs.set(i, getV(uvIndices.get(i)));
 		}
 	}
 	
@@ -1373,18 +1766,20 @@ public class Mesh {
 		flatVs.resize(cornerUVIndices.size());
 		
 		for(int i = 0; i < cornerUVIndices.size(); ++i) {
-			flatUs.set(i, cornerUVs.get(cornerUVIndices.get(i) * 2));
-			flatVs.set(i, cornerUVs.get(cornerUVIndices.get(i) * 2 + 1));
+			flatUs.set(i, getCornerU(cornerUVIndices.get(i)));
+			flatVs.set(i, getCornerV(cornerUVIndices.get(i)));
 		}
 	}
 	
 	public void getFlatNormals(FloatArray flatNormals) {
 		flatNormals.resize(normalIndices.size()*3);
 		
+		float[] normal = new float[3];
 		for(int i = 0; i < normalIndices.size(); ++i) {
-			flatNormals.set(i * 3    , normals.get(normalIndices.get(i) * 3));
-			flatNormals.set(i * 3 + 1, normals.get(normalIndices.get(i) * 3 + 1));
-			flatNormals.set(i * 3 + 2, normals.get(normalIndices.get(i) * 3 + 2));
+			getNormalValue(normalIndices.get(i), normal);
+			flatNormals.set(i * 3    , normal[0]);
+			flatNormals.set(i * 3 + 1, normal[1]);
+			flatNormals.set(i * 3 + 2, normal[2]);
 		}
 	}
 
@@ -1430,13 +1825,13 @@ public class Mesh {
 		dos.writeInt(animatedTexture ? 1 : 0);
 		dos.writeUTF(shadingMode);
 		dos.writeUTF(extraData);
-		dos.writeInt(vertices.size() / 3); // num vertices
-		dos.writeInt(us.size()); // num UVs
+		dos.writeInt(getNumPoints()); // num vertices
+		dos.writeInt(getNumUVs()); // num UVs
 		if(Config.calculateCornerUVs)
-			dos.writeInt(cornerUVs.size()/2); // num corner UVs
+			dos.writeInt(getNumCornerUVs()); // num corner UVs
 		else
 			dos.writeInt(0);
-		dos.writeInt(normals.size() / 3); // num normals
+		dos.writeInt(getNumNormals()); // num normals
 		//dos.writeInt(ao.size()); // num AO
 		dos.writeInt(faceIndices.size() / 4); // num faces
 		//if(!hasColors) {
@@ -1450,25 +1845,38 @@ public class Mesh {
 		float worldScale = Config.blockSizeInUnits / 16.0f;
 		float worldOffsetXZ = Config.blockCenteredXZOnOrigin ? 0f : (Config.blockSizeInUnits * 0.5f);
 		
+		// Quantized data gets turned back into floats here.
 		// vertex data
 		int i = 0;
-		for(i = 0; i < vertices.size(); i += 3) {
-			dos.writeFloat(vertices.get(i) * worldScale + worldOffsetXZ);
-			dos.writeFloat(vertices.get(i+1) * worldScale);
-			dos.writeFloat(vertices.get(i+2) * worldScale + worldOffsetXZ);
+		int numPoints = getNumPoints();
+		for(i = 0; i < numPoints; ++i) {
+			dos.writeFloat(getPointX(i) * worldScale + worldOffsetXZ);
+			dos.writeFloat(getPointY(i) * worldScale);
+			dos.writeFloat(getPointZ(i) * worldScale + worldOffsetXZ);
 		}
 		// uv data
-		for(i = 0; i < us.size(); ++i)
-			dos.writeFloat(us.get(i));
-		for(i = 0; i < vs.size(); ++i)
-			dos.writeFloat(vs.get(i));
+		int numUVs = getNumUVs();
+		for(i = 0; i < numUVs; ++i)
+			dos.writeFloat(getU(i));
+		for(i = 0; i < numUVs; ++i)
+			dos.writeFloat(getV(i));
 		// corner uv data
-		if(Config.calculateCornerUVs)
-			for(i = 0; i < cornerUVs.size(); ++i)
-				dos.writeFloat(cornerUVs.get(i));
+		if(Config.calculateCornerUVs) {
+			int numCornerUVs = getNumCornerUVs();
+			for(i = 0; i < numCornerUVs; ++i) {
+				dos.writeFloat(getCornerU(i));
+				dos.writeFloat(getCornerV(i));
+			}
+		}
 		// normal data
-		for(i = 0; i < normals.size(); ++i)
-			dos.writeFloat(normals.get(i));
+		int numNormals = getNumNormals();
+		float[] normal = new float[3];
+		for(i = 0; i < numNormals; ++i) {
+			getNormalValue(i, normal);
+			dos.writeFloat(normal[0]);
+			dos.writeFloat(normal[1]);
+			dos.writeFloat(normal[2]);
+		}
 		// AO data
 		//for(i = 0; i < ao.size(); ++i)
 		//	dos.writeFloat(ao.get(i));
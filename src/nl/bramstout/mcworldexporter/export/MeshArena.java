@@ -0,0 +1,124 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.export;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.bramstout.mcworldexporter.model.ModelFace;
+
+/**
+ * Hands out Mesh instances for a worker thread and takes them back
+ * once a tile has been written, so that their buffers can be reused
+ * for the next tile instead of becoming garbage.
+ * 
+ * To make sure that one giant tile doesn't keep its memory around
+ * forever, the arena keeps a high water mark of the faces per mesh
+ * that decays with every tile. Meshes that have grown far
+ * beyond it get trimmed when they are released.
+ */
+public class MeshArena {
+	
+	private static final int MIN_FACES = 1024;
+	private static final int MAX_FREE_MESHES = 1024;
+	
+	private static ThreadLocal<MeshArena> arenas = new ThreadLocal<MeshArena>() {
+		
+		@Override
+		protected MeshArena initialValue() {
+			return new MeshArena();
+		}
+		
+	};
+	
+	/**
+	 * Returns the arena of the current thread.
+	 */
+	public static MeshArena get() {
+		return arenas.get();
+	}
+	
+	private List<Mesh> freeMeshes;
+	private List<Mesh> usedMeshes;
+	private int highWaterMark;
+	private int meshCountMark;
+	
+	public MeshArena() {
+		freeMeshes = new ArrayList<Mesh>();
+		usedMeshes = new ArrayList<Mesh>();
+		highWaterMark = MIN_FACES;
+		meshCountMark = 0;
+	}
+	
+	public Mesh allocate(String name, MeshPurpose purpose, String texture, String matTexture, 
+							boolean animatedTexture, boolean doubleSided, String shadingMode) {
+		Mesh mesh = null;
+		if(freeMeshes.isEmpty()) {
+			mesh = new Mesh(name, purpose, texture, matTexture, animatedTexture, doubleSided, 
+							shadingMode, MIN_FACES, 8);
+		}else {
+			mesh = freeMeshes.remove(freeMeshes.size() - 1);
+			mesh.reset(name, purpose, texture, matTexture, animatedTexture, doubleSided, shadingMode);
+		}
+		usedMeshes.add(mesh);
+		return mesh;
+	}
+	
+	/**
+	 * Takes back all meshes handed out since the last call.
+	 * The caller must not use any of those meshes anymore.
+	 */
+	public void releaseAll() {
+		int tileFaces = 0;
+		for(Mesh mesh : usedMeshes)
+			tileFaces = Math.max(tileFaces, mesh.getFaceCounts().size());
+		
+		// Let the high water marks slowly come down again after a large tile.
+		highWaterMark = Math.max(Math.max(tileFaces, highWaterMark - highWaterMark / 4), MIN_FACES);
+		meshCountMark = Math.min(Math.max(usedMeshes.size(), meshCountMark - meshCountMark / 4), MAX_FREE_MESHES);
+		
+		for(Mesh mesh : usedMeshes) {
+			if(freeMeshes.size() >= meshCountMark)
+				break;
+			mesh.reset("", MeshPurpose.UNDEFINED, "", "", false, false, ModelFace.SHADING_MODE_STANDARD);
+			if(mesh.getFaceCapacity() > highWaterMark * 2)
+				mesh.trim(highWaterMark);
+			freeMeshes.add(mesh);
+		}
+		usedMeshes.clear();
+		
+		// Drop the free meshes that we haven't needed in a while.
+		while(freeMeshes.size() > meshCountMark)
+			freeMeshes.remove(freeMeshes.size() - 1);
+	}
+
+}
@@ -35,6 +35,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import nl.bramstout.mcworldexporter.Config;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.atlas.Atlas;
 import nl.bramstout.mcworldexporter.atlas.Atlas.AtlasItem;
 import nl.bramstout.mcworldexporter.export.Mesh;
@@ -56,13 +57,13 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 	}
 	
 	public void optimise(Mesh inMesh) {
-		if(inMesh.getNumSubsets() == 0 && (inMesh.hasAnimatedTexture() || Config.noFaceOptimisation.contains(inMesh.getMatTexture()))) {
+		if(inMesh.getNumSubsets() == 0 && (inMesh.hasAnimatedTexture() || ConfigFlags.hasFlag(inMesh.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION))) {
 			// Don't optimise the faces of animated materials.
 			return;
 		}else if(inMesh.getNumSubsets() > 0) {
 			boolean isAllAnimated = true;
 			for(int i = 0; i < inMesh.getNumSubsets(); ++i) {
-				if(!(inMesh.getSubset(i).isAnimatedTexture() || Config.noFaceOptimisation.contains(inMesh.getSubset(i).getMatTexture()))) {
+				if(!(inMesh.getSubset(i).isAnimatedTexture() || ConfigFlags.hasFlag(inMesh.getSubset(i).getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION))) {
 					isAllAnimated = false;
 					break;
 				}
@@ -84,8 +85,8 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			process(inMesh, tempMesh1, processedFaces, facesPerVertex, 0, null, combinedFace);
 		}else {
 			for(MeshSubset subset : inMesh.getSubsets()) {
-				if((subset.getMatTexture() != null && (subset.isAnimatedTexture() || Config.noFaceOptimisation.contains(subset.getMatTexture()))) || 
-						(subset.getMatTexture() == null && (inMesh.hasAnimatedTexture() || Config.noFaceOptimisation.contains(inMesh.getMatTexture())))) {
+				if((subset.getMatTexture() != null && (subset.isAnimatedTexture() || ConfigFlags.hasFlag(subset.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION))) || 
+						(subset.getMatTexture() == null && (inMesh.hasAnimatedTexture() || ConfigFlags.hasFlag(inMesh.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION)))) {
 					addFacesInSubset(inMesh, tempMesh1, subset);
 				}else {
 					getFacesPerVertex(inMesh, subset);
@@ -105,8 +106,8 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			process(tempMesh1, inMesh, processedFaces, facesPerVertex, 1, null, combinedFace);
 		}else {
 			for(MeshSubset subset : tempMesh1.getSubsets()) {
-				if((subset.getMatTexture() != null && (subset.isAnimatedTexture() || Config.noFaceOptimisation.contains(subset.getMatTexture()))) || 
-						(subset.getMatTexture() == null && (inMesh.hasAnimatedTexture() || Config.noFaceOptimisation.contains(inMesh.getMatTexture())))) {
+				if((subset.getMatTexture() != null && (subset.isAnimatedTexture() || ConfigFlags.hasFlag(subset.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION))) || 
+						(subset.getMatTexture() == null && (inMesh.hasAnimatedTexture() || ConfigFlags.hasFlag(inMesh.getMatTexture(), ConfigFlags.NO_FACE_OPTIMISATION)))) {
 					addFacesInSubset(tempMesh1, inMesh, subset);
 				}else {
 					getFacesPerVertex(tempMesh1, subset);
@@ -117,7 +118,7 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 	}
 	
 	private void getFacesPerVertex(Mesh mesh, MeshSubset subset){
-		int facesPerVertexSize = mesh.getVertices().size() / 3;
+		int facesPerVertexSize = mesh.getNumPoints();
 		if(facesPerVertex == null) {
 			facesPerVertex = new int[facesPerVertexSize][];
 		}else if(facesPerVertex.length < facesPerVertexSize) {
@@ -171,7 +172,7 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 	
 	private void clearFacesPerVertex(Mesh mesh, MeshSubset subset) {
 		if(subset == null) {
-			int facesPerVertexSize = mesh.getVertices().size() / 3;
+			int facesPerVertexSize = mesh.getNumPoints();
 			for(int i = 0; i < facesPerVertexSize; ++i) {
 				if(facesPerVertex[i] != null)
 					facesPerVertex[i][0] = 0;
@@ -251,27 +252,25 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 		public void setup(Mesh mesh, int face) {
 			for(int edgeId = 0; edgeId < 4; ++edgeId) {
 				int vertexIndex = mesh.getFaceIndices().get(face*4 + edgeId);
-				vertices[edgeId*3] = mesh.getVertices().get(vertexIndex*3);
-				vertices[edgeId*3+1] = mesh.getVertices().get(vertexIndex*3+1);
-				vertices[edgeId*3+2] = mesh.getVertices().get(vertexIndex*3+2);
+				vertices[edgeId*3] = mesh.getPointX(vertexIndex);
+				vertices[edgeId*3+1] = mesh.getPointY(vertexIndex);
+				vertices[edgeId*3+2] = mesh.getPointZ(vertexIndex);
 				
 				int uvIndex = mesh.getUvIndices().get(face * 4 + edgeId);
-				us[edgeId] = mesh.getUs().get(uvIndex);
-				vs[edgeId] = mesh.getVs().get(uvIndex);
-				initialUs[edgeId] = mesh.getUs().get(uvIndex);
-				initialVs[edgeId] = mesh.getVs().get(uvIndex);
+				us[edgeId] = mesh.getU(uvIndex);
+				vs[edgeId] = mesh.getV(uvIndex);
+				initialUs[edgeId] = mesh.getU(uvIndex);
+				initialVs[edgeId] = mesh.getV(uvIndex);
 				
 				int cornerUVIndex = mesh.getCornerUVIndices().get(face * 4 + edgeId);
-				cornerUVs[edgeId * 2] = mesh.getCornerUVs().get(cornerUVIndex * 2);
-				cornerUVs[edgeId * 2 + 1] = mesh.getCornerUVs().get(cornerUVIndex * 2 + 1);
+				cornerUVs[edgeId * 2] = mesh.getCornerU(cornerUVIndex);
+				cornerUVs[edgeId * 2 + 1] = mesh.getCornerV(cornerUVIndex);
 				
 				//int aoIndex = mesh.getAOIndices().get(face * 4 + edgeId);
 				//ao[edgeId] = mesh.getAO().get(aoIndex);
 			}
 			int normalIndex = mesh.getNormalIndices().get(face*4);
-			normals[0] = mesh.getNormals().get(normalIndex*3);
-			normals[1] = mesh.getNormals().get(normalIndex*3+1);
-			normals[2] = mesh.getNormals().get(normalIndex*3+2);
+			mesh.getNormalValue(normalIndex, normals);
 			
 			hasColors = false;
 			if(mesh.hasColors()) {
@@ -355,13 +354,13 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 				vert1 = edgeId;
 			}
 			
-			vertices[vert1*3] = mesh.getVertices().get(vertexIndex1*3);
-			vertices[vert1*3+1] = mesh.getVertices().get(vertexIndex1*3+1);
-			vertices[vert1*3+2] = mesh.getVertices().get(vertexIndex1*3+2);
+			vertices[vert1*3] = mesh.getPointX(vertexIndex1);
+			vertices[vert1*3+1] = mesh.getPointY(vertexIndex1);
+			vertices[vert1*3+2] = mesh.getPointZ(vertexIndex1);
 			
-			vertices[vert2*3] = mesh.getVertices().get(vertexIndex2*3);
-			vertices[vert2*3+1] = mesh.getVertices().get(vertexIndex2*3+1);
-			vertices[vert2*3+2] = mesh.getVertices().get(vertexIndex2*3+2);
+			vertices[vert2*3] = mesh.getPointX(vertexIndex2);
+			vertices[vert2*3+1] = mesh.getPointY(vertexIndex2);
+			vertices[vert2*3+2] = mesh.getPointZ(vertexIndex2);
 			
 			if((vertices[0] == vertices[3] && vertices[1] == vertices[4] && vertices[2] == vertices[5]) || 
 					(vertices[0] == vertices[9] && vertices[1] == vertices[10] && vertices[2] == vertices[11])) {
@@ -375,22 +374,22 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			
 			if(us[vert1] < us[vert2]) {
 				// vert1 has the minU and vert2 has the maxU
-				us[vert1] = Math.min(mesh.getUs().get(uvIndex1), mesh.getUs().get(uvIndex2)) + offsetU;
-				us[vert2] = Math.max(mesh.getUs().get(uvIndex1), mesh.getUs().get(uvIndex2)) + offsetU;
+				us[vert1] = Math.min(mesh.getU(uvIndex1), mesh.getU(uvIndex2)) + offsetU;
+				us[vert2] = Math.max(mesh.getU(uvIndex1), mesh.getU(uvIndex2)) + offsetU;
 			}else {
 				// vert1 has the maxU and vert2 has the minU
-				us[vert1] = Math.max(mesh.getUs().get(uvIndex1), mesh.getUs().get(uvIndex2)) + offsetU;
-				us[vert2] = Math.min(mesh.getUs().get(uvIndex1), mesh.getUs().get(uvIndex2)) + offsetU;
+				us[vert1] = Math.max(mesh.getU(uvIndex1), mesh.getU(uvIndex2)) + offsetU;
+				us[vert2] = Math.min(mesh.getU(uvIndex1), mesh.getU(uvIndex2)) + offsetU;
 			}
 			
 			if(vs[vert1] < vs[vert2]) {
 				// vert1 has the minV and vert2 has the maxV
-				vs[vert1] = Math.min(mesh.getVs().get(uvIndex1), mesh.getVs().get(uvIndex2)) + offsetV;
-				vs[vert2] = Math.max(mesh.getVs().get(uvIndex1), mesh.getVs().get(uvIndex2)) + offsetV;
+				vs[vert1] = Math.min(mesh.getV(uvIndex1), mesh.getV(uvIndex2)) + offsetV;
+				vs[vert2] = Math.max(mesh.getV(uvIndex1), mesh.getV(uvIndex2)) + offsetV;
 			}else {
 				// vert1 has the maxV and vert2 has the minV
-				vs[vert1] = Math.max(mesh.getVs().get(uvIndex1), mesh.getVs().get(uvIndex2)) + offsetV;
-				vs[vert2] = Math.min(mesh.getVs().get(uvIndex1), mesh.getVs().get(uvIndex2)) + offsetV;
+				vs[vert1] = Math.max(mesh.getV(uvIndex1), mesh.getV(uvIndex2)) + offsetV;
+				vs[vert2] = Math.min(mesh.getV(uvIndex1), mesh.getV(uvIndex2)) + offsetV;
 			}
 			
 			if(currentAtlasItem != null) {
@@ -544,6 +543,8 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 	private float[] vertexColorValues6 = new float[4];
 	private float[] vertexColorValues7 = new float[4];
 	private float[] vertexColorValues8 = new float[4];
+	private float[] normalValues1 = new float[3];
+	private float[] normalValues2 = new float[3];
 	private void processFace(Mesh inMesh, boolean[] processedFaces, int[][] facesPerVertex, int faceIndex, 
 										int edgeId, CombinedFace combinedFace,
 										List<AtlasItem> atlas, AtlasItem currentAtlasItem) {
@@ -559,12 +560,12 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			int vertexId2 = inMesh.getFaceIndices().get(faceIndex * 4 + ((edgeId + 1) % 4));
 			int vertexId3 = inMesh.getFaceIndices().get(faceIndex * 4 + ((edgeId + 2) % 4));
 			
-			float v1X = inMesh.getVertices().get(vertexId2 * 3);
-			float v1Y = inMesh.getVertices().get(vertexId2 * 3 + 1);
-			float v1Z = inMesh.getVertices().get(vertexId2 * 3 + 2);
-			float v2X = inMesh.getVertices().get(vertexId3 * 3);
-			float v2Y = inMesh.getVertices().get(vertexId3 * 3 + 1);
-			float v2Z = inMesh.getVertices().get(vertexId3 * 3 + 2);
+			float v1X = inMesh.getPointX(vertexId2);
+			float v1Y = inMesh.getPointY(vertexId2);
+			float v1Z = inMesh.getPointZ(vertexId2);
+			float v2X = inMesh.getPointX(vertexId3);
+			float v2Y = inMesh.getPointY(vertexId3);
+			float v2Z = inMesh.getPointZ(vertexId3);
 			float vdX = v2X - v1X;
 			float vdY = v2Y - v1Y;
 			float vdZ = v2Z - v1Z;
@@ -576,9 +577,10 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			}
 			
 			int normalId = inMesh.getNormalIndices().get(faceIndex*4);
-			float normalX = inMesh.getNormals().get(normalId*3);
-			float normalY = inMesh.getNormals().get(normalId*3+1);
-			float normalZ = inMesh.getNormals().get(normalId*3+2);
+			inMesh.getNormalValue(normalId, normalValues1);
+			float normalX = normalValues1[0];
+			float normalY = normalValues1[1];
+			float normalZ = normalValues1[2];
 			int colorId1 = 0;
 			int colorId2 = 0;
 			int colorId3 = 0;
@@ -591,14 +593,14 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 			}
 			
 			int uvIndex1 = inMesh.getUvIndices().get(faceIndex * 4 + edgeId);
-			float u1 = inMesh.getUs().get(uvIndex1);
-			float v1 = inMesh.getVs().get(uvIndex1);
+			float u1 = inMesh.getU(uvIndex1);
+			float v1 = inMesh.getV(uvIndex1);
 			int uvIndex2 = inMesh.getUvIndices().get(faceIndex * 4 + ((edgeId+1)%4));
-			float u2 = inMesh.getUs().get(uvIndex2);
-			float v2 = inMesh.getVs().get(uvIndex2);
+			float u2 = inMesh.getU(uvIndex2);
+			float v2 = inMesh.getV(uvIndex2);
 			int uvIndex3 = inMesh.getUvIndices().get(faceIndex * 4 + ((edgeId+3)%4));
-			float u3 = inMesh.getUs().get(uvIndex3);
-			float v3 = inMesh.getVs().get(uvIndex3);
+			float u3 = inMesh.getU(uvIndex3);
+			float v3 = inMesh.getV(uvIndex3);
 			if(currentAtlasItem != null) {
 				// If we are using an atlas, make sure it's all in local space.
 				u1 = currentAtlasItem.uToLocal(u1);
@@ -641,9 +643,10 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 					continue; // Already processed, so skip
 				
 				int normalId2 = inMesh.getNormalIndices().get(faceIndex2*4);
-				float normalX2 = inMesh.getNormals().get(normalId2*3);
-				float normalY2 = inMesh.getNormals().get(normalId2*3+1);
-				float normalZ2 = inMesh.getNormals().get(normalId2*3+2);
+				inMesh.getNormalValue(normalId2, normalValues2);
+				float normalX2 = normalValues2[0];
+				float normalY2 = normalValues2[1];
+				float normalZ2 = normalValues2[2];
 				if(Math.abs(normalX - normalX2) > 0.01f || Math.abs(normalY - normalY2) > 0.01f ||
 						Math.abs(normalZ - normalZ2) > 0.01f)
 					continue; // Normals don't match
@@ -694,12 +697,12 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 					continue;
 				}
 				
-				float v2_1X = inMesh.getVertices().get(vertexId2_2 * 3);
-				float v2_1Y = inMesh.getVertices().get(vertexId2_2 * 3 + 1);
-				float v2_1Z = inMesh.getVertices().get(vertexId2_2 * 3 + 2);
-				float v2_2X = inMesh.getVertices().get(vertexId2_3 * 3);
-				float v2_2Y = inMesh.getVertices().get(vertexId2_3 * 3 + 1);
-				float v2_2Z = inMesh.getVertices().get(vertexId2_3 * 3 + 2);
+				float v2_1X = inMesh.getPointX(vertexId2_2);
+				float v2_1Y = inMesh.getPointY(vertexId2_2);
+				float v2_1Z = inMesh.getPointZ(vertexId2_2);
+				float v2_2X = inMesh.getPointX(vertexId2_3);
+				float v2_2Y = inMesh.getPointY(vertexId2_3);
+				float v2_2Z = inMesh.getPointZ(vertexId2_3);
 				float v2_dX = v2_2X - v2_1X;
 				float v2_dY = v2_2Y - v2_1Y;
 				float v2_dZ = v2_2Z - v2_1Z;
@@ -727,14 +730,14 @@ public class FaceOptimiser implements MeshProcessors.IMeshProcessor{
 				// We have a face that shares an edge, so now check if it's a proper match.
 				// The UVs need to match in a repeating pattern.
 				int uvIndex2_1 = inMesh.getUvIndices().get(faceIndex2*4 + edgeId2);
-				float u2_1 = inMesh.getUs().get(uvIndex2_1);
-				float v2_1 = inMesh.getVs().get(uvIndex2_1);
+				float u2_1 = inMesh.getU(uvIndex2_1);
+				float v2_1 = inMesh.getV(uvIndex2_1);
 				int uvIndex2_2 = inMesh.getUvIndices().get(faceIndex2*4 + ((edgeId2+1)%4));
-				float u2_2 = inMesh.getUs().get(uvIndex2_2);
-				float v2_2 = inMesh.getVs().get(uvIndex2_2);
+				float u2_2 = inMesh.getU(uvIndex2_2);
+				float v2_2 = inMesh.getV(uvIndex2_2);
 				int uvIndex2_3 = inMesh.getUvIndices().get(faceIndex2*4 + ((edgeId2+3)%4));
-				float u2_3 = inMesh.getUs().get(uvIndex2_3);
-				float v2_3 = inMesh.getVs().get(uvIndex2_3);
+				float u2_3 = inMesh.getU(uvIndex2_3);
+				float v2_3 = inMesh.getV(uvIndex2_3);
 				if(currentAtlasItem != null) {
 					// If we are using an atlas, make sure the UVs are in local space.
 					u2_1 = currentAtlasItem.uToLocal(u2_1);
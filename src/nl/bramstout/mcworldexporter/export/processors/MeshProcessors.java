@@ -31,13 +31,22 @@
 
 package nl.bramstout.mcworldexporter.export.processors;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import nl.bramstout.mcworldexporter.export.Exporter;
+import nl.bramstout.mcworldexporter.export.LargeDataOutputStream;
 import nl.bramstout.mcworldexporter.export.Mesh;
 import nl.bramstout.mcworldexporter.export.MeshPurpose;
+import nl.bramstout.mcworldexporter.parallel.ThreadPool;
 
 public class MeshProcessors {
 	
@@ -47,6 +56,23 @@ public class MeshProcessors {
 		
 	}
 	
+	/**
+	 * Adds the processors into a MeshProcessors instance.
+	 * Each thread processing meshes gets its own processors,
+	 * so that they don't need to share any scratch data.
+	 */
+	public static interface IChainBuilder{
+		
+		public void build(MeshProcessors processors, LargeDataOutputStream dos);
+		
+	}
+	
+	public static interface IProgressCallback{
+		
+		public void meshFinished(Mesh mesh);
+		
+	}
+	
 	public static class WriteCapturer{
 		
 		public List<Mesh> meshes = new ArrayList<Mesh>();
@@ -218,6 +244,280 @@ public class MeshProcessors {
 		}
 	}
 	
+	/**
+	 * An output stream that stores its data in blocks,
+	 * so that it doesn't need to copy the data when it grows
+	 * and isn't limited to the maximum size of an array.
+	 */
+	private static class BlockOutputStream extends OutputStream{
+		
+		private static final int BLOCK_SIZE = 1024*1024;
+		
+		private List<byte[]> blocks = new ArrayList<byte[]>();
+		private byte[] currentBlock = null;
+		private int currentBlockSize = BLOCK_SIZE;
+		
+		@Override
+		public void write(int b) throws IOException {
+			if(currentBlockSize >= BLOCK_SIZE)
+				nextBlock();
+			currentBlock[currentBlockSize++] = (byte) b;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while(len > 0) {
+				if(currentBlockSize >= BLOCK_SIZE)
+					nextBlock();
+				int size = Math.min(len, BLOCK_SIZE - currentBlockSize);
+				System.arraycopy(b, off, currentBlock, currentBlockSize, size);
+				currentBlockSize += size;
+				off += size;
+				len -= size;
+			}
+		}
+		
+		private void nextBlock() {
+			currentBlock = new byte[BLOCK_SIZE];
+			currentBlockSize = 0;
+			blocks.add(currentBlock);
+		}
+		
+		/**
+		 * Returns a new stream with all of the data written so far,
+		 * and clears this stream so that it can be written into again.
+		 */
+		public BlockOutputStream detach() {
+			BlockOutputStream res = new BlockOutputStream();
+			res.blocks = blocks;
+			res.currentBlock = currentBlock;
+			res.currentBlockSize = currentBlockSize;
+			blocks = new ArrayList<byte[]>();
+			currentBlock = null;
+			currentBlockSize = BLOCK_SIZE;
+			return res;
+		}
+		
+		public void writeTo(OutputStream out) throws IOException {
+			for(int i = 0; i < blocks.size(); ++i) {
+				byte[] block = blocks.get(i);
+				out.write(block, 0, block == currentBlock ? currentBlockSize : BLOCK_SIZE);
+			}
+		}
+		
+	}
+	
+	private static class ProcessedMesh{
+		
+		public BlockOutputStream data;
+		public List<Mesh> mergedMeshes;
+		public List<Mesh> writtenMeshes;
+		
+	}
+	
+	/**
+	 * A processor chain along with its output buffer. A chain is only
+	 * used by one thread at a time and gets reused for the next mesh,
+	 * so that the scratch data in the processors is only allocated once
+	 * per thread rather than once per mesh.
+	 */
+	private static class ProcessChain{
+		
+		private BlockOutputStream bos;
+		private LargeDataOutputStream dos;
+		private MeshProcessors processors;
+		private MeshMerger merger;
+		private WriteCapturer writeCapturer;
+		
+		public ProcessChain(IChainBuilder chainBuilder, String meshNamePrefix, MeshMergerMode mergerMode) {
+			bos = new BlockOutputStream();
+			dos = new LargeDataOutputStream(bos);
+			processors = new MeshProcessors(meshNamePrefix);
+			chainBuilder.build(processors, dos);
+			
+			// Meshes that end up in a mesh merger are only collected here.
+			// The merging itself happens on the calling thread.
+			merger = null;
+			if(mergerMode != MeshMergerMode.DISABLED)
+				merger = processors.meshMergers.get(processors.beginMeshMerger(mergerMode));
+			writeCapturer = processors.getWriteCapturer(processors.registerWriteCapturer());
+		}
+		
+		public ProcessedMesh process(Mesh mesh) throws Exception {
+			processors.process(mesh);
+			dos.flush();
+			
+			ProcessedMesh res = new ProcessedMesh();
+			res.data = bos.detach();
+			res.mergedMeshes = null;
+			if(merger != null) {
+				res.mergedMeshes = merger.meshes;
+				merger.meshes = new ArrayList<Mesh>();
+			}
+			res.writtenMeshes = writeCapturer.meshes;
+			writeCapturer.meshes = new ArrayList<Mesh>();
+			return res;
+		}
+		
+	}
+	
+	/**
+	 * Processes a single mesh. The task can be run by a thread in
+	 * the thread pool or by the thread that waits on it, whichever
+	 * gets to it first.
+	 */
+	private static class ProcessTask implements Runnable{
+		
+		private Mesh mesh;
+		private IChainBuilder chainBuilder;
+		private String meshNamePrefix;
+		private MeshMergerMode mergerMode;
+		private Queue<ProcessChain> chains;
+		private AtomicBoolean claimed;
+		private CountDownLatch done;
+		private ProcessedMesh result;
+		private Throwable error;
+		
+		public ProcessTask(Mesh mesh, IChainBuilder chainBuilder, String meshNamePrefix, MeshMergerMode mergerMode,
+							Queue<ProcessChain> chains) {
+			this.mesh = mesh;
+			this.chainBuilder = chainBuilder;
+			this.meshNamePrefix = meshNamePrefix;
+			this.mergerMode = mergerMode;
+			this.chains = chains;
+			this.claimed = new AtomicBoolean(false);
+			this.done = new CountDownLatch(1);
+			this.result = null;
+			this.error = null;
+		}
+		
+		@Override
+		public void run() {
+			runIfUnclaimed();
+		}
+		
+		/**
+		 * Runs the task if no other thread has started it yet.
+		 * Returns true if this thread ran it.
+		 */
+		public boolean runIfUnclaimed() {
+			if(!claimed.compareAndSet(false, true))
+				return false;
+			try {
+				ProcessChain chain = chains.poll();
+				if(chain == null)
+					chain = new ProcessChain(chainBuilder, meshNamePrefix, mergerMode);
+				result = chain.process(mesh);
+				// Only give the chain back when it succeeded,
+				// since otherwise it might still contain data of this mesh.
+				chains.add(chain);
+			}catch(Throwable ex) {
+				error = ex;
+			}
+			done.countDown();
+			return true;
+		}
+		
+		/**
+		 * Makes sure that the task won't be run anymore,
+		 * if it hasn't been started yet.
+		 */
+		public void cancel() {
+			if(claimed.compareAndSet(false, true))
+				done.countDown();
+		}
+		
+		public boolean isDone() {
+			return done.getCount() == 0;
+		}
+		
+		public void waitUntilDone() throws InterruptedException {
+			done.await();
+		}
+		
+	}
+	
+	/**
+	 * Runs all of the meshes through the processor chain on multiple threads.
+	 * Each mesh gets written into its own buffer, and the buffers are
+	 * written out into dos in the same order as the meshes list,
+	 * so the output is the same as calling process() for each mesh.
+	 * 
+	 * Only a limited number of meshes are processed ahead of the
+	 * mesh that is written out next, to limit the memory usage.
+	 * The tasks are run on the exporter's thread pool, but the calling
+	 * thread also runs tasks while it waits, so that it doesn't
+	 * get stuck when all of the threads in the pool are busy.
+	 * It only blocks on a task that another thread is already running.
+	 * 
+	 * The processor chain of this instance is only used when there is
+	 * just a single mesh. The other meshes use chains created by chainBuilder,
+	 * which are reused for all meshes in this call.
+	 */
+	public void processParallel(List<Mesh> meshes, LargeDataOutputStream dos, IChainBuilder chainBuilder,
+								IProgressCallback progressCallback) throws Exception{
+		if(meshes.size() <= 1) {
+			for(Mesh mesh : meshes) {
+				process(mesh);
+				if(progressCallback != null)
+					progressCallback.meshFinished(mesh);
+			}
+			return;
+		}
+		
+		MeshMerger currentMerger = getCurrentMeshMerger();
+		MeshMergerMode mergerMode = currentMerger == null ? MeshMergerMode.DISABLED : currentMerger.mode;
+		
+		ThreadPool threadPool = Exporter.getThreadPool();
+		int windowSize = Math.max(ThreadPool.getNumThreads(1024), 1) * 2;
+		Queue<ProcessChain> chains = new ConcurrentLinkedQueue<ProcessChain>();
+		ProcessTask[] tasks = new ProcessTask[meshes.size()];
+		int numSubmitted = 0;
+		
+		for(int i = 0; i < tasks.length; ++i) {
+			while(numSubmitted < tasks.length && numSubmitted < i + windowSize) {
+				tasks[numSubmitted] = new ProcessTask(meshes.get(numSubmitted), chainBuilder, meshNamePrefix, 
+														mergerMode, chains);
+				threadPool.submit(tasks[numSubmitted]);
+				numSubmitted++;
+			}
+			
+			ProcessTask task = tasks[i];
+			task.runIfUnclaimed();
+			// Help out with the other tasks in the window while waiting.
+			for(int helpIndex = i + 1; helpIndex < numSubmitted && !task.isDone(); ++helpIndex)
+				tasks[helpIndex].runIfUnclaimed();
+			task.waitUntilDone();
+			
+			if(task.error != null) {
+				// The meshes might get reused once we've thrown,
+				// so wait for the tasks that other threads already started.
+				for(int j = i + 1; j < numSubmitted; ++j)
+					tasks[j].cancel();
+				for(int j = i + 1; j < numSubmitted; ++j)
+					tasks[j].waitUntilDone();
+				if(task.error instanceof Exception)
+					throw (Exception) task.error;
+				throw new RuntimeException(task.error);
+			}
+			
+			// The thread pool's queue might still reference the task,
+			// so let go of the data here.
+			ProcessedMesh res = task.result;
+			task.result = null;
+			task.mesh = null;
+			tasks[i] = null;
+			res.data.writeTo(dos);
+			if(res.mergedMeshes != null)
+				currentMerger.meshes.addAll(res.mergedMeshes);
+			for(Mesh mesh : res.writtenMeshes)
+				meshWritten(mesh);
+			
+			if(progressCallback != null)
+				progressCallback.meshFinished(meshes.get(i));
+		}
+	}
+	
 	public IMeshProcessor getNextProcessor(IMeshProcessor currentProcessor) {
 		IMeshProcessor nextProcessor = null;
 		boolean found = false;
@@ -32,12 +32,13 @@
 package nl.bramstout.mcworldexporter.export.processors;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import nl.bramstout.mcworldexporter.Config;
-import nl.bramstout.mcworldexporter.Poolable;
-import nl.bramstout.mcworldexporter.SingleThreadedMemoryPool;
+import nl.bramstout.mcworldexporter.export.IntArray;
 import nl.bramstout.mcworldexporter.export.LargeDataOutputStream;
 import nl.bramstout.mcworldexporter.export.Mesh;
 import nl.bramstout.mcworldexporter.export.MeshGroup;
@@ -83,371 +84,445 @@ import nl.bramstout.mcworldexporter.export.processors.MeshProcessors.WriteCaptur
  */
 public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 	
-	public static class BVHNode extends Poolable{
+	/**
+	 * Meshes with fewer faces than this are built on the calling thread.
+	 */
+	private static final int PARALLEL_MIN_PRIMS = 8192;
+	private static final int NUM_BINS = 16;
+	/**
+	 * The cost of traversing a node, relative to the cost
+	 * of intersecting a single prim.
+	 */
+	private static final float TRAVERSAL_COST = 1f;
+	
+	/**
+	 * A BVH stored in flat arrays. Every node references a contiguous
+	 * range in the prims array, and the children of a node always
+	 * subdivide the range of their parent.
+	 */
+	private static class BVH{
 		
-		public float minX, minY, minZ, maxX, maxY, maxZ = 0f;
-		public BVHNode left = null;
-		public BVHNode right = null;
-		public int[] prims = null;
-		public int primsOffset = 0;
-		public int primsCount = 0;
-		public int primsCapacity = 0;
-		public int depth = 0;
+		public int numPrims;
+		/**
+		 * Per prim: minX, minY, minZ, size
+		 */
+		public float[] primData;
+		public int[] prims;
 		
-		public BVHNode() {}
+		public AtomicInteger nodeCount;
+		/**
+		 * Per node: minX, minY, minZ, maxX, maxY, maxZ
+		 */
+		public float[] nodeBounds;
+		public int[] nodePrimsOffset;
+		public int[] nodePrimsCount;
+		/**
+		 * Index of the left child, or -1 if it's a leaf.
+		 * The right child is always the left child + 1.
+		 */
+		public int[] nodeLeft;
+		public float[] nodeFullness;
 		
-		public void setup() {
-			minX = 0f;
-			minY = 0f;
-			minZ = 0f;
-			maxX = 0f;
-			maxY = 0f;
-			maxZ = 0f;
-			left = null;
-			right = null;
-			prims = null;
-			primsOffset = 0;
-			primsCount = 0;
-			primsCapacity = 0;
-			depth = 0;
-		}
+		/**
+		 * A node doesn't get split up any further when the volume
+		 * of its largest prim divided by the volume of the node is
+		 * at or above this threshold, since the fullness of such 
+		 * a node can never get below the threshold.
+		 */
+		public float fullnessThreshold;
 		
-		public void calculateBoundingBox(Mesh mesh) {
-			if(primsCount >= 1) {
-				float size = mesh.getFaceCenters().get(prims[primsOffset] * 4 + 3) * 16f;
-				minX = mesh.getFaceCenters().get(prims[primsOffset] * 4 + 0);
-				minY = mesh.getFaceCenters().get(prims[primsOffset] * 4 + 1);
-				minZ = mesh.getFaceCenters().get(prims[primsOffset] * 4 + 2);
-				maxX = minX + size;
-				maxY = minY + size;
-				maxZ = minZ + size;
-				
-				float x, y, z = 0f;
-				for(int i = 1; i < primsCount; ++i) {
-					x = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 0);
-					y = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 1);
-					z = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 2);
-					size = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 3) * 16f;
-					minX = Math.min(minX, x);
-					minY = Math.min(minY, y);
-					minZ = Math.min(minZ, z);
-					maxX = Math.max(maxX, x + size);
-					maxY = Math.max(maxY, y + size);
-					maxZ = Math.max(maxZ, z + size);
-				}
-			}
-		}
-		
-		public boolean shouldSplit() {
-			if(primsCount <= 1)
-				return false;
-			
-			float volume = getVolume();
+		public BVH(Mesh mesh, float fullnessThreshold) {
+			this.numPrims = mesh.getFaceCenters().size() / 4;
+			this.primData = mesh.getFaceCenters().getData();
+			this.prims = new int[numPrims];
+			for(int i = 0; i < numPrims; ++i)
+				prims[i] = i;
 			
-			if(volume > 16f*16f*16f)
-				return true;
+			int maxNodes = Math.max(numPrims * 2, 1);
+			this.nodeCount = new AtomicInteger(1);
+			this.nodeBounds = new float[maxNodes * 6];
+			this.nodePrimsOffset = new int[maxNodes];
+			this.nodePrimsCount = new int[maxNodes];
+			this.nodeLeft = new int[maxNodes];
+			this.nodeFullness = new float[maxNodes];
+			this.fullnessThreshold = fullnessThreshold;
 			
-			return false;
+			nodePrimsOffset[0] = 0;
+			nodePrimsCount[0] = numPrims;
+			nodeLeft[0] = -1;
 		}
 		
-		public void split(Mesh mesh, SingleThreadedMemoryPool<BVHNode> nodePool) {
-			float dx = maxX - minX;
-			float dy = maxY - minY;
-			float dz = maxZ - minZ;
-			float maxD = Math.max(Math.max(dx, dy), dz);
-			float cx = (minX + maxX - 16f) * 0.5f;
-			float cy = (minY + maxY - 16f) * 0.5f;
-			float cz = (minZ + maxZ - 16f) * 0.5f;
-			float spreadX = 0f;
-			float spreadY = 0f;
-			float spreadZ = 0f;
-			float biasX = 0f;
-			float biasY = 0f;
-			float biasZ = 0f;
-			float averageX = 0f;
-			float averageY = 0f;
-			float averageZ = 0f;
-			float x, y, z = 0;
-			for(int i = 0; i < primsCount; ++i) {
-				x = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 0);
-				y = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 1);
-				z = mesh.getFaceCenters().get(prims[primsOffset + i] * 4 + 2);
-				spreadX += (x - cx) * (x - cx);
-				spreadY += (y - cy) * (y - cy);
-				spreadZ += (z - cz) * (z - cz);
-				biasX += x - cx;
-				biasY += y - cy;
-				biasZ += z - cz;
-				averageX += x;
-				averageY += y;
-				averageZ += z;
-			}
-			spreadX = (float) Math.sqrt(spreadX / ((float) primsCount)) / dx;
-			spreadY = (float) Math.sqrt(spreadY / ((float) primsCount)) / dy;
-			spreadZ = (float) Math.sqrt(spreadZ / ((float) primsCount)) / dz;
-			biasX = Math.abs(biasX / ((float) primsCount) / dx);
-			biasY = Math.abs(biasY / ((float) primsCount) / dy);
-			biasZ = Math.abs(biasZ / ((float) primsCount) / dz);
-			spreadX += biasX;
-			spreadY += biasY;
-			spreadZ += biasZ;
-			spreadX *= Math.pow(dx / maxD, 0.25f);
-			spreadY *= Math.pow(dy / maxD, 0.25f);
-			spreadZ *= Math.pow(dz / maxD, 0.25f);
-			averageX /= ((float) primsCount);
-			averageY /= ((float) primsCount);
-			averageZ /= ((float) primsCount);
-			
-			int componentOffset = 0;
-			if(spreadY > spreadX)
-				componentOffset = 1;
-			if(spreadZ > spreadX && spreadZ > spreadY)
-				componentOffset = 2;
-			
-			float threshold = averageX;
-			if(componentOffset == 1)
-				threshold = averageY;
-			if(componentOffset == 2)
-				threshold = averageZ;
-			
-			//left = new BVHNode();
-			//right = new BVHNode();
-			left = nodePool.alloc();
-			left.setup();
-			right = nodePool.alloc();
-			right.setup();
-			left.depth = depth + 1;
-			right.depth = depth + 1;
-			left.prims = prims;
-			right.prims = prims;
-			left.primsOffset = primsOffset;
-			right.primsOffset = primsOffset + (primsCapacity / 2);
-			left.primsCapacity = primsCapacity / 2;
-			right.primsCapacity = primsCapacity / 2;
-			
-			float pos = 0;
-			int primIndex = 0;
-			for(int i = 0; i < primsCount; ++i) {
-				primIndex = prims[primsOffset + i];
-				pos = mesh.getFaceCenters().get(primIndex * 4 + componentOffset);
-				if(pos < threshold)
-					left.addPrim(primIndex);
-				else
-					right.addPrim(primIndex);
-			}
-			if(left.primsCount == 0 || right.primsCount == 0) {
-				left.free(nodePool);
-				right.free(nodePool);
-				left = null;
-				right = null;
-				return;
-			}
-			// The left and right children can have different prim counts
-			// so we need to move the right prims over so that each
-			// prim has double the capacity compared to its prims count.
-			left.primsCapacity = left.primsCount * 2;
-			int rightPrimsOffset = (left.primsOffset + left.primsCapacity) - right.primsOffset;
-			if(rightPrimsOffset > 0) {
-				// We need to move the numbers to the right
-				for(int i = (right.primsOffset + right.primsCount) - 1; i >= right.primsOffset; i--) {
-					right.prims[i + rightPrimsOffset] = right.prims[i];
+		public float getVolume(int node) {
+			return (nodeBounds[node*6+3] - nodeBounds[node*6+0]) * 
+					(nodeBounds[node*6+4] - nodeBounds[node*6+1]) * 
+					(nodeBounds[node*6+5] - nodeBounds[node*6+2]);
+		}
+		
+		/**
+		 * Calculates the fullness of each node, which is the combined
+		 * volume of its leaves divided by its own volume.
+		 */
+		public void calculateFullness() {
+			// Children always have a higher index than their parent,
+			// so going backwards means that the children are always done first.
+			for(int node = nodeCount.get() - 1; node >= 0; --node) {
+				int left = nodeLeft[node];
+				if(left < 0) {
+					nodeFullness[node] = 1f;
+					continue;
 				}
-			}else if(rightPrimsOffset < 0) {
-				// We need to move the numbers to the left
-				for(int i = right.primsOffset; i < (right.primsOffset + right.primsCount); i++) {
-					right.prims[i + rightPrimsOffset] = right.prims[i];
+				float volume = getVolume(node);
+				if(volume <= 0f) {
+					nodeFullness[node] = 1f;
+					continue;
 				}
+				nodeFullness[node] = (getVolume(left) * nodeFullness[left] + 
+										getVolume(left + 1) * nodeFullness[left + 1]) / volume;
 			}
-			right.primsOffset = left.primsOffset + left.primsCapacity;
-			right.primsCapacity = primsCapacity - left.primsCapacity;
-			
-			primsCount = 0;
-			
-			left.calculateBoundingBox(mesh);
-			right.calculateBoundingBox(mesh);
 		}
 		
-		public void addPrim(int prim) {
-			if(primsOffset + primsCount >= prims.length || 
-					primsCount > primsCapacity) {
-				throw new RuntimeException();
-			}
-			prims[primsOffset + primsCount] = prim;
-			primsCount++;
-		}
+	}
+	
+	private static class BuildTask extends RecursiveAction{
 		
-		public float getVolume() {
-			float dx = maxX - minX;
-			float dy = maxY - minY;
-			float dz = maxZ - minZ;
-			float volume = dx * dy * dz;
-			return volume;
-		}
+		private static final long serialVersionUID = 1L;
+		
+		private BVH bvh;
+		private int rootNode;
+		private float[] binBounds;
+		private int[] binCounts;
+		private float[] rightAreas;
+		private int[] stack;
 		
-		public float getFullness() {
-			if(left == null)
-				return 1f;
-			float volume = getVolume();
-			float leftVolume = left.getVolume();
-			float rightVolume = right.getVolume();
-			float leftFullness = left.getFullness();
-			float rightFullness = right.getFullness();
-			float fullness = (leftVolume * leftFullness + rightVolume * rightFullness) / volume;
-			return fullness;
+		public BuildTask(BVH bvh, int rootNode) {
+			this.bvh = bvh;
+			this.rootNode = rootNode;
 		}
 		
-		public void free(SingleThreadedMemoryPool<BVHNode> nodePool) {
-			if(left != null)
-				left.free(nodePool);
-			if(right != null)
-				right.free(nodePool);
-			nodePool.free(this);
+		@Override
+		protected void compute() {
+			binBounds = new float[NUM_BINS * 6];
+			binCounts = new int[NUM_BINS];
+			rightAreas = new float[NUM_BINS];
+			stack = new int[64];
+			int stackSize = 0;
+			stack[stackSize++] = rootNode;
+			
+			while(stackSize > 0) {
+				int node = stack[--stackSize];
+				if(!split(node))
+					continue;
+				int left = bvh.nodeLeft[node];
+				if(bvh.nodePrimsCount[left] >= PARALLEL_MIN_PRIMS && 
+						bvh.nodePrimsCount[left + 1] >= PARALLEL_MIN_PRIMS) {
+					invokeAll(new BuildTask(bvh, left), new BuildTask(bvh, left + 1));
+					continue;
+				}
+				if(stackSize + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				stack[stackSize++] = left + 1;
+				stack[stackSize++] = left;
+			}
 		}
-	}
-	
-	private static class BVH{
 		
-		public BVHNode root;
-		public int[] primsArray;
+		private float getArea(float dx, float dy, float dz) {
+			return dx * dy + dy * dz + dz * dx;
+		}
 		
-		public void free(SingleThreadedMemoryPool<BVHNode> nodePool) {
-			root.free(nodePool);
+		/**
+		 * Calculates the bounding box of the node and splits it
+		 * up using a binned surface area heuristic.
+		 * Returns true if the node has been split.
+		 */
+		private boolean split(int node) {
+			float[] primData = bvh.primData;
+			int[] prims = bvh.prims;
+			int offset = bvh.nodePrimsOffset[node];
+			int count = bvh.nodePrimsCount[node];
+			if(count <= 0)
+				return false;
+			
+			float minX = Float.MAX_VALUE;
+			float minY = Float.MAX_VALUE;
+			float minZ = Float.MAX_VALUE;
+			float maxX = -Float.MAX_VALUE;
+			float maxY = -Float.MAX_VALUE;
+			float maxZ = -Float.MAX_VALUE;
+			float cMinX = Float.MAX_VALUE;
+			float cMinY = Float.MAX_VALUE;
+			float cMinZ = Float.MAX_VALUE;
+			float cMaxX = -Float.MAX_VALUE;
+			float cMaxY = -Float.MAX_VALUE;
+			float cMaxZ = -Float.MAX_VALUE;
+			float maxPrimSize = 0f;
+			for(int i = offset; i < offset + count; ++i) {
+				int prim = prims[i];
+				float x = primData[prim*4];
+				float y = primData[prim*4+1];
+				float z = primData[prim*4+2];
+				float size = primData[prim*4+3] * 16f;
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				minZ = Math.min(minZ, z);
+				maxX = Math.max(maxX, x + size);
+				maxY = Math.max(maxY, y + size);
+				maxZ = Math.max(maxZ, z + size);
+				cMinX = Math.min(cMinX, x);
+				cMinY = Math.min(cMinY, y);
+				cMinZ = Math.min(cMinZ, z);
+				cMaxX = Math.max(cMaxX, x);
+				cMaxY = Math.max(cMaxY, y);
+				cMaxZ = Math.max(cMaxZ, z);
+				maxPrimSize = Math.max(maxPrimSize, size);
+			}
+			bvh.nodeBounds[node*6] = minX;
+			bvh.nodeBounds[node*6+1] = minY;
+			bvh.nodeBounds[node*6+2] = minZ;
+			bvh.nodeBounds[node*6+3] = maxX;
+			bvh.nodeBounds[node*6+4] = maxY;
+			bvh.nodeBounds[node*6+5] = maxZ;
+			bvh.nodeLeft[node] = -1;
+			
+			if(count <= 1)
+				return false;
+			float volume = (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+			if(volume <= 16f*16f*16f)
+				return false;
+			if(maxPrimSize * maxPrimSize * maxPrimSize >= volume * bvh.fullnessThreshold)
+				return false;
+			
+			// Find the best split over all three axes.
+			// The prims are binned based on their position,
+			// which is the same as binning by their centre,
+			// but without having to add in half of the size.
+			float bestCost = Float.MAX_VALUE;
+			int bestAxis = -1;
+			int bestBin = -1;
+			for(int axis = 0; axis < 3; ++axis) {
+				float cMin = axis == 0 ? cMinX : (axis == 1 ? cMinY : cMinZ);
+				float cMax = axis == 0 ? cMaxX : (axis == 1 ? cMaxY : cMaxZ);
+				if(cMax <= cMin)
+					continue;
+				float binScale = ((float) NUM_BINS) / (cMax - cMin) * 0.9999f;
+				
+				for(int bin = 0; bin < NUM_BINS; ++bin) {
+					binCounts[bin] = 0;
+					binBounds[bin*6] = Float.MAX_VALUE;
+					binBounds[bin*6+1] = Float.MAX_VALUE;
+					binBounds[bin*6+2] = Float.MAX_VALUE;
+					binBounds[bin*6+3] = -Float.MAX_VALUE;
+					binBounds[bin*6+4] = -Float.MAX_VALUE;
+					binBounds[bin*6+5] = -Float.MAX_VALUE;
+				}
+				for(int i = offset; i < offset + count; ++i) {
+					int prim = prims[i];
+					int bin = (int) ((primData[prim*4+axis] - cMin) * binScale);
+					float x = primData[prim*4];
+					float y = primData[prim*4+1];
+					float z = primData[prim*4+2];
+					float size = primData[prim*4+3] * 16f;
+					binCounts[bin]++;
+					binBounds[bin*6] = Math.min(binBounds[bin*6], x);
+					binBounds[bin*6+1] = Math.min(binBounds[bin*6+1], y);
+					binBounds[bin*6+2] = Math.min(binBounds[bin*6+2], z);
+					binBounds[bin*6+3] = Math.max(binBounds[bin*6+3], x + size);
+					binBounds[bin*6+4] = Math.max(binBounds[bin*6+4], y + size);
+					binBounds[bin*6+5] = Math.max(binBounds[bin*6+5], z + size);
+				}
+				
+				// Sweep from the right to get the area of everything right of each split.
+				float bMinX = Float.MAX_VALUE, bMinY = Float.MAX_VALUE, bMinZ = Float.MAX_VALUE;
+				float bMaxX = -Float.MAX_VALUE, bMaxY = -Float.MAX_VALUE, bMaxZ = -Float.MAX_VALUE;
+				for(int bin = NUM_BINS - 1; bin > 0; --bin) {
+					if(binCounts[bin] > 0) {
+						bMinX = Math.min(bMinX, binBounds[bin*6]);
+						bMinY = Math.min(bMinY, binBounds[bin*6+1]);
+						bMinZ = Math.min(bMinZ, binBounds[bin*6+2]);
+						bMaxX = Math.max(bMaxX, binBounds[bin*6+3]);
+						bMaxY = Math.max(bMaxY, binBounds[bin*6+4]);
+						bMaxZ = Math.max(bMaxZ, binBounds[bin*6+5]);
+					}
+					rightAreas[bin] = bMaxX < bMinX ? 0f : getArea(bMaxX - bMinX, bMaxY - bMinY, bMaxZ - bMinZ);
+				}
+				
+				// Sweep from the left and evaluate the cost of each split.
+				bMinX = Float.MAX_VALUE; bMinY = Float.MAX_VALUE; bMinZ = Float.MAX_VALUE;
+				bMaxX = -Float.MAX_VALUE; bMaxY = -Float.MAX_VALUE; bMaxZ = -Float.MAX_VALUE;
+				int leftCount = 0;
+				for(int bin = 0; bin < NUM_BINS - 1; ++bin) {
+					if(binCounts[bin] > 0) {
+						bMinX = Math.min(bMinX, binBounds[bin*6]);
+						bMinY = Math.min(bMinY, binBounds[bin*6+1]);
+						bMinZ = Math.min(bMinZ, binBounds[bin*6+2]);
+						bMaxX = Math.max(bMaxX, binBounds[bin*6+3]);
+						bMaxY = Math.max(bMaxY, binBounds[bin*6+4]);
+						bMaxZ = Math.max(bMaxZ, binBounds[bin*6+5]);
+					}
+					leftCount += binCounts[bin];
+					if(leftCount == 0 || leftCount == count)
+						continue;
+					float leftArea = getArea(bMaxX - bMinX, bMaxY - bMinY, bMaxZ - bMinZ);
+					float cost = leftArea * ((float) leftCount) + rightAreas[bin + 1] * ((float) (count - leftCount));
+					if(cost < bestCost) {
+						bestCost = cost;
+						bestAxis = axis;
+						bestBin = bin;
+					}
+				}
+			}
+			if(bestAxis < 0)
+				return false;
+			// Only split if it's actually cheaper than keeping it as a leaf.
+			// Both costs are scaled by the area of the node.
+			float area = getArea(maxX - minX, maxY - minY, maxZ - minZ);
+			float leafCost = area * ((float) count);
+			if(bestCost + TRAVERSAL_COST * area >= leafCost)
+				return false;
+			
+			// Partition the prims in place.
+			float cMin = bestAxis == 0 ? cMinX : (bestAxis == 1 ? cMinY : cMinZ);
+			float cMax = bestAxis == 0 ? cMaxX : (bestAxis == 1 ? cMaxY : cMaxZ);
+			float binScale = ((float) NUM_BINS) / (cMax - cMin) * 0.9999f;
+			int i = offset;
+			int j = offset + count - 1;
+			while(i <= j) {
+				int bin = (int) ((primData[prims[i]*4+bestAxis] - cMin) * binScale);
+				if(bin <= bestBin) {
+					i++;
+				}else {
+					int tmp = prims[i];
+					prims[i] = prims[j];
+					prims[j] = tmp;
+					j--;
+				}
+			}
+			int leftCount = i - offset;
+			if(leftCount == 0 || leftCount == count)
+				return false;
+			
+			int left = bvh.nodeCount.getAndAdd(2);
+			bvh.nodePrimsOffset[left] = offset;
+			bvh.nodePrimsCount[left] = leftCount;
+			bvh.nodeLeft[left] = -1;
+			bvh.nodePrimsOffset[left + 1] = i;
+			bvh.nodePrimsCount[left + 1] = count - leftCount;
+			bvh.nodeLeft[left + 1] = -1;
+			bvh.nodeLeft[node] = left;
+			return true;
 		}
 		
 	}
 	
-	private SingleThreadedMemoryPool<BVHNode> nodePool = new SingleThreadedMemoryPool<BVHNode>(BVHNode.class);
-	private int[] primsArray = null;
 	private float fullnessThreshold = 0.0f;
 	private LargeDataOutputStream dos;
+	private int[] stack = new int[64];
 	
 	public RaytracingOptimiser(float fullnessThreshold, LargeDataOutputStream dos) {
 		this.fullnessThreshold = fullnessThreshold;
 		this.dos = dos;
 	}
 	
-	private BVH buildBVH(Mesh mesh) {
-		BVH bvh = new BVH();
-		//bvh.primsArray = new int[Integer.highestOneBit((mesh.getFaceCenters().size() / 4) * 2 + 1) << 1];
-		int primsArraySize = (mesh.getFaceCenters().size() / 4) * 2;
-		if(primsArray == null || primsArray.length < primsArraySize)
-			primsArray = new int[primsArraySize];
-		bvh.primsArray = primsArray;
-		
-		Stack<BVHNode> stack = new Stack<BVHNode>();
-		
-		//BVHNode currentNode = new BVHNode();
-		BVHNode currentNode = nodePool.alloc();
-		currentNode.setup();
-		currentNode.prims = bvh.primsArray;
-		currentNode.primsOffset = 0;
-		currentNode.primsCapacity = bvh.primsArray.length;
-		for(int i = 0; i < mesh.getFaceCenters().size() / 4; ++i) {
-			currentNode.addPrim(i);
-		}
-		currentNode.calculateBoundingBox(mesh);
-		stack.add(currentNode);
-		bvh.root = currentNode;
-		
-		while(!stack.empty()) {
-			currentNode = stack.pop();
-			if(currentNode.shouldSplit()) {
-				currentNode.split(mesh, nodePool);
-				if(currentNode.left != null) {
-					stack.add(currentNode.left);
-					stack.add(currentNode.right);
-				}
-			}
-		}
-		
+	private BVH buildBVH(Mesh mesh, float fullnessThreshold) {
+		BVH bvh = new BVH(mesh, fullnessThreshold);
+		BuildTask task = new BuildTask(bvh, 0);
+		// The calling thread builds the BVH itself and only the forked
+		// subtrees go to the common pool, so that we don't need a pool of our own
+		// on top of the threads that are already exporting tiles.
+		if(bvh.numPrims >= PARALLEL_MIN_PRIMS * 2)
+			task.invoke();
+		else
+			task.compute();
+		bvh.calculateFullness();
 		return bvh;
 	}
 	
-	private Stack<BVHNode> stack = new Stack<BVHNode>();
-	
-	private void addPrimsToMesh(Mesh origMesh, Mesh outMesh, BVHNode node, int[] subsetIds) {
-		stack.clear();
-		stack.add(node);
-		
-		while(!stack.empty()) {
-			node = stack.pop();
-			if(node.left != null) {
-				stack.add(node.left);
-				stack.add(node.right);
+	/**
+	 * Returns the nodes that should each become their own mesh,
+	 * which are the highest nodes with a fullness at or above the threshold.
+	 */
+	private IntArray getOutputNodes(BVH bvh, float fullnessThreshold) {
+		IntArray outputNodes = new IntArray();
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		while(stackSize > 0) {
+			int node = stack[--stackSize];
+			if(bvh.nodeLeft[node] < 0 || bvh.nodeFullness[node] >= fullnessThreshold) {
+				outputNodes.add(node);
 			}else {
-				for(int i = 0; i < node.primsCount; ++i) {
-					int faceIndex = node.prims[node.primsOffset + i];
-					MeshSubset subset = null;
-					if(subsetIds != null) {
-						int subsetId = subsetIds[faceIndex];
-						if(subsetId >= 0)
-							subset = origMesh.getSubset(subsetId);
-					}
-					outMesh.addFaceFromMesh(origMesh, faceIndex, subset, false);
-				}
+				if(stackSize + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				stack[stackSize++] = bvh.nodeLeft[node];
+				stack[stackSize++] = bvh.nodeLeft[node] + 1;
 			}
 		}
+		return outputNodes;
+	}
+	
+	private void addPrimsToMesh(Mesh origMesh, Mesh outMesh, BVH bvh, int node, int[] subsetIds) {
+		int offset = bvh.nodePrimsOffset[node];
+		int count = bvh.nodePrimsCount[node];
+		for(int i = offset; i < offset + count; ++i) {
+			int faceIndex = bvh.prims[i];
+			MeshSubset subset = null;
+			if(subsetIds != null) {
+				int subsetId = subsetIds[faceIndex];
+				if(subsetId >= 0)
+					subset = origMesh.getSubset(subsetId);
+			}
+			outMesh.addFaceFromMesh(origMesh, faceIndex, subset, false);
+		}
 	}
 	
 	private void addPrimsToSubset(Mesh mesh, List<MeshSubset> subsets, int meshCounter, 
-									int[] subsetIds, BVHNode node) {
-		stack.clear();
-		stack.add(node);
-		
-		while(!stack.empty()) {
-			node = stack.pop();
-			if(node.left != null) {
-				stack.add(node.left);
-				stack.add(node.right);
-			}else {
-				for(int i = 0; i < node.primsCount; ++i) {
-					int faceIndex = node.prims[node.primsOffset + i];
-					int subsetId = -1;
-					if(subsetIds != null)
-						subsetId = subsetIds[faceIndex];
-					int actualSubsetId = subsetId < 0 ? 0 : subsetId;
-					
-					if(actualSubsetId >= subsets.size()) {
-						for(int j = subsets.size(); j <= actualSubsetId; ++j)
-							subsets.add(null);
-					}
-					
-					MeshSubset subset = subsets.get(actualSubsetId);
-					if(subset == null) {
-						long uniqueId = Integer.toUnsignedLong(mesh.hashCode()) << 32 | Integer.toUnsignedLong(meshCounter);
-						if(subsetId < 0) {
-							// No subset to copy from.
-							subset = new MeshSubset("section_" + meshCounter, null, null, false, MeshPurpose.RENDER, true, uniqueId);
-							subsets.set(actualSubsetId, subset);
-						}else {
-							// Subset to copy from.
-							MeshSubset origSubset = mesh.getSubset(subsetId);
-							subset = new MeshSubset(origSubset.getName() + "_" + meshCounter,
-													origSubset.getTexture(), origSubset.getMatTexture(),
-													origSubset.isAnimatedTexture(), MeshPurpose.RENDER, true, uniqueId);
-							subsets.set(actualSubsetId, subset);
-						}
-					}
-					subset.getFaceIndices().add(faceIndex);
+									int[] subsetIds, BVH bvh, int node) {
+		int offset = bvh.nodePrimsOffset[node];
+		int count = bvh.nodePrimsCount[node];
+		for(int i = offset; i < offset + count; ++i) {
+			int faceIndex = bvh.prims[i];
+			int subsetId = -1;
+			if(subsetIds != null)
+				subsetId = subsetIds[faceIndex];
+			int actualSubsetId = subsetId < 0 ? 0 : subsetId;
+			
+			if(actualSubsetId >= subsets.size()) {
+				for(int j = subsets.size(); j <= actualSubsetId; ++j)
+					subsets.add(null);
+			}
+			
+			MeshSubset subset = subsets.get(actualSubsetId);
+			if(subset == null) {
+				long uniqueId = Integer.toUnsignedLong(mesh.hashCode()) << 32 | Integer.toUnsignedLong(meshCounter);
+				if(subsetId < 0) {
+					// No subset to copy from.
+					subset = new MeshSubset("section_" + meshCounter, null, null, false, MeshPurpose.RENDER, true, uniqueId);
+					subsets.set(actualSubsetId, subset);
+				}else {
+					// Subset to copy from.
+					MeshSubset origSubset = mesh.getSubset(subsetId);
+					subset = new MeshSubset(origSubset.getName() + "_" + meshCounter,
+											origSubset.getTexture(), origSubset.getMatTexture(),
+											origSubset.isAnimatedTexture(), MeshPurpose.RENDER, true, uniqueId);
+					subsets.set(actualSubsetId, subset);
 				}
 			}
+			subset.getFaceIndices().add(faceIndex);
 		}
 	}
 	
-	private Mesh newMesh(Mesh origMesh, BVHNode node, int meshCounter, int[] subsetIds) {
+	private Mesh newMesh(Mesh origMesh, BVH bvh, int node, int meshCounter, int[] subsetIds) {
 		Mesh mesh = new Mesh(origMesh.getName() + meshCounter, MeshPurpose.RENDER, origMesh.getTexture(), 
 							origMesh.getMatTexture(), origMesh.hasAnimatedTexture(), origMesh.isDoubleSided(),
 							origMesh.getShadingMode(), 128, 8);
 		mesh.setExtraData(origMesh.getExtraData());
-		addPrimsToMesh(origMesh, mesh, node, subsetIds);
+		addPrimsToMesh(origMesh, mesh, bvh, node, subsetIds);
 		return mesh;
 	}
 	
 	private List<MeshSubset> newSubsets = new ArrayList<MeshSubset>();
 	
-	private void newSubset(Mesh mesh, BVHNode node, int meshCounter, int[] subsetIds, List<MeshSubset> subsets) {
+	private void newSubset(Mesh mesh, BVH bvh, int node, int meshCounter, int[] subsetIds, List<MeshSubset> subsets) {
 		newSubsets.clear();
-		addPrimsToSubset(mesh, newSubsets, meshCounter, subsetIds, node);
+		addPrimsToSubset(mesh, newSubsets, meshCounter, subsetIds, bvh, node);
 		for(MeshSubset subset : newSubsets)
 			if(subset != null)
 				subsets.add(subset);
@@ -459,24 +534,13 @@ public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 		int[] subsetIds = mesh.generateSubsetIds();
 		
 		fullnessThreshold = Math.min(fullnessThreshold, 0.99f);
-		BVH bvh = buildBVH(mesh);
+		BVH bvh = buildBVH(mesh, fullnessThreshold);
 		MeshGroup outMesh = new MeshGroup(mesh.getName(), MeshPurpose.RENDER);
 		int meshCounter = 0;
 		
-		Stack<BVHNode> stack = new Stack<BVHNode>();
-		stack.add(bvh.root);
-		
-		BVHNode currentNode = null;
-		while(!stack.empty()) {
-			currentNode = stack.pop();
-			if(currentNode.getFullness() >= fullnessThreshold) {
-				outMesh.addMesh(newMesh(mesh, currentNode, ++meshCounter, subsetIds));
-			}else {
-				stack.add(currentNode.left);
-				stack.add(currentNode.right);
-			}
-		}
-		bvh.free(nodePool);
+		IntArray outputNodes = getOutputNodes(bvh, fullnessThreshold);
+		for(int i = 0; i < outputNodes.size(); ++i)
+			outMesh.addMesh(newMesh(mesh, bvh, outputNodes.get(i), ++meshCounter, subsetIds));
 		if(outMesh.getNumChildren() <= 1)
 			return mesh;
 		return outMesh;
@@ -490,7 +554,8 @@ public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 		}
 		
 		fullnessThreshold = Math.min(fullnessThreshold, 0.99f);
-		BVH bvh = buildBVH(mesh);
+		BVH bvh = buildBVH(mesh, fullnessThreshold);
+		IntArray outputNodes = getOutputNodes(bvh, fullnessThreshold);
 		int meshCounter = 0;
 		int[] subsetIds = mesh.generateSubsetIds();
 		
@@ -501,20 +566,8 @@ public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 			// so we want to then separate those subsets, if needed.
 			ArrayList<MeshSubset> subsets = new ArrayList<MeshSubset>();
 			
-			Stack<BVHNode> stack = new Stack<BVHNode>();
-			stack.add(bvh.root);
-			
-			BVHNode currentNode = null;
-			while(!stack.empty()) {
-				currentNode = stack.pop();
-				if(currentNode.getFullness() >= fullnessThreshold) {
-					newSubset(mesh, currentNode, ++meshCounter, subsetIds, subsets);
-				}else {
-					stack.add(currentNode.left);
-					stack.add(currentNode.right);
-				}
-			}
-			bvh.free(nodePool);
+			for(int i = 0; i < outputNodes.size(); ++i)
+				newSubset(mesh, bvh, outputNodes.get(i), ++meshCounter, subsetIds, subsets);
 			mesh.setSubsets(subsets);
 			
 			manager.processNext(mesh, this);
@@ -533,20 +586,8 @@ public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 			dos.writeUTF(""); // No extra data to write out.
 			//dos.writeInt(1);
 			
-			Stack<BVHNode> stack = new Stack<BVHNode>();
-			stack.add(bvh.root);
-			
-			BVHNode currentNode = null;
-			while(!stack.empty()) {
-				currentNode = stack.pop();
-				if(currentNode.getFullness() >= fullnessThreshold) {
-					manager.processNext(newMesh(mesh, currentNode, ++meshCounter, subsetIds), this);
-				}else {
-					stack.add(currentNode.left);
-					stack.add(currentNode.right);
-				}
-			}
-			bvh.free(nodePool);
+			for(int i = 0; i < outputNodes.size(); ++i)
+				manager.processNext(newMesh(mesh, bvh, outputNodes.get(i), ++meshCounter, subsetIds), this);
 			
 			dos.writeByte(0); // End array with empty type.
 			
@@ -557,7 +598,7 @@ public class RaytracingOptimiser implements MeshProcessors.IMeshProcessor{
 			WriteCapturer capturer = manager.getWriteCapturer(writeCapturerId);
 			Mesh proxyMesh = new Mesh(mesh.getName(), MeshPurpose.PROXY, mesh.getTexture(), 
 										mesh.getMatTexture(), mesh.hasAnimatedTexture(), mesh.isDoubleSided(),
-										mesh.getShadingMode(), mesh.getVertices().size()/3, mesh.getUs().size());
+										mesh.getShadingMode(), mesh.getNumPoints(), mesh.getNumUVs());
 			for(Mesh mesh2 : capturer.meshes) {
 				mesh2.appendMesh(mesh2, false);
 			}
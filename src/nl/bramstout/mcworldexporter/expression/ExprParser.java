@@ -247,6 +247,25 @@ public class ExprParser {
 		return expr;
 	}
 	
+	/**
+	 * If the expression only depends on constants, evaluate it now
+	 * rather than every time that it's used.
+	 */
+	private static Expression fold(Expression expr) {
+		if(!expr.isConstant())
+			return expr;
+		try {
+			ExprValue value = expr.eval(null);
+			// A null constant marks the end of the statements.
+			if(value.isNull())
+				return expr;
+			return new ExpressionConstant(value);
+		}catch(Exception ex) {
+			// Let it throw the exception when it actually gets evaluated.
+			return expr;
+		}
+	}
+	
 	private static Expression parseExpressionPart(CodeIterator code, Expression prevExpr, boolean noException) {
 		int codePoint = code.peek();
 		if(codePoint == '!') {
@@ -254,9 +273,9 @@ public class ExprParser {
 			codePoint = code.peek();
 			if(codePoint == '=' && prevExpr != null) {
 				code.next();
-				return new ExpressionNotEqual(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionNotEqual(prevExpr, parseSubExpression(code)));
 			}
-			return new ExpressionInvert(parseSubExpression(code));
+			return fold(new ExpressionInvert(parseSubExpression(code)));
 		}
 		if(codePoint == '-' && (Character.isDigit(code.peek(1)) || code.peek(1) == '.')) {
 			// It's a digit
@@ -481,7 +500,7 @@ public class ExprParser {
 			if(codePoint == '=') {
 				// Equals
 				code.next();
-				return new ExpressionEqual(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionEqual(prevExpr, parseSubExpression(code)));
 			}
 			// Assignment
 			return new ExpressionStoreVariable(prevExpr, parseSubExpression2(code));
@@ -492,10 +511,10 @@ public class ExprParser {
 			if(codePoint == '=') {
 				// Less than or equal
 				code.next();
-				return new ExpressionLessThanOrEqual(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionLessThanOrEqual(prevExpr, parseSubExpression(code)));
 			}
 			// Less than
-			return new ExpressionLessThan(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionLessThan(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '>' && prevExpr != null) {
 			code.next();
@@ -503,10 +522,10 @@ public class ExprParser {
 			if(codePoint == '=') {
 				// Greater than or equal
 				code.next();
-				return new ExpressionGreaterThanOrEqual(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionGreaterThanOrEqual(prevExpr, parseSubExpression(code)));
 			}
 			// Greater than
-			return new ExpressionGreaterThan(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionGreaterThan(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '&' && prevExpr != null) {
 			code.next();
@@ -514,7 +533,7 @@ public class ExprParser {
 			if(codePoint == '&') {
 				// And
 				code.next();
-				return new ExpressionAnd(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionAnd(prevExpr, parseSubExpression(code)));
 			}
 		}
 		if(codePoint == '|' && prevExpr != null) {
@@ -523,7 +542,7 @@ public class ExprParser {
 			if(codePoint == '|') {
 				// And
 				code.next();
-				return new ExpressionOr(prevExpr, parseSubExpression(code));
+				return fold(new ExpressionOr(prevExpr, parseSubExpression(code)));
 			}
 		}
 		if(codePoint == '?' && prevExpr != null) {
@@ -532,7 +551,7 @@ public class ExprParser {
 			Expression ifTrue = parseSubExpression(code);
 			code.next(); // :
 			Expression ifFalse = parseSubExpression(code);
-			return new ExpressionTernary(prevExpr, ifTrue, ifFalse);
+			return fold(new ExpressionTernary(prevExpr, ifTrue, ifFalse));
 		}
 		if(codePoint == '+' && prevExpr != null) {
 			code.next();
@@ -542,7 +561,7 @@ public class ExprParser {
 				code.next();
 				return new ExpressionAddStoreVariable(prevExpr, parseSubExpression2(code));
 			}
-			return new ExpressionAdd(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionAdd(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '-' && prevExpr != null) {
 			code.next();
@@ -552,12 +571,12 @@ public class ExprParser {
 				code.next();
 				return new ExpressionSubStoreVariable(prevExpr, parseSubExpression2(code));
 			}
-			return new ExpressionSub(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionSub(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '-' && prevExpr == null) {
 			code.next();
 			codePoint = code.peek();
-			return new ExpressionNegate(parseSubExpression(code));
+			return fold(new ExpressionNegate(parseSubExpression(code)));
 		}
 		if(codePoint == '*' && prevExpr != null) {
 			code.next();
@@ -567,7 +586,7 @@ public class ExprParser {
 				code.next();
 				return new ExpressionMultStoreVariable(prevExpr, parseSubExpression2(code));
 			}
-			return new ExpressionMult(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionMult(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '/' && prevExpr != null) {
 			code.next();
@@ -577,7 +596,7 @@ public class ExprParser {
 				code.next();
 				return new ExpressionDivStoreVariable(prevExpr, parseSubExpression2(code));
 			}
-			return new ExpressionDiv(prevExpr, parseSubExpression(code));
+			return fold(new ExpressionDiv(prevExpr, parseSubExpression(code)));
 		}
 		if(codePoint == '.' && prevExpr != null) {
 			// Get member
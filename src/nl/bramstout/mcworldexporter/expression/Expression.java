@@ -43,8 +43,66 @@ import nl.bramstout.mcworldexporter.expression.ExprValue.ExprValueNull;
 
 public abstract class Expression {
 
+	/**
+	 * The types that an expression can be inferred to evaluate to
+	 * when parsing. Anything that depends on variables, members or
+	 * function calls is TYPE_UNKNOWN and gets evaluated dynamically.
+	 */
+	public static final int TYPE_UNKNOWN = 0;
+	public static final int TYPE_INT = 1;
+	public static final int TYPE_FLOAT = 2;
+	public static final int TYPE_BOOL = 3;
+	
 	public abstract ExprValue eval(ExprContext context);
 	
+	/**
+	 * Returns the type that this expression always evaluates to,
+	 * or TYPE_UNKNOWN if it isn't known when parsing.
+	 */
+	public int getType() {
+		return TYPE_UNKNOWN;
+	}
+	
+	/**
+	 * Returns true if this expression only depends on constants,
+	 * so that it can be evaluated once when parsing.
+	 */
+	public boolean isConstant() {
+		return false;
+	}
+	
+	/**
+	 * Same as eval(context).asInt(), but expressions with a known type
+	 * override it to evaluate on primitives without creating ExprValues.
+	 */
+	public long evalInt(ExprContext context) {
+		return eval(context).asInt();
+	}
+	
+	/**
+	 * Same as eval(context).asFloat().
+	 */
+	public float evalFloat(ExprContext context) {
+		return eval(context).asFloat();
+	}
+	
+	/**
+	 * Same as eval(context).asBool().
+	 */
+	public boolean evalBool(ExprContext context) {
+		return eval(context).asBool();
+	}
+	
+	private static int getType(ExprValue value) {
+		if(value.getImpl() instanceof ExprValueInt)
+			return TYPE_INT;
+		if(value.getImpl() instanceof ExprValueFloat)
+			return TYPE_FLOAT;
+		if(value.getImpl() instanceof ExprValueBool)
+			return TYPE_BOOL;
+		return TYPE_UNKNOWN;
+	}
+	
 	public static class ExpressionMulti extends Expression{
 		
 		private String code;
@@ -77,14 +135,67 @@ public abstract class Expression {
 			}
 		}
 		
+		@Override
+		public long evalInt(ExprContext context) {
+			if(statements.length != 1 || statements[0].getType() == TYPE_UNKNOWN)
+				return eval(context).asInt();
+			try {
+				ExprValue prevReturnVal = context.returnValue;
+				context.returnValue = null;
+				long val = statements[0].evalInt(context);
+				if(context.returnValue != null)
+					val = context.returnValue.asInt();
+				context.returnValue = prevReturnVal;
+				return val;
+			}catch(Exception ex) {
+				throw new RuntimeException("Exception while evaluating expression \"" + code + "\"", ex);
+			}
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			if(statements.length != 1 || statements[0].getType() == TYPE_UNKNOWN)
+				return eval(context).asFloat();
+			try {
+				ExprValue prevReturnVal = context.returnValue;
+				context.returnValue = null;
+				float val = statements[0].evalFloat(context);
+				if(context.returnValue != null)
+					val = context.returnValue.asFloat();
+				context.returnValue = prevReturnVal;
+				return val;
+			}catch(Exception ex) {
+				throw new RuntimeException("Exception while evaluating expression \"" + code + "\"", ex);
+			}
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			if(statements.length != 1 || statements[0].getType() == TYPE_UNKNOWN)
+				return eval(context).asBool();
+			try {
+				ExprValue prevReturnVal = context.returnValue;
+				context.returnValue = null;
+				boolean val = statements[0].evalBool(context);
+				if(context.returnValue != null)
+					val = context.returnValue.asBool();
+				context.returnValue = prevReturnVal;
+				return val;
+			}catch(Exception ex) {
+				throw new RuntimeException("Exception while evaluating expression \"" + code + "\"", ex);
+			}
+		}
+		
 	}
 	
 	public static class ExpressionConstant extends Expression{
 		
 		private ExprValue value;
+		private int type;
 		
 		public ExpressionConstant(ExprValue value) {
 			this.value = value;
+			this.type = Expression.getType(value);
 		}
 		
 		@Override
@@ -92,6 +203,31 @@ public abstract class Expression {
 			return value;
 		}
 		
+		@Override
+		public int getType() {
+			return type;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return true;
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			return value.asInt();
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			return value.asFloat();
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			return value.asBool();
+		}
+		
 	}
 	
 	public static class ExpressionConstantDict extends Expression{
@@ -227,70 +363,167 @@ public abstract class Expression {
 		
 	}
 	
-	public static class ExpressionAdd extends Expression{
-		
-		private Expression left;
-		private Expression right;
-		
-		public ExpressionAdd(Expression left, Expression right) {
+	/**
+	 * Base class for the arithmetic operators. The left operand decides
+	 * the type of the result, so if its type is known when parsing,
+	 * the operator is evaluated on primitives instead.
+	 */
+	public static abstract class ExpressionArithmetic extends Expression{
+		
+		protected Expression left;
+		protected Expression right;
+		private int type;
+		
+		public ExpressionArithmetic(Expression left, Expression right) {
 			this.left = left;
 			this.right = right;
+			this.type = TYPE_UNKNOWN;
+			if(left.getType() == TYPE_INT || left.getType() == TYPE_FLOAT)
+				this.type = left.getType();
+		}
+		
+		protected abstract long op(long left, long right);
+		
+		protected abstract float op(float left, float right);
+		
+		protected abstract ExprValue op(ExprValue left, ExprValue right);
+		
+		@Override
+		public int getType() {
+			return type;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return left.isConstant() && right.isConstant();
 		}
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			return left.eval(context).add(right.eval(context));
+			if(type == TYPE_INT)
+				return new ExprValue(new ExprValueInt(evalInt(context)));
+			if(type == TYPE_FLOAT)
+				return new ExprValue(new ExprValueFloat(evalFloat(context)));
+			return op(left.eval(context), right.eval(context));
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			if(type == TYPE_INT)
+				return op(left.evalInt(context), right.evalInt(context));
+			if(type == TYPE_FLOAT)
+				return (long) evalFloat(context);
+			return eval(context).asInt();
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			if(type == TYPE_FLOAT)
+				return op(left.evalFloat(context), right.evalFloat(context));
+			if(type == TYPE_INT)
+				return evalInt(context);
+			return eval(context).asFloat();
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			if(type == TYPE_INT)
+				return evalInt(context) > 0;
+			if(type == TYPE_FLOAT)
+				return evalFloat(context) >= 0.5f;
+			return eval(context).asBool();
 		}
 		
 	}
 	
-	public static class ExpressionSub extends Expression{
+	public static class ExpressionAdd extends ExpressionArithmetic{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionAdd(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionSub(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected long op(long left, long right) {
+			return left + right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return left.eval(context).sub(right.eval(context));
+		protected float op(float left, float right) {
+			return left + right;
+		}
+		
+		@Override
+		protected ExprValue op(ExprValue left, ExprValue right) {
+			return left.add(right);
 		}
 		
 	}
 	
-	public static class ExpressionMult extends Expression{
+	public static class ExpressionSub extends ExpressionArithmetic{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionSub(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionMult(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected long op(long left, long right) {
+			return left - right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return left.eval(context).mult(right.eval(context));
+		protected float op(float left, float right) {
+			return left - right;
+		}
+		
+		@Override
+		protected ExprValue op(ExprValue left, ExprValue right) {
+			return left.sub(right);
 		}
 		
 	}
 	
-	public static class ExpressionDiv extends Expression{
+	public static class ExpressionMult extends ExpressionArithmetic{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionMult(Expression left, Expression right) {
+			super(left, right);
+		}
+		
+		@Override
+		protected long op(long left, long right) {
+			return left * right;
+		}
+		
+		@Override
+		protected float op(float left, float right) {
+			return left * right;
+		}
+		
+		@Override
+		protected ExprValue op(ExprValue left, ExprValue right) {
+			return left.mult(right);
+		}
+		
+	}
+	
+	public static class ExpressionDiv extends ExpressionArithmetic{
 		
 		public ExpressionDiv(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+			super(left, right);
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return left.eval(context).div(right.eval(context));
+		protected long op(long left, long right) {
+			return left / right;
+		}
+		
+		@Override
+		protected float op(float left, float right) {
+			return left / right;
+		}
+		
+		@Override
+		protected ExprValue op(ExprValue left, ExprValue right) {
+			return left.div(right);
 		}
 		
 	}
@@ -305,7 +538,32 @@ public abstract class Expression {
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			return new ExprValue(new ExprValueBool(!expr.eval(context).asBool()));
+			return new ExprValue(new ExprValueBool(evalBool(context)));
+		}
+		
+		@Override
+		public int getType() {
+			return TYPE_BOOL;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return expr.isConstant();
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			return evalBool(context) ? 1 : 0;
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			return evalBool(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			return !expr.evalBool(context);
 		}
 		
 	}
@@ -314,12 +572,52 @@ public abstract class Expression {
 		
 		private Expression expr;
 		
+		private int type;
+		
 		public ExpressionNegate(Expression expr) {
 			this.expr = expr;
+			// Anything that isn't an int gets negated as a float.
+			this.type = TYPE_UNKNOWN;
+			if(expr.getType() == TYPE_INT)
+				this.type = TYPE_INT;
+			else if(expr.getType() != TYPE_UNKNOWN)
+				this.type = TYPE_FLOAT;
+		}
+		
+		@Override
+		public int getType() {
+			return type;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return expr.isConstant();
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			if(type == TYPE_INT)
+				return -expr.evalInt(context);
+			if(type == TYPE_FLOAT)
+				return (long) -expr.evalFloat(context);
+			return eval(context).asInt();
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			if(type == TYPE_INT)
+				return -expr.evalInt(context);
+			if(type == TYPE_FLOAT)
+				return -expr.evalFloat(context);
+			return eval(context).asFloat();
 		}
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
+			if(type == TYPE_INT)
+				return new ExprValue(new ExprValueInt(-expr.evalInt(context)));
+			if(type == TYPE_FLOAT)
+				return new ExprValue(new ExprValueFloat(-expr.evalFloat(context)));
 			ExprValue val = expr.eval(context);
 			if(val.getImpl() instanceof ExprValueInt)
 				return new ExprValue(new ExprValueInt(-val.asInt()));
@@ -329,110 +627,201 @@ public abstract class Expression {
 		
 	}
 	
-	public static class ExpressionEqual extends Expression{
-		
-		private Expression left;
-		private Expression right;
-		
-		public ExpressionEqual(Expression left, Expression right) {
+	/**
+	 * Base class for the comparison operators. If the type of the left
+	 * operand is a known number and the right operand is known not to
+	 * be null, they get compared as primitives.
+	 */
+	public static abstract class ExpressionComparison extends Expression{
+		
+		protected Expression left;
+		protected Expression right;
+		private int type;
+		
+		public ExpressionComparison(Expression left, Expression right) {
 			this.left = left;
 			this.right = right;
+			this.type = TYPE_UNKNOWN;
+			if((left.getType() == TYPE_INT || left.getType() == TYPE_FLOAT) && right.getType() != TYPE_UNKNOWN)
+				this.type = left.getType();
+		}
+		
+		protected abstract boolean compare(long left, long right);
+		
+		protected abstract boolean compare(float left, float right);
+		
+		protected abstract boolean compare(ExprValue left, ExprValue right);
+		
+		@Override
+		public int getType() {
+			return TYPE_BOOL;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return left.isConstant() && right.isConstant();
 		}
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			return new ExprValue(new ExprValueBool(left.eval(context).equal(right.eval(context))));
+			return new ExprValue(new ExprValueBool(evalBool(context)));
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			return evalBool(context) ? 1 : 0;
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			return evalBool(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			if(type == TYPE_INT)
+				return compare(left.evalInt(context), right.evalInt(context));
+			if(type == TYPE_FLOAT)
+				return compare(left.evalFloat(context), right.evalFloat(context));
+			return compare(left.eval(context), right.eval(context));
 		}
 		
 	}
 	
-	public static class ExpressionNotEqual extends Expression{
+	public static class ExpressionEqual extends ExpressionComparison{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionEqual(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionNotEqual(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected boolean compare(long left, long right) {
+			return left == right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return new ExprValue(new ExprValueBool(!(left.eval(context).equal(right.eval(context)))));
+		protected boolean compare(float left, float right) {
+			return left == right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return left.equal(right);
 		}
 		
 	}
 	
-	public static class ExpressionLessThan extends Expression{
+	public static class ExpressionNotEqual extends ExpressionComparison{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionNotEqual(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionLessThan(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected boolean compare(long left, long right) {
+			return left != right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return new ExprValue(new ExprValueBool(left.eval(context).lessThan(right.eval(context))));
+		protected boolean compare(float left, float right) {
+			return left != right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return !(left.equal(right));
 		}
 		
 	}
 	
-	public static class ExpressionGreaterThan extends Expression{
+	public static class ExpressionLessThan extends ExpressionComparison{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionLessThan(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionGreaterThan(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected boolean compare(long left, long right) {
+			return left < right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			return new ExprValue(new ExprValueBool(left.eval(context).greaterThan(right.eval(context))));
+		protected boolean compare(float left, float right) {
+			return left < right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return left.lessThan(right);
 		}
 		
 	}
 	
-	public static class ExpressionLessThanOrEqual extends Expression{
+	public static class ExpressionGreaterThan extends ExpressionComparison{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionGreaterThan(Expression left, Expression right) {
+			super(left, right);
+		}
 		
-		public ExpressionLessThanOrEqual(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+		@Override
+		protected boolean compare(long left, long right) {
+			return left > right;
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			ExprValue leftValue = left.eval(context);
-			ExprValue rightValue = right.eval(context);
-			
-			return new ExprValue(new ExprValueBool(leftValue.equal(rightValue) || leftValue.lessThan(rightValue)));
+		protected boolean compare(float left, float right) {
+			return left > right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return left.greaterThan(right);
 		}
 		
 	}
 	
-	public static class ExpressionGreaterThanOrEqual extends Expression{
+	public static class ExpressionLessThanOrEqual extends ExpressionComparison{
 		
-		private Expression left;
-		private Expression right;
+		public ExpressionLessThanOrEqual(Expression left, Expression right) {
+			super(left, right);
+		}
+		
+		@Override
+		protected boolean compare(long left, long right) {
+			return left <= right;
+		}
+		
+		@Override
+		protected boolean compare(float left, float right) {
+			return left <= right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return left.equal(right) || left.lessThan(right);
+		}
+		
+	}
+	
+	public static class ExpressionGreaterThanOrEqual extends ExpressionComparison{
 		
 		public ExpressionGreaterThanOrEqual(Expression left, Expression right) {
-			this.left = left;
-			this.right = right;
+			super(left, right);
 		}
 		
 		@Override
-		public ExprValue eval(ExprContext context) {
-			ExprValue leftValue = left.eval(context);
-			ExprValue rightValue = right.eval(context);
-			
-			return new ExprValue(new ExprValueBool(leftValue.equal(rightValue) || leftValue.greaterThan(rightValue)));
+		protected boolean compare(long left, long right) {
+			return left >= right;
+		}
+		
+		@Override
+		protected boolean compare(float left, float right) {
+			return left >= right;
+		}
+		
+		@Override
+		protected boolean compare(ExprValue left, ExprValue right) {
+			return left.equal(right) || left.greaterThan(right);
 		}
 		
 	}
@@ -449,10 +838,35 @@ public abstract class Expression {
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			ExprValue leftValue = left.eval(context);
-			ExprValue rightValue = right.eval(context);
-			
-			return new ExprValue(new ExprValueBool(leftValue.asBool() && rightValue.asBool()));
+			return new ExprValue(new ExprValueBool(evalBool(context)));
+		}
+		
+		@Override
+		public int getType() {
+			return TYPE_BOOL;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return left.isConstant() && right.isConstant();
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			return evalBool(context) ? 1 : 0;
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			return evalBool(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			// Both sides always get evaluated.
+			boolean leftValue = left.evalBool(context);
+			boolean rightValue = right.evalBool(context);
+			return leftValue && rightValue;
 		}
 		
 	}
@@ -469,10 +883,35 @@ public abstract class Expression {
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			ExprValue leftValue = left.eval(context);
-			ExprValue rightValue = right.eval(context);
-			
-			return new ExprValue(new ExprValueBool(leftValue.asBool() || rightValue.asBool()));
+			return new ExprValue(new ExprValueBool(evalBool(context)));
+		}
+		
+		@Override
+		public int getType() {
+			return TYPE_BOOL;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return left.isConstant() && right.isConstant();
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			return evalBool(context) ? 1 : 0;
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			return evalBool(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			// Both sides always get evaluated.
+			boolean leftValue = left.evalBool(context);
+			boolean rightValue = right.evalBool(context);
+			return leftValue || rightValue;
 		}
 		
 	}
@@ -491,30 +930,62 @@ public abstract class Expression {
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			if(condition.eval(context).asBool())
+			if(condition.evalBool(context))
 				return left.eval(context);
 			return right.eval(context);
 		}
 		
+		@Override
+		public int getType() {
+			return left.getType() == right.getType() ? left.getType() : TYPE_UNKNOWN;
+		}
+		
+		@Override
+		public boolean isConstant() {
+			return condition.isConstant() && left.isConstant() && right.isConstant();
+		}
+		
+		@Override
+		public long evalInt(ExprContext context) {
+			if(condition.evalBool(context))
+				return left.evalInt(context);
+			return right.evalInt(context);
+		}
+		
+		@Override
+		public float evalFloat(ExprContext context) {
+			if(condition.evalBool(context))
+				return left.evalFloat(context);
+			return right.evalFloat(context);
+		}
+		
+		@Override
+		public boolean evalBool(ExprContext context) {
+			if(condition.evalBool(context))
+				return left.evalBool(context);
+			return right.evalBool(context);
+		}
+		
 	}
 	
 	public static class ExpressionGetVariable extends Expression{
 		
 		private String name;
+		private boolean isThisBlock;
+		private boolean isGlobal;
 		
 		public ExpressionGetVariable(String name) {
 			this.name = name;
+			this.isThisBlock = name.equalsIgnoreCase("thisBlock") || name.equalsIgnoreCase("thisEntity") || 
+								name.equalsIgnoreCase("thisAttachment");
+			this.isGlobal = name.equalsIgnoreCase("global");
 		}
 		
 		@Override
 		public ExprValue eval(ExprContext context) {
-			if(name.equalsIgnoreCase("thisBlock"))
-				return context.thisBlock;
-			if(name.equalsIgnoreCase("thisEntity"))
-				return context.thisBlock;
-			if(name.equalsIgnoreCase("thisAttachment"))
+			if(isThisBlock)
 				return context.thisBlock;
-			if(name.equalsIgnoreCase("global")) {
+			if(isGlobal) {
 				return context.globals;
 			}
 			
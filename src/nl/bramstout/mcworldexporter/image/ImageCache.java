@@ -0,0 +1,260 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.image;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import nl.bramstout.mcworldexporter.pbr.PbrImage;
+import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
+
+/**
+ * Keeps the decoded pixels of recently read images in memory, so that
+ * images that are read in multiple times (default colours, atlases,
+ * PBR generation, banners, material writers) only get decoded once.
+ * 
+ * The pixels are stored as compact rasters and every caller gets its
+ * own copy, so callers are still free to modify the images they get.
+ * When the cache goes over its maximum size, the least recently used
+ * images are evicted.
+ */
+public class ImageCache {
+	
+	/**
+	 * The maximum size of the cache in bytes.
+	 * Zero or less disables the cache.
+	 */
+	public static long maxSize = Runtime.getRuntime().maxMemory() / 8;
+	
+	private static class CachedImage{
+		
+		/**
+		 * The pixels as ARGB, for images read in through readRaster().
+		 */
+		ImageRaster raster;
+		/**
+		 * The pixels as RGBA floats, for images that the
+		 * reader reads in as PbrImages directly.
+		 */
+		PbrImageRaster pbrRaster;
+		
+		long getSize() {
+			return (raster != null ? ((long) raster.argb.length) * 4 : 0) + 
+					(pbrRaster != null ? ((long) pbrRaster.getData().length) * 4 : 0) + 64;
+		}
+		
+		PbrImage toPbrImage(boolean linearise) {
+			if(raster != null)
+				return raster.toPbrImage(linearise);
+			return new PbrImageRaster(pbrRaster);
+		}
+		
+	}
+	
+	private static class Entry{
+		
+		long lastModified;
+		long fileSize;
+		long size;
+		FutureTask<CachedImage> task;
+		
+		Entry(long lastModified, long fileSize, FutureTask<CachedImage> task){
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+			this.size = 0;
+			this.task = task;
+		}
+		
+	}
+	
+	private static Map<String, Entry> cache = new LinkedHashMap<String, Entry>(256, 0.75f, true);
+	private static long totalSize = 0;
+	
+	/**
+	 * Reads in the image, using the cached pixels if the file hasn't changed.
+	 * If multiple threads ask for the same image at the same time, it's only
+	 * decoded once.
+	 */
+	public static BufferedImage readImage(final File file, final ImageReader reader) {
+		CachedImage img = get(file, false, new Callable<CachedImage>() {
+			
+			@Override
+			public CachedImage call() throws Exception {
+				CachedImage res = new CachedImage();
+				res.raster = reader.readRaster(file);
+				if(res.raster == null)
+					return null;
+				return res;
+			}
+			
+		});
+		if(img == null)
+			return null;
+		return img.raster.toBufferedImage();
+	}
+	
+	/**
+	 * Reads in the image as a PbrImage, using the cached pixels if the file hasn't changed.
+	 * Images that the reader reads in through BufferedImages share their cached pixels with
+	 * readImage().
+	 */
+	public static PbrImage readPbrImage(final File file, final ImageReader reader, boolean linearise) {
+		final boolean isFloat = reader.readsPbrDirectly();
+		CachedImage img = get(file, isFloat, new Callable<CachedImage>() {
+			
+			@Override
+			public CachedImage call() throws Exception {
+				CachedImage res = new CachedImage();
+				if(isFloat) {
+					PbrImage img = reader.readPbr(file, false);
+					if(img == null)
+						return null;
+					if(img instanceof PbrImageRaster)
+						res.pbrRaster = (PbrImageRaster) img;
+					else
+						res.pbrRaster = new PbrImageRaster(img);
+				}else {
+					res.raster = reader.readRaster(file);
+					if(res.raster == null)
+						return null;
+				}
+				return res;
+			}
+			
+		});
+		if(img == null)
+			return null;
+		return img.toPbrImage(linearise);
+	}
+	
+	private static CachedImage get(File file, boolean isFloat, Callable<CachedImage> loader) {
+		String key = file.getAbsolutePath();
+		if(isFloat)
+			key = key + "#float";
+		long lastModified = file.lastModified();
+		long fileSize = file.length();
+		
+		Entry entry = null;
+		boolean isOwner = false;
+		synchronized(cache) {
+			entry = cache.getOrDefault(key, null);
+			if(entry != null && (entry.lastModified != lastModified || entry.fileSize != fileSize)) {
+				// The file has changed since it was cached.
+				remove(key, entry);
+				entry = null;
+			}
+			if(entry == null) {
+				entry = new Entry(lastModified, fileSize, new FutureTask<CachedImage>(loader));
+				if(maxSize > 0)
+					cache.put(key, entry);
+				isOwner = true;
+			}
+		}
+		
+		if(isOwner)
+			entry.task.run();
+		
+		CachedImage img = null;
+		try {
+			img = entry.task.get();
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}
+		
+		if(isOwner) {
+			synchronized(cache) {
+				if(cache.getOrDefault(key, null) == entry) {
+					long size = img == null ? 0 : img.getSize();
+					if(img == null || size > maxSize) {
+						// Don't keep failed reads around, since the file might
+						// just not be fully written yet.
+						remove(key, entry);
+					}else {
+						entry.size = size;
+						totalSize += size;
+						evict();
+					}
+				}
+			}
+		}
+		return img;
+	}
+	
+	private static void remove(String key, Entry entry) {
+		cache.remove(key);
+		totalSize -= entry.size;
+		entry.size = 0;
+	}
+	
+	private static void evict() {
+		Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+		while(totalSize > maxSize && it.hasNext()) {
+			Entry entry = it.next().getValue();
+			// Entries still being loaded don't count towards the total size yet.
+			if(!entry.task.isDone())
+				continue;
+			totalSize -= entry.size;
+			entry.size = 0;
+			it.remove();
+		}
+	}
+	
+	/**
+	 * Removes the image from the cache. Should be called
+	 * after writing to an image file.
+	 */
+	public static void invalidate(File file) {
+		String key = file.getAbsolutePath();
+		synchronized(cache) {
+			Entry entry = cache.getOrDefault(key, null);
+			if(entry != null)
+				remove(key, entry);
+			key = key + "#float";
+			entry = cache.getOrDefault(key, null);
+			if(entry != null)
+				remove(key, entry);
+		}
+	}
+	
+	public static void clear() {
+		synchronized(cache) {
+			cache.clear();
+			totalSize = 0;
+		}
+	}
+	
+}
@@ -0,0 +1,80 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.image;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import nl.bramstout.mcworldexporter.pbr.PbrImage;
+import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
+
+/**
+ * Decoded image pixels stored as ARGB, the same
+ * as what BufferedImage.getRGB() returns.
+ */
+public class ImageRaster {
+	
+	public int width;
+	public int height;
+	public boolean hasAlpha;
+	public int[] argb;
+	
+	public ImageRaster(int width, int height, boolean hasAlpha) {
+		this.width = width;
+		this.height = height;
+		this.hasAlpha = hasAlpha;
+		this.argb = new int[width * height];
+	}
+	
+	public ImageRaster(BufferedImage img) {
+		this.width = img.getWidth();
+		this.height = img.getHeight();
+		this.hasAlpha = img.getColorModel().hasAlpha();
+		this.argb = img.getRGB(0, 0, width, height, null, 0, width);
+	}
+	
+	/**
+	 * Returns a new BufferedImage with a copy of the pixels.
+	 */
+	public BufferedImage toBufferedImage() {
+		BufferedImage img = new BufferedImage(width, height, 
+								hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		int[] data = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+		System.arraycopy(argb, 0, data, 0, argb.length);
+		return img;
+	}
+	
+	public PbrImage toPbrImage(boolean linearise) {
+		return new PbrImageRaster(width, height, argb, hasAlpha, linearise);
+	}
+	
+}
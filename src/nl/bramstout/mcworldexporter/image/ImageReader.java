@@ -35,7 +35,6 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 
 import nl.bramstout.mcworldexporter.pbr.PbrImage;
-import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
 
 public abstract class ImageReader {
 	
@@ -43,11 +42,32 @@ public abstract class ImageReader {
 	
 	public abstract boolean supportsImage(File file);
 	
-	public PbrImage readPbr(File file, boolean linearise) {
+	/**
+	 * Reads in the image as ARGB pixels. Readers that can decode
+	 * straight into the pixels, without going through a BufferedImage,
+	 * override this.
+	 */
+	public ImageRaster readRaster(File file) {
 		BufferedImage img = read(file);
 		if(img == null)
 			return null;
-		return new PbrImageRaster(img, linearise);
+		return new ImageRaster(img);
+	}
+	
+	public PbrImage readPbr(File file, boolean linearise) {
+		ImageRaster raster = readRaster(file);
+		if(raster == null)
+			return null;
+		return raster.toPbrImage(linearise);
+	}
+	
+	/**
+	 * Whether readPbr() reads in the image itself, rather than
+	 * going through read(). In that case the cache stores
+	 * the image as floats.
+	 */
+	public boolean readsPbrDirectly() {
+		return false;
 	}
 	
 	private static ImageReader[] readers = new ImageReader[] {
@@ -66,7 +86,7 @@ public abstract class ImageReader {
 	public static BufferedImage readImage(File file) {
 		for(ImageReader reader : readers)
 			if(reader.supportsImage(file))
-				return reader.read(file);
+				return ImageCache.readImage(file, reader);
 		return null;
 	}
 	
@@ -79,7 +99,7 @@ public abstract class ImageReader {
 	public static PbrImage readPbrImage(File file, boolean linearise) {
 		for(ImageReader reader : readers)
 			if(reader.supportsImage(file))
-				return reader.readPbr(file, linearise);
+				return ImageCache.readPbrImage(file, reader, linearise);
 		return null;
 	}
 	
@@ -69,6 +69,11 @@ public class ImageReaderEXR extends ImageReader{
 		return img2;
 	}
 	
+	@Override
+	public boolean readsPbrDirectly() {
+		return true;
+	}
+	
 	@Override
 	public PbrImage readPbr(File file, boolean linearise) {
 		PbrImage img = null;
@@ -35,6 +35,7 @@ import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.io.File;
+import java.nio.file.Files;
 
 import javax.imageio.ImageIO;
 
@@ -42,6 +43,28 @@ public class ImageReaderPNG extends ImageReader{
 
 	@Override
 	public BufferedImage read(File file) {
+		ImageRaster raster = readRaster(file);
+		if(raster == null)
+			return null;
+		return raster.toBufferedImage();
+	}
+	
+	@Override
+	public ImageRaster readRaster(File file) {
+		try {
+			ImageRaster raster = PNGDecoder.decode(Files.readAllBytes(file.toPath()));
+			if(raster != null)
+				return raster;
+		}catch(Exception ex) {
+			// Let ImageIO have a go at it, which will also report the error.
+		}
+		BufferedImage img = readImageIO(file);
+		if(img == null)
+			return null;
+		return new ImageRaster(img);
+	}
+	
+	private BufferedImage readImageIO(File file) {
 		BufferedImage img = null;
 		try {
 			img = ImageIO.read(file);
@@ -58,6 +58,7 @@ public abstract class ImageWriter {
 		for(ImageWriter writer : writers) {
 			if(writer.supportsImage(file)) {
 				writer.write(file, img);
+				ImageCache.invalidate(file);
 				return;
 			}
 		}
@@ -73,6 +74,7 @@ public abstract class ImageWriter {
 		for(ImageWriter writer : writers) {
 			if(writer.supportsImage(file)) {
 				writer.write(file, img);
+				ImageCache.invalidate(file);
 				return;
 			}
 		}
@@ -0,0 +1,333 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.image;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes PNG files straight into an ImageRaster, row by row
+ * as the image data gets inflated.
+ * 
+ * It only handles the formats that resource packs pretty much
+ * always use: 8-bit grayscale and colour images and palette images.
+ * For anything else, decode() returns null and the image should be
+ * read in with ImageIO instead.
+ */
+public class PNGDecoder {
+	
+	private static final int CHUNK_IHDR = 0x49484452;
+	private static final int CHUNK_PLTE = 0x504C5445;
+	private static final int CHUNK_TRNS = 0x74524E53;
+	private static final int CHUNK_ICCP = 0x69434350;
+	private static final int CHUNK_IDAT = 0x49444154;
+	private static final int CHUNK_IEND = 0x49454E44;
+	
+	private static final int COLOR_TYPE_GRAY = 0;
+	private static final int COLOR_TYPE_RGB = 2;
+	private static final int COLOR_TYPE_PALETTE = 3;
+	private static final int COLOR_TYPE_GRAY_ALPHA = 4;
+	private static final int COLOR_TYPE_RGBA = 6;
+	
+	private static final byte[] SIGNATURE = new byte[] { (byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A };
+	
+	private int width;
+	private int height;
+	private int bitDepth;
+	private int colorType;
+	private int[] palette;
+	private boolean hasTransparency;
+	
+	private ImageRaster raster;
+	private int bytesPerPixel;
+	private byte[] row;
+	private byte[] prevRow;
+	private int rowPos;
+	private int rowIndex;
+	
+	private PNGDecoder() {}
+	
+	/**
+	 * Decodes the PNG file. Returns null if the PNG file uses
+	 * a format that this decoder doesn't handle.
+	 * 
+	 * @param data The contents of the PNG file.
+	 * @throws IOException If the PNG file is invalid.
+	 */
+	public static ImageRaster decode(byte[] data) throws IOException {
+		return new PNGDecoder().decodeImpl(data);
+	}
+	
+	private ImageRaster decodeImpl(byte[] data) throws IOException {
+		if(data.length < SIGNATURE.length)
+			throw new IOException("Not a PNG file");
+		for(int i = 0; i < SIGNATURE.length; ++i)
+			if(data[i] != SIGNATURE[i])
+				throw new IOException("Not a PNG file");
+		
+		Inflater inflater = new Inflater();
+		try {
+			int pos = SIGNATURE.length;
+			boolean hasHeader = false;
+			while(pos + 8 <= data.length) {
+				int length = readInt(data, pos);
+				int type = readInt(data, pos + 4);
+				pos += 8;
+				if(length < 0 || length > data.length - pos)
+					throw new IOException("Invalid PNG chunk");
+				
+				if(type == CHUNK_IHDR) {
+					if(!readHeader(data, pos, length))
+						return null;
+					hasHeader = true;
+				}else if(!hasHeader) {
+					throw new IOException("Missing PNG header");
+				}else if(type == CHUNK_PLTE) {
+					readPalette(data, pos, length);
+				}else if(type == CHUNK_TRNS) {
+					// ImageIO handles transparency for non-palette
+					// images differently between Java versions.
+					if(colorType != COLOR_TYPE_PALETTE || palette == null)
+						return null;
+					for(int i = 0; i < length && i < palette.length; ++i)
+						palette[i] = (palette[i] & 0x00FFFFFF) | ((data[pos + i] & 0xFF) << 24);
+					hasTransparency = true;
+				}else if(type == CHUNK_ICCP) {
+					// ImageIO converts images with a colour profile to sRGB.
+					return null;
+				}else if(type == CHUNK_IDAT) {
+					if(raster == null)
+						startImage();
+					inflater.setInput(data, pos, length);
+					inflateRows(inflater);
+				}else if(type == CHUNK_IEND) {
+					break;
+				}
+				// Skip the data and CRC.
+				pos += length + 4;
+			}
+			if(raster == null || rowIndex < height)
+				throw new IOException("Incomplete PNG file");
+			return raster;
+		}finally {
+			inflater.end();
+		}
+	}
+	
+	private static int readInt(byte[] data, int pos) {
+		return ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) | 
+				((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+	}
+	
+	private boolean readHeader(byte[] data, int pos, int length) throws IOException {
+		if(length < 13)
+			throw new IOException("Invalid PNG header");
+		width = readInt(data, pos);
+		height = readInt(data, pos + 4);
+		bitDepth = data[pos + 8] & 0xFF;
+		colorType = data[pos + 9] & 0xFF;
+		int compression = data[pos + 10] & 0xFF;
+		int filter = data[pos + 11] & 0xFF;
+		int interlace = data[pos + 12] & 0xFF;
+		if(width <= 0 || height <= 0 || compression != 0 || filter != 0)
+			throw new IOException("Invalid PNG header");
+		if(interlace != 0)
+			return false;
+		if(((long) width) * ((long) height) > Integer.MAX_VALUE / 4)
+			return false;
+		switch(colorType) {
+		case COLOR_TYPE_GRAY:
+		case COLOR_TYPE_RGB:
+		case COLOR_TYPE_GRAY_ALPHA:
+		case COLOR_TYPE_RGBA:
+			return bitDepth == 8;
+		case COLOR_TYPE_PALETTE:
+			return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+		default:
+			return false;
+		}
+	}
+	
+	private void readPalette(byte[] data, int pos, int length) {
+		int numEntries = Math.min(length / 3, 256);
+		palette = new int[1 << bitDepth];
+		for(int i = 0; i < palette.length; ++i)
+			palette[i] = 0xFF000000;
+		for(int i = 0; i < numEntries && i < palette.length; ++i) {
+			palette[i] = 0xFF000000 | ((data[pos + i * 3] & 0xFF) << 16) | 
+						((data[pos + i * 3 + 1] & 0xFF) << 8) | (data[pos + i * 3 + 2] & 0xFF);
+		}
+	}
+	
+	private void startImage() throws IOException {
+		int channels = 1;
+		boolean hasAlpha = true;
+		switch(colorType) {
+		case COLOR_TYPE_RGB:
+			channels = 3;
+			hasAlpha = false;
+			break;
+		case COLOR_TYPE_GRAY_ALPHA:
+			channels = 2;
+			break;
+		case COLOR_TYPE_RGBA:
+			channels = 4;
+			break;
+		case COLOR_TYPE_PALETTE:
+			if(palette == null)
+				throw new IOException("Missing PNG palette");
+			hasAlpha = hasTransparency;
+			break;
+		}
+		int bitsPerPixel = channels * bitDepth;
+		bytesPerPixel = Math.max(bitsPerPixel / 8, 1);
+		int rowBytes = (width * bitsPerPixel + 7) / 8;
+		// The first byte of each row is the filter type.
+		row = new byte[rowBytes + 1];
+		prevRow = new byte[rowBytes + 1];
+		rowPos = 0;
+		rowIndex = 0;
+		raster = new ImageRaster(width, height, hasAlpha);
+	}
+	
+	private void inflateRows(Inflater inflater) throws IOException {
+		try {
+			while(rowIndex < height) {
+				int numBytes = inflater.inflate(row, rowPos, row.length - rowPos);
+				if(numBytes == 0) {
+					if(inflater.needsInput() || inflater.finished())
+						return;
+					throw new IOException("Invalid PNG data");
+				}
+				rowPos += numBytes;
+				if(rowPos == row.length) {
+					unfilterRow();
+					writeRow();
+					byte[] tmp = prevRow;
+					prevRow = row;
+					row = tmp;
+					rowPos = 0;
+					rowIndex++;
+				}
+			}
+		}catch(DataFormatException ex) {
+			throw new IOException("Invalid PNG data", ex);
+		}
+	}
+	
+	private void unfilterRow() throws IOException {
+		byte[] row = this.row;
+		byte[] prevRow = this.prevRow;
+		int bpp = bytesPerPixel;
+		int n = row.length;
+		switch(row[0]) {
+		case 0:
+			break;
+		case 1:
+			for(int i = 1 + bpp; i < n; ++i)
+				row[i] += row[i - bpp];
+			break;
+		case 2:
+			for(int i = 1; i < n; ++i)
+				row[i] += prevRow[i];
+			break;
+		case 3:
+			for(int i = 1; i < n; ++i) {
+				int left = i > bpp ? row[i - bpp] & 0xFF : 0;
+				row[i] += (byte) ((left + (prevRow[i] & 0xFF)) >>> 1);
+			}
+			break;
+		case 4:
+			for(int i = 1; i < n; ++i) {
+				int a = i > bpp ? row[i - bpp] & 0xFF : 0;
+				int b = prevRow[i] & 0xFF;
+				int c = i > bpp ? prevRow[i - bpp] & 0xFF : 0;
+				int p = a + b - c;
+				int pa = Math.abs(p - a);
+				int pb = Math.abs(p - b);
+				int pc = Math.abs(p - c);
+				if(pa <= pb && pa <= pc)
+					row[i] += (byte) a;
+				else if(pb <= pc)
+					row[i] += (byte) b;
+				else
+					row[i] += (byte) c;
+			}
+			break;
+		default:
+			throw new IOException("Invalid PNG filter type");
+		}
+	}
+	
+	private void writeRow() {
+		byte[] row = this.row;
+		int[] argb = raster.argb;
+		int index = rowIndex * width;
+		int end = index + width;
+		int i = 1;
+		switch(colorType) {
+		case COLOR_TYPE_GRAY:
+			for(; index < end; ++index, ++i)
+				argb[index] = 0xFF000000 | ((row[i] & 0xFF) * 0x010101);
+			break;
+		case COLOR_TYPE_GRAY_ALPHA:
+			for(; index < end; ++index, i += 2)
+				argb[index] = ((row[i + 1] & 0xFF) << 24) | ((row[i] & 0xFF) * 0x010101);
+			break;
+		case COLOR_TYPE_RGB:
+			for(; index < end; ++index, i += 3)
+				argb[index] = 0xFF000000 | ((row[i] & 0xFF) << 16) | ((row[i + 1] & 0xFF) << 8) | (row[i + 2] & 0xFF);
+			break;
+		case COLOR_TYPE_RGBA:
+			for(; index < end; ++index, i += 4)
+				argb[index] = ((row[i + 3] & 0xFF) << 24) | ((row[i] & 0xFF) << 16) | 
+								((row[i + 1] & 0xFF) << 8) | (row[i + 2] & 0xFF);
+			break;
+		case COLOR_TYPE_PALETTE:
+			if(bitDepth == 8) {
+				for(; index < end; ++index, ++i)
+					argb[index] = palette[row[i] & 0xFF];
+			}else {
+				int mask = (1 << bitDepth) - 1;
+				int pixelsPerByte = 8 / bitDepth;
+				for(int x = 0; index < end; ++index, ++x) {
+					int b = row[1 + x / pixelsPerByte] & 0xFF;
+					int shift = 8 - bitDepth * (1 + (x % pixelsPerByte));
+					argb[index] = palette[(b >>> shift) & mask];
+				}
+			}
+			break;
+		}
+	}
+	
+}
@@ -34,10 +34,13 @@ package nl.bramstout.mcworldexporter.materials;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -246,6 +249,7 @@ public class Materials {
 		
 		public String condition;
 		public List<ShadingNode> nodes;
+		private ParsedCondition parsedCondition;
 		
 		public MaterialNetwork() {
 			this("");
@@ -293,14 +297,23 @@ public class Materials {
 			return null;
 		}
 		
+		private ParsedCondition getParsedCondition() {
+			ParsedCondition parsedCondition = this.parsedCondition;
+			// The condition is a public field, so check that
+			// it hasn't been changed since we parsed it.
+			if(parsedCondition == null || !parsedCondition.source.equals(condition)) {
+				parsedCondition = new ParsedCondition(condition);
+				this.parsedCondition = parsedCondition;
+			}
+			return parsedCondition;
+		}
+		
 		public boolean evaluateCondition(String texture, boolean hasBiomeColor, boolean isDoubleSided, 
 										Set<String> colorSets, String currentWorkingDirectory, String shadingMode) {
-			for(String condition : this.condition.split("&&")) {
-				boolean invert = false;
-				if(condition.startsWith("!")) {
-					invert = true;
-					condition = condition.substring(1);
-				}
+			ParsedCondition parsedCondition = getParsedCondition();
+			for(int i = 0; i < parsedCondition.conditions.length; ++i) {
+				String condition = parsedCondition.conditions[i];
+				boolean invert = parsedCondition.inverted[i];
 				if(condition.isEmpty())
 					continue;
 				if(condition.equals("@biomeColor@")) {
@@ -439,6 +452,30 @@ public class Materials {
 		
 	}
 	
+	/**
+	 * A network condition split up into its terms,
+	 * so that we don't need to split it every time.
+	 */
+	private static class ParsedCondition{
+		
+		public final String source;
+		public final String[] conditions;
+		public final boolean[] inverted;
+		
+		public ParsedCondition(String source) {
+			this.source = source;
+			this.conditions = source.split("&&");
+			this.inverted = new boolean[conditions.length];
+			for(int i = 0; i < conditions.length; ++i) {
+				if(conditions[i].startsWith("!")) {
+					inverted[i] = true;
+					conditions[i] = conditions[i].substring(1);
+				}
+			}
+		}
+		
+	}
+	
 	public static class MaterialTemplate{
 		
 		public int priority;
@@ -482,41 +519,45 @@ public class Materials {
 			if(texture.isEmpty())
 				return false;
 			for(String selStr : selection) {
-				if(selStr.isEmpty())
-					continue;
-				int texIndex = 0;
-				int selIndex = 0;
-				int lastWildcard = -1;
-				boolean rechecked = false;
-				while(true) {
-					if(texIndex >= texture.length())
-						break;
-					
-					if(texture.codePointAt(texIndex) == selStr.codePointAt(Math.min(selIndex, selStr.length()-1))) {
-						texIndex++;
-						selIndex++;
+				if(isInSelection(texture, selStr))
+					return true;
+			}
+			return false;
+		}
+		
+		public static boolean isInSelection(String texture, String selStr) {
+			if(texture.isEmpty() || selStr.isEmpty())
+				return false;
+			int texIndex = 0;
+			int selIndex = 0;
+			int lastWildcard = -1;
+			boolean rechecked = false;
+			while(true) {
+				if(texIndex >= texture.length())
+					break;
+				
+				if(texture.codePointAt(texIndex) == selStr.codePointAt(Math.min(selIndex, selStr.length()-1))) {
+					texIndex++;
+					selIndex++;
+					rechecked = false;
+				}else {
+					texIndex++;
+					if(rechecked)
 						rechecked = false;
+					else {
+						texIndex--;
+						rechecked = true;
+					}
+					if(selStr.codePointAt(Math.min(selIndex, selStr.length()-1)) == '*')
+						lastWildcard = Math.min(selIndex, selStr.length()-1);
+					if(lastWildcard >= 0) {
+						selIndex = lastWildcard + 1;
 					}else {
-						texIndex++;
-						if(rechecked)
-							rechecked = false;
-						else {
-							texIndex--;
-							rechecked = true;
-						}
-						if(selStr.codePointAt(Math.min(selIndex, selStr.length()-1)) == '*')
-							lastWildcard = Math.min(selIndex, selStr.length()-1);
-						if(lastWildcard >= 0) {
-							selIndex = lastWildcard + 1;
-						}else {
-							break;
-						}
+						break;
 					}
 				}
-				if(texIndex == texture.length() && selIndex == selStr.length())
-					return true;
 			}
-			return false;
+			return texIndex == texture.length() && selIndex == selStr.length();
 		}
 		
 		public MaterialTemplate flatten(String texture, boolean hasBiomeColor, boolean isDoubleSided, 
@@ -546,20 +587,189 @@ public class Materials {
 		
 	}
 	
+	/**
+	 * Everything that goes into flattening a template,
+	 * used as the key for the cache of flattened materials.
+	 */
+	private static class MaterialKey{
+		
+		private String texture;
+		private boolean hasBiomeColor;
+		private boolean isDoubleSided;
+		private Set<String> colorSets;
+		private String currentWorkingDirectory;
+		private String shadingMode;
+		private int hash;
+		
+		public MaterialKey(String texture, boolean hasBiomeColor, boolean isDoubleSided, 
+							Set<String> colorSets, String currentWorkingDirectory, String shadingMode) {
+			this.texture = texture;
+			this.hasBiomeColor = hasBiomeColor;
+			this.isDoubleSided = isDoubleSided;
+			this.colorSets = colorSets == null ? new HashSet<String>() : new HashSet<String>(colorSets);
+			this.currentWorkingDirectory = currentWorkingDirectory;
+			this.shadingMode = shadingMode;
+			this.hash = Objects.hash(texture, hasBiomeColor, isDoubleSided, this.colorSets, 
+										currentWorkingDirectory, shadingMode);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof MaterialKey))
+				return false;
+			MaterialKey other = (MaterialKey) obj;
+			return hash == other.hash && hasBiomeColor == other.hasBiomeColor && isDoubleSided == other.isDoubleSided && 
+					texture.equals(other.texture) && colorSets.equals(other.colorSets) && 
+					Objects.equals(currentWorkingDirectory, other.currentWorkingDirectory) && 
+					Objects.equals(shadingMode, other.shadingMode);
+		}
+		
+	}
+	
+	/**
+	 * The selection strings of all templates compiled into a trie
+	 * on their literal prefix, which is everything before the first
+	 * wildcard. A texture can only be in a selection if it starts with
+	 * that prefix, so we only need to run the full check for the
+	 * selections that we come across while walking the trie with
+	 * the texture. The results are cached until the next reload.
+	 */
+	private static class TemplateMatcher{
+		
+		private static class Selection{
+			
+			public int listIndex;
+			public int templateIndex;
+			public MaterialTemplate template;
+			public String selection;
+			
+			public Selection(int listIndex, int templateIndex, MaterialTemplate template, String selection) {
+				this.listIndex = listIndex;
+				this.templateIndex = templateIndex;
+				this.template = template;
+				this.selection = selection;
+			}
+			
+		}
+		
+		private static class TrieNode{
+			
+			public Map<Character, TrieNode> children = new HashMap<Character, TrieNode>();
+			public List<Selection> selections = new ArrayList<Selection>();
+			
+		}
+		
+		private TrieNode root;
+		private Map<String, MaterialTemplate> templateCache;
+		private Map<MaterialKey, MaterialTemplate> materialCache;
+		
+		public TemplateMatcher(List<List<MaterialTemplate>> templates) {
+			root = new TrieNode();
+			templateCache = new ConcurrentHashMap<String, MaterialTemplate>();
+			materialCache = new ConcurrentHashMap<MaterialKey, MaterialTemplate>();
+			for(int listIndex = 0; listIndex < templates.size(); ++listIndex) {
+				List<MaterialTemplate> templateList = templates.get(listIndex);
+				for(int templateIndex = 0; templateIndex < templateList.size(); ++templateIndex) {
+					MaterialTemplate template = templateList.get(templateIndex);
+					for(String selStr : template.selection) {
+						if(selStr.isEmpty())
+							continue;
+						TrieNode node = root;
+						for(int i = 0; i < selStr.length(); ++i) {
+							char c = selStr.charAt(i);
+							if(c == '*')
+								break;
+							TrieNode child = node.children.get(c);
+							if(child == null) {
+								child = new TrieNode();
+								node.children.put(c, child);
+							}
+							node = child;
+						}
+						node.selections.add(new Selection(listIndex, templateIndex, template, selStr));
+					}
+				}
+			}
+		}
+		
+		public MaterialTemplate getTemplate(String texture) {
+			MaterialTemplate template = templateCache.get(texture);
+			if(template == null) {
+				template = findTemplate(texture);
+				if(template == null)
+					template = NO_MATERIAL;
+				templateCache.put(texture, template);
+			}
+			return template == NO_MATERIAL ? null : template;
+		}
+		
+		private MaterialTemplate findTemplate(String texture) {
+			if(texture.isEmpty())
+				return null;
+			// The template lists are in order of resource pack priority,
+			// so the first list with a match wins. Within a list, the
+			// template with the highest priority wins and with the same
+			// priority, the first template wins.
+			Selection best = null;
+			TrieNode node = root;
+			int i = 0;
+			while(node != null) {
+				for(Selection selection : node.selections) {
+					if(best != null) {
+						if(selection.listIndex > best.listIndex)
+							continue;
+						if(selection.listIndex == best.listIndex) {
+							if(selection.template.priority < best.template.priority)
+								continue;
+							if(selection.template.priority == best.template.priority && 
+									selection.templateIndex >= best.templateIndex)
+								continue;
+						}
+					}
+					if(MaterialTemplate.isInSelection(texture, selection.selection))
+						best = selection;
+				}
+				if(i >= texture.length())
+					break;
+				node = node.children.get(texture.charAt(i));
+				i++;
+			}
+			return best == null ? null : best.template;
+		}
+		
+	}
+	
+	private static final MaterialTemplate NO_MATERIAL = new MaterialTemplate("");
+	
 	private static Object templatesMutex = new Object();
 	private static List<List<MaterialTemplate>> templates = null;
+	private static TemplateMatcher templateMatcher = null;
 	public static MaterialNetwork sharedNodes = new MaterialNetwork();
 	
 	public static MaterialTemplate getMaterial(String texture, boolean hasBiomeColor, boolean isDoubleSided, 
 												Set<String> colorSets, String currentWorkingDirectory, String shadingMode) {
-		if(templates == null) {
+		TemplateMatcher matcher = templateMatcher;
+		if(matcher == null) {
 			synchronized(templatesMutex) {
-				if(templates == null)
+				if(templateMatcher == null)
 					reload();
+				matcher = templateMatcher;
 			}
 		}
 		
 		try {
+			// Textures get looked up for every mesh, so cache the flattened materials.
+			MaterialKey key = new MaterialKey(texture, hasBiomeColor, isDoubleSided, colorSets, 
+												currentWorkingDirectory, shadingMode);
+			MaterialTemplate material = matcher.materialCache.get(key);
+			if(material != null)
+				return material == NO_MATERIAL ? null : material;
+			
 			// If we are using templates, then they are created based on which template
 			// the textures are in, but those templates don't have a search string
 			// for the right atlasses (they can't know what name they would be anyways).
@@ -568,16 +778,11 @@ public class Materials {
 			// template to use.
 			String templateTexture = Atlas.getTemplateTextureForAtlas(texture, texture);
 			
-			for(List<MaterialTemplate> templateList : templates) {
-				MaterialTemplate currentTemplate = null;
-				for(MaterialTemplate template : templateList) {
-					if(currentTemplate == null || template.priority > currentTemplate.priority)
-						if(template.isInSelection(templateTexture))
-							currentTemplate = template;
-				}
-				if(currentTemplate != null)
-					return currentTemplate.flatten(texture, hasBiomeColor, isDoubleSided, colorSets, currentWorkingDirectory, shadingMode);
-			}
+			MaterialTemplate template = matcher.getTemplate(templateTexture);
+			if(template != null)
+				material = template.flatten(texture, hasBiomeColor, isDoubleSided, colorSets, currentWorkingDirectory, shadingMode);
+			matcher.materialCache.put(key, material == null ? NO_MATERIAL : material);
+			return material;
 		}catch(Exception ex) {
 			System.out.println("Failed to get material for texture " + texture);
 			ex.printStackTrace();
@@ -606,6 +811,7 @@ public class Materials {
 		}catch(Exception ex) {
 			new RuntimeException("Could not load material templates", ex).printStackTrace();
 		}
+		templateMatcher = new TemplateMatcher(templates);
 	}
 	
 	private static void loadFromDir(File dir, List<MaterialNetwork> sharedNetworks, List<ResourcePack> resourcePacks, 
@@ -33,6 +33,7 @@ package nl.bramstout.mcworldexporter.model;
 
 import java.util.List;
 
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.export.Noise;
 import nl.bramstout.mcworldexporter.lighting.BlockLightValues;
 import nl.bramstout.mcworldexporter.model.BlockState.DefaultTexture;
@@ -60,6 +61,7 @@ public class BakedBlockState {
 	private boolean lodNoScale;
 	private int lodPriority;
 	private boolean separateMeshForBlock;
+	private int configFlags;
 	private TintLayers tint;
 	private boolean needsConnectionInfo;
 	private boolean _hasLocators;
@@ -106,6 +108,7 @@ public class BakedBlockState {
 		this.lodNoScale = lodNoScale;
 		this.lodPriority = lodPriority;
 		this.separateMeshForBlock = separateMeshForBlock;
+		this.configFlags = ConfigFlags.getFlags(name);
 		this.tint = tint;
 		this.needsConnectionInfo = needsConnectionInfo;
 		this._hasLocators = hasLocators;
@@ -219,6 +222,13 @@ public class BakedBlockState {
 		return lodNoUVScale;
 	}
 	
+	/**
+	 * The ConfigFlags for this block's name.
+	 */
+	public int getConfigFlags() {
+		return configFlags;
+	}
+	
 	public boolean isLodNoScale() {
 		return lodNoScale;
 	}
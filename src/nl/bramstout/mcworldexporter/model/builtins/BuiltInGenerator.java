@@ -127,7 +127,7 @@ public abstract class BuiltInGenerator {
 			if(arguments.containsKey("model"))
 				modelName = arguments.get("model").eval(context).asString();
 			if(arguments.containsKey("doubleSided"))
-				doubleSided = arguments.get("doubleSided").eval(context).asBool();
+				doubleSided = arguments.get("doubleSided").evalBool(context);
 			if(arguments.containsKey("tints")) {
 				ExprValue tintsVal = arguments.get("tints").eval(context);
 				for(Entry<String, ExprValue> tint : tintsVal.getChildren().entrySet()) {
@@ -207,11 +207,11 @@ public abstract class BuiltInGenerator {
 					properties = (NbtTagCompound) propertiesTag.copy();
 			}
 			if(arguments.containsKey("x"))
-				x = (int) arguments.get("x").eval(context).asInt();
+				x = (int) arguments.get("x").evalInt(context);
 			if(arguments.containsKey("y"))
-				y = (int) arguments.get("y").eval(context).asInt();
+				y = (int) arguments.get("y").evalInt(context);
 			if(arguments.containsKey("z"))
-				z = (int) arguments.get("z").eval(context).asInt();
+				z = (int) arguments.get("z").evalInt(context);
 			
 			Reference<char[]> charBuffer = new Reference<char[]>();
 			int blockId = BlockRegistry.getIdForName(blockName, properties, Integer.MAX_VALUE, charBuffer);
@@ -510,11 +510,11 @@ public abstract class BuiltInGenerator {
 					properties = (NbtTagCompound) propertiesTag.copy();
 			}
 			if(arguments.containsKey("x"))
-				x = (int) arguments.get("x").eval(context).asInt();
+				x = (int) arguments.get("x").evalInt(context);
 			if(arguments.containsKey("y"))
-				y = (int) arguments.get("y").eval(context).asInt();
+				y = (int) arguments.get("y").evalInt(context);
 			if(arguments.containsKey("z"))
-				z = (int) arguments.get("z").eval(context).asInt();
+				z = (int) arguments.get("z").evalInt(context);
 			
 			if(arguments.containsKey("prefix"))
 				prefix = arguments.get("prefix").eval(context).asString();
@@ -750,22 +750,22 @@ public abstract class BuiltInGenerator {
 				properties = arguments.get("state").eval(context);
 			
 			if(arguments.containsKey("textOffsetX"))
-				textOffsetX = arguments.get("textOffsetX").eval(context).asFloat();
+				textOffsetX = arguments.get("textOffsetX").evalFloat(context);
 			
 			if(arguments.containsKey("textOffsetY"))
-				textOffsetY = arguments.get("textOffsetY").eval(context).asFloat();
+				textOffsetY = arguments.get("textOffsetY").evalFloat(context);
 			
 			if(arguments.containsKey("textOffsetZ"))
-				textOffsetZ = arguments.get("textOffsetZ").eval(context).asFloat();
+				textOffsetZ = arguments.get("textOffsetZ").evalFloat(context);
 			
 			if(arguments.containsKey("textOffsetZBack"))
-				textOffsetZBack = arguments.get("textOffsetZBack").eval(context).asFloat();
+				textOffsetZBack = arguments.get("textOffsetZBack").evalFloat(context);
 			
 			if(arguments.containsKey("textScale"))
-				textScale = arguments.get("textScale").eval(context).asFloat();
+				textScale = arguments.get("textScale").evalFloat(context);
 			
 			if(arguments.containsKey("lineDistance"))
-				lineDistance = arguments.get("lineDistance").eval(context).asFloat();
+				lineDistance = arguments.get("lineDistance").evalFloat(context);
 			
 			if (arguments.containsKey("font"))
 				font = ResourcePacks.getFont(arguments.get("font").eval(context).asString());
@@ -1187,19 +1187,19 @@ public abstract class BuiltInGenerator {
 				font = ResourcePacks.getFont("minecraft:default");
 
 			if (arguments.containsKey("textOffsetX"))
-				textOffsetX = arguments.get("textOffsetX").eval(context).asFloat();
+				textOffsetX = arguments.get("textOffsetX").evalFloat(context);
 
 			if (arguments.containsKey("textOffsetY"))
-				textOffsetY = arguments.get("textOffsetY").eval(context).asFloat();
+				textOffsetY = arguments.get("textOffsetY").evalFloat(context);
 
 			if (arguments.containsKey("textOffsetZ"))
-				textOffsetZ = arguments.get("textOffsetZ").eval(context).asFloat();
+				textOffsetZ = arguments.get("textOffsetZ").evalFloat(context);
 
 			if (arguments.containsKey("textScale"))
-				textScale = arguments.get("textScale").eval(context).asFloat();
+				textScale = arguments.get("textScale").evalFloat(context);
 
 			if (arguments.containsKey("textRotateY"))
-				rotY = arguments.get("textRotateY").eval(context).asFloat();
+				rotY = arguments.get("textRotateY").evalFloat(context);
 
 			if (arguments.containsKey("color")) {
 				ExprValue val = arguments.get("color").eval(context);
@@ -1212,7 +1212,7 @@ public abstract class BuiltInGenerator {
 			}
 
 			if (arguments.containsKey("glowing"))
-				glowing = arguments.get("glowing").eval(context).asBool();
+				glowing = arguments.get("glowing").evalBool(context);
 			
 			if(glowing)
 				shadingMode = ModelFace.SHADING_MODE_FULLBRIGHT;
@@ -168,10 +168,10 @@ public class BuiltInModel {
 			JsonObject faceData = new JsonObject();
 			
 			if(entityUVsMinU != null) {
-				float minU = entityUVsMinU.eval(context).asFloat();
-				float minV = entityUVsMinV.eval(context).asFloat();
-				float maxU = entityUVsMaxU.eval(context).asFloat();
-				float maxV = entityUVsMaxV.eval(context).asFloat();
+				float minU = entityUVsMinU.evalFloat(context);
+				float minV = entityUVsMinV.evalFloat(context);
+				float maxU = entityUVsMaxU.evalFloat(context);
+				float maxV = entityUVsMaxV.evalFloat(context);
 				// Use entity UVs
 				float width = Math.abs(bounds[3] - bounds[0]);
 				float height = Math.abs(bounds[4] - bounds[1]);
@@ -233,10 +233,10 @@ public class BuiltInModel {
 			
 			if(minU != null) {
 				JsonArray uv = new JsonArray();
-				uv.add(minU.eval(context).asFloat());
-				uv.add(minV.eval(context).asFloat());
-				uv.add(maxU.eval(context).asFloat());
-				uv.add(maxV.eval(context).asFloat());
+				uv.add(minU.evalFloat(context));
+				uv.add(minV.evalFloat(context));
+				uv.add(maxU.evalFloat(context));
+				uv.add(maxV.evalFloat(context));
 				faceData.add("uv", uv);
 			}
 			if(texture != null) {
@@ -246,13 +246,13 @@ public class BuiltInModel {
 				faceData.addProperty("texture", textureStr);
 			}
 			if(rotation != null) {
-				faceData.addProperty("rotation", rotation.eval(context).asInt());
+				faceData.addProperty("rotation", rotation.evalInt(context));
 			}
 			if(affineRotation) {
 				faceData.addProperty("rotationMiEx", true);
 			}
 			if(tintIndex != null) {
-				faceData.addProperty("tintindex", tintIndex.eval(context).asInt());
+				faceData.addProperty("tintindex", tintIndex.evalInt(context));
 			}
 			String shadingModeStr = ModelFace.SHADING_MODE_STANDARD;
 			if(shadingMode != null)
@@ -415,17 +415,17 @@ public class BuiltInModel {
 			float maxZ = 0;
 			
 			if(this.minX != null)
-				minX = this.minX.eval(context).asFloat();
+				minX = this.minX.evalFloat(context);
 			if(this.minY != null)
-				minY = this.minY.eval(context).asFloat();
+				minY = this.minY.evalFloat(context);
 			if(this.minZ != null)
-				minZ = this.minZ.eval(context).asFloat();
+				minZ = this.minZ.evalFloat(context);
 			if(this.maxX != null)
-				maxX = this.maxX.eval(context).asFloat();
+				maxX = this.maxX.evalFloat(context);
 			if(this.maxY != null)
-				maxY = this.maxY.eval(context).asFloat();
+				maxY = this.maxY.evalFloat(context);
 			if(this.maxZ != null)
-				maxZ = this.maxZ.eval(context).asFloat();
+				maxZ = this.maxZ.evalFloat(context);
 			
 			JsonObject rotateData = null;
 			if(rotateAxis != null && (rotateAxis.equals("x") || rotateAxis.equals("y") || rotateAxis.equals("z"))) {
@@ -435,11 +435,11 @@ public class BuiltInModel {
 				float originY = 8f;
 				float originZ = 8f;
 				if(rotatePivotX != null)
-					originX = rotatePivotX.eval(context).asFloat();
+					originX = rotatePivotX.evalFloat(context);
 				if(rotatePivotY != null)
-					originY = rotatePivotY.eval(context).asFloat();
+					originY = rotatePivotY.evalFloat(context);
 				if(rotatePivotZ != null)
-					originZ = rotatePivotZ.eval(context).asFloat();
+					originZ = rotatePivotZ.evalFloat(context);
 				JsonArray origin = new JsonArray();
 				origin.add(originX);
 				origin.add(originY);
@@ -447,7 +447,7 @@ public class BuiltInModel {
 				rotateData.add("origin", origin);
 				float angle = 0;
 				if(rotateAngle != null)
-					angle = rotateAngle.eval(context).asFloat();
+					angle = rotateAngle.evalFloat(context);
 				rotateData.addProperty("angle", angle);
 				rotateData.addProperty("rescale", rotateRescale);
 			}
@@ -640,50 +640,50 @@ public class BuiltInModel {
 			float pivotZ = 8f;
 			
 			if(this.translateX != null)
-				translateX = this.translateX.eval(context).asFloat();
+				translateX = this.translateX.evalFloat(context);
 			if(this.translateY != null)
-				translateY = this.translateY.eval(context).asFloat();
+				translateY = this.translateY.evalFloat(context);
 			if(this.translateZ != null)
-				translateZ = this.translateZ.eval(context).asFloat();
+				translateZ = this.translateZ.evalFloat(context);
 			
 			if(this.rotateX != null)
-				rotateX = this.rotateX.eval(context).asFloat();
+				rotateX = this.rotateX.evalFloat(context);
 			if(this.rotateY != null)
-				rotateY = this.rotateY.eval(context).asFloat();
+				rotateY = this.rotateY.evalFloat(context);
 			if(this.rotateZ != null)
-				rotateZ = this.rotateZ.eval(context).asFloat();
+				rotateZ = this.rotateZ.evalFloat(context);
 			
 			if(this.quaternionX != null)
-				quaternionX = this.quaternionX.eval(context).asFloat();
+				quaternionX = this.quaternionX.evalFloat(context);
 			if(this.quaternionY != null)
-				quaternionY = this.quaternionY.eval(context).asFloat();
+				quaternionY = this.quaternionY.evalFloat(context);
 			if(this.quaternionZ != null)
-				quaternionZ = this.quaternionZ.eval(context).asFloat();
+				quaternionZ = this.quaternionZ.evalFloat(context);
 			if(this.quaternionW != null)
-				quaternionW = this.quaternionW.eval(context).asFloat();
+				quaternionW = this.quaternionW.evalFloat(context);
 			
 			if(this.axisAngleX != null)
-				axisAngleX = this.axisAngleX.eval(context).asFloat();
+				axisAngleX = this.axisAngleX.evalFloat(context);
 			if(this.axisAngleY != null)
-				axisAngleY = this.axisAngleY.eval(context).asFloat();
+				axisAngleY = this.axisAngleY.evalFloat(context);
 			if(this.axisAngleZ != null)
-				axisAngleZ = this.axisAngleZ.eval(context).asFloat();
+				axisAngleZ = this.axisAngleZ.evalFloat(context);
 			if(this.axisAngleA != null)
-				axisAngleA = this.axisAngleA.eval(context).asFloat();
+				axisAngleA = this.axisAngleA.evalFloat(context);
 			
 			if(this.scaleX != null)
-				scaleX = this.scaleX.eval(context).asFloat();
+				scaleX = this.scaleX.evalFloat(context);
 			if(this.scaleY != null)
-				scaleY = this.scaleY.eval(context).asFloat();
+				scaleY = this.scaleY.evalFloat(context);
 			if(this.scaleZ != null)
-				scaleZ = this.scaleZ.eval(context).asFloat();
+				scaleZ = this.scaleZ.evalFloat(context);
 			
 			if(this.pivotX != null)
-				pivotX = this.pivotX.eval(context).asFloat();
+				pivotX = this.pivotX.evalFloat(context);
 			if(this.pivotY != null)
-				pivotY = this.pivotY.eval(context).asFloat();
+				pivotY = this.pivotY.evalFloat(context);
 			if(this.pivotZ != null)
-				pivotZ = this.pivotZ.eval(context).asFloat();
+				pivotZ = this.pivotZ.evalFloat(context);
 			
 			Matrix quaternionMatrix = null;
 			if(quaternionX != 0f || quaternionY != 0f || quaternionZ != 0f || quaternionW != 1f)
@@ -829,7 +829,7 @@ public class BuiltInModel {
 		public void eval(ExprContext context) {
 			int faceStartIndex = context.model.getFaces().size();
 			if(condition != null) {
-				if(!condition.eval(context).asBool())
+				if(!condition.evalBool(context))
 					return;
 			}
 			if(loopInit != null) {
@@ -837,7 +837,7 @@ public class BuiltInModel {
 			}
 			if(loopCondition != null) {
 				int counter = 0;
-				while(loopCondition.eval(context).asBool()) {
+				while(loopCondition.evalBool(context)) {
 					for(int i = 0; i < subExpressions.length; ++i) {
 						subExpressions[i].eval(context);
 					}
@@ -33,15 +33,20 @@ package nl.bramstout.mcworldexporter.modifier;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.Attribute;
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.Value;
 import nl.bramstout.mcworldexporter.resourcepack.Tags;
+import nl.bramstout.mcworldexporter.world.World;
 
 public class Modifier {
 	
@@ -51,6 +56,7 @@ public class Modifier {
 	private int priority;
 	protected Map<String, ModifierNode> nodes;
 	private List<String> runNodes;
+	private ModifierProgram program;
 	
 	public Modifier(JsonObject data, int rpPriority) {
 		this.allBlocks = false;
@@ -121,6 +127,87 @@ public class Modifier {
 				}
 			}
 		}
+		
+		compile();
+	}
+	
+	/**
+	 * Compiles the node graph into a ModifierProgram. Connections are
+	 * resolved to the nodes themselves and pure nodes that only depend
+	 * on constant values are evaluated once here, rather than for every
+	 * block or face. The run nodes are then compiled, in order, into
+	 * a flat list of instructions.
+	 */
+	private void compile() {
+		// Sort the nodes so that every node comes after its inputs.
+		List<ModifierNode> sortedNodes = new ArrayList<ModifierNode>();
+		Set<ModifierNode> visitedNodes = new HashSet<ModifierNode>();
+		Set<ModifierNode> visitingNodes = new HashSet<ModifierNode>();
+		for(ModifierNode node : nodes.values())
+			sortNode(node, sortedNodes, visitedNodes, visitingNodes);
+		
+		// Fold constants. Since the nodes are sorted, the inputs
+		// of a node have already been folded when we get to it.
+		Map<ModifierNode, Value> constantValues = new HashMap<ModifierNode, Value>();
+		ModifierContext constantContext = new ModifierContext();
+		constantContext.currentModifier = this;
+		for(ModifierNode node : sortedNodes) {
+			boolean isConstant = node.isPure();
+			for(Attribute attr : node.getAttributes()) {
+				if(!attr.isConnected())
+					continue;
+				Value constantValue = attr.getInputNode() == null ? null : 
+											constantValues.getOrDefault(attr.getInputNode(), null);
+				if(constantValue != null) {
+					attr.disconnect();
+					attr.setValue(constantValue);
+				}else {
+					isConstant = false;
+				}
+			}
+			if(isConstant) {
+				try {
+					constantValues.put(node, node.evaluate(constantContext));
+				}catch(Exception ex) {
+					// Leave it to be evaluated for every block.
+				}
+			}
+		}
+		
+		ModifierCompiler compiler = new ModifierCompiler();
+		for(String runNode : runNodes) {
+			ModifierNode node = nodes.getOrDefault(runNode, null);
+			if(node != null)
+				compiler.compileRunNode(node);
+		}
+		program = compiler.finish();
+	}
+	
+	private void sortNode(ModifierNode node, List<ModifierNode> sortedNodes, 
+							Set<ModifierNode> visitedNodes, Set<ModifierNode> visitingNodes) {
+		if(visitedNodes.contains(node))
+			return;
+		visitingNodes.add(node);
+		for(Attribute attr : node.getAttributes()) {
+			if(!attr.isConnected())
+				continue;
+			ModifierNode inputNode = nodes.getOrDefault(attr.getInput(), null);
+			if(inputNode == null) {
+				World.handleError(new Exception("Node " + attr.getInput() + " does not exist in modifier graph!"));
+				continue;
+			}
+			if(visitingNodes.contains(inputNode)) {
+				World.handleError(new Exception("Node " + node.getName() + " has a cyclic connection to " + 
+									inputNode.getName() + " in modifier graph!"));
+				attr.disconnect();
+				continue;
+			}
+			attr.resolve(inputNode);
+			sortNode(inputNode, sortedNodes, visitedNodes, visitingNodes);
+		}
+		visitingNodes.remove(node);
+		visitedNodes.add(node);
+		sortedNodes.add(node);
 	}
 	
 	public boolean isAllBlocks() {
@@ -145,12 +232,7 @@ public class Modifier {
 	
 	public void run(ModifierContext context) {
 		context.currentModifier = this;
-		for(String runNode : runNodes) {
-			ModifierNode node = nodes.getOrDefault(runNode, null);
-			if(node != null) {
-				node.evaluate(context);
-			}
-		}
+		program.run(context);
 	}
 
 }
@@ -0,0 +1,238 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package nl.bramstout.mcworldexporter.modifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.Attribute;
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.Value;
+
+/**
+ * Turns the node graph of a modifier into a ModifierProgram.
+ * 
+ * Nodes are compiled when they are first needed, so in the same order in
+ * which evaluating the run nodes recursively would evaluate them. That way
+ * the side effects of set nodes happen in the order that the graph implies.
+ * A node that has definitely been computed on the current path just
+ * reuses its register. A node that may or may not have been computed
+ * (because it was computed in a branch) gets guarded by a
+ * SKIP_IF_VALID instruction.
+ */
+public class ModifierCompiler {
+	
+	private static final int STATE_MAYBE = 1;
+	private static final int STATE_DEFINITE = 2;
+	
+	private int[] code;
+	private int codeSize;
+	private int numRegisters;
+	private List<ModifierNode> callNodes;
+	private Map<ModifierNode, Integer> callNodeIndices;
+	private List<Value> constants;
+	private Map<Value, Integer> constantIndices;
+	private int[] labels;
+	private int numLabels;
+	private List<Integer> labelReferences;
+	private Map<ModifierNode, Integer> states;
+	private List<List<ModifierNode>> branches;
+	
+	ModifierCompiler() {
+		this.code = new int[64];
+		this.codeSize = 0;
+		this.numRegisters = 0;
+		this.callNodes = new ArrayList<ModifierNode>();
+		this.callNodeIndices = new HashMap<ModifierNode, Integer>();
+		this.constants = new ArrayList<Value>();
+		// Values with the same contents aren't shared,
+		// since nodes could modify the values they get.
+		this.constantIndices = new IdentityHashMap<Value, Integer>();
+		this.labels = new int[16];
+		this.numLabels = 0;
+		this.labelReferences = new ArrayList<Integer>();
+		this.states = new HashMap<ModifierNode, Integer>();
+		this.branches = new ArrayList<List<ModifierNode>>();
+	}
+	
+	/**
+	 * Compiles a node that the modifier runs. It's always evaluated
+	 * again, even if it was already evaluated as the input of
+	 * another node, so it gets its own register.
+	 */
+	void compileRunNode(ModifierNode node) {
+		node.compile(this, allocateRegister());
+	}
+	
+	ModifierProgram finish() {
+		for(int reference : labelReferences)
+			code[reference] = labels[code[reference]];
+		return new ModifierProgram(Arrays.copyOf(code, codeSize), numRegisters, 
+									callNodes.toArray(new ModifierNode[callNodes.size()]), 
+									constants.toArray(new Value[constants.size()]));
+	}
+	
+	/**
+	 * Makes sure that the value of the attribute is available
+	 * and returns the operand to read it with.
+	 */
+	public int getInput(Attribute attr) {
+		if(!attr.isConnected())
+			return getConstant(attr.getValue());
+		ModifierNode node = attr.getInputNode();
+		if(node == null)
+			return getConstant(new Value());
+		return compileNode(node);
+	}
+	
+	private int compileNode(ModifierNode node) {
+		int state = states.getOrDefault(node, 0);
+		if(state == STATE_DEFINITE)
+			return node.register;
+		if(node.register < 0)
+			node.register = allocateRegister();
+		
+		if(state == STATE_MAYBE) {
+			int skipLabel = newLabel();
+			emit(ModifierProgram.OP_SKIP_IF_VALID, node.register);
+			emitLabelReference(skipLabel);
+			beginBranch();
+			node.compile(this, node.register);
+			endBranch();
+			placeLabel(skipLabel);
+		}else {
+			node.compile(this, node.register);
+		}
+		setDefinite(node);
+		return node.register;
+	}
+	
+	private void setDefinite(ModifierNode node) {
+		states.put(node, STATE_DEFINITE);
+		if(!branches.isEmpty())
+			branches.get(branches.size() - 1).add(node);
+	}
+	
+	/**
+	 * Starts a piece of code that might not get run. Nodes
+	 * computed in it are only definitely computed until endBranch().
+	 */
+	public void beginBranch() {
+		branches.add(new ArrayList<ModifierNode>());
+	}
+	
+	public void endBranch() {
+		List<ModifierNode> branch = branches.remove(branches.size() - 1);
+		for(ModifierNode node : branch)
+			states.put(node, STATE_MAYBE);
+		// The outer branch needs to know about them too,
+		// so that it can demote them when it ends.
+		if(!branches.isEmpty())
+			branches.get(branches.size() - 1).addAll(branch);
+	}
+	
+	/**
+	 * Compiles one of the branches of a node like "if", that
+	 * only get evaluated when they are picked, and moves its value into dst.
+	 */
+	public void compileBranch(Attribute attr, int dst) {
+		beginBranch();
+		int value = getInput(attr);
+		emit(ModifierProgram.OP_MOVE, dst, value);
+		endBranch();
+	}
+	
+	public int getConstant(Value value) {
+		Integer index = constantIndices.getOrDefault(value, null);
+		if(index == null) {
+			index = constants.size();
+			constants.add(value);
+			constantIndices.put(value, index);
+		}
+		return -1 - index.intValue();
+	}
+	
+	public int allocateRegister() {
+		return numRegisters++;
+	}
+	
+	public int newLabel() {
+		if(numLabels >= labels.length)
+			labels = Arrays.copyOf(labels, labels.length * 2);
+		labels[numLabels] = -1;
+		return numLabels++;
+	}
+	
+	public void placeLabel(int label) {
+		labels[label] = codeSize;
+	}
+	
+	public void emit(int... words) {
+		if(codeSize + words.length > code.length)
+			code = Arrays.copyOf(code, Math.max(code.length * 2, codeSize + words.length));
+		for(int word : words)
+			code[codeSize++] = word;
+	}
+	
+	/**
+	 * Emits the position of the label, which gets filled in by finish().
+	 */
+	public void emitLabelReference(int label) {
+		labelReferences.add(codeSize);
+		emit(label);
+	}
+	
+	public void emitJump(int label) {
+		emit(ModifierProgram.OP_JUMP);
+		emitLabelReference(label);
+	}
+	
+	/**
+	 * Emits an instruction that evaluates the node itself
+	 * and stores the value it returns into dst. The inputs
+	 * of the node need to have been compiled already.
+	 */
+	public void emitCall(ModifierNode node, int dst) {
+		Integer index = callNodeIndices.getOrDefault(node, null);
+		if(index == null) {
+			index = callNodes.size();
+			callNodes.add(node);
+			callNodeIndices.put(node, index);
+		}
+		emit(ModifierProgram.OP_CALL, dst, index.intValue());
+	}
+	
+}
@@ -31,8 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import nl.bramstout.mcworldexporter.export.BlendedBiome;
 import nl.bramstout.mcworldexporter.export.VertexColorSet.VertexColorFace;
@@ -41,11 +40,23 @@ import nl.bramstout.mcworldexporter.modifier.ModifierNode.Attribute;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode.Value;
 import nl.bramstout.mcworldexporter.resourcepack.Biome;
 import nl.bramstout.mcworldexporter.world.Block;
-import nl.bramstout.mcworldexporter.world.World;
 
 public class ModifierContext {
 
-	private Map<ModifierNode, Value> evalCache = new HashMap<ModifierNode, Value>();
+	// The registers of the ModifierProgram that is being run.
+	// Float, int, long and bool values are stored unboxed. The float
+	// registers hold what getR(), getG(), getB() and getA() would return,
+	// so four per register. The int registers hold int, long and bool values.
+	// Only strings and arrays are stored as a Value. The types are
+	// the ordinals of ValueType.
+	// A register is only valid if its epoch matches the current epoch,
+	// so that starting a new run doesn't need to touch the arrays.
+	int[] regTypes = new int[0];
+	float[] regFloats = new float[0];
+	long[] regInts = new long[0];
+	Value[] regValues = new Value[0];
+	int[] regEpochs = new int[0];
+	int epoch = 1;
 	// [READ_WRITE, BLOCK/FACE] Biome colours
 	public BlendedBiome biome;
 	// [READ, BLOCK] Biome data
@@ -104,27 +115,143 @@ public class ModifierContext {
 	
 	public Modifier currentModifier;
 	
+	/**
+	 * Invalidates all registers. Every run of a ModifierProgram
+	 * already starts with this.
+	 */
 	public void clearEvalCache() {
-		this.evalCache.clear();
+		epoch++;
+		if(epoch == Integer.MAX_VALUE) {
+			Arrays.fill(regEpochs, 0);
+			epoch = 1;
+		}
 	}
 	
-	public Value getValue(Attribute attr) {
-		if(attr.isConnected()) {
-			String nodeName = attr.getInput();
-			ModifierNode node = currentModifier.getNode(nodeName);
-			if(node == null) {
-				World.handleError(new Exception("Node " + nodeName + " does not exist in modifier graph!"));
-				return new Value();
-			}
-			Value val = evalCache.getOrDefault(node, null);
-			if(val == null) {
-				val = node.evaluate(this);
-				evalCache.put(node, val);
-			}
-			return val;
+	/**
+	 * Makes sure that there are enough registers and
+	 * invalidates the values from the previous run.
+	 */
+	void prepareRegisters(int numRegisters) {
+		if(regTypes.length < numRegisters) {
+			regTypes = Arrays.copyOf(regTypes, numRegisters);
+			regFloats = Arrays.copyOf(regFloats, numRegisters * 4);
+			regInts = Arrays.copyOf(regInts, numRegisters);
+			regValues = Arrays.copyOf(regValues, numRegisters);
+			regEpochs = Arrays.copyOf(regEpochs, numRegisters);
+		}
+		clearEvalCache();
+	}
+	
+	void setFloat(int register, int type, float x, float y, float z, float w) {
+		regTypes[register] = type;
+		int i = register * 4;
+		if(type == ModifierProgram.TYPE_FLOAT) {
+			regFloats[i] = x;
+			regFloats[i+1] = x;
+			regFloats[i+2] = x;
+			regFloats[i+3] = 1f;
+		}else if(type == ModifierProgram.TYPE_FLOAT2) {
+			regFloats[i] = x;
+			regFloats[i+1] = y;
+			regFloats[i+2] = y;
+			regFloats[i+3] = 1f;
+		}else if(type == ModifierProgram.TYPE_FLOAT3) {
+			regFloats[i] = x;
+			regFloats[i+1] = y;
+			regFloats[i+2] = z;
+			regFloats[i+3] = 1f;
 		}else {
-			return attr.getValue();
+			regFloats[i] = x;
+			regFloats[i+1] = y;
+			regFloats[i+2] = z;
+			regFloats[i+3] = w;
+		}
+		regEpochs[register] = epoch;
+	}
+	
+	void setInt(int register, int type, long value) {
+		regTypes[register] = type;
+		regInts[register] = value;
+		float f = (float) value;
+		int i = register * 4;
+		regFloats[i] = f;
+		regFloats[i+1] = f;
+		regFloats[i+2] = f;
+		regFloats[i+3] = 1f;
+		regEpochs[register] = epoch;
+	}
+	
+	void setNull(int register) {
+		regTypes[register] = ModifierProgram.TYPE_NULL;
+		int i = register * 4;
+		regFloats[i] = 0f;
+		regFloats[i+1] = 0f;
+		regFloats[i+2] = 0f;
+		regFloats[i+3] = 0f;
+		regEpochs[register] = epoch;
+	}
+	
+	void setRegister(int register, Value value) {
+		if(value == null || value.isNull()) {
+			setNull(register);
+			return;
+		}
+		int type = value.getType().ordinal();
+		if(ModifierProgram.isFloat(type)) {
+			setFloat(register, type, value.getR(), value.getG(), value.getB(), value.getA());
+		}else if(ModifierProgram.hasLanes(type)) {
+			setInt(register, type, ModifierProgram.toInt(value));
+		}else {
+			regTypes[register] = type;
+			regValues[register] = value;
+			regEpochs[register] = epoch;
 		}
 	}
 	
+	/**
+	 * Returns the value in the register. Unboxed values
+	 * get put into a new Value.
+	 */
+	Value getRegister(int register) {
+		int i = register * 4;
+		switch(ModifierProgram.TYPES[regTypes[register]]) {
+		case NULL:
+			return new Value();
+		case FLOAT:
+			return new Value(regFloats[i]);
+		case FLOAT2:
+			return new Value(regFloats[i], regFloats[i+1]);
+		case FLOAT3:
+			return new Value(regFloats[i], regFloats[i+1], regFloats[i+2]);
+		case FLOAT4:
+			return new Value(regFloats[i], regFloats[i+1], regFloats[i+2], regFloats[i+3]);
+		case INT:
+			return new Value((int) regInts[register]);
+		case LONG:
+			return new Value(regInts[register]);
+		case BOOL:
+			return new Value(regInts[register] != 0);
+		default:
+			return regValues[register];
+		}
+	}
+	
+	/**
+	 * Returns the value of the attribute. Nodes that are evaluated by the
+	 * ModifierProgram of a modifier have already had their inputs computed,
+	 * so those are read from the registers.
+	 */
+	public Value getValue(Attribute attr) {
+		if(!attr.isConnected())
+			return attr.getValue();
+		ModifierNode node = attr.getInputNode();
+		if(node == null)
+			// Has been reported when the modifier got compiled.
+			return new Value();
+		int register = node.register;
+		if(register >= 0 && register < regEpochs.length && regEpochs[register] == epoch)
+			return getRegister(register);
+		return node.evaluate(this);
+	}
+	
 }
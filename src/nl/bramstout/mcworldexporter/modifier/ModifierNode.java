@@ -32,8 +32,11 @@
 package nl.bramstout.mcworldexporter.modifier;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.JsonArray;
@@ -1364,12 +1367,14 @@ public abstract class ModifierNode {
 		
 		private Value value;
 		private String input;
+		private ModifierNode inputNode;
 		private ModifierNode node;
 		
 		public Attribute(ModifierNode node, Value defaultValue) {
 			this.node = node;
 			this.value = defaultValue;
 			this.input = null;
+			this.inputNode = null;
 		}
 		
 		public Value getValue() {
@@ -1384,16 +1389,30 @@ public abstract class ModifierNode {
 			return node;
 		}
 		
+		/**
+		 * The node that the input got resolved to when the
+		 * modifier got compiled, or null if it isn't resolved.
+		 */
+		public ModifierNode getInputNode() {
+			return inputNode;
+		}
+		
+		void resolve(ModifierNode inputNode) {
+			this.inputNode = inputNode;
+		}
+		
 		public boolean isConnected() {
 			return input != null;
 		}
 		
 		public void connect(String input) {
 			this.input = input;
+			this.inputNode = null;
 		}
 		
 		public void disconnect() {
 			this.input = null;
+			this.inputNode = null;
 		}
 		
 		public void setValue(Value value) {
@@ -1404,10 +1423,17 @@ public abstract class ModifierNode {
 	
 	private String name;
 	private Map<String, Attribute> userAttributes;
+	/**
+	 * The register in the ModifierContext that this node's value
+	 * is stored in, assigned when the modifier gets compiled.
+	 * Registers are numbered per modifier.
+	 */
+	int register;
 	
 	public ModifierNode(String name) {
 		this.name = name;
 		this.userAttributes = null;
+		this.register = -1;
 	}
 	
 	public String getName() {
@@ -1415,17 +1441,60 @@ public abstract class ModifierNode {
 	}
 	
 	public Attribute getAttribute(String name) {
+		// User attributes never share a name with a field,
+		// so check them first to avoid the reflection.
+		if(userAttributes != null) {
+			Attribute userAttribute = userAttributes.getOrDefault(name, null);
+			if(userAttribute != null)
+				return userAttribute;
+		}
 		try {
 			Field field = this.getClass().getField(name);
 			if(field.getType().equals(Attribute.class)) {
 				return (Attribute) field.get(this);
 			}
 		}catch(Exception ex) {};
-		if(userAttributes != null)
-			return userAttributes.getOrDefault(name, null);
 		return null;
 	}
 	
+	/**
+	 * Returns all attributes of this node, including user attributes.
+	 */
+	public List<Attribute> getAttributes(){
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for(Field field : this.getClass().getFields()) {
+			if(field.getType().equals(Attribute.class)) {
+				try {
+					Attribute attr = (Attribute) field.get(this);
+					if(attr != null)
+						attributes.add(attr);
+				}catch(Exception ex) {}
+			}
+		}
+		if(userAttributes != null)
+			attributes.addAll(userAttributes.values());
+		return attributes;
+	}
+	
+	/**
+	 * Returns true if the output of this node only depends on its
+	 * attributes and not on anything else in the ModifierContext.
+	 * If all attributes of a pure node are constant, the node gets
+	 * evaluated once when the modifier is compiled.
+	 */
+	public boolean isPure() {
+		return false;
+	}
+	
+	/**
+	 * Returns the attributes that were created by getAttributeOrCreate().
+	 */
+	public Map<String, Attribute> getUserAttributes(){
+		if(userAttributes == null)
+			return Collections.emptyMap();
+		return userAttributes;
+	}
+	
 	public Attribute getAttributeOrCreate(String name) {
 		try {
 			Field field = this.getClass().getField(name);
@@ -1445,4 +1514,16 @@ public abstract class ModifierNode {
 	
 	public abstract Value evaluate(ModifierContext context);
 	
+	/**
+	 * Compiles this node into instructions that write its value into dst.
+	 * By default, the connected attributes get compiled first and then
+	 * the node is evaluated using evaluate(). Nodes should compile their
+	 * inputs in the same order as evaluate() gets them.
+	 */
+	public void compile(ModifierCompiler compiler, int dst) {
+		for(Attribute attr : getAttributes())
+			compiler.getInput(attr);
+		compiler.emitCall(this, dst);
+	}
+	
 }
@@ -0,0 +1,719 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package nl.bramstout.mcworldexporter.modifier;
+
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.Value;
+import nl.bramstout.mcworldexporter.modifier.ModifierNode.ValueType;
+
+/**
+ * A modifier graph compiled into a flat list of instructions.
+ * The instructions read their operands from and write their results into
+ * the registers in the ModifierContext. Float, int, long and bool values are
+ * stored unboxed in the registers, only strings and arrays are stored as
+ * a Value.
+ * 
+ * Operands that are zero or positive are register indices,
+ * negative operands are indices into the constants (-1 - index).
+ */
+public class ModifierProgram {
+	
+	public static final int OP_JUMP = 0; // label
+	public static final int OP_JUMP_IF_FALSE = 1; // condition, label
+	public static final int OP_SKIP_IF_VALID = 2; // register, label
+	public static final int OP_SWITCH = 3; // index, numCases, defaultLabel, (key, label)*
+	public static final int OP_MATCH = 4; // input, numCases, defaultLabel, (constant, label)*
+	public static final int OP_MOVE = 5; // dst, src
+	public static final int OP_CALL = 6; // dst, node
+	public static final int OP_ADD = 7; // dst, a, b
+	public static final int OP_SUBTRACT = 8; // dst, a, b
+	public static final int OP_MULTIPLY = 9; // dst, a, b
+	public static final int OP_DIVIDE = 10; // dst, a, b
+	public static final int OP_MIN = 11; // dst, a, b
+	public static final int OP_MAX = 12; // dst, a, b
+	public static final int OP_POW = 13; // dst, a, b
+	public static final int OP_EXP = 14; // dst, input
+	public static final int OP_EXP10 = 15; // dst, input
+	public static final int OP_LOG = 16; // dst, input
+	public static final int OP_LOG10 = 17; // dst, input
+	public static final int OP_NORMALISE = 18; // dst, input
+	public static final int OP_AND = 19; // dst, a, b
+	public static final int OP_OR = 20; // dst, a, b
+	public static final int OP_NOT = 21; // dst, input
+	public static final int OP_EQUALS = 22; // dst, a, b
+	public static final int OP_NOT_EQUALS = 23; // dst, a, b
+	public static final int OP_GREATER_THAN = 24; // dst, a, b
+	public static final int OP_GREATER_THAN_OR_EQUALS = 25; // dst, a, b
+	public static final int OP_LESS_THAN = 26; // dst, a, b
+	public static final int OP_LESS_THAN_OR_EQUALS = 27; // dst, a, b
+	public static final int OP_SWIZZLE = 28; // dst, input, count, component0, component1, component2
+	public static final int OP_MAKE_FLOAT = 29; // dst, count, x, y, z, w
+	public static final int OP_GET_CONTEXT = 30; // dst, field
+	public static final int OP_SET_FACE_NORMAL = 31; // dst, normal, strength
+	public static final int OP_SET_FACE_TINT_INDEX = 32; // dst, tintIndex
+	public static final int OP_SET_VERTEX_POSITION = 33; // dst, position
+	public static final int OP_SET_VERTEX_TINT = 34; // dst, tint
+	public static final int OP_SET_VERTEX_UVS = 35; // dst, uvs
+	
+	public static final int FIELD_BLOCK_X = 0;
+	public static final int FIELD_BLOCK_Y = 1;
+	public static final int FIELD_BLOCK_Z = 2;
+	public static final int FIELD_BLOCK_XYZ = 3;
+	public static final int FIELD_FACE_CENTER = 4;
+	public static final int FIELD_FACE_NORMAL = 5;
+	public static final int FIELD_FACE_TINT_INDEX = 6;
+	public static final int FIELD_FACE_DIRECTION = 7;
+	public static final int FIELD_TIME = 8;
+	public static final int FIELD_VERTEX_POSITION = 9;
+	public static final int FIELD_VERTEX_TINT = 10;
+	public static final int FIELD_VERTEX_UVS = 11;
+	
+	/*
+	 * Register types, these are the ordinals of ValueType, so that
+	 * the type of a register can be stored in an int array.
+	 */
+	static final ValueType[] TYPES = ValueType.values();
+	static final int TYPE_NULL = ValueType.NULL.ordinal();
+	static final int TYPE_FLOAT = ValueType.FLOAT.ordinal();
+	static final int TYPE_FLOAT2 = ValueType.FLOAT2.ordinal();
+	static final int TYPE_FLOAT3 = ValueType.FLOAT3.ordinal();
+	static final int TYPE_FLOAT4 = ValueType.FLOAT4.ordinal();
+	static final int TYPE_STRING = ValueType.STRING.ordinal();
+	static final int TYPE_INT = ValueType.INT.ordinal();
+	static final int TYPE_LONG = ValueType.LONG.ordinal();
+	static final int TYPE_BOOL = ValueType.BOOL.ordinal();
+	static final int TYPE_ARRAY = ValueType.ARRAY.ordinal();
+	
+	private int[] code;
+	private int numRegisters;
+	private ModifierNode[] nodes;
+	private int[] constTypes;
+	private float[] constFloats;
+	private long[] constInts;
+	private Value[] constValues;
+	
+	ModifierProgram(int[] code, int numRegisters, ModifierNode[] nodes, Value[] constants) {
+		this.code = code;
+		this.numRegisters = numRegisters;
+		this.nodes = nodes;
+		this.constTypes = new int[constants.length];
+		this.constFloats = new float[constants.length * 4];
+		this.constInts = new long[constants.length];
+		this.constValues = constants;
+		for(int i = 0; i < constants.length; ++i) {
+			Value value = constants[i];
+			constTypes[i] = value.getType().ordinal();
+			if(hasLanes(constTypes[i])) {
+				constFloats[i*4] = value.getR();
+				constFloats[i*4+1] = value.getG();
+				constFloats[i*4+2] = value.getB();
+				constFloats[i*4+3] = value.getA();
+			}
+			constInts[i] = toInt(value);
+		}
+	}
+	
+	public int getNumRegisters() {
+		return numRegisters;
+	}
+	
+	public int getCodeSize() {
+		return code.length;
+	}
+	
+	public void run(ModifierContext context) {
+		context.prepareRegisters(numRegisters);
+		int[] code = this.code;
+		int pc = 0;
+		while(pc < code.length) {
+			int op = code[pc];
+			switch(op) {
+			case OP_JUMP:
+				pc = code[pc+1];
+				break;
+			case OP_JUMP_IF_FALSE:
+				pc = getBool(context, code[pc+1]) ? (pc + 3) : code[pc+2];
+				break;
+			case OP_SKIP_IF_VALID:
+				pc = context.regEpochs[code[pc+1]] == context.epoch ? code[pc+2] : (pc + 3);
+				break;
+			case OP_SWITCH:{
+				int key = getInt(context, code[pc+1]);
+				int numCases = code[pc+2];
+				int target = code[pc+3];
+				for(int i = 0; i < numCases; ++i) {
+					if(code[pc+4+i*2] == key) {
+						target = code[pc+5+i*2];
+						break;
+					}
+				}
+				pc = target;
+				break;
+			}
+			case OP_MATCH:{
+				String key = getString(context, code[pc+1]);
+				int numCases = code[pc+2];
+				int target = code[pc+3];
+				for(int i = 0; i < numCases; ++i) {
+					if(constValues[-1 - code[pc+4+i*2]].getString().equals(key)) {
+						target = code[pc+5+i*2];
+						break;
+					}
+				}
+				pc = target;
+				break;
+			}
+			case OP_MOVE:
+				move(context, code[pc+1], code[pc+2]);
+				pc += 3;
+				break;
+			case OP_CALL:
+				context.setRegister(code[pc+1], nodes[code[pc+2]].evaluate(context));
+				pc += 3;
+				break;
+			case OP_ADD:
+			case OP_SUBTRACT:
+			case OP_MULTIPLY:
+			case OP_DIVIDE:
+			case OP_MIN:
+			case OP_MAX:
+			case OP_POW:
+				binary(context, op, code[pc+1], code[pc+2], code[pc+3]);
+				pc += 4;
+				break;
+			case OP_EXP:
+			case OP_EXP10:
+			case OP_LOG:
+			case OP_LOG10:
+			case OP_NORMALISE:
+				unary(context, op, code[pc+1], code[pc+2]);
+				pc += 3;
+				break;
+			case OP_AND:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						(getBool(context, code[pc+2]) && getBool(context, code[pc+3])) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_OR:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						(getBool(context, code[pc+2]) || getBool(context, code[pc+3])) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_NOT:
+				context.setInt(code[pc+1], TYPE_BOOL, getBool(context, code[pc+2]) ? 0 : 1);
+				pc += 3;
+				break;
+			case OP_EQUALS:
+				context.setInt(code[pc+1], TYPE_BOOL, equals(context, code[pc+2], code[pc+3]) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_NOT_EQUALS:
+				context.setInt(code[pc+1], TYPE_BOOL, equals(context, code[pc+2], code[pc+3]) ? 0 : 1);
+				pc += 4;
+				break;
+			case OP_GREATER_THAN:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						getLane(context, code[pc+2], 0) > getLane(context, code[pc+3], 0) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_GREATER_THAN_OR_EQUALS:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						getLane(context, code[pc+2], 0) >= getLane(context, code[pc+3], 0) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_LESS_THAN:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						getLane(context, code[pc+2], 0) < getLane(context, code[pc+3], 0) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_LESS_THAN_OR_EQUALS:
+				context.setInt(code[pc+1], TYPE_BOOL, 
+						getLane(context, code[pc+2], 0) <= getLane(context, code[pc+3], 0) ? 1 : 0);
+				pc += 4;
+				break;
+			case OP_SWIZZLE:{
+				int input = code[pc+2];
+				int count = code[pc+3];
+				float x = getLane(context, input, code[pc+4]);
+				float y = count > 1 ? getLane(context, input, code[pc+5]) : 0f;
+				float z = count > 2 ? getLane(context, input, code[pc+6]) : 0f;
+				context.setFloat(code[pc+1], TYPE_FLOAT + count - 1, x, y, z, 1f);
+				pc += 7;
+				break;
+			}
+			case OP_MAKE_FLOAT:{
+				int count = code[pc+2];
+				float x = getLane(context, code[pc+3], 0);
+				float y = count > 1 ? getLane(context, code[pc+4], 0) : 0f;
+				float z = count > 2 ? getLane(context, code[pc+5], 0) : 0f;
+				float w = count > 3 ? getLane(context, code[pc+6], 0) : 1f;
+				context.setFloat(code[pc+1], TYPE_FLOAT + count - 1, x, y, z, w);
+				pc += 7;
+				break;
+			}
+			case OP_GET_CONTEXT:
+				getContext(context, code[pc+1], code[pc+2]);
+				pc += 3;
+				break;
+			case OP_SET_FACE_NORMAL:{
+				int normal = code[pc+2];
+				float t = getLane(context, code[pc+3], 0);
+				context.faceNormalX = getLane(context, normal, 0) * t + context.faceNormalX * (1f - t);
+				context.faceNormalY = getLane(context, normal, 1) * t + context.faceNormalY * (1f - t);
+				context.faceNormalZ = getLane(context, normal, 2) * t + context.faceNormalZ * (1f - t);
+				double length = Math.sqrt(context.faceNormalX * context.faceNormalX + 
+										context.faceNormalY * context.faceNormalY + 
+										context.faceNormalZ * context.faceNormalZ);
+				if(length < 0.000001) {
+					context.faceNormalX = 0f;
+					context.faceNormalY = 1f;
+					context.faceNormalZ = 0f;
+				}else {
+					context.faceNormalX /= length;
+					context.faceNormalY /= length;
+					context.faceNormalZ /= length;
+				}
+				context.setFloat(code[pc+1], TYPE_FLOAT3, 
+						context.faceNormalX, context.faceNormalY, context.faceNormalZ, 1f);
+				pc += 4;
+				break;
+			}
+			case OP_SET_FACE_TINT_INDEX:
+				context.faceTintIndex = getInt(context, code[pc+2]);
+				context.setInt(code[pc+1], TYPE_INT, context.faceTintIndex);
+				pc += 3;
+				break;
+			case OP_SET_VERTEX_POSITION:{
+				int position = code[pc+2];
+				context.vertexX = getLane(context, position, 0);
+				context.vertexY = getLane(context, position, 1);
+				context.vertexZ = getLane(context, position, 2);
+				context.setFloat(code[pc+1], TYPE_FLOAT3, context.vertexX, context.vertexY, context.vertexZ, 1f);
+				pc += 3;
+				break;
+			}
+			case OP_SET_VERTEX_TINT:{
+				int tint = code[pc+2];
+				context.vertexR = getLane(context, tint, 0);
+				context.vertexG = getLane(context, tint, 1);
+				context.vertexB = getLane(context, tint, 2);
+				context.setFloat(code[pc+1], TYPE_FLOAT3, context.vertexR, context.vertexG, context.vertexB, 1f);
+				pc += 3;
+				break;
+			}
+			case OP_SET_VERTEX_UVS:{
+				int uvs = code[pc+2];
+				context.vertexU = getLane(context, uvs, 0);
+				context.vertexV = getLane(context, uvs, 1);
+				context.setFloat(code[pc+1], TYPE_FLOAT2, context.vertexU, context.vertexV, 0f, 1f);
+				pc += 3;
+				break;
+			}
+			default:
+				throw new RuntimeException("Invalid modifier instruction " + op);
+			}
+		}
+	}
+	
+	private void getContext(ModifierContext context, int dst, int field) {
+		switch(field) {
+		case FIELD_BLOCK_X:
+			context.setInt(dst, TYPE_INT, context.blockX);
+			break;
+		case FIELD_BLOCK_Y:
+			context.setInt(dst, TYPE_INT, context.blockY);
+			break;
+		case FIELD_BLOCK_Z:
+			context.setInt(dst, TYPE_INT, context.blockZ);
+			break;
+		case FIELD_BLOCK_XYZ:
+			context.setFloat(dst, TYPE_FLOAT3, context.blockX, context.blockY, context.blockZ, 1f);
+			break;
+		case FIELD_FACE_CENTER:
+			context.setFloat(dst, TYPE_FLOAT3, context.faceCenterX, context.faceCenterY, context.faceCenterZ, 1f);
+			break;
+		case FIELD_FACE_NORMAL:
+			context.setFloat(dst, TYPE_FLOAT3, context.faceNormalX, context.faceNormalY, context.faceNormalZ, 1f);
+			break;
+		case FIELD_FACE_TINT_INDEX:
+			context.setInt(dst, TYPE_INT, context.faceTintIndex);
+			break;
+		case FIELD_FACE_DIRECTION:
+			context.setInt(dst, TYPE_INT, context.faceDirection.id);
+			break;
+		case FIELD_TIME:
+			context.setFloat(dst, TYPE_FLOAT, context.time, 0f, 0f, 1f);
+			break;
+		case FIELD_VERTEX_POSITION:
+			context.setFloat(dst, TYPE_FLOAT3, context.vertexX, context.vertexY, context.vertexZ, 1f);
+			break;
+		case FIELD_VERTEX_TINT:
+			context.setFloat(dst, TYPE_FLOAT3, context.vertexR, context.vertexG, context.vertexB, 1f);
+			break;
+		case FIELD_VERTEX_UVS:
+			context.setFloat(dst, TYPE_FLOAT2, context.vertexU, context.vertexV, 0f, 1f);
+			break;
+		default:
+			throw new RuntimeException("Invalid modifier context field " + field);
+		}
+	}
+	
+	private void binary(ModifierContext context, int op, int dst, int a, int b) {
+		int typeA = getType(context, a);
+		int typeB = getType(context, b);
+		if(isFloat(typeA) && hasLanes(typeB)) {
+			// All four lanes are computed, setFloat() then throws
+			// away the ones that typeA doesn't have.
+			float[] lanesA = getLanes(context, a);
+			float[] lanesB = getLanes(context, b);
+			int i = getLanesOffset(a);
+			int j = getLanesOffset(b);
+			float x, y, z, w;
+			switch(op) {
+			case OP_ADD:
+				x = lanesA[i] + lanesB[j];
+				y = lanesA[i+1] + lanesB[j+1];
+				z = lanesA[i+2] + lanesB[j+2];
+				w = lanesA[i+3] + lanesB[j+3];
+				break;
+			case OP_SUBTRACT:
+				x = lanesA[i] - lanesB[j];
+				y = lanesA[i+1] - lanesB[j+1];
+				z = lanesA[i+2] - lanesB[j+2];
+				w = lanesA[i+3] - lanesB[j+3];
+				break;
+			case OP_MULTIPLY:
+				x = lanesA[i] * lanesB[j];
+				y = lanesA[i+1] * lanesB[j+1];
+				z = lanesA[i+2] * lanesB[j+2];
+				w = lanesA[i+3] * lanesB[j+3];
+				break;
+			case OP_DIVIDE:
+				x = lanesA[i] / lanesB[j];
+				y = lanesA[i+1] / lanesB[j+1];
+				z = lanesA[i+2] / lanesB[j+2];
+				w = lanesA[i+3] / lanesB[j+3];
+				break;
+			case OP_MIN:
+				x = Math.min(lanesA[i], lanesB[j]);
+				y = Math.min(lanesA[i+1], lanesB[j+1]);
+				z = Math.min(lanesA[i+2], lanesB[j+2]);
+				w = Math.min(lanesA[i+3], lanesB[j+3]);
+				break;
+			case OP_MAX:
+				x = Math.max(lanesA[i], lanesB[j]);
+				y = Math.max(lanesA[i+1], lanesB[j+1]);
+				z = Math.max(lanesA[i+2], lanesB[j+2]);
+				w = Math.max(lanesA[i+3], lanesB[j+3]);
+				break;
+			default:{
+				// pow is expensive, so only do the lanes that we need.
+				int count = typeA - TYPE_FLOAT + 1;
+				x = (float) Math.pow(lanesA[i], lanesB[j]);
+				y = count > 1 ? (float) Math.pow(lanesA[i+1], lanesB[j+1]) : 0f;
+				z = count > 2 ? (float) Math.pow(lanesA[i+2], lanesB[j+2]) : 0f;
+				w = count > 3 ? (float) Math.pow(lanesA[i+3], lanesB[j+3]) : 1f;
+				break;
+			}
+			}
+			context.setFloat(dst, typeA, x, y, z, w);
+			return;
+		}
+		if(typeA == TYPE_INT && hasLanes(typeB) && op != OP_POW) {
+			context.setInt(dst, TYPE_INT, intOp(op, getInt(context, a), getInt(context, b)));
+			return;
+		}
+		// Anything else goes through the Value implementation.
+		Value valueA = getValue(context, a);
+		Value valueB = getValue(context, b);
+		Value res = null;
+		switch(op) {
+		case OP_ADD:
+			res = valueA.add(valueB);
+			break;
+		case OP_SUBTRACT:
+			res = valueA.subtract(valueB);
+			break;
+		case OP_MULTIPLY:
+			res = valueA.multiply(valueB);
+			break;
+		case OP_DIVIDE:
+			res = valueA.divide(valueB);
+			break;
+		case OP_MIN:
+			res = valueA.min(valueB);
+			break;
+		case OP_MAX:
+			res = valueA.max(valueB);
+			break;
+		case OP_POW:
+			res = valueA.pow(valueB);
+			break;
+		}
+		context.setRegister(dst, res);
+	}
+	
+	private static int intOp(int op, int a, int b) {
+		switch(op) {
+		case OP_ADD:
+			return a + b;
+		case OP_SUBTRACT:
+			return a - b;
+		case OP_MULTIPLY:
+			return a * b;
+		case OP_DIVIDE:
+			return a / b;
+		case OP_MIN:
+			return Math.min(a, b);
+		case OP_MAX:
+			return Math.max(a, b);
+		}
+		return 0;
+	}
+	
+	private void unary(ModifierContext context, int op, int dst, int input) {
+		int type = getType(context, input);
+		if(!isFloat(type)) {
+			Value value = getValue(context, input);
+			Value res = null;
+			switch(op) {
+			case OP_EXP:
+				res = value.exp();
+				break;
+			case OP_EXP10:
+				res = value.exp10();
+				break;
+			case OP_LOG:
+				res = value.log();
+				break;
+			case OP_LOG10:
+				res = value.log10();
+				break;
+			case OP_NORMALISE:
+				res = value.normalise();
+				break;
+			}
+			context.setRegister(dst, res);
+			return;
+		}
+		int count = type - TYPE_FLOAT + 1;
+		float x = getLane(context, input, 0);
+		float y = count > 1 ? getLane(context, input, 1) : 0f;
+		float z = count > 2 ? getLane(context, input, 2) : 0f;
+		float w = count > 3 ? getLane(context, input, 3) : 1f;
+		if(op == OP_NORMALISE) {
+			double length = 1.0;
+			if(count == 1)
+				x = 1f;
+			else if(count == 2)
+				length = Math.max(Math.sqrt(x * x + y * y), 0.00001);
+			else if(count == 3)
+				length = Math.max(Math.sqrt(x * x + y * y + z * z), 0.00001);
+			else
+				length = Math.max(Math.sqrt(x * x + y * y + z * z + w * w), 0.00001);
+			if(count > 1) {
+				x = (float) (x / length);
+				y = (float) (y / length);
+				z = count > 2 ? (float) (z / length) : 0f;
+				w = count > 3 ? (float) (w / length) : 1f;
+			}
+		}else {
+			x = unaryOp(op, x);
+			y = count > 1 ? unaryOp(op, y) : 0f;
+			z = count > 2 ? unaryOp(op, z) : 0f;
+			w = count > 3 ? unaryOp(op, w) : 1f;
+		}
+		context.setFloat(dst, type, x, y, z, w);
+	}
+	
+	private static float unaryOp(int op, float a) {
+		switch(op) {
+		case OP_EXP:
+			return (float) Math.exp(a);
+		case OP_EXP10:
+			return (float) Math.pow(10f, a);
+		case OP_LOG:
+			return (float) Math.log(a);
+		case OP_LOG10:
+			return (float) Math.log10(a);
+		}
+		return 0f;
+	}
+	
+	private boolean equals(ModifierContext context, int a, int b) {
+		int typeA = getType(context, a);
+		int typeB = getType(context, b);
+		if(typeA == typeB) {
+			if(isFloat(typeA)) {
+				int count = typeA - TYPE_FLOAT + 1;
+				for(int i = 0; i < count; ++i)
+					if(getLane(context, a, i) != getLane(context, b, i))
+						return false;
+				return true;
+			}
+			if(typeA == TYPE_INT || typeA == TYPE_LONG)
+				return getRawInt(context, a) == getRawInt(context, b);
+		}
+		return getValue(context, a).equals(getValue(context, b));
+	}
+	
+	private void move(ModifierContext context, int dst, int src) {
+		int type = getType(context, src);
+		if(isFloat(type)) {
+			float[] lanes = getLanes(context, src);
+			int i = getLanesOffset(src);
+			context.setFloat(dst, type, lanes[i], lanes[i+1], lanes[i+2], lanes[i+3]);
+		}else if(type == TYPE_INT || type == TYPE_LONG || type == TYPE_BOOL) {
+			context.setInt(dst, type, getRawInt(context, src));
+		}else if(type == TYPE_NULL) {
+			context.setNull(dst);
+		}else {
+			context.setRegister(dst, getValue(context, src));
+		}
+	}
+	
+	/*
+	 * Operand accessors
+	 */
+	
+	private int getType(ModifierContext context, int operand) {
+		if(operand >= 0)
+			return context.regTypes[operand];
+		return constTypes[-1 - operand];
+	}
+	
+	/**
+	 * Returns the array holding the lanes of the operand,
+	 * only valid if hasLanes() is true for its type.
+	 */
+	private float[] getLanes(ModifierContext context, int operand) {
+		return operand >= 0 ? context.regFloats : constFloats;
+	}
+	
+	private static int getLanesOffset(int operand) {
+		return (operand >= 0 ? operand : (-1 - operand)) * 4;
+	}
+	
+	/**
+	 * Returns what getR(), getG(), getB() or getA() would return on the operand's value.
+	 */
+	private float getLane(ModifierContext context, int operand, int lane) {
+		if(operand >= 0) {
+			if(hasLanes(context.regTypes[operand]))
+				return context.regFloats[operand * 4 + lane];
+		}else {
+			if(hasLanes(constTypes[-1 - operand]))
+				return constFloats[(-1 - operand) * 4 + lane];
+		}
+		Value value = getValue(context, operand);
+		switch(lane) {
+		case 0:
+			return value.getR();
+		case 1:
+			return value.getG();
+		case 2:
+			return value.getB();
+		default:
+			return value.getA();
+		}
+	}
+	
+	private long getRawInt(ModifierContext context, int operand) {
+		if(operand >= 0)
+			return context.regInts[operand];
+		return constInts[-1 - operand];
+	}
+	
+	private int getInt(ModifierContext context, int operand) {
+		int type = getType(context, operand);
+		if(isFloat(type))
+			return (int) getLane(context, operand, 0);
+		if(type == TYPE_NULL)
+			return 0;
+		if(type == TYPE_INT || type == TYPE_LONG || type == TYPE_BOOL)
+			return (int) getRawInt(context, operand);
+		return getValue(context, operand).getInt();
+	}
+	
+	private boolean getBool(ModifierContext context, int operand) {
+		int type = getType(context, operand);
+		if(isFloat(type))
+			return getLane(context, operand, 0) >= 0.5f;
+		if(type == TYPE_NULL)
+			return false;
+		if(type == TYPE_INT || type == TYPE_LONG)
+			return getRawInt(context, operand) > 0;
+		if(type == TYPE_BOOL)
+			return getRawInt(context, operand) != 0;
+		return getValue(context, operand).getBool();
+	}
+	
+	private String getString(ModifierContext context, int operand) {
+		return getValue(context, operand).getString();
+	}
+	
+	private Value getValue(ModifierContext context, int operand) {
+		if(operand >= 0)
+			return context.getRegister(operand);
+		return constValues[-1 - operand];
+	}
+	
+	static boolean isFloat(int type) {
+		return type >= TYPE_FLOAT && type <= TYPE_FLOAT4;
+	}
+	
+	/**
+	 * Returns whether values of this type are stored unboxed,
+	 * with getR() through getA() in the float registers.
+	 */
+	static boolean hasLanes(int type) {
+		return type != TYPE_STRING && type != TYPE_ARRAY;
+	}
+	
+	/**
+	 * Returns the value that gets stored in the int registers
+	 * for int, long and bool values.
+	 */
+	static long toInt(Value value) {
+		switch(value.getType()) {
+		case INT:
+			return value.getInt();
+		case LONG:
+			return value.getLong();
+		case BOOL:
+			return value.getBool() ? 1 : 0;
+		default:
+			return 0;
+		}
+	}
+	
+}
@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -50,6 +51,11 @@ public class ModifierNodeAdjustHSV extends ModifierNode{
 		this.adjustment = new Attribute(this, new Value(0f));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueColor = context.getValue(color);
@@ -127,5 +133,12 @@ public class ModifierNodeAdjustHSV extends ModifierNode{
 		B += m;
 		return new Value(R, G, B);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(color);
+		compiler.getInput(adjustment);
+		compiler.emitCall(this, dst);
+	}
 
 }
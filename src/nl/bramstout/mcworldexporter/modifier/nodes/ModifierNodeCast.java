@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -50,6 +51,11 @@ public class ModifierNodeCast extends ModifierNode{
 		this.type = new Attribute(this, new Value("NULL"));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value value = context.getValue(input);
@@ -78,5 +84,12 @@ public class ModifierNodeCast extends ModifierNode{
 			return value.castToType(ValueType.ARRAY);
 		return new Value();
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(input);
+		compiler.getInput(type);
+		compiler.emitCall(this, dst);
+	}
 
 }
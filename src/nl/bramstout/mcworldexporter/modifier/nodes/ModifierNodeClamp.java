@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "clamp" node which takes the value of input and clamps it between min and max,
@@ -52,6 +54,11 @@ public class ModifierNodeClamp extends ModifierNode{
 		this.max = new Attribute(this, new Value(1f));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueInput = context.getValue(input);
@@ -60,5 +67,15 @@ public class ModifierNodeClamp extends ModifierNode{
 		
 		return valueInput.min(valueMax).max(valueMin);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueInput = compiler.getInput(input);
+		int valueMin = compiler.getInput(min);
+		int valueMax = compiler.getInput(max);
+		int clampedMax = compiler.allocateRegister();
+		compiler.emit(ModifierProgram.OP_MIN, clampedMax, valueInput, valueMax);
+		compiler.emit(ModifierProgram.OP_MAX, dst, clampedMax, valueMin);
+	}
 
 }
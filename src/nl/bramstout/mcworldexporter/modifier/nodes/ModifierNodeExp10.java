@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "exp10" node which takes the value of input outputs the base 10 exponent of input,
@@ -48,11 +50,22 @@ public class ModifierNodeExp10 extends ModifierNode{
 		this.input = new Attribute(this, new Value(0f));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueA = context.getValue(input);
 		
 		return valueA.exp10();
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int value = compiler.getInput(input);
+		compiler.emit(ModifierProgram.OP_EXP10, dst, value);
+	}
 
 }
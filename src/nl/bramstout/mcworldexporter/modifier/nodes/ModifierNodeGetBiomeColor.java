@@ -33,6 +33,7 @@ package nl.bramstout.mcworldexporter.modifier.nodes;
 
 import nl.bramstout.mcworldexporter.Color;
 import nl.bramstout.mcworldexporter.export.BlendedBiome.WeightedColor;
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -65,5 +66,11 @@ public class ModifierNodeGetBiomeColor extends ModifierNode{
 		}
 		return new Value();
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(colormap);
+		compiler.emitCall(this, dst);
+	}
 
 }
@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 import nl.bramstout.mcworldexporter.nbt.NbtTag;
@@ -58,5 +59,11 @@ public class ModifierNodeGetBlockProperty extends ModifierNode{
 		NbtTag propTag = context.block.getProperties().get(propertyName);
 		return new Value(propTag);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(property);
+		compiler.emitCall(this, dst);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getBlockX" outputs the x position of the block.
@@ -47,5 +49,10 @@ public class ModifierNodeGetBlockX extends ModifierNode{
 	public Value evaluate(ModifierContext context) {
 		return new Value(context.blockX);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.emit(ModifierProgram.OP_GET_CONTEXT, dst, ModifierProgram.FIELD_BLOCK_X);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getFaceCenter" outputs the position of the face center.
@@ -47,5 +49,10 @@ public class ModifierNodeGetFaceCenter extends ModifierNode{
 	public Value evaluate(ModifierContext context) {
 		return new Value(context.faceCenterX, context.faceCenterY, context.faceCenterZ);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.emit(ModifierProgram.OP_GET_CONTEXT, dst, ModifierProgram.FIELD_FACE_CENTER);
+	}
 
 }
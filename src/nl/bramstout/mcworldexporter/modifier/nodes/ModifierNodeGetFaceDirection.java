@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getFaceDirection" outputs the direction of the face.
@@ -54,5 +56,10 @@ public class ModifierNodeGetFaceDirection extends ModifierNode{
 	public Value evaluate(ModifierContext context) {
 		return new Value(context.faceDirection.id);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.emit(ModifierProgram.OP_GET_CONTEXT, dst, ModifierProgram.FIELD_FACE_DIRECTION);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getFaceNormal" outputs the normal of the face.
@@ -47,5 +49,10 @@ public class ModifierNodeGetFaceNormal extends ModifierNode{
 	public Value evaluate(ModifierContext context) {
 		return new Value(context.faceNormalX, context.faceNormalY, context.faceNormalZ);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.emit(ModifierProgram.OP_GET_CONTEXT, dst, ModifierProgram.FIELD_FACE_NORMAL);
+	}
 
 }
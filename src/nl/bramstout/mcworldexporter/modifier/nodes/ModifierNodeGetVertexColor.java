@@ -32,6 +32,7 @@
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
 import nl.bramstout.mcworldexporter.export.VertexColorSet.VertexColorFace;
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -70,5 +71,11 @@ public class ModifierNodeGetVertexColor extends ModifierNode{
 		}
 		return new Value();
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(colorset);
+		compiler.emitCall(this, dst);
+	}
 
 }
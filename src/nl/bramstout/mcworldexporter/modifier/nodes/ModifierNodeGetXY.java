@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getXY" node which returns the X and Y value from input.
@@ -46,11 +48,22 @@ public class ModifierNodeGetXY extends ModifierNode{
 		this.input = new Attribute(this, new Value(0f));
 	}
 	
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value value = context.getValue(input);
 		
 		return new Value(value.getX(), value.getY());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int value = compiler.getInput(input);
+		compiler.emit(ModifierProgram.OP_SWIZZLE, dst, value, 2, 0, 1, 0);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "getXYZ" node which returns the X, Y and Z value from input.
@@ -46,11 +48,22 @@ public class ModifierNodeGetXYZ extends ModifierNode{
 		this.input = new Attribute(this, new Value(0f));
 	}
 	
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value value = context.getValue(input);
 		
 		return new Value(value.getX(), value.getY(), value.getZ());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int value = compiler.getInput(input);
+		compiler.emit(ModifierProgram.OP_SWIZZLE, dst, value, 3, 0, 1, 2);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "greaterThanOrEquals" node that takes a and b and outputs a bool
@@ -49,6 +51,11 @@ public class ModifierNodeGreaterThanOrEquals extends ModifierNode{
 		this.b = new Attribute(this, new Value());
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueA = context.getValue(a);
@@ -56,5 +63,12 @@ public class ModifierNodeGreaterThanOrEquals extends ModifierNode{
 		
 		return new Value(valueA.getR() >= valueB.getR());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueA = compiler.getInput(a);
+		int valueB = compiler.getInput(b);
+		compiler.emit(ModifierProgram.OP_GREATER_THAN_OR_EQUALS, dst, valueA, valueB);
+	}
 
 }
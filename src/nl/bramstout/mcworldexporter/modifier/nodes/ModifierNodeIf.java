@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "if" node, which outputs either ifFalse or ifTrue based
@@ -51,6 +53,11 @@ public class ModifierNodeIf extends ModifierNode{
 		this.ifTrue = new Attribute(this, new Value());
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value condition = context.getValue(this.condition);
@@ -59,5 +66,20 @@ public class ModifierNodeIf extends ModifierNode{
 			return context.getValue(this.ifTrue);
 		return context.getValue(this.ifFalse);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueCondition = compiler.getInput(condition);
+		int falseLabel = compiler.newLabel();
+		int endLabel = compiler.newLabel();
+		// Only the branch that is picked gets evaluated.
+		compiler.emit(ModifierProgram.OP_JUMP_IF_FALSE, valueCondition);
+		compiler.emitLabelReference(falseLabel);
+		compiler.compileBranch(ifTrue, dst);
+		compiler.emitJump(endLabel);
+		compiler.placeLabel(falseLabel);
+		compiler.compileBranch(ifFalse, dst);
+		compiler.placeLabel(endLabel);
+	}
 
 }
@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -53,6 +54,11 @@ public class ModifierNodeLerp extends ModifierNode{
 		this.factor = new Attribute(this, new Value(0f));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueA = context.getValue(a);
@@ -61,6 +67,14 @@ public class ModifierNodeLerp extends ModifierNode{
 		
 		return valueA.lerp(valueB, valueFactor);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(a);
+		compiler.getInput(b);
+		compiler.getInput(factor);
+		compiler.emitCall(this, dst);
+	}
 
 }
 
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "makeFloat2" node which constructs a FLOAT2 value from x and y
@@ -48,6 +50,11 @@ public class ModifierNodeMakeFloat2 extends ModifierNode{
 		this.y = new Attribute(this, new Value(0f));
 	}
 	
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueX = context.getValue(x);
@@ -55,5 +62,12 @@ public class ModifierNodeMakeFloat2 extends ModifierNode{
 		
 		return new Value(valueX.getR(), valueY.getR());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueX = compiler.getInput(x);
+		int valueY = compiler.getInput(y);
+		compiler.emit(ModifierProgram.OP_MAKE_FLOAT, dst, 2, valueX, valueY, 0, 0);
+	}
 
 }
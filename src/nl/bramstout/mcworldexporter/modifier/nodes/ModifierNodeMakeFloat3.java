@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "makeFloat3" node which constructs a FLOAT3 value from x, y and z
@@ -50,6 +52,11 @@ public class ModifierNodeMakeFloat3 extends ModifierNode{
 		this.z = new Attribute(this, new Value(0f));
 	}
 	
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueX = context.getValue(x);
@@ -58,5 +65,13 @@ public class ModifierNodeMakeFloat3 extends ModifierNode{
 		
 		return new Value(valueX.getR(), valueY.getR(), valueZ.getR());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueX = compiler.getInput(x);
+		int valueY = compiler.getInput(y);
+		int valueZ = compiler.getInput(z);
+		compiler.emit(ModifierProgram.OP_MAKE_FLOAT, dst, 3, valueX, valueY, valueZ, 0);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "makeFloat4" node which constructs a FLOAT4 value from x, y, z and w
@@ -52,6 +54,11 @@ public class ModifierNodeMakeFloat4 extends ModifierNode{
 		this.w = new Attribute(this, new Value(0f));
 	}
 	
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueX = context.getValue(x);
@@ -61,5 +68,14 @@ public class ModifierNodeMakeFloat4 extends ModifierNode{
 		
 		return new Value(valueX.getR(), valueY.getR(), valueZ.getR(), valueW.getR());
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueX = compiler.getInput(x);
+		int valueY = compiler.getInput(y);
+		int valueZ = compiler.getInput(z);
+		int valueW = compiler.getInput(w);
+		compiler.emit(ModifierProgram.OP_MAKE_FLOAT, dst, 4, valueX, valueY, valueZ, valueW);
+	}
 
 }
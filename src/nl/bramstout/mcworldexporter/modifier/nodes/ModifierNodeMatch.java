@@ -31,8 +31,14 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "match" node, which evaluates the input attribute
@@ -53,6 +59,11 @@ public class ModifierNodeMatch extends ModifierNode{
 		this.defaultValue = new Attribute(this, new Value());
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value input = context.getValue(this.input);
@@ -63,5 +74,37 @@ public class ModifierNodeMatch extends ModifierNode{
 			return context.getValue(defaultValue);
 		return context.getValue(attr);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueInput = compiler.getInput(input);
+		List<Attribute> cases = new ArrayList<Attribute>();
+		List<String> keys = new ArrayList<String>();
+		for(Entry<String, Attribute> entry : getUserAttributes().entrySet()) {
+			if(!entry.getKey().startsWith("value_"))
+				continue;
+			keys.add(entry.getKey().substring(6));
+			cases.add(entry.getValue());
+		}
+		
+		int defaultLabel = compiler.newLabel();
+		int endLabel = compiler.newLabel();
+		int[] caseLabels = new int[cases.size()];
+		compiler.emit(ModifierProgram.OP_MATCH, valueInput, cases.size());
+		compiler.emitLabelReference(defaultLabel);
+		for(int i = 0; i < cases.size(); ++i) {
+			caseLabels[i] = compiler.newLabel();
+			compiler.emit(compiler.getConstant(new Value(keys.get(i))));
+			compiler.emitLabelReference(caseLabels[i]);
+		}
+		for(int i = 0; i < cases.size(); ++i) {
+			compiler.placeLabel(caseLabels[i]);
+			compiler.compileBranch(cases.get(i), dst);
+			compiler.emitJump(endLabel);
+		}
+		compiler.placeLabel(defaultLabel);
+		compiler.compileBranch(defaultValue, dst);
+		compiler.placeLabel(endLabel);
+	}
 
 }
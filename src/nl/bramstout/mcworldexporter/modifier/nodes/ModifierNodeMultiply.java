@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "multiply" node which takes the value of a and b and multiplies it together,
@@ -50,6 +52,11 @@ public class ModifierNodeMultiply extends ModifierNode{
 		this.b = new Attribute(this, new Value(1f));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueA = context.getValue(a);
@@ -57,5 +64,12 @@ public class ModifierNodeMultiply extends ModifierNode{
 		
 		return valueA.multiply(valueB);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueA = compiler.getInput(a);
+		int valueB = compiler.getInput(b);
+		compiler.emit(ModifierProgram.OP_MULTIPLY, dst, valueA, valueB);
+	}
 
 }
@@ -32,6 +32,7 @@
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
 import nl.bramstout.mcworldexporter.export.Noise;
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -191,5 +192,21 @@ public class ModifierNodeNoiseFloat extends ModifierNode{
 		}
 		return totalWeight != 0f ? (res / totalWeight) : 0f;
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(position);
+		compiler.getInput(offset);
+		compiler.getInput(scale);
+		compiler.getInput(octaves);
+		compiler.getInput(octaveAmplitude);
+		compiler.getInput(octaveScale);
+		compiler.getInput(minValue);
+		compiler.getInput(maxValue);
+		compiler.getInput(evolution);
+		compiler.getInput(evolutionPeriod);
+		compiler.getInput(evolutionOctaveScale);
+		compiler.emitCall(this, dst);
+	}
 
 }
@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -112,4 +113,20 @@ public class ModifierNodeNoiseFloat3 extends ModifierNode{
 		return new Value(noiseR, noiseG, noiseB);
 	}
 	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(position);
+		compiler.getInput(offset);
+		compiler.getInput(scale);
+		compiler.getInput(octaves);
+		compiler.getInput(octaveAmplitude);
+		compiler.getInput(octaveScale);
+		compiler.getInput(minValue);
+		compiler.getInput(maxValue);
+		compiler.getInput(evolution);
+		compiler.getInput(evolutionPeriod);
+		compiler.getInput(evolutionOctaveScale);
+		compiler.emitCall(this, dst);
+	}
+
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "remap" node which takes the value of input and remaps it from the input range to the output range.
@@ -59,6 +61,11 @@ public class ModifierNodeRemap extends ModifierNode{
 		this.clamp = new Attribute(this, new Value(true));
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value valueInput = context.getValue(input);
@@ -81,6 +88,34 @@ public class ModifierNodeRemap extends ModifierNode{
 		
 		return valueInput;
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueInput = compiler.getInput(input);
+		int valueInMin = compiler.getInput(inMin);
+		int valueInMax = compiler.getInput(inMax);
+		int valueOutMin = compiler.getInput(outMin);
+		int valueOutMax = compiler.getInput(outMax);
+		int valuePow = compiler.getInput(pow);
+		int valueClamp = compiler.getInput(clamp);
+		
+		int inRange = compiler.allocateRegister();
+		int outRange = compiler.allocateRegister();
+		compiler.emit(ModifierProgram.OP_SUBTRACT, inRange, valueInMax, valueInMin);
+		compiler.emit(ModifierProgram.OP_SUBTRACT, outRange, valueOutMax, valueOutMin);
+		
+		compiler.emit(ModifierProgram.OP_SUBTRACT, dst, valueInput, valueInMin);
+		compiler.emit(ModifierProgram.OP_DIVIDE, dst, dst, inRange);
+		int noClampLabel = compiler.newLabel();
+		compiler.emit(ModifierProgram.OP_JUMP_IF_FALSE, valueClamp);
+		compiler.emitLabelReference(noClampLabel);
+		compiler.emit(ModifierProgram.OP_MIN, dst, dst, compiler.getConstant(new Value(1.0f)));
+		compiler.emit(ModifierProgram.OP_MAX, dst, dst, compiler.getConstant(new Value(0.0f)));
+		compiler.placeLabel(noClampLabel);
+		compiler.emit(ModifierProgram.OP_POW, dst, dst, valuePow);
+		compiler.emit(ModifierProgram.OP_MULTIPLY, dst, dst, outRange);
+		compiler.emit(ModifierProgram.OP_ADD, dst, dst, valueOutMin);
+	}
 
 }
 
@@ -31,6 +31,7 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -61,5 +62,12 @@ public class ModifierNodeSetBiomeColor extends ModifierNode{
 			context.biome.setColor(colormapName, i, valueColor.getR(), valueColor.getG(), valueColor.getB());
 		return valueColor;
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(colormap);
+		compiler.getInput(color);
+		compiler.emitCall(this, dst);
+	}
 
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "setFaceNormal" node sets the normal of the face.
@@ -74,4 +76,11 @@ public class ModifierNodeSetFaceNormal extends ModifierNode{
 		return new Value(context.faceNormalX, context.faceNormalY, context.faceNormalZ);
 	}
 	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueNormal = compiler.getInput(this.normal);
+		int valueStrength = compiler.getInput(this.strength);
+		compiler.emit(ModifierProgram.OP_SET_FACE_NORMAL, dst, valueNormal, valueStrength);
+	}
+
 }
@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "setFaceTintIndex" sets the tint index of the face.
@@ -52,5 +54,11 @@ public class ModifierNodeSetFaceTintIndex extends ModifierNode{
 		context.faceTintIndex = valueTintIndex.getInt();
 		return new Value(context.faceTintIndex);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueTintIndex = compiler.getInput(this.tintIndex);
+		compiler.emit(ModifierProgram.OP_SET_FACE_TINT_INDEX, dst, valueTintIndex);
+	}
 
 }
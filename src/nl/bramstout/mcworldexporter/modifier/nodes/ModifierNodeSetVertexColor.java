@@ -34,6 +34,7 @@ package nl.bramstout.mcworldexporter.modifier.nodes;
 import java.util.Arrays;
 
 import nl.bramstout.mcworldexporter.export.VertexColorSet.VertexColorFace;
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
 
@@ -97,5 +98,12 @@ public class ModifierNodeSetVertexColor extends ModifierNode{
 		face.a0 = face.a1 = face.a2 = face.a3 = a;
 		return valueColor;
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		compiler.getInput(colorset);
+		compiler.getInput(color);
+		compiler.emitCall(this, dst);
+	}
 
 }
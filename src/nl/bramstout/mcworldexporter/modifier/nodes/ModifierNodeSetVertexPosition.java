@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "setVertexPosition" node sets the position of the vertex.
@@ -57,4 +59,10 @@ public class ModifierNodeSetVertexPosition extends ModifierNode{
 		return new Value(context.vertexX, context.vertexY, context.vertexZ);
 	}
 	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valuePosition = compiler.getInput(this.position);
+		compiler.emit(ModifierProgram.OP_SET_VERTEX_POSITION, dst, valuePosition);
+	}
+
 }
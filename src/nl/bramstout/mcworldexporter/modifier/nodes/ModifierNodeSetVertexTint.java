@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "setVertexTint" node sets the tint colour of the vertex.
@@ -57,4 +59,10 @@ public class ModifierNodeSetVertexTint extends ModifierNode{
 		return new Value(context.vertexR, context.vertexG, context.vertexB);
 	}
 	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueTint = compiler.getInput(this.tint);
+		compiler.emit(ModifierProgram.OP_SET_VERTEX_TINT, dst, valueTint);
+	}
+
 }
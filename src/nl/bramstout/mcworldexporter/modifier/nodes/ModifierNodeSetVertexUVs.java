@@ -31,8 +31,10 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "setVertexUVs" node sets the texture coordinates of the vertex.
@@ -56,4 +58,10 @@ public class ModifierNodeSetVertexUVs extends ModifierNode{
 		return new Value(context.vertexU, context.vertexV);
 	}
 	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueUvs = compiler.getInput(this.uvs);
+		compiler.emit(ModifierProgram.OP_SET_VERTEX_UVS, dst, valueUvs);
+	}
+
 }
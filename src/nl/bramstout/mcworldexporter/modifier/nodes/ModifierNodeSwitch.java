@@ -31,8 +31,14 @@
 
 package nl.bramstout.mcworldexporter.modifier.nodes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import nl.bramstout.mcworldexporter.modifier.ModifierCompiler;
 import nl.bramstout.mcworldexporter.modifier.ModifierContext;
 import nl.bramstout.mcworldexporter.modifier.ModifierNode;
+import nl.bramstout.mcworldexporter.modifier.ModifierProgram;
 
 /**
  * "switch" node, which evaluates the index attribute,
@@ -53,6 +59,11 @@ public class ModifierNodeSwitch extends ModifierNode{
 		this.defaultValue = new Attribute(this, new Value());
 	}
 
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+	
 	@Override
 	public Value evaluate(ModifierContext context) {
 		Value index = context.getValue(this.index);
@@ -64,5 +75,45 @@ public class ModifierNodeSwitch extends ModifierNode{
 			return context.getValue(defaultValue);
 		return context.getValue(attr);
 	}
+	
+	@Override
+	public void compile(ModifierCompiler compiler, int dst) {
+		int valueIndex = compiler.getInput(index);
+		List<Integer> keys = new ArrayList<Integer>();
+		List<Attribute> cases = new ArrayList<Attribute>();
+		for(Entry<String, Attribute> entry : getUserAttributes().entrySet()) {
+			if(!entry.getKey().startsWith("value_"))
+				continue;
+			String key = entry.getKey().substring(6);
+			try {
+				int keyI = Integer.parseInt(key);
+				// evaluate() looks the attribute up by name, so
+				// something like "value_01" would never get picked.
+				if(!Integer.toString(keyI).equals(key))
+					continue;
+				keys.add(keyI);
+				cases.add(entry.getValue());
+			}catch(Exception ex) {}
+		}
+		
+		int defaultLabel = compiler.newLabel();
+		int endLabel = compiler.newLabel();
+		int[] caseLabels = new int[cases.size()];
+		compiler.emit(ModifierProgram.OP_SWITCH, valueIndex, cases.size());
+		compiler.emitLabelReference(defaultLabel);
+		for(int i = 0; i < cases.size(); ++i) {
+			caseLabels[i] = compiler.newLabel();
+			compiler.emit(keys.get(i));
+			compiler.emitLabelReference(caseLabels[i]);
+		}
+		for(int i = 0; i < cases.size(); ++i) {
+			compiler.placeLabel(caseLabels[i]);
+			compiler.compileBranch(cases.get(i), dst);
+			compiler.emitJump(endLabel);
+		}
+		compiler.placeLabel(defaultLabel);
+		compiler.compileBranch(defaultValue, dst);
+		compiler.placeLabel(endLabel);
+	}
 
 }
@@ -107,15 +107,15 @@ public class AnimationInfo {
 		float scaleZ = bindPose.scaleZ;
 		BoneAnimation bone = animation.getBones().getOrDefault(bindPose.getName(), null);
 		if(bone != null) {
-			translateX = bone.getAnimTranslateX().getKeyframeAtTime(globalTime).value;
-			translateY = bone.getAnimTranslateY().getKeyframeAtTime(globalTime).value;
-			translateZ = bone.getAnimTranslateZ().getKeyframeAtTime(globalTime).value;
-			rotateX = bone.getAnimRotateX().getKeyframeAtTime(globalTime).value;
-			rotateY = bone.getAnimRotateY().getKeyframeAtTime(globalTime).value;
-			rotateZ = bone.getAnimRotateZ().getKeyframeAtTime(globalTime).value;
-			scaleX = bone.getAnimScaleX().getKeyframeAtTime(globalTime).value;
-			scaleY = bone.getAnimScaleY().getKeyframeAtTime(globalTime).value;
-			scaleZ = bone.getAnimScaleZ().getKeyframeAtTime(globalTime).value;
+			translateX = bone.getAnimTranslateX().getValueAtTime(globalTime);
+			translateY = bone.getAnimTranslateY().getValueAtTime(globalTime);
+			translateZ = bone.getAnimTranslateZ().getValueAtTime(globalTime);
+			rotateX = bone.getAnimRotateX().getValueAtTime(globalTime);
+			rotateY = bone.getAnimRotateY().getValueAtTime(globalTime);
+			rotateZ = bone.getAnimRotateZ().getValueAtTime(globalTime);
+			scaleX = bone.getAnimScaleX().getValueAtTime(globalTime);
+			scaleY = bone.getAnimScaleY().getValueAtTime(globalTime);
+			scaleZ = bone.getAnimScaleZ().getValueAtTime(globalTime);
 		}
 		return new float[] { translateX, translateY, translateZ,  rotateX, rotateY, rotateZ,  scaleX, scaleY, scaleZ };
 	}
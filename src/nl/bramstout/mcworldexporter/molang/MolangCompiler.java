@@ -0,0 +1,189 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.molang;
+
+import nl.bramstout.mcworldexporter.molang.MolangExpression.MolangConstantExpression;
+import nl.bramstout.mcworldexporter.molang.MolangExpression.MolangOperationExpression;
+import nl.bramstout.mcworldexporter.molang.MolangExpression.MolangParenthesesExpression;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangAccessArray;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangAdd;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangAnd;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangCall;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangConditional;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangDivide;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangEqual;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangForEach;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangGlobal;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangGreaterThan;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangGreaterThanOrEqual;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangInvert;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangLessThan;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangLessThanOrEqual;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangLoop;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangMultiply;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangNullCoalescing;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangOperationLeft;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangOperationLeftRight;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangOperationRight;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangOr;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangReturn;
+import nl.bramstout.mcworldexporter.molang.MolangOperation.MolangSubtract;
+
+/**
+ * Optimises a parsed expression tree before it gets evaluated.
+ * Parentheses are removed, operations on constants are folded
+ * into a single constant and conditionals with a constant
+ * condition are replaced by the branch that they would take.
+ * Built-in globals already get resolved to a slot in MolangGlobal.
+ */
+public class MolangCompiler {
+	
+	private boolean usesTemp;
+	
+	public MolangCompiler() {
+		usesTemp = false;
+	}
+	
+	/**
+	 * Returns whether any of the compiled expressions access the temp
+	 * variables, excluding nested scripts which handle that themselves.
+	 */
+	public boolean usesTemp() {
+		return usesTemp;
+	}
+	
+	public MolangExpression compile(MolangExpression expr) {
+		if(expr == null)
+			return null;
+		if(expr instanceof MolangParenthesesExpression)
+			return compile(((MolangParenthesesExpression) expr).getSubExpression());
+		if(expr instanceof MolangScript) {
+			((MolangScript) expr).compile();
+			return expr;
+		}
+		if(expr instanceof MolangOperationExpression)
+			return compileOperation((MolangOperationExpression) expr);
+		return expr;
+	}
+	
+	private MolangExpression compileOperation(MolangOperationExpression expr) {
+		MolangOperation op = expr.getOperation();
+		
+		// First compile the children.
+		if(op instanceof MolangOperationLeft)
+			((MolangOperationLeft) op).leftExpr = compile(((MolangOperationLeft) op).leftExpr);
+		if(op instanceof MolangOperationRight)
+			((MolangOperationRight) op).rightExpr = compile(((MolangOperationRight) op).rightExpr);
+		if(op instanceof MolangOperationLeftRight) {
+			((MolangOperationLeftRight) op).leftExpr = compile(((MolangOperationLeftRight) op).leftExpr);
+			((MolangOperationLeftRight) op).rightExpr = compile(((MolangOperationLeftRight) op).rightExpr);
+		}
+		if(op instanceof MolangAccessArray)
+			((MolangAccessArray) op).indexExpr = compile(((MolangAccessArray) op).indexExpr);
+		if(op instanceof MolangReturn)
+			((MolangReturn) op).returnExpr = compile(((MolangReturn) op).returnExpr);
+		if(op instanceof MolangLoop) {
+			((MolangLoop) op).countExpr = compile(((MolangLoop) op).countExpr);
+			((MolangLoop) op).expr = compile(((MolangLoop) op).expr);
+		}
+		if(op instanceof MolangForEach) {
+			((MolangForEach) op).tmpExpr = compile(((MolangForEach) op).tmpExpr);
+			((MolangForEach) op).arrayExpr = compile(((MolangForEach) op).arrayExpr);
+			((MolangForEach) op).expr = compile(((MolangForEach) op).expr);
+		}
+		if(op instanceof MolangConditional) {
+			((MolangConditional) op).trueExpr = compile(((MolangConditional) op).trueExpr);
+			((MolangConditional) op).falseExpr = compile(((MolangConditional) op).falseExpr);
+		}
+		if(op instanceof MolangCall) {
+			for(int i = 0; i < ((MolangCall) op).argumentExprs.size(); ++i)
+				((MolangCall) op).argumentExprs.set(i, compile(((MolangCall) op).argumentExprs.get(i)));
+		}
+		if(op instanceof MolangGlobal) {
+			if(((MolangGlobal) op).slot == MolangContext.SLOT_TEMP)
+				usesTemp = true;
+		}
+		
+		// Now see if we can fold it.
+		if(op instanceof MolangConditional) {
+			MolangConditional conditional = (MolangConditional) op;
+			if(conditional.leftExpr instanceof MolangConstantExpression) {
+				if(((MolangConstantExpression) conditional.leftExpr).getValue().asBoolean())
+					return conditional.trueExpr;
+				return conditional.falseExpr;
+			}
+			return expr;
+		}
+		if(op instanceof MolangNullCoalescing) {
+			MolangNullCoalescing nullCoalescing = (MolangNullCoalescing) op;
+			if(nullCoalescing.leftExpr instanceof MolangConstantExpression) {
+				if(((MolangConstantExpression) nullCoalescing.leftExpr).getValue().isNull())
+					return nullCoalescing.rightExpr;
+				return nullCoalescing.leftExpr;
+			}
+			return expr;
+		}
+		if(isPure(op) && hasConstantOperands(op)) {
+			try {
+				return new MolangConstantExpression(op.eval(null));
+			}catch(Exception ex) {
+				// Leave it to be evaluated at runtime.
+			}
+		}
+		return expr;
+	}
+	
+	/**
+	 * Returns true if the operation only depends on its operands.
+	 */
+	private static boolean isPure(MolangOperation op) {
+		return op instanceof MolangInvert || op instanceof MolangOr || op instanceof MolangAnd || 
+				op instanceof MolangLessThan || op instanceof MolangLessThanOrEqual || 
+				op instanceof MolangGreaterThan || op instanceof MolangGreaterThanOrEqual || 
+				op instanceof MolangEqual || op instanceof MolangAdd || op instanceof MolangSubtract || 
+				op instanceof MolangMultiply || op instanceof MolangDivide;
+	}
+	
+	private static boolean hasConstantOperands(MolangOperation op) {
+		if(op instanceof MolangOperationRight)
+			return ((MolangOperationRight) op).rightExpr instanceof MolangConstantExpression;
+		if(op instanceof MolangOperationLeftRight) {
+			MolangExpression leftExpr = ((MolangOperationLeftRight) op).leftExpr;
+			MolangExpression rightExpr = ((MolangOperationLeftRight) op).rightExpr;
+			// Add and subtract can have no left operand.
+			return (leftExpr == null || leftExpr instanceof MolangConstantExpression) && 
+					rightExpr instanceof MolangConstantExpression;
+		}
+		return false;
+	}
+	
+}
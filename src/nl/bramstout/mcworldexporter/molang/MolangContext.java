@@ -41,6 +41,36 @@ import nl.bramstout.mcworldexporter.molang.MolangValue.MolangNull;
 
 public class MolangContext {
 	
+	/*
+	 * The built-in globals are stored in slots, so that the
+	 * compiled scripts can look them up without going through
+	 * the globals and aliases maps.
+	 */
+	public static final int SLOT_TEMP = 0;
+	public static final int SLOT_MATH = 1;
+	public static final int SLOT_QUERY = 2;
+	public static final int SLOT_VARIABLE = 3;
+	public static final int SLOT_CONTEXT = 4;
+	private static final int NUM_SLOTS = 5;
+	
+	/**
+	 * Returns the slot for the given global name or alias,
+	 * or -1 if it isn't a built-in global.
+	 */
+	public static int getGlobalSlot(String name) {
+		if(name.equals("temp") || name.equals("t"))
+			return SLOT_TEMP;
+		if(name.equals("math"))
+			return SLOT_MATH;
+		if(name.equals("query") || name.equals("q"))
+			return SLOT_QUERY;
+		if(name.equals("variable") || name.equals("v"))
+			return SLOT_VARIABLE;
+		if(name.equals("context") || name.equals("c"))
+			return SLOT_CONTEXT;
+		return -1;
+	}
+	
 	private static class Scope{
 		
 		public MolangValue prevTempValues;
@@ -52,6 +82,7 @@ public class MolangContext {
 	}
 	
 	private Map<String, MolangValue> globals;
+	private MolangValue[] slots;
 	private MolangValue tempValues;
 	private Map<String, String> aliases;
 	private boolean breakFlag;
@@ -63,9 +94,10 @@ public class MolangContext {
 	
 	public MolangContext(MolangQuery query, Random random) {
 		this.globals = new HashMap<String, MolangValue>();
-		this.globals.put("math", new MolangValue(new MolangMath(random)));
-		this.globals.put("query", new MolangValue(query));
-		this.globals.put("variable", new MolangValue(new MolangDictionary()));
+		this.slots = new MolangValue[NUM_SLOTS];
+		setGlobal("math", new MolangValue(new MolangMath(random)));
+		setGlobal("query", new MolangValue(query));
+		setGlobal("variable", new MolangValue(new MolangDictionary()));
 		this.tempValues = new MolangValue(new MolangDictionary());
 		this.aliases = new HashMap<String, String>();
 		this.aliases.put("c", "context");
@@ -83,6 +115,7 @@ public class MolangContext {
 	
 	public MolangContext(MolangContext other) {
 		this.globals = other.globals;
+		this.slots = other.slots;
 		this.tempValues = new MolangValue(new MolangDictionary());
 		this.aliases = other.aliases;
 		this.scopes = new Stack<Scope>();
@@ -131,9 +164,16 @@ public class MolangContext {
 		animationInfos.pop();
 	}
 	
-	public MolangValue getGlobal(String name) {
-		if(name.equals("temp") || name.equals("t"))
+	public MolangValue getGlobal(int slot) {
+		if(slot == SLOT_TEMP)
 			return tempValues;
+		return slots[slot];
+	}
+	
+	public MolangValue getGlobal(String name) {
+		int slot = getGlobalSlot(name);
+		if(slot >= 0)
+			return getGlobal(slot);
 		return globals.getOrDefault(name, globals.getOrDefault(aliases.getOrDefault(name, ""), null));
 	}
 	
@@ -176,19 +216,22 @@ public class MolangContext {
 	}
 	
 	public void setVariableDict(MolangValue variableDict) {
-		globals.put("variable", variableDict);
+		setGlobal("variable", variableDict);
 	}
 	
 	public MolangValue getVariableDict() {
-		return globals.getOrDefault("variable", null);
+		return slots[SLOT_VARIABLE];
 	}
 	
 	public void setContextDict(MolangValue contextDict) {
-		globals.put("context", contextDict);
+		setGlobal("context", contextDict);
 	}
 	
 	public void setGlobal(String name, MolangValue value) {
 		globals.put(name, value);
+		int slot = getGlobalSlot(name);
+		if(slot > SLOT_TEMP)
+			slots[slot] = value;
 	}
 	
 }
@@ -46,6 +46,20 @@ public abstract class MolangExpression {
 			return this.value;
 		}
 		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return this.value.asNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return this.value.asBoolean(context);
+		}
+		
+		public MolangValue getValue() {
+			return value;
+		}
+		
 	}
 	
 	public static class MolangOperationExpression extends MolangExpression{
@@ -63,6 +77,20 @@ public abstract class MolangExpression {
 			return operation.eval(context);
 		}
 		
+		@Override
+		public float evalNumber(MolangContext context) {
+			if(context.getReturnFlag())
+				return context.getReturnValue().asNumber(context);
+			return operation.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			if(context.getReturnFlag())
+				return context.getReturnValue().asBoolean(context);
+			return operation.evalBoolean(context);
+		}
+		
 		public MolangOperation getOperation() {
 			return operation;
 		}
@@ -84,8 +112,38 @@ public abstract class MolangExpression {
 			return subExpr.eval(context);
 		}
 		
+		@Override
+		public float evalNumber(MolangContext context) {
+			if(context.getReturnFlag())
+				return context.getReturnValue().asNumber(context);
+			return subExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			if(context.getReturnFlag())
+				return context.getReturnValue().asBoolean(context);
+			return subExpr.evalBoolean(context);
+		}
+		
+		public MolangExpression getSubExpression() {
+			return subExpr;
+		}
+		
 	}
 	
 	public abstract MolangValue eval(MolangContext context);
 	
+	/**
+	 * Evaluates the expression as a number. Numeric operations override
+	 * this to skip creating a MolangValue for every intermediate result.
+	 */
+	public float evalNumber(MolangContext context) {
+		return eval(context).asNumber(context);
+	}
+	
+	public boolean evalBoolean(MolangContext context) {
+		return eval(context).asBoolean(context);
+	}
+	
 }
@@ -31,12 +31,18 @@
 
 package nl.bramstout.mcworldexporter.molang;
 
+import java.util.Map;
+
 import nl.bramstout.mcworldexporter.Random;
 import nl.bramstout.mcworldexporter.molang.MolangValue.MolangFunction;
 import nl.bramstout.mcworldexporter.molang.MolangValue.MolangObject;
+import nl.bramstout.mcworldexporter.molang.MolangValue.MolangValueImpl;
 
 public class MolangMath extends MolangObject{
 
+	private Random random;
+	private boolean fieldsInitialised;
+
 	private static class Abs extends MolangScript{
 		public Abs() {super(null);}
 		@Override
@@ -331,6 +337,17 @@ public class MolangMath extends MolangObject{
 	
 	public MolangMath(Random random) {
 		super();
+		this.random = random;
+		this.fieldsInitialised = false;
+	}
+	
+	/**
+	 * The functions are only created once a script accesses them,
+	 * since a new instance is created for every context.
+	 */
+	private void initFields() {
+		fieldsInitialised = true;
+		
 		
 		getFields().put("abs", new MolangValue(new MolangFunction(new Abs(), "value")));
 		getFields().put("acos", new MolangValue(new MolangFunction(new Acos(), "value")));
@@ -362,4 +379,25 @@ public class MolangMath extends MolangObject{
 		getFields().put("trunc", new MolangValue(new MolangFunction(new Trunc(), "value")));
 	}
 	
+	@Override
+	public MolangValue getField(MolangContext context, String name) {
+		if(!fieldsInitialised)
+			initFields();
+		return super.getField(context, name);
+	}
+	
+	@Override
+	public Map<String, MolangValue> getFields(){
+		if(!fieldsInitialised)
+			initFields();
+		return super.getFields();
+	}
+	
+	@Override
+	public MolangValueImpl copy() {
+		// Every context gets its own instance, so there is
+		// no need to copy it.
+		return this;
+	}
+	
 }
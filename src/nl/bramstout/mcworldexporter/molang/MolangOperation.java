@@ -80,7 +80,17 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(!rightExpr.eval(context).asBoolean(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return !rightExpr.evalBoolean(context);
 		}
 		
 		@Override
@@ -98,8 +108,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asBoolean(context) || 
-									rightExpr.eval(context).asBoolean(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalBoolean(context) || 
+					rightExpr.evalBoolean(context);
 		}
 		
 		@Override
@@ -117,8 +137,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asBoolean(context) && 
-									rightExpr.eval(context).asBoolean(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalBoolean(context) && 
+					rightExpr.evalBoolean(context);
 		}
 		
 		@Override
@@ -136,8 +166,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) < 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalNumber(context) < 
+					rightExpr.evalNumber(context);
 		}
 		
 		@Override
@@ -155,8 +195,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) <= 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalNumber(context) <= 
+					rightExpr.evalNumber(context);
 		}
 		
 		@Override
@@ -174,8 +224,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) > 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalNumber(context) > 
+					rightExpr.evalNumber(context);
 		}
 		
 		@Override
@@ -193,8 +253,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) >= 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.evalNumber(context) >= 
+					rightExpr.evalNumber(context);
 		}
 		
 		@Override
@@ -212,7 +282,17 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).equal(context, rightExpr.eval(context)));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return leftExpr.eval(context).equal(context, rightExpr.eval(context));
 		}
 		
 		@Override
@@ -231,7 +311,17 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(!super.eval(context).asBoolean(context));
+			return new MolangValue(evalBoolean(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return evalBoolean(context) ? 1f : 0f;
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return !super.evalBoolean(context);
 		}
 		
 		@Override
@@ -249,10 +339,20 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
+			return new MolangValue(evalNumber(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
 			if(leftExpr == null)
-				return new MolangValue(rightExpr.eval(context).asNumber(context));
-			return new MolangValue(leftExpr.eval(context).asNumber(context) + 
-									rightExpr.eval(context).asNumber(context));
+				return rightExpr.evalNumber(context);
+			return leftExpr.evalNumber(context) + 
+					rightExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return evalNumber(context) != 0f;
 		}
 		
 		@Override
@@ -270,10 +370,20 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
+			return new MolangValue(evalNumber(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
 			if(leftExpr == null)
-				return new MolangValue(-rightExpr.eval(context).asNumber(context));
-			return new MolangValue(leftExpr.eval(context).asNumber(context) - 
-									rightExpr.eval(context).asNumber(context));
+				return -rightExpr.evalNumber(context);
+			return leftExpr.evalNumber(context) - 
+					rightExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return evalNumber(context) != 0f;
 		}
 		
 		@Override
@@ -291,8 +401,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) * 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalNumber(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return leftExpr.evalNumber(context) * 
+					rightExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return evalNumber(context) != 0f;
 		}
 		
 		@Override
@@ -310,8 +430,18 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			return new MolangValue(leftExpr.eval(context).asNumber(context) / 
-									rightExpr.eval(context).asNumber(context));
+			return new MolangValue(evalNumber(context));
+		}
+		
+		@Override
+		public float evalNumber(MolangContext context) {
+			return leftExpr.evalNumber(context) / 
+					rightExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			return evalNumber(context) != 0f;
 		}
 		
 		@Override
@@ -327,11 +457,18 @@ public abstract class MolangOperation {
 		
 		public MolangGlobal(String name) {
 			this.name = name;
+			this.slot = MolangContext.getGlobalSlot(name);
 		}
 		
+		/**
+		 * The slot of the built-in global, resolved once when parsing,
+		 * or -1 if it needs to be looked up by name.
+		 */
+		public int slot;
+		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			MolangValue val = context.getGlobal(name);
+			MolangValue val = slot >= 0 ? context.getGlobal(slot) : context.getGlobal(name);
 			if(val == null)
 				throw new RuntimeException("No global with the name " + name);
 			return val;
@@ -498,7 +635,7 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			int count = (int) countExpr.eval(context).asNumber(context);
+			int count = (int) countExpr.evalNumber(context);
 			context.startScope();
 			context.setBreakFlag(false);
 			context.setContinueFlag(false);
@@ -572,11 +709,25 @@ public abstract class MolangOperation {
 		
 		@Override
 		public MolangValue eval(MolangContext context) {
-			if(leftExpr.eval(context).asBoolean(context))
+			if(leftExpr.evalBoolean(context))
 				return trueExpr.eval(context);
 			return falseExpr.eval(context);
 		}
 		
+		@Override
+		public float evalNumber(MolangContext context) {
+			if(leftExpr.evalBoolean(context))
+				return trueExpr.evalNumber(context);
+			return falseExpr.evalNumber(context);
+		}
+		
+		@Override
+		public boolean evalBoolean(MolangContext context) {
+			if(leftExpr.evalBoolean(context))
+				return trueExpr.evalBoolean(context);
+			return falseExpr.evalBoolean(context);
+		}
+		
 		@Override
 		public int getPriority() {
 			return 3;
@@ -615,4 +766,12 @@ public abstract class MolangOperation {
 	public abstract MolangValue eval(MolangContext context);
 	public abstract int getPriority();
 	
+	public float evalNumber(MolangContext context) {
+		return eval(context).asNumber(context);
+	}
+	
+	public boolean evalBoolean(MolangContext context) {
+		return eval(context).asBoolean(context);
+	}
+	
 }
@@ -33,6 +33,8 @@ package nl.bramstout.mcworldexporter.molang;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import nl.bramstout.mcworldexporter.molang.MolangExpression.MolangConstantExpression;
 import nl.bramstout.mcworldexporter.molang.MolangExpression.MolangOperationExpression;
@@ -73,6 +75,12 @@ public class MolangParser {
 			"Geometry", "Material", "Texture", "Array", "context"
 	};
 	
+	/**
+	 * Compiled scripts don't hold any state, so scripts with the
+	 * same code can share the same instance.
+	 */
+	private static Map<String, MolangScript> scriptCache = new ConcurrentHashMap<String, MolangScript>();
+	
 	private static class Reader{
 		
 		private String code;
@@ -126,7 +134,22 @@ public class MolangParser {
 	}
 	
 	public static MolangScript parse(String code) {
-		return parseMultiline(new Reader(code));
+		MolangScript script = scriptCache.getOrDefault(code, null);
+		if(script != null)
+			return script;
+		script = parseMultiline(new Reader(code));
+		script.compile();
+		scriptCache.put(code, script);
+		return script;
+	}
+	
+	/**
+	 * Removes all cached scripts. Called when the resource packs
+	 * get reloaded, so that the scripts of the old resource packs
+	 * don't stay around.
+	 */
+	public static void clearCache() {
+		scriptCache.clear();
 	}
 	
 	private static MolangScript parseMultiline(Reader reader) {
@@ -44,6 +44,7 @@ import nl.bramstout.mcworldexporter.molang.MolangValue.MolangArray;
 import nl.bramstout.mcworldexporter.molang.MolangValue.MolangDictionary;
 import nl.bramstout.mcworldexporter.molang.MolangValue.MolangFunction;
 import nl.bramstout.mcworldexporter.molang.MolangValue.MolangObject;
+import nl.bramstout.mcworldexporter.molang.MolangValue.MolangValueImpl;
 import nl.bramstout.mcworldexporter.nbt.NbtTag;
 import nl.bramstout.mcworldexporter.nbt.NbtTagCompound;
 import nl.bramstout.mcworldexporter.nbt.NbtTagList;
@@ -61,6 +62,7 @@ public class MolangQuery extends MolangObject{
 	public float x;
 	public float y;
 	public float z;
+	private boolean fieldsInitialised;
 	
 	private class AboveTopSolid extends MolangScript{
 		public AboveTopSolid() {super(null);}
@@ -602,7 +604,7 @@ public class MolangQuery extends MolangObject{
 			AnimationInfo info = context.getAnimationInfo();
 			if(info != null) {
 				if(info.animation != null) {
-					return new MolangValue(info.animation.getAnimHeadPitch().getKeyframeAtTime(info.globalTime).value);
+					return new MolangValue(info.animation.getAnimHeadPitch().getValueAtTime(info.globalTime));
 				}
 			}
 			NbtTag pitchTag = properties.get("HeadPitch");
@@ -618,7 +620,7 @@ public class MolangQuery extends MolangObject{
 			AnimationInfo info = context.getAnimationInfo();
 			if(info != null) {
 				if(info.animation != null) {
-					return new MolangValue(info.animation.getAnimHeadYaw().getKeyframeAtTime(info.globalTime).value);
+					return new MolangValue(info.animation.getAnimHeadYaw().getValueAtTime(info.globalTime));
 				}
 			}
 			NbtTag yawTag = properties.get("HeadYaw");
@@ -634,7 +636,7 @@ public class MolangQuery extends MolangObject{
 			AnimationInfo info = context.getAnimationInfo();
 			if(info != null) {
 				if(info.animation != null) {
-					return new MolangValue(info.animation.getAnimPitch().getKeyframeAtTime(info.globalTime).value);
+					return new MolangValue(info.animation.getAnimPitch().getValueAtTime(info.globalTime));
 				}
 			}
 			NbtTag pitchTag = properties.get("Pitch");
@@ -650,7 +652,7 @@ public class MolangQuery extends MolangObject{
 			AnimationInfo info = context.getAnimationInfo();
 			if(info != null) {
 				if(info.animation != null) {
-					return new MolangValue(info.animation.getAnimYaw().getKeyframeAtTime(info.globalTime).value);
+					return new MolangValue(info.animation.getAnimYaw().getValueAtTime(info.globalTime));
 				}
 			}
 			NbtTag yawTag = properties.get("Yaw");
@@ -1754,6 +1756,15 @@ public class MolangQuery extends MolangObject{
 		this.x = x;
 		this.y = y;
 		this.z = z;
+		this.fieldsInitialised = false;
+	}
+	
+	/**
+	 * The functions are only created once a script accesses them,
+	 * since a new instance is created for every context.
+	 */
+	private void initFields() {
+		fieldsInitialised = true;
 		
 		getFields().put("above_top_solid", new MolangValue(new MolangFunction(new AboveTopSolid())));
 		getFields().put("all", new MolangValue(new MolangFunction(new All())));
@@ -1886,4 +1897,25 @@ public class MolangQuery extends MolangObject{
 		getFields().put("standing_scale", new MolangValue(new MolangFunction(new StandingScale())));
 	}
 	
+	@Override
+	public MolangValue getField(MolangContext context, String name) {
+		if(!fieldsInitialised)
+			initFields();
+		return super.getField(context, name);
+	}
+	
+	@Override
+	public Map<String, MolangValue> getFields(){
+		if(!fieldsInitialised)
+			initFields();
+		return super.getFields();
+	}
+	
+	@Override
+	public MolangValueImpl copy() {
+		// Every context gets its own instance, so there is
+		// no need to copy it.
+		return this;
+	}
+	
 }
@@ -39,10 +39,27 @@ public class MolangScript extends MolangExpression{
 
 	private String originalCode;
 	private List<MolangExpression> expressions;
+	/**
+	 * Whether the script accesses the temp variables. If it doesn't,
+	 * then there is no need to give it its own scope.
+	 */
+	private boolean usesTemp;
 	
 	public MolangScript(List<MolangExpression> expressions) {
 		originalCode = "";
 		this.expressions = expressions;
+		this.usesTemp = true;
+	}
+	
+	/**
+	 * Compiles the expressions in this script, see MolangCompiler.
+	 * Only called by the parser, before the script is handed out.
+	 */
+	void compile() {
+		MolangCompiler compiler = new MolangCompiler();
+		for(int i = 0; i < expressions.size(); ++i)
+			expressions.set(i, compiler.compile(expressions.get(i)));
+		usesTemp = compiler.usesTemp();
 	}
 	
 	public void setOriginalCode(String code) {
@@ -55,15 +72,18 @@ public class MolangScript extends MolangExpression{
 		try {
 			if(context.getReturnFlag())
 				return context.getReturnValue();
-			context.startScope();
-			for(MolangExpression expr : expressions) {
-				returnValue = expr.eval(context);
+			if(usesTemp)
+				context.startScope();
+			for(int i = 0; i < expressions.size(); ++i) {
+				returnValue = expressions.get(i).eval(context);
 				if(context.getReturnFlag()) {
-					context.endScope();
+					if(usesTemp)
+						context.endScope();
 					return context.getReturnValue();
 				}
 			}
-			context.endScope();
+			if(usesTemp)
+				context.endScope();
 		}catch(Exception ex) {
 			System.err.println(originalCode);
 			ex.printStackTrace();
@@ -0,0 +1,351 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package nl.bramstout.mcworldexporter.pbr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import nl.bramstout.mcworldexporter.Json;
+
+/**
+ * Remembers what the PBR generator did for each texture, so that
+ * textures whose inputs and node graph haven't changed can be skipped.
+ * 
+ * An entry stores a fingerprint of the node graph and context, the
+ * files that were read along with a hash of their contents, and the files
+ * that were written. An entry is up to date when the fingerprint matches,
+ * every input still resolves to the same file with the same contents,
+ * and every output is still on disk unmodified. Inputs that were missing
+ * are stored too, and need to still be missing.
+ */
+public class PbrCache {
+	
+	/**
+	 * Bump this whenever the behaviour of the nodes changes,
+	 * so that everything gets regenerated.
+	 */
+	private static final int VERSION = 2;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
+	private File file;
+	private Map<String, CacheEntry> entries;
+	private Set<String> usedKeys;
+	
+	public PbrCache(File file) {
+		this.file = file;
+		this.entries = new HashMap<String, CacheEntry>();
+		this.usedKeys = new HashSet<String>();
+		load();
+	}
+	
+	private void load() {
+		if(!file.exists())
+			return;
+		try {
+			JsonObject data = Json.read(file).getAsJsonObject();
+			if(!data.has("version") || data.get("version").getAsInt() != VERSION)
+				return;
+			for(Entry<String, JsonElement> entry : data.getAsJsonObject("entries").entrySet())
+				entries.put(entry.getKey(), new CacheEntry(entry.getValue().getAsJsonObject()));
+		}catch(Exception ex) {
+			System.out.println("Could not read PBR cache " + file.getPath() + ", regenerating everything.");
+			entries.clear();
+		}
+	}
+	
+	public void save() {
+		JsonObject entriesData = new JsonObject();
+		synchronized(this) {
+			for(Entry<String, CacheEntry> entry : entries.entrySet()) {
+				// Only keep the textures that we have come across,
+				// everything else has been removed or isn't selected anymore.
+				if(usedKeys.contains(entry.getKey()))
+					entriesData.add(entry.getKey(), entry.getValue().toJson());
+			}
+		}
+		JsonObject data = new JsonObject();
+		data.addProperty("version", VERSION);
+		data.add("entries", entriesData);
+		try {
+			file.getParentFile().mkdirs();
+			Json.writeJson(file, data);
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Returns true if the texture with this key was generated
+	 * with the given fingerprint and none of its inputs or outputs
+	 * have changed since.
+	 */
+	public boolean isUpToDate(String key, String fingerprint, PbrContext context) {
+		CacheEntry entry = null;
+		synchronized(this) {
+			usedKeys.add(key);
+			entry = entries.getOrDefault(key, null);
+		}
+		if(entry == null)
+			return false;
+		try {
+			return entry.isUpToDate(fingerprint, context);
+		}catch(Exception ex) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Stores the files that the context read and wrote
+	 * while generating the texture with this key.
+	 */
+	public void put(String key, String fingerprint, PbrContext context) {
+		CacheEntry entry = null;
+		try {
+			entry = new CacheEntry(fingerprint, context);
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}
+		synchronized(this) {
+			usedKeys.add(key);
+			if(entry == null)
+				entries.remove(key);
+			else
+				entries.put(key, entry);
+		}
+	}
+	
+	public synchronized void remove(String key) {
+		entries.remove(key);
+	}
+	
+	private static class CacheEntry{
+		
+		public String fingerprint;
+		public List<FileState> inputs;
+		public List<FileState> outputs;
+		
+		public CacheEntry(JsonObject data) {
+			fingerprint = data.get("fingerprint").getAsString();
+			inputs = new ArrayList<FileState>();
+			outputs = new ArrayList<FileState>();
+			for(JsonElement el : data.getAsJsonArray("inputs").asList())
+				inputs.add(new FileState(el.getAsJsonObject()));
+			for(JsonElement el : data.getAsJsonArray("outputs").asList())
+				outputs.add(new FileState(el.getAsJsonObject()));
+		}
+		
+		public CacheEntry(String fingerprint, PbrContext context) throws Exception {
+			this.fingerprint = fingerprint;
+			inputs = new ArrayList<FileState>();
+			outputs = new ArrayList<FileState>();
+			for(Entry<File, String> input : context.readFiles.entrySet()) {
+				// Files that we wrote ourselves are intermediates,
+				// so they aren't actual inputs.
+				if(context.writtenFiles.contains(input.getKey()))
+					continue;
+				FileState state = new FileState(input.getValue(), input.getKey());
+				if(state.exists)
+					state.hash = hashFile(input.getKey());
+				inputs.add(state);
+			}
+			for(String missing : context.missingFiles)
+				inputs.add(new FileState(missing, null));
+			for(File output : context.writtenFiles) {
+				// Temporary files get deleted afterwards.
+				if(context.temporaryFiles.contains(output))
+					continue;
+				outputs.add(new FileState(null, output));
+			}
+		}
+		
+		public boolean isUpToDate(String fingerprint, PbrContext context) throws Exception {
+			if(!this.fingerprint.equals(fingerprint))
+				return false;
+			for(FileState output : outputs) {
+				File file = new File(output.path);
+				if(!file.exists() || file.length() != output.size || file.lastModified() != output.modified)
+					return false;
+			}
+			for(FileState input : inputs) {
+				if(input.name != null) {
+					// A different resource pack could now provide this file.
+					File resolvedFile = context.getTexture(input.name, false, false);
+					if(!input.exists) {
+						if(resolvedFile != null && resolvedFile.exists())
+							return false;
+						continue;
+					}
+					if(resolvedFile == null || !resolvedFile.getAbsolutePath().equals(input.path))
+						return false;
+				}else if(!input.exists) {
+					if(new File(input.path).exists())
+						return false;
+					continue;
+				}
+				File file = new File(input.path);
+				long size = file.exists() ? file.length() : -1;
+				long modified = file.exists() ? file.lastModified() : 0;
+				if(size == input.size && modified == input.modified)
+					continue;
+				// The file has been touched, but its contents might still be the same.
+				if(!hashFile(file).equals(input.hash))
+					return false;
+				input.size = size;
+				input.modified = modified;
+			}
+			return true;
+		}
+		
+		public JsonObject toJson() {
+			JsonObject data = new JsonObject();
+			data.addProperty("fingerprint", fingerprint);
+			JsonArray inputsData = new JsonArray();
+			for(FileState input : inputs)
+				inputsData.add(input.toJson());
+			data.add("inputs", inputsData);
+			JsonArray outputsData = new JsonArray();
+			for(FileState output : outputs)
+				outputsData.add(output.toJson());
+			data.add("outputs", outputsData);
+			return data;
+		}
+		
+	}
+	
+	private static class FileState{
+		
+		/**
+		 * The id that the file was looked up with,
+		 * or null if it was a direct path.
+		 */
+		public String name;
+		/**
+		 * The path of the file, or null if the id
+		 * couldn't be resolved to a file.
+		 */
+		public String path;
+		public boolean exists;
+		public long size;
+		public long modified;
+		public String hash;
+		
+		public FileState(String name, File file) {
+			this.name = name;
+			this.path = file == null ? null : file.getAbsolutePath();
+			this.exists = file != null && file.exists();
+			this.size = exists ? file.length() : -1;
+			this.modified = exists ? file.lastModified() : 0;
+			this.hash = "";
+		}
+		
+		public FileState(JsonObject data) {
+			name = data.has("name") ? data.get("name").getAsString() : null;
+			path = data.has("path") ? data.get("path").getAsString() : null;
+			exists = data.has("exists") ? data.get("exists").getAsBoolean() : true;
+			size = data.get("size").getAsLong();
+			modified = data.get("modified").getAsLong();
+			hash = data.has("hash") ? data.get("hash").getAsString() : "";
+		}
+		
+		public JsonObject toJson() {
+			JsonObject data = new JsonObject();
+			if(name != null)
+				data.addProperty("name", name);
+			if(path != null)
+				data.addProperty("path", path);
+			if(!exists)
+				data.addProperty("exists", false);
+			data.addProperty("size", size);
+			data.addProperty("modified", modified);
+			if(!hash.isEmpty())
+				data.addProperty("hash", hash);
+			return data;
+		}
+		
+	}
+	
+	/**
+	 * Returns the SHA-1 hash of the file's contents,
+	 * or an empty string if the file doesn't exist.
+	 */
+	public static String hashFile(File file) throws Exception {
+		if(!file.exists())
+			return "";
+		MessageDigest md = MessageDigest.getInstance("SHA-1");
+		byte[] buffer = new byte[64 * 1024];
+		InputStream is = null;
+		try {
+			is = new FileInputStream(file);
+			int read = 0;
+			while((read = is.read(buffer)) > 0)
+				md.update(buffer, 0, read);
+		}finally {
+			if(is != null)
+				is.close();
+		}
+		return toHex(md.digest());
+	}
+	
+	public static String hashString(String data) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			md.update(data.getBytes("UTF-8"));
+			return toHex(md.digest());
+		}catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+	
+	private static String toHex(byte[] digest) {
+		char[] digestChar = new char[digest.length * 2];
+		for(int i = 0; i < digest.length; ++i) {
+			digestChar[i*2] = HEX[(digest[i] >> 4) & 0xF];
+			digestChar[i*2 + 1] = HEX[digest[i] & 0xF];
+		}
+		return new String(digestChar);
+	}
+	
+}
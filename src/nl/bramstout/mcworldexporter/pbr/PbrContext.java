@@ -35,6 +35,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,13 +56,38 @@ public class PbrContext {
 	public Set<PbrAttribute> dirtyAttributes = new HashSet<PbrAttribute>();
 	
 	public List<File> temporaryFiles = new ArrayList<File>();
+	/**
+	 * The files read while processing, mapped to the id that they
+	 * were looked up with, or null if they weren't looked up by id.
+	 * Used by the PbrCache to figure out when to regenerate a texture.
+	 */
+	public Map<File, String> readFiles = new LinkedHashMap<File, String>();
+	/**
+	 * The ids that were looked up, but couldn't be resolved to a file.
+	 */
+	public Set<String> missingFiles = new LinkedHashSet<String>();
+	public Set<File> writtenFiles = new LinkedHashSet<File>();
+	
+	/**
+	 * Records that a node read this file. The file may be null when
+	 * the id couldn't be resolved, in which case it's recorded as missing,
+	 * so that the texture gets regenerated once the file does show up.
+	 */
+	public void addReadFile(File file, String id) {
+		if(file == null) {
+			if(id != null)
+				missingFiles.add(id);
+			return;
+		}
+		readFiles.put(file, id);
+	}
 	
 	public File getFile(String resource, String type, String extension, String category) {
 		ResourcePack pack = null;
 		for(int i = 0; i < resourcePacks.size(); ++i) {
 			pack = resourcePacks.get(i);
 			File file = pack.getResource(resource, type, category, extension);
-			if(file != null && file.exists())
+			if(pack.exists(file))
 				return file;
 		}
 		return null;
@@ -105,7 +132,7 @@ public class PbrContext {
 		}else {
 			for(int i = 0; i < resourcePacks.size(); ++i) {
 				File file = getTexture(id, extension, resourcePacks.get(i));
-				if(file.exists())
+				if(resourcePacks.get(i).exists(file))
 					return file;
 			}
 			return getTexture(id, extension, resourcePack);
@@ -117,10 +144,10 @@ public class PbrContext {
 			return resourcePack.getResource(id, "textures", "assets", extension);
 		}else {
 			File file = resourcePack.getResource(id, "textures", "assets", ".exr");
-			if(file.exists())
+			if(resourcePack.exists(file))
 				return file;
 			file = resourcePack.getResource(id, "textures", "assets", ".tga");
-			if(file.exists())
+			if(resourcePack.exists(file))
 				return file;
 			file = resourcePack.getResource(id, "textures", "assets", ".png");
 			return file;
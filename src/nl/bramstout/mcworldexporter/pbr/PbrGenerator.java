@@ -68,6 +68,7 @@ public class PbrGenerator {
 	private Map<String, PbrNodeGraph> graphs;
 	private Queue<Texture> queue;
 	private List<File> temporaryFiles;
+	private Map<ResourcePack, PbrCache> caches;
 	
 	public PbrGenerator() {
 		resourcePacks = new ArrayList<ResourcePack>();
@@ -77,6 +78,7 @@ public class PbrGenerator {
 		graphs = new HashMap<String, PbrNodeGraph>();
 		queue = new ConcurrentLinkedQueue<Texture>();
 		temporaryFiles = new ArrayList<File>();
+		caches = new HashMap<ResourcePack, PbrCache>();
 	}
 	
 	public void process() {
@@ -137,10 +139,17 @@ public class PbrGenerator {
 		}catch(Exception ex) {
 			ex.printStackTrace();
 		}
+		for(PbrCache cache : caches.values())
+			cache.save();
+		caches.clear();
 		for(File file : temporaryFiles) {
 			try {
 				if(file.exists())
 					file.delete();
+				for(ResourcePack resourcePack : resourcePacks)
+					resourcePack.removeFromFileIndex(file);
+				if(saveToResourcePack != null)
+					saveToResourcePack.removeFromFileIndex(file);
 			}catch(Exception ex) {
 				ex.printStackTrace();
 			}
@@ -150,6 +159,39 @@ public class PbrGenerator {
 		System.out.println("PBR Generator finished running.");
 	}
 	
+	/**
+	 * Returns the cache for the resource pack that the
+	 * generated textures are written into.
+	 */
+	private PbrCache getCache(ResourcePack resourcePack) {
+		synchronized(caches) {
+			PbrCache cache = caches.getOrDefault(resourcePack, null);
+			if(cache == null) {
+				cache = new PbrCache(new File(resourcePack.getFolder(), "miex_pbr_cache.json"));
+				caches.put(resourcePack, cache);
+			}
+			return cache;
+		}
+	}
+	
+	private String getFingerprint(String graphId, PbrNodeGraph graph, Texture texture) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(graphId);
+		sb.append('\n');
+		sb.append(graph.getFingerprint());
+		sb.append('\n');
+		sb.append(texture.extension);
+		sb.append('\n');
+		for(ResourcePack resourcePack : resourcePacks) {
+			sb.append(resourcePack.getUUID());
+			sb.append(';');
+		}
+		sb.append('\n');
+		if(saveToResourcePack != null)
+			sb.append(saveToResourcePack.getUUID());
+		return PbrCache.hashString(sb.toString());
+	}
+	
 	private static class Texture{
 		
 		public String texture;
@@ -181,20 +223,36 @@ public class PbrGenerator {
 					context.resourcePacks = generator.resourcePacks;
 					context.saveToResourcePack = generator.saveToResourcePack;
 					
+					String currentGraphId = null;
 					PbrNodeGraph currentGraph = null;
-					for(PbrNodeGraph graph : generator.graphs.values()) {
-						if(graph.isInSelection(texture.texture)) {
-							if(currentGraph == null)
-								currentGraph = graph;
-							else if(graph.priority > currentGraph.priority)
-								currentGraph = graph;
+					for(Entry<String, PbrNodeGraph> graph : generator.graphs.entrySet()) {
+						if(graph.getValue().isInSelection(texture.texture)) {
+							if(currentGraph == null || graph.getValue().priority > currentGraph.priority) {
+								currentGraphId = graph.getKey();
+								currentGraph = graph.getValue();
+							}
 						}
 					}
 					
 					if(currentGraph == null)
 						continue;
 					
-					currentGraph.process(context);
+					PbrCache cache = generator.getCache(generator.saveToResourcePack != null ? 
+													generator.saveToResourcePack : texture.resourcePack);
+					String cacheKey = texture.resourcePack.getUUID() + ";" + texture.texture;
+					String fingerprint = generator.getFingerprint(currentGraphId, currentGraph, texture);
+					if(cache.isUpToDate(cacheKey, fingerprint, context)) {
+						MCWorldExporter.getApp().getUI().getProgressBar().finishedChunk();
+						continue;
+					}
+					
+					try {
+						currentGraph.process(context);
+					}catch(Exception ex) {
+						cache.remove(cacheKey);
+						throw ex;
+					}
+					cache.put(cacheKey, fingerprint, context);
 					
 					if(!context.temporaryFiles.isEmpty()) {
 						synchronized(generator.temporaryFiles) {
@@ -251,7 +309,7 @@ public class PbrGenerator {
 		if(graph == null) {
 			for(int i = 0; i < resourcePacks.size(); ++i) {
 				File file = resourcePacks.get(i).getResource(id, "nodegraphs", "pbr", ".json");
-				if(!file.exists())
+				if(!resourcePacks.get(i).exists(file))
 					continue;
 				parseNodeGraph(file, id, i);
 				return graphs.get(id);
@@ -276,6 +334,8 @@ public class PbrGenerator {
 	}
 	
 	private void parseNodeGraph(JsonObject data, PbrNodeGraph graph, String id, int currentIndex) {
+		graph.definitions.add(data.toString());
+		
 		if(data.has("include")) {
 			for(JsonElement el : data.getAsJsonArray("include").asList()) {
 				String includeId = el.getAsString();
@@ -289,7 +349,7 @@ public class PbrGenerator {
 				boolean found = false;
 				for(int i = startIndex; i < resourcePacks.size(); ++i) {
 					File file = resourcePacks.get(i).getResource(includeId, "nodegraphs", "pbr", ".json");
-					if(!file.exists())
+					if(!resourcePacks.get(i).exists(file))
 						continue;
 					
 					found = true;
@@ -409,6 +469,7 @@ public class PbrGenerator {
 					throw new RuntimeException("Could not find node graph with name: " + subGraphId);
 				
 				subGraph = subGraph.copy();
+				graph.definitions.addAll(subGraph.definitions);
 				for(PbrNode node : subGraph.nodes) {
 					node.setName(prefix + node.getName());
 					subGraphNodes.add(node);
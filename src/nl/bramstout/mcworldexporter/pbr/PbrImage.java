@@ -59,6 +59,18 @@ public abstract class PbrImage {
 	
 	public abstract PbrImage copy();
 	
+	/**
+	 * Returns an image that has all of its pixels in memory.
+	 * Nodes that sample their inputs at arbitrary or neighbouring
+	 * pixels should call this, so that deferred images don't end
+	 * up getting evaluated multiple times.
+	 * 
+	 * @return
+	 */
+	public PbrImage materialise() {
+		return this;
+	}
+	
 	/**
 	 * Samples the image at the given pixel coordinates.
 	 * (0, 0) is the top-left. The boundary mode indices
@@ -85,6 +97,32 @@ public abstract class PbrImage {
 			throw new RuntimeException("Invalid interpolation mode");
 	}
 	
+	/**
+	 * Samples the image at the centre of pixel (x, y) of an
+	 * image with the given width and height, stretching this
+	 * image to that resolution.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param boundaryMode
+	 * @param interpolationMode
+	 * @param out
+	 */
+	public void sampleScaled(int x, int y, int width, int height, Boundary boundaryMode, 
+								Interpolation interpolationMode, RGBA out) {
+		if(interpolationMode == Interpolation.NEAREST && width == getWidth() && height == getHeight()) {
+			// Same resolution, so no need to go through the floats.
+			sample(x, y, boundaryMode, out);
+			return;
+		}
+		float i = ((float) x) + 0.5f;
+		float j = ((float) y) + 0.5f;
+		sample((i / ((float) width)) * ((float) getWidth()), 
+				(j / ((float) height)) * ((float) getHeight()), boundaryMode, interpolationMode, out);
+	}
+	
 	private void sampleNearest(float x, float y, Boundary boundaryMode, RGBA out) {
 		int ix = (int) Math.floor(x);
 		int iy = (int) Math.floor(y);
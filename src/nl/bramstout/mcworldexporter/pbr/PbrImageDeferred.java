@@ -0,0 +1,208 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package nl.bramstout.mcworldexporter.pbr;
+
+/**
+ * An image whose pixels are only computed when they are sampled,
+ * a tile of rows at a time. Pointwise nodes output these rather
+ * than filling in a full raster, so that a chain of pointwise nodes
+ * is evaluated in a single pass per tile and the intermediate results
+ * never need full resolution buffers. Only the last few tiles are kept
+ * around, so nodes that need to look at neighbouring pixels should
+ * call materialise() on their inputs. Once materialised, the image
+ * keeps the full raster, so other nodes using the same image don't
+ * evaluate it again.
+ */
+public abstract class PbrImageDeferred extends PbrImage{
+	
+	/**
+	 * The number of floats in a tile, which is chosen so that
+	 * a tile fits in the cache.
+	 */
+	private static final int TILE_SIZE = 32 * 1024;
+	private static final int MIN_TILE_ROWS = 4;
+	private static final int NUM_TILES = 4;
+	
+	private int width;
+	private int height;
+	private int tileRows;
+	private float[][] tiles;
+	private int[] tileIndices;
+	private long[] tileLastUsed;
+	private long counter;
+	private int lastTile;
+	private RGBA tmp;
+	private PbrImageRaster materialised;
+	
+	public PbrImageDeferred(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.tileRows = Math.min(Math.max(TILE_SIZE / Math.max(width * 4, 1), MIN_TILE_ROWS), Math.max(height, 1));
+		this.tiles = new float[NUM_TILES][];
+		this.tileIndices = new int[NUM_TILES];
+		this.tileLastUsed = new long[NUM_TILES];
+		for(int i = 0; i < NUM_TILES; ++i)
+			this.tileIndices[i] = -1;
+		this.counter = 0;
+		this.lastTile = 0;
+		this.tmp = new RGBA();
+		this.materialised = null;
+	}
+	
+	/**
+	 * Computes the value of the pixel at the given coordinates.
+	 * Pixels are evaluated in scanline order within a tile.
+	 */
+	protected abstract void evaluate(int x, int y, RGBA out);
+	
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	
+	@Override
+	public void sample(int x, int y, Boundary boundaryMode, RGBA out) {
+		if(materialised != null) {
+			materialised.sample(x, y, boundaryMode, out);
+			return;
+		}
+		if(width <= 0 || height <= 0) {
+			out.r = 0f;
+			out.g = 0f;
+			out.b = 0f;
+			out.a = 0f;
+			return;
+		}
+		if(x < 0 || y < 0 || x >= width || y >= height) {
+			switch(boundaryMode) {
+			case EMPTY:
+				out.r = 0f;
+				out.g = 0f;
+				out.b = 0f;
+				out.a = 0f;
+				return;
+			case CLIP:
+				x = Math.min(Math.max(x, 0), width - 1);
+				y = Math.min(Math.max(y, 0), height - 1);
+				break;
+			case REPEAT:
+				x = x % width;
+				if(x < 0)
+					x += width;
+				y = y % height;
+				if(y < 0)
+					y += height;
+				break;
+			}
+		}
+		int tileIndex = y / tileRows;
+		float[] tile = getTile(tileIndex);
+		int index = ((y - tileIndex * tileRows) * width + x) * 4;
+		out.r = tile[index];
+		out.g = tile[index + 1];
+		out.b = tile[index + 2];
+		out.a = tile[index + 3];
+	}
+	
+	private float[] getTile(int tileIndex) {
+		// Most of the time, we keep on sampling the same tile.
+		if(tileIndices[lastTile] == tileIndex)
+			return tiles[lastTile];
+		counter++;
+		tileLastUsed[lastTile] = counter;
+		counter++;
+		int slot = 0;
+		for(int i = 0; i < NUM_TILES; ++i) {
+			if(tileIndices[i] == tileIndex) {
+				tileLastUsed[i] = counter;
+				lastTile = i;
+				return tiles[i];
+			}
+			if(tileLastUsed[i] < tileLastUsed[slot])
+				slot = i;
+		}
+		
+		// Not in the cache, so compute it in the least recently used slot.
+		if(tiles[slot] == null)
+			tiles[slot] = new float[width * tileRows * 4];
+		float[] tile = tiles[slot];
+		// Mark the slot as invalid while we compute it, in case
+		// evaluate() ends up throwing an exception.
+		tileIndices[slot] = -1;
+		int startY = tileIndex * tileRows;
+		int endY = Math.min(startY + tileRows, height);
+		int index = 0;
+		for(int j = startY; j < endY; ++j) {
+			for(int i = 0; i < width; ++i) {
+				evaluate(i, j, tmp);
+				tile[index] = tmp.r;
+				tile[index + 1] = tmp.g;
+				tile[index + 2] = tmp.b;
+				tile[index + 3] = tmp.a;
+				index += 4;
+			}
+		}
+		tileIndices[slot] = tileIndex;
+		tileLastUsed[slot] = counter;
+		lastTile = slot;
+		return tile;
+	}
+	
+	@Override
+	public void write(int x, int y, Boundary boundaryMode, RGBA value) {
+		throw new RuntimeException("Cannot write to a deferred image, call copy() first.");
+	}
+	
+	@Override
+	public PbrImage copy() {
+		if(materialised != null)
+			return materialised.copy();
+		return new PbrImageRaster(this);
+	}
+	
+	@Override
+	public PbrImage materialise() {
+		if(materialised == null) {
+			materialised = new PbrImageRaster(this);
+			// We don't need the tiles anymore.
+			tiles = null;
+		}
+		return materialised;
+	}
+	
+}
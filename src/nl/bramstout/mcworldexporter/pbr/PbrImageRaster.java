@@ -39,8 +39,25 @@ public class PbrImageRaster extends PbrImage{
 	private int height;
 	private float[] data;
 	
+	/**
+	 * Lookup tables to convert 8-bit values to floats,
+	 * either as-is or linearised.
+	 */
+	private static final float[] BYTE_TO_FLOAT = new float[256];
+	private static final float[] BYTE_TO_LINEAR = new float[256];
+	static {
+		for(int i = 0; i < 256; ++i) {
+			BYTE_TO_FLOAT[i] = ((float) i) / 255.0f;
+			BYTE_TO_LINEAR[i] = (float) Math.pow(BYTE_TO_FLOAT[i], 2.2f);
+		}
+	}
+	
 	public PbrImageRaster(PbrImage other) {
 		this(other.getWidth(), other.getHeight());
+		if(other instanceof PbrImageRaster) {
+			System.arraycopy(((PbrImageRaster) other).data, 0, data, 0, data.length);
+			return;
+		}
 		RGBA rgba = new RGBA();
 		int index = 0;
 		for(int j = 0; j < height; ++j) {
@@ -62,40 +79,26 @@ public class PbrImageRaster extends PbrImage{
 	}
 	
 	public PbrImageRaster(BufferedImage img, boolean linearise) {
-		this(img.getWidth(), img.getHeight());
+		this(img.getWidth(), img.getHeight(), img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth()), 
+				img.getColorModel().hasAlpha(), linearise);
+	}
+	
+	/**
+	 * Creates the image from ARGB pixels, like the ones from BufferedImage.getRGB().
+	 */
+	public PbrImageRaster(int width, int height, int[] argb, boolean alpha, boolean linearise) {
+		this(width, height);
+		float[] colorLUT = linearise ? BYTE_TO_LINEAR : BYTE_TO_FLOAT;
 		int rgba = 0;
-		int r = 0;
-		int g = 0;
-		int b = 0;
-		int a = 0;
-		float rf = 0f;
-		float gf = 0f;
-		float bf = 0f;
-		float af = 0f;
 		int index = 0;
-		boolean alpha = img.getColorModel().hasAlpha();
-		for(int j = 0; j < height; ++j) {
-			for(int i = 0; i < width; ++i) {
-				rgba = img.getRGB(i, j);
-				a = alpha ? (rgba >> 24) & 0xFF : 255;
-				r = (rgba >> 16) & 0xFF;
-				g = (rgba >> 8) & 0xFF;
-				b = rgba & 0xFF;
-				af = ((float) a) / 255.0f;
-				rf = ((float) r) / 255.0f;
-				gf = ((float) g) / 255.0f;
-				bf = ((float) b) / 255.0f;
-				if(linearise) {
-					rf = (float) Math.pow(rf, 2.2f);
-					gf = (float) Math.pow(gf, 2.2f);
-					bf = (float) Math.pow(bf, 2.2f);
-				}
-				index = (j * width + i) * 4;
-				data[index] = rf;
-				data[index + 1] = gf;
-				data[index + 2] = bf;
-				data[index + 3] = af;
-			}
+		int numPixels = width * height;
+		for(int i = 0; i < numPixels; ++i) {
+			rgba = argb[i];
+			data[index] = colorLUT[(rgba >> 16) & 0xFF];
+			data[index + 1] = colorLUT[(rgba >> 8) & 0xFF];
+			data[index + 2] = colorLUT[rgba & 0xFF];
+			data[index + 3] = alpha ? BYTE_TO_FLOAT[(rgba >> 24) & 0xFF] : 1f;
+			index += 4;
 		}
 	}
 	
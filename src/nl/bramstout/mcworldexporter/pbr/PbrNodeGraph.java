@@ -48,6 +48,12 @@ public class PbrNodeGraph {
 	public List<PbrNode> nodes;
 	public List<PbrNode> outputs;
 	public Map<String, List<PbrNode>> subGraphNodes;
+	/**
+	 * The JSON data that this graph was built from,
+	 * used to tell when the graph has changed.
+	 */
+	public List<String> definitions;
+	private String fingerprint;
 	
 	public PbrNodeGraph() {
 		priority = 0;
@@ -56,6 +62,8 @@ public class PbrNodeGraph {
 		nodes = new ArrayList<PbrNode>();
 		outputs = new ArrayList<PbrNode>();
 		subGraphNodes = new HashMap<String, List<PbrNode>>();
+		definitions = new ArrayList<String>();
+		fingerprint = null;
 	}
 	
 	public void process(PbrContext context) {
@@ -81,6 +89,26 @@ public class PbrNodeGraph {
 		}
 	}
 	
+	/**
+	 * Returns a hash of the definition of this graph
+	 * and the graphs that it executes first.
+	 */
+	public synchronized String getFingerprint() {
+		if(fingerprint == null) {
+			StringBuilder sb = new StringBuilder();
+			for(String definition : definitions) {
+				sb.append(definition);
+				sb.append('\n');
+			}
+			for(PbrNodeGraph graph : executeNodeGraphs) {
+				sb.append(graph.getFingerprint());
+				sb.append('\n');
+			}
+			fingerprint = PbrCache.hashString(sb.toString());
+		}
+		return fingerprint;
+	}
+	
 	public PbrNode getNode(String name) {
 		PbrNode node = null;
 		for(int i = 0; i < nodes.size(); ++i) {
@@ -95,6 +123,7 @@ public class PbrNodeGraph {
 		PbrNodeGraph graph = new PbrNodeGraph();
 		graph.priority = priority;
 		graph.selection = selection;
+		graph.definitions.addAll(definitions);
 		for(PbrNodeGraph subGraph : executeNodeGraphs)
 			graph.executeNodeGraphs.add(subGraph.copy());
 		for(PbrNode node : nodes)
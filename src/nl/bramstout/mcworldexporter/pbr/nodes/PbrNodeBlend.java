@@ -37,7 +37,7 @@ import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Interpolation;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.RGBA;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
-import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
 
 public class PbrNodeBlend extends PbrNode{
@@ -82,34 +82,34 @@ public class PbrNodeBlend extends PbrNode{
 			else if(interpolationIndex == 2)
 				interpolation = Interpolation.CUBIC;
 			
-			PbrImage imgBottom = bottom.getImageValue(context);
-			PbrImage imgTop = top.getImageValue(context);
-			PbrImage imgFactor = factor.getImageValue(context);
+			final PbrImage imgBottom = bottom.getImageValue(context);
+			final PbrImage imgTop = top.getImageValue(context);
+			final PbrImage imgFactor = factor.getImageValue(context);
 			
-			int maxWidth = Math.max(imgBottom.getWidth(), imgTop.getWidth());
-			int maxHeight = Math.max(imgBottom.getHeight(), imgTop.getHeight());
-			PbrImage outImg = null;
-			if(maxWidth <= 1 && maxHeight <= 1)
-				outImg = new PbrImageConstant(new RGBA());
-			else
-				outImg = new PbrImageRaster(maxWidth, maxHeight);
+			final int maxWidth = Math.max(imgBottom.getWidth(), imgTop.getWidth());
+			final int maxHeight = Math.max(imgBottom.getHeight(), imgTop.getHeight());
+			final Boundary boundary2 = boundary;
+			final Interpolation interpolation2 = interpolation;
 			
-			RGBA cBottom = new RGBA();
-			RGBA cTop = new RGBA();
-			RGBA cFactor = new RGBA();
-			for(float j = 0.5f; j < maxHeight; j += 1f) {
-				for(float i = 0.5f; i < maxWidth; i += 1f) {
-					imgBottom.sample((i / ((float) maxWidth)) * ((float) imgBottom.getWidth()), 
-							(j / ((float) maxHeight)) * ((float) imgBottom.getHeight()), boundary, interpolation, cBottom);
-					imgTop.sample((i / ((float) maxWidth)) * ((float) imgTop.getWidth()), 
-							(j / ((float) maxHeight)) * ((float) imgTop.getHeight()), boundary, interpolation, cTop);
-					imgFactor.sample((i / ((float) maxWidth)) * ((float) imgFactor.getWidth()), 
-							(j / ((float) maxHeight)) * ((float) imgFactor.getHeight()), boundary, interpolation, cFactor);
+			PbrImage outImg = new PbrImageDeferred(maxWidth, maxHeight) {
+				
+				private RGBA cTop = new RGBA();
+				private RGBA cFactor = new RGBA();
+				
+				@Override
+				protected void evaluate(int x, int y, RGBA out) {
+					imgBottom.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, out);
+					imgTop.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cTop);
+					imgFactor.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cFactor);
 					
-					cBottom.mult(1f - cFactor.r).add(cTop.mult(cFactor.r));
-					
-					outImg.write((int) i, (int) j, Boundary.EMPTY, cBottom);
+					out.mult(1f - cFactor.r).add(cTop.mult(cFactor.r));
 				}
+				
+			};
+			if(maxWidth <= 1 && maxHeight <= 1) {
+				RGBA cOut = new RGBA();
+				outImg.sample(0, 0, Boundary.EMPTY, cOut);
+				outImg = new PbrImageConstant(cOut);
 			}
 			
 			output.setValue(outImg, context);
@@ -69,7 +69,9 @@ public class PbrNodeBlur extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage inImg = input.getImageValue(context);
+			// We sample lots of neighbouring pixels, so make sure
+			// that the input doesn't get evaluated multiple times.
+			PbrImage inImg = input.getImageValue(context).materialise();
 			PbrImage outImg = inImg.copy();
 			if(outImg instanceof PbrImageConstant) {
 				output.setValue(outImg, context);
@@ -42,6 +42,7 @@ import nl.bramstout.mcworldexporter.pbr.PbrImage;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.RGBA;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
 
 public class PbrNodeLUT extends PbrNode{
@@ -64,7 +65,7 @@ public class PbrNodeLUT extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage outImg = input.getImageValue(context).copy();
+			final PbrImage inImg = input.getImageValue(context);
 			String lutPath = this.lutPath.getStringValue(context);
 			boolean inverse = this.inverse.getBooleanValue(context);
 			
@@ -81,16 +82,29 @@ public class PbrNodeLUT extends PbrNode{
 			if(lutFile == null ||!lutFile.exists())
 				throw new RuntimeException("Could not find lut file: " + lutPath);
 			
-			LUT lut = getLut(lutFile, inverse);
-			RGBA rgba = new RGBA();
-			for(int j = 0; j < outImg.getHeight(); ++j) {
-				for(int i = 0; i < outImg.getWidth(); ++i) {
-					outImg.sample(i, j, Boundary.EMPTY, rgba);
-					lut.lookup(rgba);
-					outImg.write(i, j, Boundary.EMPTY, rgba);
-				}
+			context.addReadFile(lutFile, null);
+			
+			final LUT lut = getLut(lutFile, inverse);
+			
+			if(inImg instanceof PbrImageConstant) {
+				PbrImage outImg = inImg.copy();
+				RGBA rgba = new RGBA();
+				outImg.sample(0, 0, Boundary.EMPTY, rgba);
+				lut.lookup(rgba);
+				outImg.write(0, 0, Boundary.EMPTY, rgba);
+				output.setValue(outImg, context);
+				return;
 			}
 			
+			PbrImage outImg = new PbrImageDeferred(inImg.getWidth(), inImg.getHeight()) {
+				
+				@Override
+				protected void evaluate(int x, int y, RGBA out) {
+					inImg.sample(x, y, Boundary.EMPTY, out);
+					lut.lookup(out);
+				}
+				
+			};
 			output.setValue(outImg, context);
 		}
 	}
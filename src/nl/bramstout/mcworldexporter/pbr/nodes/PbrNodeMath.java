@@ -37,7 +37,7 @@ import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Interpolation;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.RGBA;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
-import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
 
 public class PbrNodeMath extends PbrNode{
@@ -86,32 +86,36 @@ public class PbrNodeMath extends PbrNode{
 			else if(interpolationIndex == 2)
 				interpolation = Interpolation.CUBIC;
 			
-			int operator = this.operator.getIndexValue(context);
+			final int operator = this.operator.getIndexValue(context);
 			
-			PbrImage imgA = a.getImageValue(context);
-			PbrImage imgB = b.getImageValue(context);
+			final PbrImage imgA = a.getImageValue(context);
+			final PbrImage imgB = b.getImageValue(context);
 			
-			int maxWidth = Math.max(imgA.getWidth(), imgB.getWidth());
-			int maxHeight = Math.max(imgA.getHeight(), imgB.getHeight());
-			PbrImage outImg = null;
-			if(maxWidth <= 1 && maxHeight <= 1)
-				outImg = new PbrImageConstant(new RGBA());
-			else
-				outImg = new PbrImageRaster(maxWidth, maxHeight);
+			final int maxWidth = Math.max(imgA.getWidth(), imgB.getWidth());
+			final int maxHeight = Math.max(imgA.getHeight(), imgB.getHeight());
+			final Boundary boundary2 = boundary;
+			final Interpolation interpolation2 = interpolation;
 			
-			RGBA cA = new RGBA();
-			RGBA cB = new RGBA();
-			RGBA cOut = new RGBA();
-			for(float j = 0.5f; j < maxHeight; j += 1f) {
-				for(float i = 0.5f; i < maxWidth; i += 1f) {
-					imgA.sample((i / ((float) maxWidth)) * ((float) imgA.getWidth()), 
-							(j / ((float) maxHeight)) * ((float) imgA.getHeight()), boundary, interpolation, cA);
-					imgB.sample((i / ((float) maxWidth)) * ((float) imgB.getWidth()), 
-							(j / ((float) maxHeight)) * ((float) imgB.getHeight()), boundary, interpolation, cB);
+			// The pixels are only computed once something samples them,
+			// so that chains of pointwise nodes don't need full size buffers.
+			PbrImage outImg = new PbrImageDeferred(maxWidth, maxHeight) {
+				
+				private RGBA cA = new RGBA();
+				private RGBA cB = new RGBA();
+				
+				@Override
+				protected void evaluate(int x, int y, RGBA out) {
+					imgA.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cA);
+					imgB.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cB);
 					
-					doMath(cA, cB, cOut, operator);
-					outImg.write((int) i, (int) j, Boundary.EMPTY, cOut);
+					doMath(cA, cB, out, operator);
 				}
+				
+			};
+			if(maxWidth <= 1 && maxHeight <= 1) {
+				RGBA cOut = new RGBA();
+				outImg.sample(0, 0, Boundary.EMPTY, cOut);
+				outImg = new PbrImageConstant(cOut);
 			}
 			
 			output.setValue(outImg, context);
@@ -62,7 +62,7 @@ public class PbrNodeNormalFromBump extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage input = this.input.getImageValue(context);
+			PbrImage input = this.input.getImageValue(context).materialise();
 			float imageSizeInUnits = this.imageSizeInUnits.getFloatValue(context);
 			float bumpHeightInUnits = this.bumpHeightInUnits.getFloatValue(context);
 			int derivativeMode = this.derivativeMode.getIndexValue(context);
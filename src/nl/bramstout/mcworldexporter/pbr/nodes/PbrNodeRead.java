@@ -60,7 +60,9 @@ public class PbrNodeRead extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			File file = context.getTexture(imageName.getStringValue(context), false, false);
+			String imageName = this.imageName.getStringValue(context);
+			File file = context.getTexture(imageName, false, false);
+			context.addReadFile(file, imageName);
 			RGBA colorIfMissing = this.colorIfMissing.getRGBAValue(context);
 			
 			PbrImage img = null;
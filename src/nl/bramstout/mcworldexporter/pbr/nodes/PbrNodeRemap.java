@@ -36,6 +36,7 @@ import nl.bramstout.mcworldexporter.pbr.PbrImage;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.RGBA;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
 
 public class PbrNodeRemap extends PbrNode{
@@ -65,25 +66,36 @@ public class PbrNodeRemap extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage outImg = input.getImageValue(context).copy();
+			final PbrImage inImg = input.getImageValue(context);
 			
-			RGBA inMin = this.inMin.getRGBAValue(context);
-			RGBA inMax = this.inMax.getRGBAValue(context);
-			RGBA outMin = this.outMin.getRGBAValue(context);
-			RGBA outMax = this.outMax.getRGBAValue(context);
-			RGBA gamma = this.gamma.getRGBAValue(context);
-			boolean clamp = this.clamp.getBooleanValue(context);
+			// The image is only evaluated later on, so make sure that
+			// we have our own copies of the values.
+			final RGBA inMin = new RGBA(this.inMin.getRGBAValue(context));
+			final RGBA inMax = new RGBA(this.inMax.getRGBAValue(context));
+			final RGBA outMin = new RGBA(this.outMin.getRGBAValue(context));
+			final RGBA outMax = new RGBA(this.outMax.getRGBAValue(context));
+			final RGBA gamma = new RGBA(this.gamma.getRGBAValue(context));
+			final boolean clamp = this.clamp.getBooleanValue(context);
 			
-			RGBA rgba = new RGBA();
-			for(int j = 0; j < outImg.getHeight(); ++j) {
-				for(int i = 0; i < outImg.getWidth(); ++i) {
-					outImg.sample(i, j, Boundary.EMPTY, rgba);
-					
-					remap(rgba, inMin, inMax, outMin, outMax, gamma, clamp);
-					
-					outImg.write(i, j, Boundary.EMPTY, rgba);
-				}
+			if(inImg instanceof PbrImageConstant) {
+				PbrImage outImg = inImg.copy();
+				RGBA rgba = new RGBA();
+				outImg.sample(0, 0, Boundary.EMPTY, rgba);
+				remap(rgba, inMin, inMax, outMin, outMax, gamma, clamp);
+				outImg.write(0, 0, Boundary.EMPTY, rgba);
+				output.setValue(outImg, context);
+				return;
 			}
+			
+			PbrImage outImg = new PbrImageDeferred(inImg.getWidth(), inImg.getHeight()) {
+				
+				@Override
+				protected void evaluate(int x, int y, RGBA out) {
+					inImg.sample(x, y, Boundary.EMPTY, out);
+					remap(out, inMin, inMax, outMin, outMax, gamma, clamp);
+				}
+				
+			};
 			output.setValue(outImg, context);
 		}
 	}
@@ -64,7 +64,7 @@ public class PbrNodeResize extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage input = this.input.getImageValue(context);
+			PbrImage input = this.input.getImageValue(context).materialise();
 			float scaleWidth = this.scaleWidth.getFloatValue(context);
 			float scaleHeight = this.scaleHeight.getFloatValue(context);
 			int newWidth = (int) Math.max(((float) input.getWidth()) * scaleWidth, 1f);
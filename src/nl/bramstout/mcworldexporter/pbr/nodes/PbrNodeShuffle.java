@@ -34,7 +34,7 @@ package nl.bramstout.mcworldexporter.pbr.nodes;
 import nl.bramstout.mcworldexporter.pbr.PbrContext;
 import nl.bramstout.mcworldexporter.pbr.PbrImage;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
-import nl.bramstout.mcworldexporter.pbr.PbrImageRaster;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Interpolation;
@@ -114,38 +114,40 @@ public class PbrNodeShuffle extends PbrNode {
 			else if (interpolationIndex == 2)
 				interpolation = Interpolation.CUBIC;
 
-			int outR = this.outR.getIndexValue(context);
-			int outG = this.outG.getIndexValue(context);
-			int outB = this.outB.getIndexValue(context);
-			int outA = this.outA.getIndexValue(context);
-
-			PbrImage imgA = a.getImageValue(context);
-			PbrImage imgB = b.getImageValue(context);
-
-			int maxWidth = Math.max(imgA.getWidth(), imgB.getWidth());
-			int maxHeight = Math.max(imgA.getHeight(), imgB.getHeight());
-			PbrImage outImg = null;
-			if (maxWidth <= 1 && maxHeight <= 1)
-				outImg = new PbrImageConstant(new RGBA());
-			else
-				outImg = new PbrImageRaster(maxWidth, maxHeight);
-
-			RGBA cA = new RGBA();
-			RGBA cB = new RGBA();
-			RGBA cOut = new RGBA();
-			for (float j = 0.5f; j < maxHeight; j += 1f) {
-				for (float i = 0.5f; i < maxWidth; i += 1f) {
-					imgA.sample((i / ((float) maxWidth)) * ((float) imgA.getWidth()),
-							(j / ((float) maxHeight)) * ((float) imgA.getHeight()), boundary, interpolation, cA);
-					imgB.sample((i / ((float) maxWidth)) * ((float) imgB.getWidth()),
-							(j / ((float) maxHeight)) * ((float) imgB.getHeight()), boundary, interpolation, cB);
-
-					cOut.r = shuffle(cA, cB, outR);
-					cOut.g = shuffle(cA, cB, outG);
-					cOut.b = shuffle(cA, cB, outB);
-					cOut.a = shuffle(cA, cB, outA);
-					outImg.write((int) i, (int) j, Boundary.EMPTY, cOut);
+			final int outR = this.outR.getIndexValue(context);
+			final int outG = this.outG.getIndexValue(context);
+			final int outB = this.outB.getIndexValue(context);
+			final int outA = this.outA.getIndexValue(context);
+
+			final PbrImage imgA = a.getImageValue(context);
+			final PbrImage imgB = b.getImageValue(context);
+
+			final int maxWidth = Math.max(imgA.getWidth(), imgB.getWidth());
+			final int maxHeight = Math.max(imgA.getHeight(), imgB.getHeight());
+			final Boundary boundary2 = boundary;
+			final Interpolation interpolation2 = interpolation;
+
+			PbrImage outImg = new PbrImageDeferred(maxWidth, maxHeight) {
+
+				private RGBA cA = new RGBA();
+				private RGBA cB = new RGBA();
+
+				@Override
+				protected void evaluate(int x, int y, RGBA out) {
+					imgA.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cA);
+					imgB.sampleScaled(x, y, maxWidth, maxHeight, boundary2, interpolation2, cB);
+
+					out.r = shuffle(cA, cB, outR);
+					out.g = shuffle(cA, cB, outG);
+					out.b = shuffle(cA, cB, outB);
+					out.a = shuffle(cA, cB, outA);
 				}
+
+			};
+			if (maxWidth <= 1 && maxHeight <= 1) {
+				RGBA cOut = new RGBA();
+				outImg.sample(0, 0, Boundary.EMPTY, cOut);
+				outImg = new PbrImageConstant(cOut);
 			}
 
 			output.setValue(outImg, context);
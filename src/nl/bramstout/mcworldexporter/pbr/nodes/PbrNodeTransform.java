@@ -73,7 +73,7 @@ public class PbrNodeTransform extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == output) {
-			PbrImage input = this.input.getImageValue(context);
+			PbrImage input = this.input.getImageValue(context).materialise();
 			float translateX = this.translateX.getFloatValue(context);
 			float translateY = this.translateY.getFloatValue(context);
 			float rotate = this.rotate.getFloatValue(context);
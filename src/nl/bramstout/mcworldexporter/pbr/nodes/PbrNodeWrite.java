@@ -39,7 +39,9 @@ import nl.bramstout.mcworldexporter.pbr.PbrImage;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.Boundary;
 import nl.bramstout.mcworldexporter.pbr.PbrImage.RGBA;
 import nl.bramstout.mcworldexporter.pbr.PbrImageConstant;
+import nl.bramstout.mcworldexporter.pbr.PbrImageDeferred;
 import nl.bramstout.mcworldexporter.pbr.PbrNodeGraph;
+import nl.bramstout.mcworldexporter.resourcepack.ResourcePack;
 
 public class PbrNodeWrite extends PbrNode{
 
@@ -59,7 +61,8 @@ public class PbrNodeWrite extends PbrNode{
 	@Override
 	public void evaluate(PbrAttribute attr, PbrContext context) {
 		if(attr == null) {
-			PbrImage img = input.getImageValue(context);
+			final PbrImage inImg = input.getImageValue(context);
+			PbrImage img = inImg;
 			String imageName = this.imageName.getStringValue(context);
 			if(imageName.equals("@texture@") && context.saveToResourcePack == null)
 				throw new RuntimeException("Cannot overwrite current texture");
@@ -67,17 +70,25 @@ public class PbrNodeWrite extends PbrNode{
 			file.getParentFile().mkdirs();
 			boolean applyGamma = this.applyGamma.getBooleanValue(context);
 			if(applyGamma) {
-				img = img.copy();
-				RGBA rgba = new RGBA();
-				for(int j = 0; j < img.getHeight(); ++j) {
-					for(int i = 0; i < img.getWidth(); ++i) {
-						img.sample(i, j, Boundary.EMPTY, rgba);
-						rgba.pow(1f/2.2f, 1f);
-						img.write(i, j, Boundary.EMPTY, rgba);
+				// Applied while the image is being written out,
+				// so that we don't need another copy of it.
+				img = new PbrImageDeferred(inImg.getWidth(), inImg.getHeight()) {
+					
+					@Override
+					protected void evaluate(int x, int y, RGBA out) {
+						inImg.sample(x, y, Boundary.EMPTY, out);
+						out.pow(1f/2.2f, 1f);
 					}
-				}
+					
+				};
 			}
 			ImageWriter.writeImage(file, img);
+			context.writtenFiles.add(file);
+			// Make sure that later lookups can find the new file.
+			for(ResourcePack resourcePack : context.resourcePacks)
+				resourcePack.addToFileIndex(file);
+			if(context.saveToResourcePack != null)
+				context.saveToResourcePack.addToFileIndex(file);
 			
 			boolean isTemporary = this.isTemporary.getBooleanValue(context);
 			if(isTemporary)
@@ -108,13 +108,13 @@ public class Animation {
 		
 		public float getPreValue(MolangContext context) {
 			if(this.preExpression != null)
-				return preExpression.eval(context).asNumber(context);
+				return preExpression.evalNumber(context);
 			return preValue;
 		}
 		
 		public float getPostValue(MolangContext context) {
 			if(this.postExpression != null)
-				return postExpression.eval(context).asNumber(context);
+				return postExpression.evalNumber(context);
 			return postValue;
 		}
 		
@@ -395,7 +395,7 @@ public class Animation {
 			// Init
 			state.animTime = time;
 			animInfo.animTime = state.animTime;
-			state.animStartTime = startDelay.eval(context).asNumber(context);
+			state.animStartTime = startDelay.evalNumber(context);
 			state.animTime -= state.animStartTime;
 			animInfo.animTime = state.animTime;
 		}
@@ -415,7 +415,7 @@ public class Animation {
 			}
 		}
 		
-		weight *= blendWeight.eval(context).asNumber(context);
+		weight *= blendWeight.evalNumber(context);
 		if(weight <= 0f) {
 			updateTime(state, context, animInfo);
 			context.popAnimationInfo();
@@ -568,7 +568,7 @@ public class Animation {
 			if(state.animTime >= animationLength) { // If we reached the end of the animation
 				state.finishedAnimation = true;
 				if(state.animLoopDelay == -1f) // If we haven't evaluated the delay yet, do it.
-					state.animLoopDelay = loopDelay.eval(context).asNumber(context);
+					state.animLoopDelay = loopDelay.evalNumber(context);
 				if(state.animTime >= (animationLength + state.animLoopDelay)) { // We've reached the end of the delay
 					// Update the loop start time and time
 					state.animLoopStart = state.animTime;
@@ -581,7 +581,7 @@ public class Animation {
 			if(state.animTime >= animationLength)
 				state.finishedAnimation = true;
 		}
-		state.animTime = animTimeUpdate.eval(context).asNumber(context);
+		state.animTime = animTimeUpdate.evalNumber(context);
 		if(holdOnLastFrame)
 			state.animTime = Math.min(state.animTime, animationLength);
 	}
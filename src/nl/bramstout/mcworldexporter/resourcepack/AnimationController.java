@@ -96,7 +96,7 @@ public class AnimationController extends Animation{
 			}
 			// Apply animations
 			for(Entry<String, MolangScript> entry : this.animations) {
-				float weight2 = entry.getValue().eval(context).asNumber(context) * weight;
+				float weight2 = entry.getValue().evalNumber(context) * weight;
 				if(weight2 <= 0f)
 					continue;
 				Animation animation = animations.getOrDefault(entry.getKey(), null);
@@ -111,7 +111,7 @@ public class AnimationController extends Animation{
 			}
 			// Check if we need to transition
 			for(Entry<String, MolangScript> entry : transitions.entrySet()) {
-				if(entry.getValue().eval(context).asBoolean(context)) {
+				if(entry.getValue().evalBoolean(context)) {
 					context.popAnimationInfo();
 					return entry.getKey(); // Transition to this
 				}
@@ -181,7 +181,7 @@ public class AnimationController extends Animation{
 			if(remapCurve.isEmpty())
 				return new MolangValue(0f);
 			
-			float inputVal = inputExpression.eval(context).asNumber(context);
+			float inputVal = inputExpression.evalNumber(context);
 			
 			// Get the index of the key to the right of the inputVal.
 			int endIndex = -1;
@@ -0,0 +1,173 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package nl.bramstout.mcworldexporter.resourcepack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the file index of a resource pack folder, so that the next
+ * time the resource pack gets loaded, the folder doesn't need to be
+ * walked again.
+ * 
+ * The file index only changes when a file or folder gets added, removed
+ * or renamed, which always updates the modification time of the folder
+ * that it's in. So, the snapshot also stores the modification time of
+ * every folder and it's only used if none of those have changed.
+ * Checking that only needs to look at the folders, rather than list
+ * every file.
+ */
+class FileIndexSnapshot {
+	
+	private static final String SNAPSHOT_FOLDER_NAME = ".file_indices";
+	private static final int VERSION = 1;
+	/**
+	 * A folder that was modified this close to when the walk started,
+	 * could have been modified again afterwards without its modification
+	 * time changing, depending on the resolution of the file system.
+	 */
+	private static final long RACY_TIME_MARGIN = 2000;
+	
+	private static File getSnapshotFile(File folder) {
+		return new File(new File(folder.getAbsoluteFile().getParentFile(), SNAPSHOT_FOLDER_NAME), 
+						folder.getName() + ".bin");
+	}
+	
+	/**
+	 * Returns whether the folder is the one that snapshots
+	 * get stored in, so that it can be skipped when
+	 * looking for resource packs.
+	 */
+	public static boolean isSnapshotFolder(File folder) {
+		return folder.getName().equals(SNAPSHOT_FOLDER_NAME);
+	}
+	
+	/**
+	 * Returns the file index stored for this folder, or null if
+	 * there is none or the folder has changed since.
+	 */
+	public static Set<String> load(File folder) {
+		File snapshotFile = getSnapshotFile(folder);
+		if(!snapshotFile.exists())
+			return null;
+		DataInputStream dis = null;
+		try {
+			dis = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+			if(dis.readInt() != VERSION)
+				return null;
+			if(!dis.readUTF().equals(folder.getAbsolutePath()))
+				return null;
+			int numFolders = dis.readInt();
+			for(int i = 0; i < numFolders; ++i) {
+				String path = dis.readUTF();
+				long lastModified = dis.readLong();
+				File subFolder = path.isEmpty() ? folder : new File(folder, path);
+				if(subFolder.lastModified() != lastModified)
+					return null;
+			}
+			int numKeys = dis.readInt();
+			Set<String> index = ConcurrentHashMap.newKeySet(numKeys);
+			for(int i = 0; i < numKeys; ++i)
+				index.add(dis.readUTF());
+			return index;
+		}catch(Exception ex) {
+			// The snapshot is broken, so just walk the folder again.
+			return null;
+		}finally {
+			if(dis != null) {
+				try {
+					dis.close();
+				}catch(Exception ex) {}
+			}
+		}
+	}
+	
+	/**
+	 * Stores the file index of this folder.
+	 * 
+	 * @param folder The folder of the resource pack.
+	 * @param folderTimes The modification time of each folder, by its path relative to folder.
+	 * @param index The file index.
+	 * @param walkStartTime The time at which the folder started being walked.
+	 */
+	public static void save(File folder, Map<String, Long> folderTimes, Set<String> index, long walkStartTime) {
+		for(Long lastModified : folderTimes.values()) {
+			if(lastModified.longValue() >= walkStartTime - RACY_TIME_MARGIN) {
+				// We can't tell whether this folder changes after this,
+				// so don't store a snapshot. The next walk will be able to.
+				return;
+			}
+		}
+		File snapshotFile = getSnapshotFile(folder);
+		snapshotFile.getParentFile().mkdirs();
+		DataOutputStream dos = null;
+		boolean success = false;
+		try {
+			dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile)));
+			dos.writeInt(VERSION);
+			dos.writeUTF(folder.getAbsolutePath());
+			dos.writeInt(folderTimes.size());
+			for(Entry<String, Long> entry : folderTimes.entrySet()) {
+				dos.writeUTF(entry.getKey());
+				dos.writeLong(entry.getValue().longValue());
+			}
+			dos.writeInt(index.size());
+			for(String key : index)
+				dos.writeUTF(key);
+			dos.close();
+			dos = null;
+			success = true;
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}finally {
+			if(dos != null) {
+				try {
+					dos.close();
+				}catch(Exception ex) {}
+			}
+			if(!success)
+				snapshotFile.delete();
+		}
+	}
+	
+
+}
@@ -32,16 +32,29 @@
 package nl.bramstout.mcworldexporter.resourcepack;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import nl.bramstout.mcworldexporter.FileUtil;
 import nl.bramstout.mcworldexporter.Json;
 import nl.bramstout.mcworldexporter.entity.spawning.EntitySpawner;
 import nl.bramstout.mcworldexporter.nbt.NbtTagCompound;
@@ -58,13 +71,32 @@ public abstract class ResourcePack {
 	 * if that was the case.
 	 */
 	private List<String> sourceUuids;
+	/**
+	 * The paths, relative to the folder, of all files and folders
+	 * in this resource pack. It's built when the resource pack gets
+	 * loaded, so that checking whether a resource exists doesn't need
+	 * to go to the file system. Null if it hasn't been built.
+	 */
+	private volatile Set<String> fileIndex;
+	/**
+	 * The zip or jar file that this resource pack is read from,
+	 * in which case the folder is where it's mounted.
+	 * Null if this resource pack is a normal folder.
+	 */
+	private ResourcePackArchive archive;
 	
 	public ResourcePack(String name, String uuid, File folder) {
+		this(name, uuid, folder, null);
+	}
+	
+	public ResourcePack(String name, String uuid, File folder, ResourcePackArchive archive) {
 		this.name = name;
 		this.uuid = uuid;
 		this.folder = folder;
 		this.worldVersion = 0;
 		this.sourceUuids = new ArrayList<String>();
+		this.fileIndex = null;
+		this.archive = archive;
 		File packInfoFile = new File(folder, "packInfo.json");
 		if(packInfoFile.exists()) {
 			try {
@@ -100,6 +132,10 @@ public abstract class ResourcePack {
 		return folder;
 	}
 	
+	public ResourcePackArchive getArchive() {
+		return archive;
+	}
+	
 	public abstract List<File> getFolders();
 	
 	public abstract List<File> getFoldersReversed();
@@ -114,6 +150,229 @@ public abstract class ResourcePack {
 	
 	public abstract void load();
 	
+	/**
+	 * Returns true if load() only touches the state of this
+	 * resource pack, in which case it can be loaded at the
+	 * same time as other resource packs.
+	 */
+	public boolean canLoadConcurrently() {
+		return false;
+	}
+	
+	/**
+	 * Walks through the folder of this resource pack and
+	 * (re)builds the index used by exists().
+	 */
+	public void buildFileIndex() {
+		final Set<String> index = ConcurrentHashMap.newKeySet();
+		final Path root = folder.toPath();
+		// The mount folder of an archive gets recreated whenever the
+		// archive changes, so only snapshot plain folders.
+		final boolean useSnapshot = archive == null;
+		final Map<String, Long> folderTimes = new HashMap<String, Long>();
+		final boolean[] failed = new boolean[] { false };
+		long walkStartTime = System.currentTimeMillis();
+		try {
+			if(useSnapshot) {
+				Set<String> snapshotIndex = FileIndexSnapshot.load(folder);
+				if(snapshotIndex != null) {
+					fileIndex = snapshotIndex;
+					return;
+				}
+			}
+			if(archive != null) {
+				index.addAll(archive.getIndexKeys());
+				// Files could have been written into the mount folder,
+				// so we still need to walk it.
+				if(!folder.isDirectory()) {
+					fileIndex = index;
+					return;
+				}
+			}
+			Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, 
+								new SimpleFileVisitor<Path>() {
+				
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					if(!dir.equals(root))
+						index.add(getIndexKey(root.relativize(dir).toString()));
+					if(useSnapshot)
+						folderTimes.put(root.relativize(dir).toString(), attrs.lastModifiedTime().toMillis());
+					return FileVisitResult.CONTINUE;
+				}
+				
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					index.add(getIndexKey(root.relativize(file).toString()));
+					return FileVisitResult.CONTINUE;
+				}
+				
+				@Override
+				public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+					// It still exists, we just can't look inside of it.
+					if(!(exc instanceof FileSystemLoopException))
+						index.add(getIndexKey(root.relativize(file).toString()));
+					failed[0] = true;
+					return FileVisitResult.CONTINUE;
+				}
+				
+			});
+			fileIndex = index;
+			if(useSnapshot && !failed[0])
+				FileIndexSnapshot.save(folder, folderTimes, index, walkStartTime);
+		}catch(Exception ex) {
+			ex.printStackTrace();
+			fileIndex = null;
+		}
+	}
+	
+	static String getIndexKey(String relativePath) {
+		relativePath = relativePath.replace('\\', '/');
+		// Windows and MacOS are case insensitive.
+		if(FileUtil.isWindows() || FileUtil.isMacOs())
+			relativePath = relativePath.toLowerCase();
+		return relativePath;
+	}
+	
+	/**
+	 * Returns the index key for a file in this resource pack,
+	 * or null if the file isn't inside of this resource pack
+	 * or can't be looked up in the index.
+	 */
+	private String getIndexKey(File file) {
+		String path = file.getPath();
+		String folderPath = folder.getPath();
+		if(path.length() <= (folderPath.length() + 1) || !path.startsWith(folderPath) || 
+				path.charAt(folderPath.length()) != File.separatorChar)
+			return null;
+		String key = getIndexKey(path.substring(folderPath.length() + 1));
+		if(key.contains("..") || key.startsWith("./") || key.contains("/./"))
+			return null;
+		return key;
+	}
+	
+	/**
+	 * Returns whether the file exists. If the file is inside of this
+	 * resource pack, it's looked up in the index rather than
+	 * going to the file system.
+	 */
+	public boolean exists(File file) {
+		if(file == null)
+			return false;
+		Set<String> index = fileIndex;
+		if(index == null && archive == null)
+			return file.exists();
+		String key = getIndexKey(file);
+		if(key == null)
+			return file.exists();
+		if(archive != null) {
+			// Files in an archive only get extracted once they're needed.
+			if(index == null ? archive.contains(key) : index.contains(key))
+				return archive.extract(key);
+			return index == null ? file.exists() : false;
+		}
+		return index.contains(key);
+	}
+	
+	/**
+	 * Returns whether the file is a folder. Use this instead of
+	 * File.isDirectory() for files inside of this resource pack,
+	 * so that it also works when it's read from an archive.
+	 */
+	public boolean isDirectory(File file) {
+		if(archive != null) {
+			String key = getIndexKey(file);
+			if(key != null && archive.isDirectory(key))
+				return true;
+		}
+		return file.isDirectory();
+	}
+	
+	/**
+	 * Returns whether the file is a normal file. Use this instead of
+	 * File.isFile() for files inside of this resource pack,
+	 * so that it also works when it's read from an archive.
+	 */
+	public boolean isFile(File file) {
+		if(archive != null) {
+			String key = getIndexKey(file);
+			if(key != null && archive.isFile(key))
+				return archive.extract(key);
+		}
+		return file.isFile();
+	}
+	
+	/**
+	 * Returns the files and folders in the given folder. Use this instead of
+	 * File.listFiles() for folders inside of this resource pack, so that
+	 * it also works when it's read from an archive. In that case, the
+	 * returned files are extracted, but the returned folders might only
+	 * exist in the archive.
+	 */
+	public File[] listFiles(File folder) {
+		if(archive == null)
+			return folder.listFiles();
+		String key = getIndexKey(folder);
+		if(key == null || !archive.isDirectory(key)) {
+			File[] res = folder.listFiles();
+			return res == null ? new File[0] : res;
+		}
+		List<File> res = new ArrayList<File>();
+		Set<String> names = new HashSet<String>();
+		for(String name : archive.list(key)) {
+			File file = new File(folder, name);
+			String childKey = key + "/" + getIndexKey(name);
+			if(archive.isFile(childKey) && !archive.extract(childKey))
+				continue;
+			res.add(file);
+			names.add(name);
+		}
+		// Files could also have been written into the mount folder.
+		File[] diskFiles = folder.listFiles();
+		if(diskFiles != null) {
+			for(File file : diskFiles) {
+				if(!names.contains(file.getName()))
+					res.add(file);
+			}
+		}
+		return res.toArray(new File[res.size()]);
+	}
+	
+	/**
+	 * Adds a file that was written into this resource pack
+	 * after it was loaded to the index.
+	 */
+	public void addToFileIndex(File file) {
+		Set<String> index = fileIndex;
+		if(index == null)
+			return;
+		String key = getIndexKey(file);
+		if(key == null)
+			return;
+		index.add(key);
+		// Also add the parent folders, since they might have been created.
+		int sep = key.lastIndexOf('/');
+		while(sep > 0) {
+			key = key.substring(0, sep);
+			index.add(key);
+			sep = key.lastIndexOf('/');
+		}
+	}
+	
+	/**
+	 * Removes a file that was deleted from this resource pack
+	 * after it was loaded from the index.
+	 */
+	public void removeFromFileIndex(File file) {
+		Set<String> index = fileIndex;
+		if(index == null)
+			return;
+		String key = getIndexKey(file);
+		if(key == null)
+			return;
+		index.remove(key);
+	}
+	
 	public void postLoad() {}
 	
 	/**
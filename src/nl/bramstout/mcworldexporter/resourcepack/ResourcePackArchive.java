@@ -0,0 +1,376 @@
+/*
+ * BSD 3-Clause License
+ * 
+ * Copyright (c) 2024, Bram Stout Productions
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nl.bramstout.mcworldexporter.resourcepack;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A zip or jar file (like a mod jar) that is used as a resource pack
+ * without extracting it first.
+ * 
+ * The entries are indexed from the central directory of the archive.
+ * The rest of MiEx and the exported files reference resources by their
+ * file path, so an entry gets extracted into the mount folder the first
+ * time that it is actually accessed. The mount folder is kept around,
+ * so that the next time the archive is mounted, the entries that were
+ * already extracted don't need to be extracted again.
+ */
+public class ResourcePackArchive {
+	
+	private static final String MOUNT_FOLDER_NAME = ".mounted_archives";
+	private static final String MOUNT_INFO_FILE_NAME = ".archive_info";
+	
+	private static Map<String, ResourcePackArchive> archives = new HashMap<String, ResourcePackArchive>();
+	
+	private File archiveFile;
+	private File mountFolder;
+	private ZipFile zipFile;
+	/**
+	 * If all of the resource pack's files are in a single folder
+	 * in the archive, then this is the path of that folder.
+	 */
+	private String prefix;
+	private long archiveLength;
+	private long archiveLastModified;
+	/**
+	 * Maps the index key of each file to its zip entry.
+	 */
+	private Map<String, ZipEntry> files;
+	/**
+	 * Maps the index key of each folder to the names of
+	 * the files and folders directly inside of it.
+	 */
+	private Map<String, List<String>> folders;
+	/**
+	 * The index keys of the files that are
+	 * already in the mount folder.
+	 */
+	private Set<String> extracted;
+	
+	private ResourcePackArchive(File archiveFile) throws IOException {
+		this.archiveFile = archiveFile;
+		this.mountFolder = new File(new File(archiveFile.getParentFile(), MOUNT_FOLDER_NAME), archiveFile.getName());
+		this.archiveLength = archiveFile.length();
+		this.archiveLastModified = archiveFile.lastModified();
+		this.files = new HashMap<String, ZipEntry>();
+		this.folders = new HashMap<String, List<String>>();
+		this.extracted = ConcurrentHashMap.newKeySet();
+		this.zipFile = new ZipFile(archiveFile);
+		try {
+			buildIndex();
+			mount();
+		}catch(IOException ex) {
+			zipFile.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Returns whether the file is a zip or jar file
+	 * that could be mounted as a resource pack.
+	 */
+	public static boolean isArchive(File file) {
+		if(!file.isFile())
+			return false;
+		String name = file.getName().toLowerCase();
+		return name.endsWith(".zip") || name.endsWith(".jar");
+	}
+	
+	/**
+	 * Returns whether the folder is the one that archives
+	 * get mounted into, so that it can be skipped when
+	 * looking for resource packs.
+	 */
+	public static boolean isMountFolder(File folder) {
+		return folder.getName().equals(MOUNT_FOLDER_NAME);
+	}
+	
+	/**
+	 * Returns the mounted archive for the given file. If the archive
+	 * was already mounted and hasn't changed since, the same instance
+	 * is returned. Returns null if the archive can't be read or doesn't
+	 * contain a Java Edition resource pack.
+	 */
+	public static ResourcePackArchive getArchive(File archiveFile) {
+		String path = archiveFile.getAbsolutePath();
+		synchronized(archives) {
+			ResourcePackArchive archive = archives.getOrDefault(path, null);
+			if(archive != null) {
+				if(archive.archiveLength == archiveFile.length() && 
+						archive.archiveLastModified == archiveFile.lastModified())
+					return archive;
+				archive.close();
+				archives.remove(path);
+			}
+			try {
+				archive = new ResourcePackArchive(archiveFile);
+			}catch(Exception ex) {
+				System.out.println("Could not mount archive " + archiveFile.getPath());
+				ex.printStackTrace();
+				return null;
+			}
+			if(!archive.isJavaEditionResourcePack()) {
+				archive.close();
+				return null;
+			}
+			archives.put(path, archive);
+			return archive;
+		}
+	}
+	
+	public File getArchiveFile() {
+		return archiveFile;
+	}
+	
+	public File getMountFolder() {
+		return mountFolder;
+	}
+	
+	private void buildIndex() {
+		List<String> names = new ArrayList<String>();
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+		while(entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			String name = entry.getName().replace('\\', '/');
+			if(entry.isDirectory() || name.contains("../") || name.startsWith("/"))
+				continue;
+			names.add(name);
+		}
+		
+		// Resource packs downloaded from the internet sometimes have
+		// all of their files in a single folder, rather than at the root.
+		prefix = "";
+		if(!names.contains("pack.mcmeta")) {
+			for(String name : names) {
+				if(name.endsWith("/pack.mcmeta") && name.indexOf('/') == name.length() - "/pack.mcmeta".length()) {
+					prefix = name.substring(0, name.length() - "pack.mcmeta".length());
+					break;
+				}
+			}
+		}
+		
+		for(String name : names) {
+			if(!name.startsWith(prefix))
+				continue;
+			String path = name.substring(prefix.length());
+			files.put(ResourcePack.getIndexKey(path), zipFile.getEntry(name));
+			
+			// Add it to its parent folders.
+			int sep = path.lastIndexOf('/');
+			while(true) {
+				String parentKey = sep < 0 ? "" : ResourcePack.getIndexKey(path.substring(0, sep));
+				String childName = path.substring(sep + 1);
+				List<String> children = folders.getOrDefault(parentKey, null);
+				boolean isNewFolder = children == null;
+				if(isNewFolder) {
+					children = new ArrayList<String>();
+					folders.put(parentKey, children);
+				}
+				children.add(childName);
+				if(!isNewFolder || sep < 0)
+					break;
+				path = path.substring(0, sep);
+				sep = path.lastIndexOf('/');
+			}
+		}
+	}
+	
+	private boolean isJavaEditionResourcePack() {
+		return files.containsKey("pack.mcmeta") || folders.containsKey("assets") || folders.containsKey("data");
+	}
+	
+	/**
+	 * Makes sure that the mount folder belongs to this version of the archive
+	 * and extracts the files outside of the assets and data folders, since
+	 * those are MiEx specific files that are read straight from the resource
+	 * pack's folder.
+	 */
+	private void mount() throws IOException {
+		String mountInfo = archiveLength + ";" + archiveLastModified;
+		File mountInfoFile = new File(mountFolder, MOUNT_INFO_FILE_NAME);
+		String currentMountInfo = null;
+		if(mountInfoFile.exists()) {
+			BufferedReader reader = new BufferedReader(new FileReader(mountInfoFile));
+			try {
+				currentMountInfo = reader.readLine();
+			}finally {
+				reader.close();
+			}
+		}
+		if(!mountInfo.equals(currentMountInfo)) {
+			// The archive has changed, so whatever got extracted before is outdated.
+			if(mountFolder.exists())
+				deleteFolder(mountFolder.toPath());
+			mountFolder.mkdirs();
+			BufferedWriter writer = new BufferedWriter(new FileWriter(mountInfoFile));
+			try {
+				writer.write(mountInfo);
+			}finally {
+				writer.close();
+			}
+		}
+		
+		for(Map.Entry<String, ZipEntry> entry : files.entrySet()) {
+			String key = entry.getKey().toLowerCase();
+			if(key.startsWith("assets/") || key.startsWith("data/") || key.startsWith("meta-inf/") || 
+					key.endsWith(".class"))
+				continue;
+			extract(entry.getKey());
+		}
+	}
+	
+	private static void deleteFolder(Path folder) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+			
+		});
+	}
+	
+	/**
+	 * Returns the index keys of all files and folders in the archive.
+	 */
+	public List<String> getIndexKeys(){
+		List<String> keys = new ArrayList<String>(files.size() + folders.size());
+		keys.addAll(files.keySet());
+		for(String key : folders.keySet()) {
+			if(!key.isEmpty())
+				keys.add(key);
+		}
+		return keys;
+	}
+	
+	public boolean contains(String key) {
+		return files.containsKey(key) || folders.containsKey(key);
+	}
+	
+	public boolean isFile(String key) {
+		return files.containsKey(key);
+	}
+	
+	public boolean isDirectory(String key) {
+		return folders.containsKey(key);
+	}
+	
+	/**
+	 * Returns the names of the files and folders directly inside
+	 * of the folder with the given index key.
+	 */
+	public List<String> list(String key){
+		List<String> children = folders.getOrDefault(key, null);
+		if(children == null)
+			return Collections.emptyList();
+		return children;
+	}
+	
+	/**
+	 * Makes sure that the file with the given index key is in the mount folder.
+	 * Returns false if the file could not be extracted. Keys that aren't
+	 * files in the archive are ignored.
+	 */
+	public boolean extract(String key) {
+		if(extracted.contains(key))
+			return true;
+		ZipEntry entry = files.getOrDefault(key, null);
+		if(entry == null)
+			return true;
+		File file = new File(mountFolder, entry.getName().substring(prefix.length()));
+		synchronized(entry) {
+			if(extracted.contains(key))
+				return true;
+			// It could have been extracted the previous time that this archive was mounted.
+			if(file.isFile() && (entry.getSize() < 0 || file.length() == entry.getSize())) {
+				extracted.add(key);
+				return true;
+			}
+			File tmpFile = new File(file.getPath() + ".tmp");
+			try {
+				file.getParentFile().mkdirs();
+				InputStream is = zipFile.getInputStream(entry);
+				try {
+					Files.copy(is, tmpFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}finally {
+					is.close();
+				}
+				Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				extracted.add(key);
+				return true;
+			}catch(Exception ex) {
+				System.out.println("Could not extract " + entry.getName() + " from " + archiveFile.getPath());
+				ex.printStackTrace();
+				tmpFile.delete();
+			}
+		}
+		return false;
+	}
+	
+	private void close() {
+		try {
+			zipFile.close();
+		}catch(Exception ex) {
+			ex.printStackTrace();
+		}
+	}
+	
+}
@@ -64,8 +64,8 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.stream.JsonWriter;
 
 import nl.bramstout.mcworldexporter.BuiltInFiles;
-import nl.bramstout.mcworldexporter.Config;
 import nl.bramstout.mcworldexporter.ConfigDefaults;
+import nl.bramstout.mcworldexporter.ConfigFlags;
 import nl.bramstout.mcworldexporter.FileUtil;
 import nl.bramstout.mcworldexporter.Json;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
@@ -1082,7 +1082,7 @@ public class ResourcePackDefaults {
 		while(faceIt.hasNext()) {
 			ModelFaceData face = faceIt.next();
 			String texture = modelData.resolveTexture(face.getTexture(), 0);
-			if(Config.bannedMaterials.contains(texture)) {
+			if(ConfigFlags.hasFlag(texture, ConfigFlags.BANNED_MATERIAL)) {
 				faceIt.remove();
 			}
 		}
@@ -1110,7 +1110,8 @@ public class ResourcePackDefaults {
 			// Pretty much everything is grass colours, except leaves.
 			// So we assume that if it has "leaves" in the name, it's foliage colours
 			// otherwise it's grass colours.
-			if(!Config.forceNoBiomeColor.contains(blockName) && !ConfigDefaults.forceNoBiomeColor.contains(blockName)) {
+			if(!ConfigFlags.hasFlag(blockName, ConfigFlags.FORCE_NO_BIOME_COLOR) && 
+					!ConfigDefaults.forceNoBiomeColor.contains(blockName)) {
 				if(blockName.toLowerCase().contains("leaves")) {
 					configData.foliageColormapBlocks.add(blockName);
 				} else {
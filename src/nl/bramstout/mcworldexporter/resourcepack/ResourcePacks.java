@@ -40,7 +40,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.gson.JsonObject;
 
@@ -51,6 +54,7 @@ import nl.bramstout.mcworldexporter.MCWorldExporter;
 import nl.bramstout.mcworldexporter.entity.builtins.EntityBuiltinsRegistry;
 import nl.bramstout.mcworldexporter.entity.spawning.EntitySpawner;
 import nl.bramstout.mcworldexporter.image.ImageReader;
+import nl.bramstout.mcworldexporter.molang.MolangParser;
 import nl.bramstout.mcworldexporter.nbt.NbtTagCompound;
 import nl.bramstout.mcworldexporter.resourcepack.bedrock.ResourcePackBedrockEdition;
 import nl.bramstout.mcworldexporter.resourcepack.hytale.ResourcePackHytale;
@@ -77,16 +81,7 @@ public class ResourcePacks {
 			if(!resourcePacksFolder.isDirectory())
 				return;
 			
-			for(File f : resourcePacksFolder.listFiles()) {
-				if(!f.isDirectory())
-					continue;
-				if(ResourcePackHytale.supportsResourcePack(f))
-					resourcePacks.add(new ResourcePackHytale(f));
-				else if(ResourcePackBedrockEdition.supportsResourcePack(f))
-					resourcePacks.add(new ResourcePackBedrockEdition(f));
-				else
-					resourcePacks.add(new ResourcePackJavaEdition(f));
-			}
+			findResourcePacks(resourcePacksFolder);
 			
 			List<ResourcePack> newActiveResourcePacks = new ArrayList<ResourcePack>();
 			for(ResourcePack pack : activeResourcePacks) {
@@ -107,8 +102,7 @@ public class ResourcePacks {
 					rp.getColorMaps(colorMaps);
 				}
 				
-				for(int i = activeResourcePacks.size()-1; i >= 0; --i)
-					activeResourcePacks.get(i).load();
+				loadResourcePacks(activeResourcePacks, false);
 				
 				for(int i = activeResourcePacks.size()-1; i >= 0; --i)
 					activeResourcePacks.get(i).postLoad();
@@ -127,16 +121,7 @@ public class ResourcePacks {
 			if(!resourcePacksFolder.isDirectory())
 				return;
 			
-			for(File f : resourcePacksFolder.listFiles()) {
-				if(!f.isDirectory())
-					continue;
-				if(ResourcePackHytale.supportsResourcePack(f))
-					resourcePacks.add(new ResourcePackHytale(f));
-				else if(ResourcePackBedrockEdition.supportsResourcePack(f))
-					resourcePacks.add(new ResourcePackBedrockEdition(f));
-				else
-					resourcePacks.add(new ResourcePackJavaEdition(f));
-			}
+			findResourcePacks(resourcePacksFolder);
 			
 			List<ResourcePack> newActiveResourcePacks = new ArrayList<ResourcePack>();
 			for(ResourcePack pack : activeResourcePacks) {
@@ -165,6 +150,26 @@ public class ResourcePacks {
 		}
 	}
 	
+	private static void findResourcePacks(File resourcePacksFolder) {
+		for(File f : resourcePacksFolder.listFiles()) {
+			if(ResourcePackArchive.isArchive(f)) {
+				// Zip files and mod jars can be used directly.
+				ResourcePackArchive archive = ResourcePackArchive.getArchive(f);
+				if(archive != null)
+					resourcePacks.add(new ResourcePackJavaEdition(archive));
+				continue;
+			}
+			if(!f.isDirectory() || ResourcePackArchive.isMountFolder(f) || FileIndexSnapshot.isSnapshotFolder(f))
+				continue;
+			if(ResourcePackHytale.supportsResourcePack(f))
+				resourcePacks.add(new ResourcePackHytale(f));
+			else if(ResourcePackBedrockEdition.supportsResourcePack(f))
+				resourcePacks.add(new ResourcePackBedrockEdition(f));
+			else
+				resourcePacks.add(new ResourcePackJavaEdition(f));
+		}
+	}
+	
 	public static void setActiveResourcePackUUIDs(List<String> packs) {
 		List<ResourcePack> packs2 = new ArrayList<ResourcePack>();
 		for(String uuid : packs) {
@@ -185,6 +190,7 @@ public class ResourcePacks {
 			for(ResourcePack rp : packs)
 				System.out.println("  " + rp.getUUID());
 			ResourcePackBedrockEdition.reset();
+			MolangParser.clearCache();
 			activeResourcePacks.clear();
 			for(ResourcePack pack : packs) {
 				if(pack == null)
@@ -209,19 +215,7 @@ public class ResourcePacks {
 			
 			MCWorldExporter.getApp().getUI().getProgressBar().setText("Loading resource packs");
 			MCWorldExporter.getApp().getUI().getProgressBar().setProgress(0f);
-			int progressCounter = 0;
-			for(int i = activeResourcePacks.size()-1; i >= 0; --i) {
-				try {
-					activeResourcePacks.get(i).load();
-				}catch(Exception ex) {
-					hasLoadError = true;
-					System.out.println("Failed to load resource pack " + activeResourcePacks.get(i).getFolder().getName());
-					ex.printStackTrace();
-				}
-				progressCounter++;
-				MCWorldExporter.getApp().getUI().getProgressBar().setProgress(
-						((float) progressCounter) / ((float) activeResourcePacks.size()));
-			}
+			hasLoadError = loadResourcePacks(activeResourcePacks, true);
 			
 			synchronized(mutex) {
 				defaultColours.clear();
@@ -258,6 +252,66 @@ public class ResourcePacks {
 		}
 	}
 	
+	/**
+	 * Builds the file indices of the given resource packs and loads them.
+	 * Resource packs that can be loaded concurrently are loaded in parallel,
+	 * after which the other resource packs are loaded one after another
+	 * from the lowest to the highest priority.
+	 * Returns true if one or more of the resource packs failed to load.
+	 */
+	private static boolean loadResourcePacks(final List<ResourcePack> packs, final boolean showProgress) {
+		final AtomicBoolean hasLoadError = new AtomicBoolean(false);
+		final AtomicInteger progressCounter = new AtomicInteger(0);
+		final Set<ResourcePack> failedPacks = ConcurrentHashMap.newKeySet();
+		
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for(int i = packs.size()-1; i >= 0; --i) {
+			final ResourcePack pack = packs.get(i);
+			tasks.add(ForkJoinTask.adapt(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						pack.buildFileIndex();
+						if(!pack.canLoadConcurrently())
+							return;
+						pack.load();
+					}catch(Exception ex) {
+						hasLoadError.set(true);
+						failedPacks.add(pack);
+						System.out.println("Failed to load resource pack " + pack.getFolder().getName());
+						ex.printStackTrace();
+					}
+					if(showProgress)
+						updateLoadProgress(progressCounter.incrementAndGet(), packs.size());
+				}
+				
+			}));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		
+		for(int i = packs.size()-1; i >= 0; --i) {
+			ResourcePack pack = packs.get(i);
+			if(pack.canLoadConcurrently() || failedPacks.contains(pack))
+				continue;
+			try {
+				pack.load();
+			}catch(Exception ex) {
+				hasLoadError.set(true);
+				System.out.println("Failed to load resource pack " + pack.getFolder().getName());
+				ex.printStackTrace();
+			}
+			if(showProgress)
+				updateLoadProgress(progressCounter.incrementAndGet(), packs.size());
+		}
+		return hasLoadError.get();
+	}
+	
+	private static void updateLoadProgress(int progressCounter, int numPacks) {
+		MCWorldExporter.getApp().getUI().getProgressBar().setProgress(
+				((float) progressCounter) / ((float) numPacks));
+	}
+	
 	public static void doPostLoad() {
 		for(int i = activeResourcePacks.size()-1; i >= 0; --i) {
 			try {
@@ -367,7 +421,7 @@ public class ResourcePacks {
 		for(int i = 0; i < activeResourcePacks.size(); ++i) {
 			pack = activeResourcePacks.get(i);
 			File file = pack.getResource(resource, type, category, extension);
-			if(file != null && file.exists())
+			if(pack.exists(file))
 				return file;
 		}
 		return null;
@@ -407,7 +461,7 @@ public class ResourcePacks {
 			if(pack.getName().equals("base_resource_pack"))
 				continue;
 			File file = pack.getResource(resource, type, category, extension);
-			if(file != null && file.exists())
+			if(pack.exists(file))
 				return true;
 		}
 		return false;
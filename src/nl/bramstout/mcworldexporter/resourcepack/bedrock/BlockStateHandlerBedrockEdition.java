@@ -125,7 +125,7 @@ public class BlockStateHandlerBedrockEdition extends BlockStateHandler{
 		for(BlockStatePart part : parts) {
 			MolangContext molangContext = new MolangContext(molangQuery, new Random(
 					x + ((((long) y) & 0xFFFFFFFFl) << 32) + ((((long) y) & 0xFFFFFFFFl) << 16)));
-			if(!part.getCondition().eval(molangContext).asBoolean(molangContext)) {
+			if(!part.getCondition().evalBoolean(molangContext)) {
 				continue;
 			}
 			if(part.getGeometry() != null)
@@ -163,7 +163,7 @@ public class BlockStateHandlerBedrockEdition extends BlockStateHandler{
 		for(Entry<String, MolangExpression> entry : boneVisibility.entrySet()) {
 			MolangContext molangContext = new MolangContext(molangQuery, new Random(
 					x + ((((long) y) & 0xFFFFFFFFl) << 32) + ((((long) y) & 0xFFFFFFFFl) << 16)));
-			if(!entry.getValue().eval(molangContext).asBoolean(molangContext)) {
+			if(!entry.getValue().evalBoolean(molangContext)) {
 				// Hide this bone and thus the faces of this bone
 				ModelBone bone = null;
 				for(ModelBone bone2 : model.getBones()) {
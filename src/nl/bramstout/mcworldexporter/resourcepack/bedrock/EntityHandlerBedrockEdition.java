@@ -262,7 +262,7 @@ public class EntityHandlerBedrockEdition extends EntityHandler{
 		int renderControllerCounter = 0;
 		
 		for(Entry<String, MolangScript> renderControllerEntry : this.renderControllers.entrySet()) {
-			if(!renderControllerEntry.getValue().eval(molangContext).asBoolean(molangContext))
+			if(!renderControllerEntry.getValue().evalBoolean(molangContext))
 				continue;
 			RenderControllerBedrockEdition renderController = ResourcePackBedrockEdition.getRenderController(renderControllerEntry.getKey());
 			if(renderController == null)
@@ -359,10 +359,10 @@ public class RenderControllerBedrockEdition {
 				continue;
 			}
 			Color color = new Color();
-			color.set(tint.get(0).eval(context).asNumber(context), 
-					tint.get(1).eval(context).asNumber(context), 
-					tint.get(2).eval(context).asNumber(context), 
-					tint.get(3).eval(context).asNumber(context));
+			color.set(tint.get(0).evalNumber(context), 
+					tint.get(1).evalNumber(context), 
+					tint.get(2).evalNumber(context), 
+					tint.get(3).evalNumber(context));
 			res.add(color);
 		}
 		
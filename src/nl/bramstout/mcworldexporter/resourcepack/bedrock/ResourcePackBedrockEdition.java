@@ -802,14 +802,14 @@ public class ResourcePackBedrockEdition extends ResourcePack{
 			namespaced_name = "minecraft:" + namespaced_name;
 		String path = TranslationRegistry.FILE_PATH_MAPPING_BEDROCK.map(type + ";" + namespaced_name);
 		File file = new File(getFolder(), path + extension);
-		if(file.exists())
+		if(exists(file))
 			return file;
 		
 		String[] tokens = namespaced_name.split(":");
 		path = type + "/" + tokens[tokens.length - 1];
 		
 		file = new File(getFolder(), path + extension);
-		if(file.exists())
+		if(exists(file))
 			return file;
 		
 		// Try the same lookup again, but then remapping "block" to "blocks"
@@ -818,7 +818,7 @@ public class ResourcePackBedrockEdition extends ResourcePack{
 		path = type + "/" + tokens[tokens.length - 1];
 		
 		file = new File(getFolder(), path + extension);
-		if(file.exists())
+		if(exists(file))
 			return file;
 		
 		List<String> paths = terrain_textures.getOrDefault(name, null);
@@ -838,7 +838,7 @@ public class ResourcePackBedrockEdition extends ResourcePack{
 				}
 			}
 			file = new File(getFolder(), path + extension);
-			if(file.exists())
+			if(exists(file))
 				return file;
 		}
 		
@@ -892,13 +892,13 @@ public class ResourcePackBedrockEdition extends ResourcePack{
 	@Override
 	public File getTexture(String name) {
 		File texFile = getResource(name, "textures", "assets", ".exr");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name, "textures", "assets", ".tga");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name, "textures", "assets", ".png");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		return null;
 	}
@@ -80,6 +80,14 @@ public abstract class ConnectedTexture {
 		return true;
 	}
 	
+	/**
+	 * Returns true if this connected texture has constraints
+	 * that depend on the position or biome of the block.
+	 */
+	public boolean hasConstraints() {
+		return !blockConstraints.isEmpty();
+	}
+	
 	public boolean isOverlay() {
 		return false;
 	}
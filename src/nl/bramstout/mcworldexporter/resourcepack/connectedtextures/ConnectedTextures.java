@@ -36,11 +36,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import nl.bramstout.mcworldexporter.nbt.NbtTag;
 import nl.bramstout.mcworldexporter.nbt.NbtTagCompound;
 import nl.bramstout.mcworldexporter.resourcepack.Biome;
 import nl.bramstout.mcworldexporter.world.Block;
+import nl.bramstout.mcworldexporter.world.BlockRegistry;
 
 public class ConnectedTextures {
 	
@@ -89,9 +91,54 @@ public class ConnectedTextures {
 		}
 	}
 	
+	private static class CandidatesKey{
+		
+		private int blockId;
+		private String texture;
+		
+		public CandidatesKey(int blockId, String texture) {
+			this.blockId = blockId;
+			this.texture = texture;
+		}
+		
+		@Override
+		public int hashCode() {
+			return blockId * 31 + texture.hashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof CandidatesKey))
+				return false;
+			return ((CandidatesKey) obj).blockId == blockId && ((CandidatesKey) obj).texture.equals(texture);
+		}
+		
+	}
+	
+	/**
+	 * The connected textures that could apply to a block state and texture,
+	 * in the order that they need to be checked in. The block state
+	 * constraints only depend on the block state, so they are checked
+	 * when the candidates are created. If none of the candidates have
+	 * constraints on the position or biome, then the result is the same
+	 * for every face and so it's resolved straight away.
+	 * Block ids get reassigned when the block registry is cleared,
+	 * so the candidates are only valid for the change counter
+	 * of the block registry that they were created with.
+	 */
+	private static class Candidates{
+		
+		public int blockRegistryChangeCounter;
+		public ConnectedTexture[] connectedTextures;
+		public boolean isResolved;
+		public Entry<ConnectedTexture, List<ConnectedTexture>> resolved;
+		
+	}
+	
 	private static Map<String, List<ConnectedTexture>> connectedTexturesByTile = new HashMap<String, List<ConnectedTexture>>();
 	private static Map<String, Map<BlockStateConstraint, List<ConnectedTexture>>> connectedTexturesByBlock = 
 			new HashMap<String, Map<BlockStateConstraint, List<ConnectedTexture>>>();
+	private static Map<CandidatesKey, Candidates> candidatesCache = new ConcurrentHashMap<CandidatesKey, Candidates>();
 	
 	private static ConnectedTexturesLoader[] loaders = new ConnectedTexturesLoader[] {
 		new OptifineLoader()	
@@ -99,8 +146,10 @@ public class ConnectedTextures {
 	public static void load() {
 		connectedTexturesByTile.clear();
 		connectedTexturesByBlock.clear();
+		candidatesCache.clear();
 		for(ConnectedTexturesLoader loader : loaders)
 			loader.load();
+		candidatesCache.clear();
 	}
 	
 	public static void registerConnectedTextureByTile(String tile, ConnectedTexture connectedTexture) {
@@ -110,6 +159,7 @@ public class ConnectedTextures {
 			connectedTexturesByTile.put(tile, connectedTextures);
 		}
 		connectedTextures.add(connectedTexture);
+		candidatesCache.clear();
 	}
 	
 	public static void registerConnectedTextureByBlock(String block, BlockStateConstraint constraint, ConnectedTexture connectedTexture) {
@@ -124,10 +174,53 @@ public class ConnectedTextures {
 			connectedTextures.put(constraint, connectedTextures2);
 		}
 		connectedTextures2.add(connectedTexture);
+		candidatesCache.clear();
 	}
 	
 	public static Entry<ConnectedTexture, List<ConnectedTexture>> getConnectedTexture(Block block, int x, int y, int z, Biome biome, String texture) {
-		List<ConnectedTexture> connectedTextures = getConnectedTextures(block, x, y, z, biome, texture);
+		CandidatesKey key = new CandidatesKey(block.getId(), texture);
+		Candidates candidates = candidatesCache.get(key);
+		if(candidates == null || candidates.blockRegistryChangeCounter != BlockRegistry.getChangeCounter()) {
+			candidates = getCandidates(block, texture);
+			candidatesCache.put(key, candidates);
+		}
+		if(candidates.isResolved)
+			return candidates.resolved;
+		return resolve(getConnectedTextures(candidates.connectedTextures, block, x, y, z, biome));
+	}
+	
+	private static Candidates getCandidates(Block block, String texture) {
+		int blockRegistryChangeCounter = BlockRegistry.getChangeCounter();
+		Map<BlockStateConstraint, List<ConnectedTexture>> byBlock = connectedTexturesByBlock.get(block.getName());
+		List<ConnectedTexture> byTile = connectedTexturesByTile.get(texture);
+		
+		List<ConnectedTexture> connectedTextures = new ArrayList<ConnectedTexture>();
+		if(byBlock != null) {
+			for(Entry<BlockStateConstraint, List<ConnectedTexture>> texs : byBlock.entrySet()) {
+				if(!texs.getKey().meetsConstraint(block.getProperties()))
+					continue;
+				connectedTextures.addAll(texs.getValue());
+			}
+		}
+		if(byTile != null)
+			connectedTextures.addAll(byTile);
+		
+		Candidates candidates = new Candidates();
+		candidates.blockRegistryChangeCounter = blockRegistryChangeCounter;
+		candidates.connectedTextures = connectedTextures.toArray(new ConnectedTexture[connectedTextures.size()]);
+		candidates.isResolved = true;
+		for(ConnectedTexture connectedTexture : connectedTextures) {
+			if(connectedTexture.hasConstraints()) {
+				candidates.isResolved = false;
+				break;
+			}
+		}
+		if(candidates.isResolved)
+			candidates.resolved = resolve(getConnectedTextures(candidates.connectedTextures, block, 0, 0, 0, null));
+		return candidates;
+	}
+	
+	private static Entry<ConnectedTexture, List<ConnectedTexture>> resolve(List<ConnectedTexture> connectedTextures) {
 		if(connectedTextures == null)
 			return null;
 		ConnectedTexture main = null;
@@ -167,43 +260,22 @@ public class ConnectedTextures {
 		};
 	}
 	
-	private static List<ConnectedTexture> getConnectedTextures(Block block, int x, int y, int z, Biome biome, String texture) {
-		Map<BlockStateConstraint, List<ConnectedTexture>> byBlock = connectedTexturesByBlock.get(block.getName());
-		List<ConnectedTexture> byTile = connectedTexturesByTile.get(texture);
-		
-		if(byBlock == null && byTile == null)
+	private static List<ConnectedTexture> getConnectedTextures(ConnectedTexture[] candidates, Block block, 
+																int x, int y, int z, Biome biome) {
+		if(candidates.length == 0)
 			return null;
 		
 		List<ConnectedTexture> res = new ArrayList<ConnectedTexture>();
 		int maxPriority = 0;
-		if(byBlock != null) {
-			for(Entry<BlockStateConstraint, List<ConnectedTexture>> texs : byBlock.entrySet()) {
-				if(!texs.getKey().meetsConstraint(block.getProperties()))
-					continue;
-				for(ConnectedTexture tex : texs.getValue()) {
-					if(!tex.testConstraints(block, x, y, z, biome))
-						continue;
-					if(tex.getPriority() == maxPriority)
-						res.add(tex);
-					else if(tex.getPriority() > maxPriority) {
-						maxPriority = tex.getPriority();
-						res.clear();
-						res.add(tex);
-					}
-				}
-			}
-		}
-		if(byTile != null) {
-			for(ConnectedTexture tex : byTile) {
-				if(!tex.testConstraints(block, x, y, z, biome))
-					continue;
-				if(tex.getPriority() == maxPriority)
-					res.add(tex);
-				else if(tex.getPriority() > maxPriority) {
-					maxPriority = tex.getPriority();
-					res.clear();
-					res.add(tex);
-				}
+		for(ConnectedTexture tex : candidates) {
+			if(!tex.testConstraints(block, x, y, z, biome))
+				continue;
+			if(tex.getPriority() == maxPriority)
+				res.add(tex);
+			else if(tex.getPriority() > maxPriority) {
+				maxPriority = tex.getPriority();
+				res.clear();
+				res.add(tex);
 			}
 		}
 		if(res.size() <= 0)
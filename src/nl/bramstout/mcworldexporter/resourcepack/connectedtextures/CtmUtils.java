@@ -43,6 +43,7 @@ import org.iq80.leveldb.shaded.guava.io.Files;
 import com.google.gson.JsonObject;
 
 import nl.bramstout.mcworldexporter.Json;
+import nl.bramstout.mcworldexporter.image.ImageCache;
 import nl.bramstout.mcworldexporter.image.ImageReader;
 import nl.bramstout.mcworldexporter.resourcepack.ResourcePack;
 import nl.bramstout.mcworldexporter.resourcepack.ResourcePacks;
@@ -335,12 +336,16 @@ public class CtmUtils {
 			fullTileFile = resourcePack.getResource(fullTileName, "textures", "assets", ".png");
 			try {
 				ImageIO.write(fullTileImg, "PNG", fullTileFile);
+				ImageCache.invalidate(fullTileFile);
+				resourcePack.addToFileIndex(fullTileFile);
 			}catch(Exception ex) {
 				ex.printStackTrace();
 			}
 			if(images[0].mcMetaFile.exists()) {
 				try {
-					Files.copy(images[0].mcMetaFile, new File(fullTileFile.getPath() + ".mcmeta"));
+					File fullTileMcMetaFile = new File(fullTileFile.getPath() + ".mcmeta");
+					Files.copy(images[0].mcMetaFile, fullTileMcMetaFile);
+					resourcePack.addToFileIndex(fullTileMcMetaFile);
 				} catch (Exception e) {
 					e.printStackTrace();
 				}
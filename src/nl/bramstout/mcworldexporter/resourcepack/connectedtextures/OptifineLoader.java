@@ -64,10 +64,10 @@ public class OptifineLoader extends ConnectedTexturesLoader{
 			
 			for(File rootFolder : ((ResourcePackJavaEdition) resourcePacks.get(i)).getFolders()) {
 				File assetsFolder = new File(rootFolder, "assets");
-				if(!assetsFolder.exists() || !assetsFolder.isDirectory())
+				if(!resourcePacks.get(i).isDirectory(assetsFolder))
 					continue;
 				
-				for(File namespace : assetsFolder.listFiles())
+				for(File namespace : resourcePacks.get(i).listFiles(assetsFolder))
 					processNamespace(namespace, resourcePacks.get(i));
 			}
 		}
@@ -75,17 +75,17 @@ public class OptifineLoader extends ConnectedTexturesLoader{
 	
 	private void processNamespace(File namespaceFolder, ResourcePack resourcePack) {
 		File optifineCTMFolder = new File(namespaceFolder, "optifine/ctm");
-		if(!optifineCTMFolder.exists() || !optifineCTMFolder.isDirectory())
+		if(!resourcePack.isDirectory(optifineCTMFolder))
 			return;
 		
 		processFolder(optifineCTMFolder, "optifine;" + namespaceFolder.getName(), "ctm/", resourcePack);
 	}
 	
 	private void processFolder(File folder, String namespace, String parent, ResourcePack resourcePack) {
-		for(File f : folder.listFiles()) {
-			if(f.isDirectory()) {
+		for(File f : resourcePack.listFiles(folder)) {
+			if(resourcePack.isDirectory(f)) {
 				processFolder(f, namespace, parent + f.getName() + "/", resourcePack);
-			}else if(f.isFile() && f.getName().endsWith(".properties")){
+			}else if(f.getName().endsWith(".properties") && resourcePack.isFile(f)){
 				processFile(f, folder, namespace, parent, resourcePack);
 			}
 		}
@@ -121,6 +121,11 @@ public class ResourcePackHytale extends ResourcePack{
 		return reversedRootFolders;
 	}
 
+	@Override
+	public boolean canLoadConcurrently() {
+		return true;
+	}
+	
 	@Override
 	public void load() {
 		AsyncGroup asyncGroup = new AsyncGroup();
@@ -467,27 +472,27 @@ public class ResourcePackHytale extends ResourcePack{
 			name2 = name2.substring(0, lastDot-1);
 		
 		File texFile = getResource(name2, "", "Common", ".exr");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name2, "", "Common", ".tga");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name2, "", "Common", ".png");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		
 		texFile = getResource(name, "", "Common", ".exr");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name, "", "Common", ".tga");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name, "", "Common", ".png");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		
 		texFile = getResource(name, "", "Common", "");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		
 		return null;
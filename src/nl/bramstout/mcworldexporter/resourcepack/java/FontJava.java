@@ -183,7 +183,7 @@ public class FontJava extends Font{
 		for(ResourcePack pack : ResourcePacks.getActiveResourcePacks()) {
 			File file = pack.getResource(id, "font", "assets", ".json");
 			//File file = new File(pack.getFolder(), path);
-			if(file.exists()) {
+			if(pack.exists(file)) {
 				try {
 					JsonObject refData = Json.read(file).getAsJsonObject();
 					FontJava refFont = new FontJava(refData);
@@ -63,6 +63,7 @@ import nl.bramstout.mcworldexporter.resourcepack.MCMeta;
 import nl.bramstout.mcworldexporter.resourcepack.ModelHandler;
 import nl.bramstout.mcworldexporter.resourcepack.PaintingVariant;
 import nl.bramstout.mcworldexporter.resourcepack.ResourcePack;
+import nl.bramstout.mcworldexporter.resourcepack.ResourcePackArchive;
 import nl.bramstout.mcworldexporter.resourcepack.TextureGroup;
 import nl.bramstout.mcworldexporter.translation.TranslationRegistry;
 
@@ -77,7 +78,18 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	private Map<String, Map<String, String>> localisations;
 	
 	public ResourcePackJavaEdition(File folder) {
-		super(folder.getName(), folder.getName(), folder);
+		this(folder.getName(), folder, null);
+	}
+	
+	/**
+	 * Creates a resource pack that is read from a zip or jar file.
+	 */
+	public ResourcePackJavaEdition(ResourcePackArchive archive) {
+		this(archive.getArchiveFile().getName(), archive.getMountFolder(), archive);
+	}
+	
+	private ResourcePackJavaEdition(String name, File folder, ResourcePackArchive archive) {
+		super(name, name, folder, archive);
 		overlays = new ArrayList<String>();
 		rootFolders = new ArrayList<File>();
 		rootFolders.add(folder);
@@ -88,6 +100,11 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		localisations = new HashMap<String, Map<String, String>>();
 	}
 
+	@Override
+	public boolean canLoadConcurrently() {
+		return true;
+	}
+	
 	@Override
 	public void load() {
 		textureFilesCache.clear();
@@ -99,7 +116,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		localisations.clear();
 		
 		File packMcMetaFile = new File(getFolder(), "pack.mcmeta");
-		if(packMcMetaFile.exists()) {
+		if(exists(packMcMetaFile)) {
 			try {
 				JsonObject obj = Json.read(packMcMetaFile).getAsJsonObject();
 				if(obj.has("overlays")) {
@@ -114,7 +131,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 								if(entry.has("directory")) {
 									String directory = entry.get("directory").getAsString();
 									File directoryFolder = new File(getFolder(), directory);
-									if(directoryFolder.exists() && directoryFolder.isDirectory()) {
+									if(isDirectory(directoryFolder)) {
 										this.overlays.add(directory);
 										this.rootFolders.add(directoryFolder);
 									}
@@ -130,31 +147,38 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		reversedRootFolders = Util.reverseList(rootFolders);
 		
 		for(File rootFolder : getFolders()) {
-			File assetsFolder = new File(rootFolder, "assets");
-			if(assetsFolder.exists() && assetsFolder.isDirectory()) {
-				for(File namespace : assetsFolder.listFiles()) {
-					parseAssetsNamespace(namespace, namespace.getName());
-				}
-			}
-			
 			File dataFolder = new File(rootFolder, "data");
-			if(dataFolder.exists() && dataFolder.isDirectory()) {
-				for(File namespace : dataFolder.listFiles()) {
+			if(isDirectory(dataFolder)) {
+				for(File namespace : listFiles(dataFolder)) {
 					parseDataNamespace(namespace, namespace.getName());
 				}
 			}
 		}
 	}
 	
+	@Override
+	public void postLoad() {
+		// Fonts look up their textures in all active resource packs,
+		// so they can only be parsed once all resource packs are loaded.
+		for(File rootFolder : getFolders()) {
+			File assetsFolder = new File(rootFolder, "assets");
+			if(isDirectory(assetsFolder)) {
+				for(File namespace : listFiles(assetsFolder)) {
+					parseAssetsNamespace(namespace, namespace.getName());
+				}
+			}
+		}
+	}
+	
 	private void parseAssetsNamespace(File folder, String namespace) {
 		File fontFolder = new File(folder, "font");
-		if(fontFolder.exists() && fontFolder.isDirectory())
+		if(isDirectory(fontFolder))
 			parseFonts(fontFolder, namespace);
 	}
 	
 	private void parseFonts(File folder, String namespace) {
-		for(File f : folder.listFiles()) {
-			if(!f.isFile())
+		for(File f : listFiles(folder)) {
+			if(!isFile(f))
 				continue;
 			if(!f.getName().endsWith(".json"))
 				continue;
@@ -170,16 +194,16 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	
 	private void parseDataNamespace(File folder, String namespace) {
 		File paintingVariantFolder = new File(folder, "painting_variant");
-		if(paintingVariantFolder.exists() && paintingVariantFolder.isDirectory())
+		if(isDirectory(paintingVariantFolder))
 			parsePaintingVariants(paintingVariantFolder, namespace);
 		
 		File biomeFolder = new File(folder, "worldgen/biome");
-		if(biomeFolder.exists() && biomeFolder.isDirectory())
+		if(isDirectory(biomeFolder))
 			parseBiomes(biomeFolder, namespace, "");
 	}
 	
 	private void parsePaintingVariants(File folder, String namespace) {
-		for(File f : folder.listFiles()) {
+		for(File f : listFiles(folder)) {
 			String id = namespace + ":" + f.getName().replace(".json", "");
 			try {
 				JsonObject obj = Json.read(f).getAsJsonObject();
@@ -201,10 +225,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	}
 	
 	private void parseBiomes(File folder, String namespace, String parent) {
-		for(File f : folder.listFiles()) {
-			if(f.isDirectory()) {
+		for(File f : listFiles(folder)) {
+			if(isDirectory(f)) {
 				parseBiomes(f, namespace, parent + f.getName() + "/");
-			}else if(f.isFile()) {
+			}else if(isFile(f)) {
 				String id = namespace + ":" + parent + f.getName().replace(".json", "");
 				
 				try {
@@ -254,7 +278,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		File file = null;
 		for(File rootFolder : getFolders()) {
 			File file2 = new File(rootFolder, subPath);
-			if(file == null || file2.exists())
+			if(file == null || exists(file2))
 				file = file2;
 		}
 		return file;
@@ -279,10 +303,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	
 	private File getTextureImpl(String name) {
 		File texFile = getResource(name, "textures", "assets", ".exr");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		texFile = getResource(name, "textures", "assets", ".png");
-		if(texFile.exists())
+		if(exists(texFile))
 			return texFile;
 		return null;
 	}
@@ -290,7 +314,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	@Override
 	public BlockStateHandler getBlockStateHandler(String name) {
 		File blockStateFile = getResource(name, "blockstates", "assets", ".json");
-		if(blockStateFile.exists()) {
+		if(exists(blockStateFile)) {
 			try {
 				JsonObject data = Json.read(blockStateFile).getAsJsonObject();
 				return new BlockStateHandlerJavaEdition(name, data);
@@ -304,7 +328,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		if(aliases != null) {
 			for(int i = 0; i < aliases.size(); ++i) {
 				blockStateFile = getResource(aliases.get(i), "blockstates", "assets", ".json");
-				if(blockStateFile.exists()) {
+				if(exists(blockStateFile)) {
 					try {
 						JsonObject data = Json.read(blockStateFile).getAsJsonObject();
 						return new BlockStateHandlerJavaEdition(name, data);
@@ -320,7 +344,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	@Override
 	public ModelHandler getModelHandler(String name) {
 		File modelFile = getResource(name, "models", "assets", ".obj");
-		if(modelFile.exists()) {
+		if(exists(modelFile)) {
 			try {
 				return new ModelHandlerObj(modelFile);
 			}catch(Exception ex) {
@@ -328,7 +352,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 			}
 		}
 		modelFile = getResource(name, "models", "assets", ".json");
-		if(modelFile.exists()) {
+		if(exists(modelFile)) {
 			try {
 				JsonObject data = Json.read(modelFile).getAsJsonObject();
 				return new ModelHandlerJavaEdition(data);
@@ -366,7 +390,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		}
 		
 		File itemHandlerFile = getResource(name, "items", "assets", ".json");
-		if(itemHandlerFile.exists()) {
+		if(exists(itemHandlerFile)) {
 			try {
 				JsonObject jsonData = Json.read(itemHandlerFile).getAsJsonObject();
 				return new ItemHandlerJavaEdition(jsonData);
@@ -387,7 +411,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 
 		name = namespace + ":item/" + name;
 		itemHandlerFile = getResource(name, "models", "assets", ".json");
-		if(itemHandlerFile.exists()) {
+		if(exists(itemHandlerFile)) {
 			try {
 				JsonObject jsonData = Json.read(itemHandlerFile).getAsJsonObject();
 				// If this model file has overrides, then see it as an item handler.
@@ -404,7 +428,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		}else {
 			name = name.replace(":item/", ":block/");
 			itemHandlerFile = getResource(name, "models", "assets", ".json");
-			if(itemHandlerFile.exists()) {
+			if(exists(itemHandlerFile)) {
 				try {
 					JsonObject jsonData = Json.read(itemHandlerFile).getAsJsonObject();
 					if(jsonData.has("overrides") || getName().equals("base_resource_pack")) {
@@ -429,7 +453,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	@Override
 	public Biome getBiome(String name, int id) {
 		File biomeFile = getResource(name, "worldgen/biome", "data", ".json");
-		if(!biomeFile.exists())
+		if(!exists(biomeFile))
 			return null;
 		
 		try {
@@ -445,10 +469,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		AsyncGroup asyncGroup = new AsyncGroup();
 		for(File rootFolder : getFolders()) {
 			File dataFolder = new File(rootFolder, "/data");
-			if(!dataFolder.exists())
+			if(!exists(dataFolder))
 				continue;
-			for(File namespace : dataFolder.listFiles()) {
-				if(!namespace.isDirectory())
+			for(File namespace : listFiles(dataFolder)) {
+				if(!isDirectory(namespace))
 					continue;
 				processNamespace(namespace.getName(), namespace, tagToResourceIdentifiers, asyncGroup);
 			}
@@ -459,19 +483,19 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	private void processNamespace(String namespace, File namespaceFolder, 
 									Map<String, List<String>> tagToResourceIdentifiers, AsyncGroup asyncGroup) {
 		File tagsFolder = new File(namespaceFolder, "tags");
-		if(!tagsFolder.exists())
+		if(!exists(tagsFolder))
 			return;
 		processFolder(namespace, "", tagsFolder, tagToResourceIdentifiers, asyncGroup);
 	}
 	
 	private void processFolder(String namespace, String parent, File folder, 
 									Map<String, List<String>> tagToResourceIdentifiers, AsyncGroup asyncGroup) {
-		for(File file : folder.listFiles()) {
-			if(file.isDirectory()) {
+		for(File file : listFiles(folder)) {
+			if(isDirectory(file)) {
 				asyncGroup.runTask(()->{
 					processFolder(namespace, parent + file.getName() + "/", file, tagToResourceIdentifiers, asyncGroup);
 				});
-			}else if(file.isFile()) {
+			}else if(isFile(file)) {
 				if(!file.getName().endsWith(".json"))
 					continue;
 				asyncGroup.runTask(()->{
@@ -541,14 +565,14 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	public void parseBannerPatterns(Map<String, String> patternMap) {
 		for(File rootFolder : getFolders()) {
 			File dataFolder = new File(rootFolder, "data");
-			if(!dataFolder.exists() || !dataFolder.isDirectory())
+			if(!isDirectory(dataFolder))
 				continue;
-			for(File namespace : dataFolder.listFiles()) {
+			for(File namespace : listFiles(dataFolder)) {
 				File bannerPatternFolder = new File(namespace, "banner_pattern");
-				if(!bannerPatternFolder.exists() || !bannerPatternFolder.isDirectory())
+				if(!isDirectory(bannerPatternFolder))
 					continue;
-				for(File bannerPattern : bannerPatternFolder.listFiles()) {
-					if(!bannerPattern.isFile() || !bannerPattern.getName().endsWith(".json"))
+				for(File bannerPattern : listFiles(bannerPatternFolder)) {
+					if(!isFile(bannerPattern) || !bannerPattern.getName().endsWith(".json"))
 						continue;
 					try {
 						JsonObject data = Json.read(bannerPattern).getAsJsonObject();
@@ -591,7 +615,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 			return null;
 		File mcmetaFile = new File(texFile.getPath() + ".mcmeta");
 		JsonObject data = null;
-		if(mcmetaFile.exists()) {
+		if(exists(mcmetaFile)) {
 			try {
 				data = Json.read(mcmetaFile).getAsJsonObject();
 			}catch(Exception ex) {
@@ -626,9 +650,9 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		Set<String> encounteredResourceIds = new HashSet<String>();
 		for(File rootFolder : getFoldersReversed()) {
 			File assetsFolder = new File(rootFolder, "assets");
-			if(assetsFolder.exists() && assetsFolder.isDirectory()) {
-				for(File namespaceFolder : assetsFolder.listFiles()) {
-					if(namespaceFolder.isDirectory()) {
+			if(isDirectory(assetsFolder)) {
+				for(File namespaceFolder : listFiles(assetsFolder)) {
+					if(isDirectory(namespaceFolder)) {
 						getTexturesInNamespace(out, groups, namespaceFolder, encounteredResourceIds);
 					}
 				}
@@ -639,14 +663,14 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	private void getTexturesInNamespace(List<Entry<String, File>> out, TextureGroup[] groups, File namespaceFolder,
 										Set<String> encounteredResourceIds) {
 		File texturesFolder = new File(namespaceFolder, "textures");
-		if(texturesFolder.exists() && texturesFolder.isDirectory()) {
+		if(isDirectory(texturesFolder)) {
 			List<String> folderNames = new ArrayList<String>();
 			for(TextureGroup group : groups)
 				getFoldersForTextureGroup(folderNames, group);
 			
 			for(int i = 0; i < folderNames.size(); ++i) {
 				File subFolder = new File(texturesFolder, folderNames.get(i));
-				if(subFolder.exists() && subFolder.isDirectory()) {
+				if(isDirectory(subFolder)) {
 					getTexturesInFolder(out, subFolder, namespaceFolder.getName() + ":" + subFolder.getName() + "/", 
 										encounteredResourceIds);
 				}
@@ -662,7 +686,7 @@ public class ResourcePackJavaEdition extends ResourcePack{
 		}
 		if(hasBlocksGroup) {
 			File optifineCTMFolder = new File(namespaceFolder, "optifine/ctm");
-			if(optifineCTMFolder.isDirectory() && optifineCTMFolder.isDirectory()) {
+			if(isDirectory(optifineCTMFolder)) {
 				getTexturesInFolder(out, optifineCTMFolder, "optifine;" + namespaceFolder.getName() + ":ctm/", 
 									encounteredResourceIds);
 			}
@@ -671,10 +695,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	
 	private void getTexturesInFolder(List<Entry<String, File>> out, File folder, String parent, 
 										Set<String> encounteredResourceIds) {
-		for(File file : folder.listFiles()) {
-			if(file.isDirectory()) {
+		for(File file : listFiles(folder)) {
+			if(isDirectory(file)) {
 				getTexturesInFolder(out, file, parent + file.getName() + "/", encounteredResourceIds);
-			}else if(file.isFile()) {
+			}else if(isFile(file)) {
 				int dotIndex = file.getName().lastIndexOf((int) '.');
 				if(dotIndex < 0)
 					continue;
@@ -730,14 +754,14 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	public void getColorMaps(Set<String> colorMaps) {
 		for(File folder : getFolders()) {
 			File assetsFolder = new File(folder, "assets");
-			if(!assetsFolder.exists() || !assetsFolder.isDirectory())
+			if(!isDirectory(assetsFolder))
 				continue;
-			for(File namespace : assetsFolder.listFiles()) {
-				if(!namespace.isDirectory())
+			for(File namespace : listFiles(assetsFolder)) {
+				if(!isDirectory(namespace))
 					continue;
 				
 				File colormapFolder = new File(namespace, "textures/colormap");
-				if(!colormapFolder.exists() || !colormapFolder.isDirectory())
+				if(!isDirectory(colormapFolder))
 					continue;
 				
 				findColorMapsInFolder(colormapFolder, namespace.getName() + ":", colorMaps);
@@ -746,10 +770,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	}
 	
 	private void findColorMapsInFolder(File folder, String parent, Set<String> colorMaps) {
-		for(File f : folder.listFiles()) {
-			if(f.isDirectory()) {
+		for(File f : listFiles(folder)) {
+			if(isDirectory(f)) {
 				findColorMapsInFolder(f, parent + f.getName() + "/", colorMaps);
-			}else if(f.isFile()) {
+			}else if(isFile(f)) {
 				if(f.getName().endsWith(".png")) {
 					colorMaps.add(parent + f.getName().substring(0, f.getName().length()-4));
 				}
@@ -760,10 +784,10 @@ public class ResourcePackJavaEdition extends ResourcePack{
 	private void readLocalisation(String language, Map<String, String> localisation) {
 		for(File f : this.rootFolders) {
 			File assetsFolder = new File(f, "assets");
-			if(assetsFolder.exists()) {
-				for(File namespace : assetsFolder.listFiles()) {
+			if(exists(assetsFolder)) {
+				for(File namespace : listFiles(assetsFolder)) {
 					File languageFile = new File(namespace, "lang/" + language + ".json");
-					if(languageFile.exists()) {
+					if(exists(languageFile)) {
 						JsonElement el = Json.read(languageFile);
 						if(el != null && el.isJsonObject()) {
 							for(Entry<String, JsonElement> entry : el.getAsJsonObject().entrySet()) {
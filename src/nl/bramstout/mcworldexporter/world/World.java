@@ -42,6 +42,7 @@ import javax.swing.SwingUtilities;
 import nl.bramstout.mcworldexporter.ExportBounds;
 import nl.bramstout.mcworldexporter.MCWorldExporter;
 import nl.bramstout.mcworldexporter.entity.Entity;
+import nl.bramstout.mcworldexporter.entity.EntitySpatialGrid;
 import nl.bramstout.mcworldexporter.export.IndexCache;
 import nl.bramstout.mcworldexporter.launcher.Launcher;
 import nl.bramstout.mcworldexporter.model.BlockStateRegistry;
@@ -68,6 +69,7 @@ public abstract class World {
 	protected Launcher launcher;
 	
 	protected boolean paused;
+	private volatile EntitySpatialGrid entityGrid;
 
 	public World(File worldDir, String name, Launcher launcher) {
 		this.worldDir = worldDir;
@@ -421,6 +423,32 @@ public abstract class World {
 		return getEntitiesInRegion(bounds.getMinX(), bounds.getMinZ(), bounds.getMaxX(), bounds.getMaxZ());
 	}
 	
+	/**
+	 * Clears out and fills it with the entities around the given position.
+	 * While entities are being simulated, this uses the entity grid and only
+	 * gives back entities roughly within range. Otherwise, it gives back
+	 * all entities in the chunks that overlap with the range.
+	 * Either way, callers still need to check the actual distance.
+	 */
+	public void getEntitiesInRange(float x, float y, float z, float horizontalRange, float verticalRange, List<Entity> out) {
+		out.clear();
+		EntitySpatialGrid grid = entityGrid;
+		if(grid != null) {
+			grid.getEntitiesInRange(x, y, z, horizontalRange, verticalRange, out);
+			return;
+		}
+		for(List<Entity> entities : getEntitiesInRange((int) x, (int) z, (int) horizontalRange))
+			out.addAll(entities);
+	}
+	
+	/**
+	 * Sets the grid to use for entity queries during a simulation.
+	 * Set it to null when the simulation is done.
+	 */
+	public void setEntityGrid(EntitySpatialGrid entityGrid) {
+		this.entityGrid = entityGrid;
+	}
+	
 	private static Set<String> handledErrors = new HashSet<String>();
 	
 	public static void handleError(Exception ex) {
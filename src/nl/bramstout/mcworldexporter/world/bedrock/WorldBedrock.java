@@ -57,7 +57,11 @@ import nl.bramstout.mcworldexporter.world.World;
 public class WorldBedrock extends World{
 
 	private AtomicInteger regionId;
-	private IndexCache regionIdCache;
+	/**
+	 * It's read without a lock, so it's never modified after
+	 * being assigned. Instead, a modified copy is assigned.
+	 */
+	private volatile IndexCache regionIdCache;
 	private Object regionMutex;
 	private DB worldDB;
 	private Object dbMutex;
@@ -104,7 +108,7 @@ public class WorldBedrock extends World{
 				}
 			}
 			regions = null;
-			regionIdCache.clear();
+			regionIdCache = new IndexCache();
 			regionId.set(0);
 		}
 		synchronized(dbMutex) {
@@ -274,10 +278,13 @@ public class WorldBedrock extends World{
 					return regions[id];
 				
 				id = regionId.getAndIncrement();
-				regionIdCache.put((Integer.toUnsignedLong(chunkX) << 32) | Integer.toUnsignedLong(chunkZ), id);
 				if(id >= regions.length)
 					regions = Arrays.copyOf(regions, regions.length + 16);
 				regions[id] = new RegionBedrock(this, new File(worldDir, "db"), chunkX, chunkZ, getCurrentDimensionId());
+				
+				IndexCache newRegionIdCache = new IndexCache(regionIdCache);
+				newRegionIdCache.put((Integer.toUnsignedLong(chunkX) << 32) | Integer.toUnsignedLong(chunkZ), id);
+				regionIdCache = newRegionIdCache;
 				return regions[id];
 			}
 		}